@@ -0,0 +1,37 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.orm.Record;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record.find 查询h2内存库 主要是BaseBuilder.build把ResultSet映射为Record
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseBuilderBenchmark {
+
+  @Param({"10", "1000"})
+  public int rows;
+
+  private Record record;
+  private String sql;
+
+  @Setup
+  public void setup() throws Exception {
+    UserTable.create(rows);
+    record = UserTable.record();
+    sql = "SELECT * FROM " + UserTable.TABLE_NAME;
+  }
+
+  @Benchmark
+  public List<Record> build() {
+    return record.find(sql);
+  }
+}
@@ -0,0 +1,89 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Headers;
+import cn.dreampie.route.core.Params;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.Route;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteMatch;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * resource方法的调用 原来RouteInvocation中每次判断参数类型再Method.invoke 和RouteInvoker对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+  private Route route;
+  private RouteMatch routeMatch;
+  private InvokerResource resource;
+
+  @Setup
+  public void setup() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(InvokerResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    route = routeBuilder.getRouteTree("GET").find("/invokers/hello", new HashMap<String, String>());
+    HttpServletRequest servletRequest = new MockRequest("GET", "/invokers/hello").get();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    HttpResponse response = new HttpResponse(new MockResponse().discard().get(), servletRequest);
+    Params params = new Params().set("name", "resty").set("age", 3);
+    routeMatch = new RouteMatch(route.getPathPattern(), "/invokers/hello", "", params, request, response);
+    resource = new InvokerResource();
+  }
+
+  @Benchmark
+  public Object reflect() throws Exception {
+    Method method = route.getMethod();
+    method.setAccessible(true);
+    List<Class<?>> allParamTypes = route.getAllParamTypes();
+    List<String> allParamNames = route.getAllParamNames();
+    Object[] args = new Object[allParamNames.size()];
+    int i = 0;
+    for (String name : allParamNames) {
+      if (HttpRequest.class.isAssignableFrom(allParamTypes.get(i))) {
+        args[i++] = routeMatch.getRequest();
+      } else if (HttpResponse.class.isAssignableFrom(allParamTypes.get(i))) {
+        args[i++] = routeMatch.getResponse();
+      } else if (Headers.class.isAssignableFrom(allParamTypes.get(i))) {
+        args[i++] = routeMatch.getHeaders();
+      } else if (Params.class.isAssignableFrom(allParamTypes.get(i))) {
+        args[i++] = routeMatch.getParams();
+      } else {
+        args[i++] = routeMatch.getParams().get(name);
+      }
+    }
+    return method.invoke(resource, args);
+  }
+
+  @Benchmark
+  public Object invoker() throws Exception {
+    return route.getInvoker().invoke(resource, routeMatch);
+  }
+
+  @API("/invokers")
+  public static class InvokerResource extends Resource {
+    @GET("/hello")
+    public String hello(String name, int age, HttpRequest request, Params params) {
+      return name + age + params.get("missing", "") + (request != null ? "/ok" : "");
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.orm.Record;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import cn.dreampie.route.render.JsonRender;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonRender渲染Record列表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRenderBenchmark {
+
+  @Param({"10", "1000"})
+  public int rows;
+
+  private List<Record> records;
+  private JsonRender jsonRender;
+  private HttpServletRequest servletRequest;
+  private HttpServletResponse servletResponse;
+
+  @Setup
+  public void setup() throws Exception {
+    UserTable.create(rows);
+    records = UserTable.record().find("SELECT * FROM " + UserTable.TABLE_NAME);
+    jsonRender = new JsonRender();
+    servletRequest = new MockRequest("GET", "/users").get();
+    servletResponse = new MockResponse().discard().get();
+  }
+
+  @Benchmark
+  public void render() {
+    jsonRender.render(null, new HttpResponse(servletResponse, servletRequest), records);
+  }
+}
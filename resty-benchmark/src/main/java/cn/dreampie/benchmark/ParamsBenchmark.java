@@ -0,0 +1,83 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Params;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.Route;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.POST;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表单和json参数绑定
+ * parseFormParams/parseJsonParams是私有的 通过Route.match并读取所有参数来测量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParamsBenchmark {
+
+  private Route route;
+  private HttpServletRequest formRequest;
+  private HttpServletRequest jsonRequest;
+  private HttpServletResponse servletResponse;
+
+  @Setup
+  public void setup() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(UserResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    route = routeBuilder.getRouteTree("POST").find("/users/7", new HashMap<String, String>());
+
+    formRequest = new MockRequest("POST", "/users/7").param("name", "resty").param("age", "3").param("tags", "[\"a\",\"b\",\"c\"]")
+        .body("application/x-www-form-urlencoded", new byte[0]).get();
+    String json = "{\"name\":\"resty\",\"age\":3,\"tags\":[\"a\",\"b\",\"c\"]}";
+    jsonRequest = new MockRequest("POST", "/users/7").body("application/json; charset=UTF-8", json).get();
+    servletResponse = new MockResponse().discard().get();
+  }
+
+  @Benchmark
+  public void form(Blackhole blackhole) {
+    params(formRequest, blackhole);
+  }
+
+  @Benchmark
+  public void json(Blackhole blackhole) {
+    params(jsonRequest, blackhole);
+  }
+
+  private void params(HttpServletRequest servletRequest, Blackhole blackhole) {
+    Map<String, String> pathParams = new HashMap<String, String>();
+    pathParams.put("id", "7");
+    Params params = route.match(new HttpRequest(servletRequest, null), new HttpResponse(servletResponse, servletRequest), "/users/7", "", pathParams).getParams();
+    blackhole.consume(params.get("id"));
+    blackhole.consume(params.get("name"));
+    blackhole.consume(params.get("age"));
+    blackhole.consume(params.get("tags"));
+  }
+
+  @API("/users")
+  public static class UserResource extends Resource {
+
+    @POST("/:id")
+    public String save(int id, String name, int age, List<String> tags) {
+      return name;
+    }
+  }
+}
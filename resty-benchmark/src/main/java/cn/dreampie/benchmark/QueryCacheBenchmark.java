@@ -0,0 +1,60 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.orm.cache.QueryCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryCache的读写 application.properties里打开了app.cacheEnabled
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryCacheBenchmark {
+
+  private static final String DS = "default";
+  private static final String TABLE = "sec_user";
+  private static final String TYPE = "Record";
+  private static final String SQL = "SELECT * FROM sec_user WHERE id=? AND deleted_at IS NULL";
+
+  private QueryCache queryCache;
+  private List<Object> cache;
+  private Object[] hitParams;
+  private Object[] missParams;
+  private int sequence;
+
+  @Setup
+  public void setup() {
+    queryCache = QueryCache.instance();
+    cache = new ArrayList<Object>();
+    hitParams = new Object[]{1};
+    missParams = new Object[]{-1};
+    queryCache.add(DS, TABLE, TYPE, SQL, hitParams, cache, -1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    queryCache.purge(DS, TABLE);
+  }
+
+  @Benchmark
+  public Object getHit() {
+    return queryCache.get(DS, TABLE, TYPE, SQL, hitParams);
+  }
+
+  @Benchmark
+  public Object getMiss() {
+    return queryCache.get(DS, TABLE, TYPE, SQL, missParams);
+  }
+
+  @Benchmark
+  public void add() {
+    queryCache.add(DS, TABLE, TYPE, SQL, new Object[]{sequence++ & 1023}, cache, -1);
+  }
+}
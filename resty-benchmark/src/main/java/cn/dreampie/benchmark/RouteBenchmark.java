@@ -0,0 +1,148 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.Route;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteHandler;
+import cn.dreampie.route.core.RouteTree;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由查找和完整的RouteHandler.handle 路由表大小为10/100/1000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+
+  private static final String RESOURCE_SOURCE = "import cn.dreampie.route.core.Resource;\n"
+      + "import cn.dreampie.route.core.annotation.API;\n"
+      + "import cn.dreampie.route.core.annotation.GET;\n"
+      + "import java.util.HashMap;\n"
+      + "import java.util.Map;\n"
+      + "@API(\"/api/r%d\")\n"
+      + "public class ItemResource%d extends Resource {\n"
+      + "  @GET(\"/items/:id\")\n"
+      + "  public Map<String, Object> get(int id) {\n"
+      + "    Map<String, Object> item = new HashMap<String, Object>();\n"
+      + "    item.put(\"id\", id);\n"
+      + "    item.put(\"name\", \"item\");\n"
+      + "    return item;\n"
+      + "  }\n"
+      + "  @GET(\"/items\")\n"
+      + "  public String list() {\n"
+      + "    return \"items\";\n"
+      + "  }\n"
+      + "}\n";
+
+  @Param({"10", "100", "1000"})
+  public int routes;
+
+  private RouteHandler routeHandler;
+  private RouteTree routeTree;
+  private String paramPath;
+  private String literalPath;
+  private HttpServletRequest paramRequest;
+  private HttpServletResponse servletResponse;
+
+  @Setup
+  public void setup() throws Exception {
+    //每个resource两个route 一个带path参数 一个是字面量
+    ResourceLoader resourceLoader = new ResourceLoader();
+    for (Class<? extends Resource> resourceClass : compileResources(routes / 2)) {
+      resourceLoader.add(resourceClass);
+    }
+    RouteBuilder routeBuilder = new RouteBuilder(resourceLoader, new InterceptorLoader());
+    routeBuilder.build();
+    routeHandler = new RouteHandler(routeBuilder);
+    routeTree = routeBuilder.getRouteTree("GET");
+
+    int middle = routes / 4;
+    paramPath = "/api/r" + middle + "/items/42";
+    literalPath = "/api/r" + middle + "/items";
+    paramRequest = new MockRequest("GET", paramPath).get();
+    servletResponse = new MockResponse().discard().get();
+  }
+
+  /**
+   * api路径需要写在@API上 运行时编译count个resource 路径为/api/r0 ... /api/r{count-1}
+   */
+  private static List<Class<? extends Resource>> compileResources(int count) throws Exception {
+    File dir = Files.createTempDirectory("resty-benchmark").toFile();
+    List<File> sources = new ArrayList<File>(count);
+    for (int i = 0; i < count; i++) {
+      File source = new File(dir, "ItemResource" + i + ".java");
+      Writer writer = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+      try {
+        writer.write(String.format(RESOURCE_SOURCE, i, i));
+      } finally {
+        writer.close();
+      }
+      sources.add(source);
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("RouteBenchmark needs a JDK to compile resources.");
+    }
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+    try {
+      //-g保留参数名 -proc:none不需要resource索引
+      List<String> options = Arrays.asList("-g", "-proc:none", "-d", dir.getPath(), "-classpath", System.getProperty("java.class.path"));
+      if (!compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sources)).call()) {
+        throw new IllegalStateException("Could not compile resources in " + dir);
+      }
+    } finally {
+      fileManager.close();
+    }
+    ClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, RouteBenchmark.class.getClassLoader());
+    List<Class<? extends Resource>> resources = new ArrayList<Class<? extends Resource>>(count);
+    for (int i = 0; i < count; i++) {
+      resources.add(classLoader.loadClass("ItemResource" + i).asSubclass(Resource.class));
+    }
+    return resources;
+  }
+
+  @Benchmark
+  public Route findParam() {
+    return routeTree.find(paramPath, new HashMap<String, String>());
+  }
+
+  @Benchmark
+  public Route findLiteral() {
+    return routeTree.find(literalPath, new HashMap<String, String>());
+  }
+
+  @Benchmark
+  public boolean handle() {
+    boolean[] isHandled = {false};
+    routeHandler.handle(new HttpRequest(paramRequest, null), new HttpResponse(servletResponse, paramRequest), isHandled);
+    return isHandled[0];
+  }
+}
@@ -0,0 +1,99 @@
+package cn.dreampie.benchmark;
+
+import cn.dreampie.orm.ActiveRecordPlugin;
+import cn.dreampie.orm.Record;
+import cn.dreampie.orm.dialect.Dialect;
+import cn.dreampie.orm.dialect.DialectFactory;
+import cn.dreampie.orm.provider.DataSourceProvider;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * h2内存库里的sec_user表 供benchmark使用
+ */
+public final class UserTable {
+
+  public static final String DS_NAME = "default";
+  public static final String TABLE_NAME = "sec_user";
+
+  private static DataSource dataSource;
+
+  private UserTable() {
+  }
+
+  /**
+   * 通过ActiveRecordPlugin注册h2数据源
+   */
+  public static synchronized DataSource dataSource() {
+    if (dataSource == null) {
+      JdbcDataSource h2 = new JdbcDataSource();
+      h2.setURL("jdbc:h2:mem:resty;DB_CLOSE_DELAY=-1");
+      h2.setUser("sa");
+      h2.setPassword("");
+      dataSource = h2;
+      new ActiveRecordPlugin(new DataSourceProvider() {
+        public DataSource getDataSource() {
+          return dataSource;
+        }
+
+        public Dialect getDialect() {
+          return DialectFactory.get("h2");
+        }
+
+        public String getDsName() {
+          return DS_NAME;
+        }
+
+        public boolean isShowSql() {
+          return false;
+        }
+
+        public void close() {
+        }
+      }).start();
+    }
+    return dataSource;
+  }
+
+  /**
+   * 重新创建sec_user表并写入rows行数据
+   *
+   * @param rows 行数
+   */
+  public static void create(int rows) throws SQLException {
+    Connection conn = dataSource().getConnection();
+    try {
+      Statement ddl = conn.createStatement();
+      ddl.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+      ddl.execute("CREATE TABLE " + TABLE_NAME + " (id BIGINT PRIMARY KEY, username VARCHAR(50), age INT, created_at TIMESTAMP)");
+      ddl.close();
+      PreparedStatement insert = conn.prepareStatement("INSERT INTO " + TABLE_NAME + " VALUES (?, ?, ?, ?)");
+      Timestamp now = new Timestamp(System.currentTimeMillis());
+      for (int i = 0; i < rows; i++) {
+        insert.setLong(1, i);
+        insert.setString(2, "user" + i);
+        insert.setInt(3, i % 100);
+        insert.setTimestamp(4, now);
+        insert.addBatch();
+      }
+      insert.executeBatch();
+      insert.close();
+    } finally {
+      conn.close();
+    }
+  }
+
+  /**
+   * sec_user的Record 元数据从数据库读取 需要先调用create
+   */
+  public static Record record() {
+    dataSource();
+    return new Record(DS_NAME, TABLE_NAME, "id");
+  }
+}
@@ -242,6 +242,32 @@ public class RedisProvider extends CacheProvider {
     }
   }
 
+  /**
+   * 在key所在的redis上执行lua脚本 共用缓存的连接池
+   *
+   * @param script lua脚本
+   * @param key    key 分片时按key选择redis
+   * @param args   参数
+   * @return 脚本的返回值
+   */
+  public Object eval(String script, String key, List<String> args) {
+    ShardedJedis shardedJedis = null;
+    Jedis jedis = null;
+    try {
+      List<String> keys = new ArrayList<String>(1);
+      keys.add(key);
+      shardedJedis = getShardedJedis();
+      if (shardedJedis != null) {
+        return shardedJedis.getShard(key).eval(script, keys, args);
+      } else {
+        jedis = getJedis();
+        return jedis.eval(script, keys, args);
+      }
+    } finally {
+      returnResource(shardedJedis, jedis);
+    }
+  }
+
   private void delGroup(Jedis jedis, CacheEvent event) {
     Set<String> keySet = jedis.keys(event.getGroup() + Constant.CONNECTOR + '*');
     if (keySet != null && keySet.size() > 0) {
@@ -4,6 +4,7 @@ import cn.dreampie.client.exception.ClientException;
 import cn.dreampie.common.http.ContentType;
 import cn.dreampie.common.http.HttpMethod;
 import cn.dreampie.common.util.HttpTyper;
+import cn.dreampie.common.util.scope.ContextLocal;
 import cn.dreampie.common.util.stream.DefaultFileRenamer;
 import cn.dreampie.common.util.stream.FileRenamer;
 import cn.dreampie.log.Logger;
@@ -27,7 +28,7 @@ public class ClientConnection {
   private final SSLSocketFactory sslSocketFactory = initSSLSocketFactory();
   private final TrustAnyHostnameVerifier trustAnyHostnameVerifier = new TrustAnyHostnameVerifier();
   protected ClientRequest loginRequest;
-  protected ThreadLocal<ClientRequest> clientRequestTL = new ThreadLocal<ClientRequest>();
+  protected ContextLocal<ClientRequest> clientRequestTL = new ContextLocal<ClientRequest>();
   protected CookieManager cookieManager = new CookieManager();
   protected String apiUrl;
   protected FileRenamer renamer = new DefaultFileRenamer();
@@ -19,12 +19,23 @@ public final class Constant {
   public final static boolean oneParamParse;//单一参数不用传参数名字
   public final static String uploadDirectory;//文件上传默认目录
   public final static Integer uploadMaxSize;//文件上传最大的尺寸 10 Meg
+  public final static Integer jsonMaxSize;//json请求体最大的尺寸 默认0 小于等于0不限制
   public final static String[] uploadDenieds;//set file content type eg. text/xml  拒绝上传的文件类型
   public final static String fileRenamer;// 文件上传重命名类
   public final static String cacheProvider;// 缓存类
   public final static boolean showRoute;//请求时打印route匹配信息
   public final static String apiPrefix;//api开发的标志  比如 /api/v1.0/xxx  起始前缀/api为标志 （当api请求没有匹配到route时，会返回404状态）如果是独立域名 可以不配置该项 表示 所以url都是api访问 当非api类型请求是  没有匹配到route时  foward的url （和api请求时的处理  不一致）
   public final static String exceptionHolder;
+  public final static boolean asyncEnabled;//所有route在executor中异步执行(Servlet 3)
+  public final static Integer asyncTimeout;//异步请求的超时时间 毫秒 超时返回503
+  public final static Integer asyncThreads;//默认executor的线程数
+  public final static boolean virtualThreads;//每个route在一个虚拟线程中执行 jvm不支持时使用普通线程池
+  public final static boolean metricsEnabled;//记录每个route的请求数 状态码和各阶段耗时
+  public final static Integer statementCacheSize;//每个数据库连接缓存的PreparedStatement数量 小于等于0不缓存
+  public final static boolean resourceIndex;//优先使用编译期生成的META-INF/resty/resources.index 不扫描classpath
+  public final static Integer cursorFetchSize;//游标查询每次从数据库读取的行数
+  public final static boolean concurrentCount;//fullPaginate时count和分页查询在不同的连接上同时执行 事务中不生效
+  public final static Integer countCacheExpired;//fullPaginate的总行数缓存秒数 小于等于0不缓存
   public static final String[] xForwardedSupports;
   private final static Logger logger = Logger.getLogger(Constant.class);
 
@@ -42,12 +53,23 @@ public final class Constant {
       oneParamParse = false;
       uploadDirectory = File.separator + "upload" + File.separator;
       uploadMaxSize = 1024 * 1024 * 10;
+      jsonMaxSize = 0;
       uploadDenieds = new String[]{};
       fileRenamer = null;
       cacheProvider = null;
       showRoute = false;
       apiPrefix = null;
       exceptionHolder = null;
+      asyncEnabled = false;
+      asyncTimeout = 30000;
+      asyncThreads = 100;
+      virtualThreads = false;
+      metricsEnabled = false;
+      statementCacheSize = 0;
+      resourceIndex = true;
+      cursorFetchSize = 1000;
+      concurrentCount = false;
+      countCacheExpired = 0;
       xForwardedSupports = new String[]{"127.0.0.1"};
     } else {
       encoding = constants.get("app.encoding", Encoding.UTF_8.name());
@@ -56,6 +78,7 @@ public final class Constant {
       oneParamParse = constants.getBoolean("app.oneParamParse", false);
       uploadDirectory = constants.get("app.uploadDirectory", File.separator + "upload" + File.separator);
       uploadMaxSize = constants.getInt("app.uploadMaxSize", 1024 * 1024 * 10);
+      jsonMaxSize = constants.getInt("app.jsonMaxSize", 0);
       String uploadDeniedStr = constants.get("app.uploadDenieds");
       if (uploadDeniedStr == null) {
         uploadDenieds = new String[]{};
@@ -67,6 +90,16 @@ public final class Constant {
       showRoute = constants.getBoolean("app.showRoute", false);
       apiPrefix = constants.get("app.apiPrefix");
       exceptionHolder = constants.get("app.exceptionHolder");
+      asyncEnabled = constants.getBoolean("app.asyncEnabled", false);
+      asyncTimeout = constants.getInt("app.asyncTimeout", 30000);
+      asyncThreads = constants.getInt("app.asyncThreads", 100);
+      virtualThreads = constants.getBoolean("app.virtualThreads", false);
+      metricsEnabled = constants.getBoolean("app.metricsEnabled", false);
+      statementCacheSize = constants.getInt("app.statementCacheSize", 0);
+      resourceIndex = constants.getBoolean("app.resourceIndex", true);
+      cursorFetchSize = constants.getInt("app.cursorFetchSize", 1000);
+      concurrentCount = constants.getBoolean("app.concurrentCount", false);
+      countCacheExpired = constants.getInt("app.countCacheExpired", 0);
 
       String xForwardedSupportsStr = constants.get("app.xForwardedSupports");
       if (xForwardedSupportsStr == null) {
@@ -0,0 +1,83 @@
+package cn.dreampie.common.entity;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 一次查询结果的列索引 所有行共用
+ * 列名按不区分大小写排序, 和CaseInsensitiveMap的遍历顺序一致; 同名的列只保留一个位置, 后面的列覆盖前面的值
+ */
+public final class ColumnIndex implements Serializable {
+
+  private final String[] names;
+  private final int[] slots;
+
+  /**
+   * @param labels 按ResultSet顺序的列名
+   */
+  public ColumnIndex(String... labels) {
+    String[] sorted = labels.clone();
+    Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+    //去掉同名的列 保留第一次出现的写法
+    String[] unique = new String[sorted.length];
+    int size = 0;
+    for (String label : sorted) {
+      if (size == 0 || String.CASE_INSENSITIVE_ORDER.compare(unique[size - 1], label) != 0) {
+        unique[size++] = firstLabel(labels, label);
+      }
+    }
+    this.names = Arrays.copyOf(unique, size);
+    this.slots = new int[labels.length];
+    for (int i = 0; i < labels.length; i++) {
+      slots[i] = indexOf(labels[i]);
+    }
+  }
+
+  private static String firstLabel(String[] labels, String label) {
+    for (String l : labels) {
+      if (l.equalsIgnoreCase(label)) {
+        return l;
+      }
+    }
+    return label;
+  }
+
+  /**
+   * @return 不重复的列数
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * @return ResultSet的列数
+   */
+  public int getColumnCount() {
+    return slots.length;
+  }
+
+  public String getName(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * ResultSet第column列(从0开始)的值在行数组中的位置
+   *
+   * @param column 列
+   * @return slot
+   */
+  public int getSlot(int column) {
+    return slots[column];
+  }
+
+  /**
+   * @param name 列名 不区分大小写
+   * @return slot 不存在时小于0
+   */
+  public int indexOf(Object name) {
+    if (!(name instanceof String)) {
+      return -1;
+    }
+    return Arrays.binarySearch(names, (String) name, String.CASE_INSENSITIVE_ORDER);
+  }
+}
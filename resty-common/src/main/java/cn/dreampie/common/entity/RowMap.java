@@ -0,0 +1,202 @@
+package cn.dreampie.common.entity;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * 查询结果的一行 列名由同一次查询的ColumnIndex共用, 值保存在数组中
+ * 不区分大小写, 遍历顺序和CaseInsensitiveMap一致; 加入查询结果以外的属性时转换为CaseInsensitiveMap
+ */
+public class RowMap<V> extends AbstractMap<String, V> implements Serializable {
+
+  //被remove的列
+  private static final Object NONE = new Object();
+
+  private final ColumnIndex index;
+  private Object[] values;
+  private int size;
+  private Map<String, V> map;
+
+  /**
+   * @param index  列索引
+   * @param values 按ColumnIndex位置保存的值 长度为index.size()
+   */
+  public RowMap(ColumnIndex index, Object[] values) {
+    this.index = index;
+    this.values = values;
+    this.size = values.length;
+  }
+
+  public int size() {
+    return map != null ? map.size() : size;
+  }
+
+  public boolean containsKey(Object key) {
+    if (map != null) {
+      return map.containsKey(key);
+    }
+    int slot = index.indexOf(key);
+    return slot >= 0 && values[slot] != NONE;
+  }
+
+  public V get(Object key) {
+    if (map != null) {
+      return map.get(key);
+    }
+    int slot = index.indexOf(key);
+    if (slot < 0 || values[slot] == NONE) {
+      return null;
+    }
+    return (V) values[slot];
+  }
+
+  public V put(String key, V value) {
+    if (map == null) {
+      int slot = index.indexOf(key);
+      if (slot >= 0) {
+        Object old = values[slot];
+        values[slot] = value;
+        if (old == NONE) {
+          size++;
+          return null;
+        }
+        return (V) old;
+      }
+      promote();
+    }
+    return map.put(key, value);
+  }
+
+  public V remove(Object key) {
+    if (map != null) {
+      return map.remove(key);
+    }
+    int slot = index.indexOf(key);
+    if (slot < 0 || values[slot] == NONE) {
+      return null;
+    }
+    Object old = values[slot];
+    values[slot] = NONE;
+    size--;
+    return (V) old;
+  }
+
+  public void clear() {
+    if (map != null) {
+      map.clear();
+    } else {
+      Arrays.fill(values, NONE);
+      size = 0;
+    }
+  }
+
+  public Set<Entry<String, V>> entrySet() {
+    if (map != null) {
+      return map.entrySet();
+    }
+    return new AbstractSet<Entry<String, V>>() {
+      public Iterator<Entry<String, V>> iterator() {
+        return new RowIterator();
+      }
+
+      public int size() {
+        return RowMap.this.size();
+      }
+    };
+  }
+
+  /**
+   * 新的属性不在列索引中 转换为普通的map
+   */
+  private void promote() {
+    map = new CaseInsensitiveMap<V>();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != NONE) {
+        map.put(index.getName(i), (V) values[i]);
+      }
+    }
+    values = null;
+  }
+
+  /**
+   * 序列化为CaseInsensitiveMap 和以前的缓存数据保持一致
+   */
+  private Object writeReplace() throws ObjectStreamException {
+    CaseInsensitiveMap<V> copy = new CaseInsensitiveMap<V>();
+    copy.putAll(this);
+    return copy;
+  }
+
+  private class RowIterator implements Iterator<Entry<String, V>> {
+    private final Object[] row = values;
+    private int next = advance(0);
+    private int last = -1;
+
+    private int advance(int from) {
+      while (from < row.length && row[from] == NONE) {
+        from++;
+      }
+      return from;
+    }
+
+    public boolean hasNext() {
+      return next < row.length;
+    }
+
+    public Entry<String, V> next() {
+      if (next >= row.length) {
+        throw new NoSuchElementException();
+      }
+      if (row != values) {
+        throw new ConcurrentModificationException();
+      }
+      last = next;
+      next = advance(next + 1);
+      final int slot = last;
+      return new Entry<String, V>() {
+        public String getKey() {
+          return index.getName(slot);
+        }
+
+        public V getValue() {
+          return (V) row[slot];
+        }
+
+        public V setValue(V value) {
+          V old = (V) row[slot];
+          row[slot] = value;
+          return old;
+        }
+
+        public boolean equals(Object o) {
+          if (!(o instanceof Entry)) {
+            return false;
+          }
+          Entry<?, ?> e = (Entry<?, ?>) o;
+          return getKey().equals(e.getKey()) && (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+        }
+
+        public int hashCode() {
+          V value = getValue();
+          return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString() {
+          return getKey() + "=" + getValue();
+        }
+      };
+    }
+
+    public void remove() {
+      if (last < 0 || row[last] == NONE) {
+        throw new IllegalStateException();
+      }
+      if (row != values) {
+        throw new ConcurrentModificationException();
+      }
+      row[last] = NONE;
+      size--;
+    }
+  }
+}
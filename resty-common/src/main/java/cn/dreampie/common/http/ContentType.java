@@ -9,6 +9,7 @@ public class ContentType {
   public static final String HTML = "text/html";
   public static final String XML = "text/xml";
   public static final String JSON = "application/json";
+  public static final String NDJSON = "application/x-ndjson";
   public static final String FORM = "application/x-www-form-urlencoded";
   public static final String MULTIPART = "multipart/form-data";
   public static final String FILE = "application/octet-stream";
@@ -0,0 +1,139 @@
+package cn.dreampie.common.http;
+
+import cn.dreampie.common.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 直接按UTF-8编码写入response OutputStream的Writer
+ * 使用池化的byte缓冲, 内容在一个缓冲内写完时设置准确的Content-Length, 否则分块输出
+ */
+public class ResponseWriter extends Writer {
+
+  public static final int BUFFER_SIZE = 8 * 1024;
+  private static final BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<byte[]>(64);
+
+  private final Response response;
+  private byte[] buf;
+  private int count;
+  private OutputStream out;
+  //上一次写入未配对的高位代理字符
+  private char highSurrogate;
+
+  public ResponseWriter(Response response) {
+    this.response = response;
+    this.buf = bufferPool.poll();
+    if (buf == null) {
+      buf = new byte[BUFFER_SIZE];
+    }
+  }
+
+  public void write(int c) throws IOException {
+    write((char) c);
+  }
+
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      write(cbuf[i]);
+    }
+  }
+
+  public void write(String str, int off, int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      write(str.charAt(i));
+    }
+  }
+
+  private void write(char c) throws IOException {
+    if (buf.length - count < 4) {
+      flushBuffer();
+    }
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(high, c);
+        buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+        buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+        return;
+      }
+      //不成对的代理字符 和String.getBytes一样输出'?'
+      buf[count++] = '?';
+      if (buf.length - count < 4) {
+        flushBuffer();
+      }
+    }
+    if (c < 0x80) {
+      buf[count++] = (byte) c;
+    } else if (c < 0x800) {
+      buf[count++] = (byte) (0xC0 | (c >> 6));
+      buf[count++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buf[count++] = '?';
+    } else {
+      buf[count++] = (byte) (0xE0 | (c >> 12));
+      buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      buf[count++] = (byte) (0x80 | (c & 0x3F));
+    }
+  }
+
+  /**
+   * 缓冲写满 开始分块输出
+   */
+  private void flushBuffer() throws IOException {
+    if (out == null) {
+      out = response.getOutputStream();
+    }
+    out.write(buf, 0, count);
+    count = 0;
+  }
+
+  public void flush() throws IOException {
+    if (out != null) {
+      flushBuffer();
+      out.flush();
+    }
+  }
+
+  /**
+   * 写出剩余的内容并归还缓冲 不关闭response的OutputStream
+   */
+  public void close() throws IOException {
+    if (buf == null) {
+      return;
+    }
+    try {
+      if (highSurrogate != 0) {
+        highSurrogate = 0;
+        buf[count++] = '?';
+      }
+      if (out == null) {
+        //全部内容在一个缓冲内
+        response.setHeader("Content-Length", String.valueOf(count));
+        out = response.getOutputStream();
+      }
+      out.write(buf, 0, count);
+      count = 0;
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * 归还缓冲 没有close时丢弃还未输出的内容
+   */
+  public void release() {
+    if (buf != null) {
+      bufferPool.offer(buf);
+      buf = null;
+    }
+  }
+}
@@ -33,6 +33,7 @@ public class HttpTyper {
     // the list is not fully exhaustive, should cover most cases.
     return contentType.startsWith("text/")
         || contentType.startsWith("application/json")
+        || contentType.startsWith("application/x-ndjson")
         || contentType.startsWith("application/javascript")
         || contentType.startsWith("application/ecmascript")
         || contentType.startsWith("application/atom+xml")
@@ -43,6 +44,63 @@ public class HttpTyper {
         ;
   }
 
+  /**
+   * 按Accept-Encoding的q值选择一个服务端支持的编码
+   *
+   * @param acceptEncoding Accept-Encoding请求头
+   * @param encodings      支持的编码 q值相同时靠前的优先
+   * @return 选中的编码 都不接受时返回null
+   */
+  public static String negotiateEncoding(String acceptEncoding, String... encodings) {
+    if (acceptEncoding == null || acceptEncoding.length() == 0) {
+      return null;
+    }
+    String[] names = new String[encodings.length];
+    double[] qs = new double[encodings.length];
+    double wildcard = -1;
+    String name;
+    double q;
+    int semicolon;
+    for (String token : acceptEncoding.split(",")) {
+      token = token.trim();
+      semicolon = token.indexOf(';');
+      q = 1;
+      if (semicolon >= 0) {
+        name = token.substring(0, semicolon).trim();
+        String param = token.substring(semicolon + 1).trim();
+        if (param.startsWith("q=")) {
+          try {
+            q = Double.parseDouble(param.substring(2).trim());
+          } catch (NumberFormatException e) {
+            q = 0;
+          }
+        }
+      } else {
+        name = token;
+      }
+      if (name.equals("*")) {
+        wildcard = q;
+      } else {
+        for (int i = 0; i < encodings.length; i++) {
+          if (encodings[i].equalsIgnoreCase(name)) {
+            names[i] = name;
+            qs[i] = q;
+          }
+        }
+      }
+    }
+    String result = null;
+    double best = 0;
+    for (int i = 0; i < encodings.length; i++) {
+      q = names[i] != null ? qs[i] : wildcard;
+      if (q > best) {
+        best = q;
+        result = encodings[i];
+      }
+    }
+    return result;
+  }
+
   public static String charsetFromContentType(String s) {
     if (!s.contains("charset=")) {
       return null;
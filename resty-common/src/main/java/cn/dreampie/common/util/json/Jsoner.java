@@ -4,12 +4,16 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONException;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
 import com.alibaba.fastjson.parser.Feature;
+import com.alibaba.fastjson.parser.JSONReaderScanner;
 import com.alibaba.fastjson.parser.ParserConfig;
 import com.alibaba.fastjson.parser.deserializer.ObjectDeserializer;
 import com.alibaba.fastjson.parser.deserializer.ParseProcess;
 import com.alibaba.fastjson.serializer.*;
 
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 
 /**
@@ -97,6 +101,27 @@ public class Jsoner {
     return JSON.toJSONString(object, config, filter, features);
   }
 
+  /**
+   * 序列化到writer 内容写满fastjson的缓冲后直接输出到writer 不生成完整的字符串
+   *
+   * @param object 对象
+   * @param writer 输出
+   */
+  public static void toJSON(Object object, Writer writer) {
+    SerializeWriter out = new SerializeWriter(writer);
+    if (serializerFeatures != null) {
+      for (SerializerFeature feature : serializerFeatures) {
+        out.config(feature, true);
+      }
+    }
+    try {
+      new JSONSerializer(out, config).write(object);
+      out.flush();
+    } finally {
+      out.close();
+    }
+  }
+
   public static <T> T toObject(String json) {
     try {
       return (T) JSON.parse(json);
@@ -194,4 +219,20 @@ public class Jsoner {
     }
   }
 
+  /**
+   * 从reader流式解析json 不需要先读取成字符串
+   *
+   * @param reader json流
+   * @return parser 使用后需要close
+   */
+  public static DefaultJSONParser toParser(Reader reader) {
+    JSONReaderScanner lexer = new JSONReaderScanner(reader);
+    if (deserializerFeatures != null) {
+      for (Feature feature : deserializerFeatures) {
+        lexer.config(feature, true);
+      }
+    }
+    return new DefaultJSONParser(lexer, parserConfig);
+  }
+
 }
@@ -26,6 +26,16 @@ public abstract class Scaner {
 
   public abstract boolean checkTarget(Class<?> clazz);
 
+  /**
+   * 检测classpath根路径 返回false时不扫描该jar或目录
+   *
+   * @param root 根路径 eg. jar:file:/lib/a.jar!/ 或 file:/app/classes/
+   * @return boolean
+   */
+  public boolean checkRoot(String root) {
+    return true;
+  }
+
   /**
    * 搜索目录
    *
@@ -69,15 +79,20 @@ public abstract class Scaner {
     Set<String> classFiles = new HashSet<String>();
     //判断class路径
     Enumeration<URL> baseURLs = null;
+    String packagePath = baseDirName.replaceAll("\\.", "/");
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = Scaner.class.getClassLoader();
+    }
     try {
-      baseURLs = Scaner.class.getClassLoader().getResources(baseDirName.replaceAll("\\.", "/"));
+      baseURLs = classLoader.getResources(packagePath);
     } catch (IOException e) {
       throw new ScanException(e.getMessage(), e);
     }
     URL baseURL = null;
     while (baseURLs.hasMoreElements()) {
       baseURL = baseURLs.nextElement();
-      if (baseURL != null) {
+      if (baseURL != null && checkRoot(getRoot(baseURL, packagePath))) {
         // 得到协议的名称
         String protocol = baseURL.getProtocol();
         String basePath = baseURL.getFile();
@@ -99,6 +114,24 @@ public abstract class Scaner {
     return classFiles;
   }
 
+  /**
+   * 包所在的classpath根路径
+   *
+   * @param baseURL     包的url
+   * @param packagePath 包路径 eg. cn/dreampie
+   * @return 根路径
+   */
+  private String getRoot(URL baseURL, String packagePath) {
+    String url = baseURL.toString();
+    if (url.endsWith("/")) {
+      url = url.substring(0, url.length() - 1);
+    }
+    if (url.endsWith(packagePath)) {
+      url = url.substring(0, url.length() - packagePath.length());
+    }
+    return url;
+  }
+
   /**
    * 查找根目录下的文件
    *
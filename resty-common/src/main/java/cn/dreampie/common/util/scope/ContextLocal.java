@@ -0,0 +1,22 @@
+package cn.dreampie.common.util.scope;
+
+/**
+ * 保存在ScopedContext里的值 用法和ThreadLocal一样
+ * 在ScopedContext.run/call的范围内设置的值在范围结束时自动丢弃
+ *
+ * @param <T> 值的类型
+ */
+public class ContextLocal<T> {
+
+  public T get() {
+    return (T) ScopedContext.get(this);
+  }
+
+  public void set(T value) {
+    ScopedContext.set(this, value);
+  }
+
+  public void remove() {
+    ScopedContext.remove(this);
+  }
+}
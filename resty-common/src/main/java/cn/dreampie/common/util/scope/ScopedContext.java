@@ -0,0 +1,161 @@
+package cn.dreampie.common.util.scope;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 一次执行(请求)范围内的上下文 保存所有ContextLocal的值
+ * 通过run/call打开一个范围, 范围结束时所有的值一起丢弃, 不会残留在线程池或者大量短生命周期的线程(虚拟线程)上.
+ * 没有打开范围时ContextLocal的行为和ThreadLocal一样, 值被全部remove后线程上不再保留上下文.
+ */
+public final class ScopedContext {
+
+  private static final ThreadLocal<ScopedContext> contextTL = new ThreadLocal<ScopedContext>();
+
+  //run/call打开的范围 或者 没有范围时隐式创建的
+  private final boolean scoped;
+  //key, value 依次存放 一个请求内只有少量的值 线性查找比hash更快
+  private Object[] entries = new Object[8];
+  private int size;
+
+  private ScopedContext(boolean scoped) {
+    this.scoped = scoped;
+  }
+
+  /**
+   * 在新的范围内执行
+   *
+   * @param task 任务
+   */
+  public static void run(Runnable task) {
+    ScopedContext old = enter();
+    try {
+      task.run();
+    } finally {
+      exit(old);
+    }
+  }
+
+  /**
+   * 在新的范围内执行
+   *
+   * @param task 任务
+   * @param <T>  返回值类型
+   * @return 任务的返回值
+   * @throws Exception 任务抛出的异常
+   */
+  public static <T> T call(Callable<T> task) throws Exception {
+    ScopedContext old = enter();
+    try {
+      return task.call();
+    } finally {
+      exit(old);
+    }
+  }
+
+  /**
+   * 包装任务 执行时打开新的范围 用于提交到executor
+   *
+   * @param task 任务
+   * @return 包装后的任务
+   */
+  public static Runnable wrap(final Runnable task) {
+    return new Runnable() {
+      public void run() {
+        ScopedContext.run(task);
+      }
+    };
+  }
+
+  /**
+   * 当前线程是否在run/call打开的范围内
+   *
+   * @return boolean
+   */
+  public static boolean isScoped() {
+    ScopedContext context = contextTL.get();
+    return context != null && context.scoped;
+  }
+
+  /**
+   * 打开新的范围 必须在finally中调用exit
+   *
+   * @return 之前的上下文 用于exit还原
+   */
+  public static ScopedContext enter() {
+    ScopedContext old = contextTL.get();
+    contextTL.set(new ScopedContext(true));
+    return old;
+  }
+
+  /**
+   * 结束当前范围 丢弃范围内所有的值
+   *
+   * @param old enter返回的上下文
+   */
+  public static void exit(ScopedContext old) {
+    if (old == null) {
+      contextTL.remove();
+    } else {
+      contextTL.set(old);
+    }
+  }
+
+  static Object get(ContextLocal<?> key) {
+    ScopedContext context = contextTL.get();
+    if (context == null) {
+      return null;
+    }
+    Object[] entries = context.entries;
+    for (int i = 0; i < context.size; i += 2) {
+      if (entries[i] == key) {
+        return entries[i + 1];
+      }
+    }
+    return null;
+  }
+
+  static void set(ContextLocal<?> key, Object value) {
+    ScopedContext context = contextTL.get();
+    if (context == null) {
+      context = new ScopedContext(false);
+      contextTL.set(context);
+    }
+    Object[] entries = context.entries;
+    for (int i = 0; i < context.size; i += 2) {
+      if (entries[i] == key) {
+        entries[i + 1] = value;
+        return;
+      }
+    }
+    if (context.size == entries.length) {
+      Object[] newEntries = new Object[entries.length * 2];
+      System.arraycopy(entries, 0, newEntries, 0, entries.length);
+      context.entries = entries = newEntries;
+    }
+    entries[context.size++] = key;
+    entries[context.size++] = value;
+  }
+
+  static void remove(ContextLocal<?> key) {
+    ScopedContext context = contextTL.get();
+    if (context == null) {
+      return;
+    }
+    Object[] entries = context.entries;
+    for (int i = 0; i < context.size; i += 2) {
+      if (entries[i] == key) {
+        //最后一个移到当前位置
+        context.size -= 2;
+        entries[i] = entries[context.size];
+        entries[i + 1] = entries[context.size + 1];
+        entries[context.size] = null;
+        entries[context.size + 1] = null;
+        break;
+      }
+    }
+    //隐式的上下文为空时从线程上移除
+    if (!context.scoped && context.size == 0) {
+      contextTL.remove();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package cn.dreampie.common.util.stream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 限制最大读取长度的InputStream 超出时抛出FileException
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+  private final long maxSize;
+  private long count;
+
+  /**
+   * @param in      原始流
+   * @param maxSize 最大字节数 小于等于0时不限制
+   */
+  public LimitedInputStream(InputStream in, long maxSize) {
+    super(in);
+    this.maxSize = maxSize;
+  }
+
+  public int read() throws IOException {
+    int b = super.read();
+    if (b != -1) {
+      count(1);
+    }
+    return b;
+  }
+
+  public int read(byte[] b, int off, int len) throws IOException {
+    int n = super.read(b, off, len);
+    if (n > 0) {
+      count(n);
+    }
+    return n;
+  }
+
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    count(skipped);
+    return skipped;
+  }
+
+  public boolean markSupported() {
+    return false;
+  }
+
+  private void count(long n) {
+    count += n;
+    if (maxSize > 0 && count > maxSize) {
+      throw new FileException("Stream exceeds the maximum size of " + maxSize + " bytes.");
+    }
+  }
+}
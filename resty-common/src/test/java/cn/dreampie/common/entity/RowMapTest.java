@@ -0,0 +1,76 @@
+package cn.dreampie.common.entity;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RowMapTest {
+
+  private RowMap<Object> row() {
+    ColumnIndex index = new ColumnIndex("username", "ID", "age", "id");
+    Object[] values = new Object[index.size()];
+    values[index.getSlot(0)] = "a";
+    values[index.getSlot(1)] = 1;
+    values[index.getSlot(2)] = null;
+    values[index.getSlot(3)] = 2;
+    return new RowMap<Object>(index, values);
+  }
+
+  @Test
+  public void testSameAsCaseInsensitiveMap() {
+    CaseInsensitiveMap<Object> expected = new CaseInsensitiveMap<Object>();
+    expected.put("username", "a");
+    expected.put("ID", 1);
+    expected.put("age", null);
+    expected.put("id", 2);
+    RowMap<Object> row = row();
+    assertEquals(expected, row);
+    assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(row.keySet()));
+    assertEquals(2, row.get("Id"));
+    assertTrue(row.containsKey("AGE"));
+    assertFalse(row.containsKey("name"));
+    assertNull(row.get("name"));
+  }
+
+  @Test
+  public void testPutAndRemove() {
+    RowMap<Object> row = row();
+    assertEquals("a", row.put("USERNAME", "b"));
+    assertEquals("b", row.get("username"));
+    assertEquals("b", row.remove("username"));
+    assertFalse(row.containsKey("username"));
+    assertEquals(2, row.size());
+    assertNull(row.put("username", "c"));
+    assertEquals(3, row.size());
+
+    Iterator<Map.Entry<String, Object>> iterator = row.entrySet().iterator();
+    iterator.next().setValue(10);
+    iterator.remove();
+    assertEquals(Arrays.asList("ID", "username"), new ArrayList<String>(row.keySet()));
+  }
+
+  @Test
+  public void testPromote() throws Exception {
+    RowMap<Object> row = row();
+    row.remove("age");
+    row.put("total", 5);
+    assertEquals(Arrays.asList("ID", "total", "username"), new ArrayList<String>(row.keySet()));
+    assertEquals(5, row.get("TOTAL"));
+    assertEquals(2, row.get("id"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ObjectOutputStream(out).writeObject(row);
+    Object copy = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+    assertTrue(copy instanceof CaseInsensitiveMap);
+    assertEquals(row, copy);
+  }
+}
@@ -0,0 +1,59 @@
+package cn.dreampie.common.http;
+
+import cn.dreampie.common.Response;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResponseWriterTest {
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final Map<String, String> headers = new HashMap<String, String>();
+
+  @Test
+  public void testContentLength() throws Exception {
+    String content = "{\"name\":\"resty 中文 😀\"}";
+    ResponseWriter writer = new ResponseWriter(response());
+    writer.write(content);
+    writer.close();
+    byte[] expected = content.getBytes("UTF-8");
+    assertArrayEquals(expected, body.toByteArray());
+    assertEquals(String.valueOf(expected.length), headers.get("Content-Length"));
+  }
+
+  @Test
+  public void testChunked() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ResponseWriter.BUFFER_SIZE; i++) {
+      sb.append(i % 2 == 0 ? 'a' : '中');
+    }
+    String content = sb.toString();
+    ResponseWriter writer = new ResponseWriter(response());
+    writer.write(content);
+    writer.close();
+    assertArrayEquals(content.getBytes("UTF-8"), body.toByteArray());
+    assertNull(headers.get("Content-Length"));
+  }
+
+  private Response response() {
+    return (Response) Proxy.newProxyInstance(Response.class.getClassLoader(), new Class[]{Response.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getName().equals("getOutputStream")) {
+          return body;
+        } else if (method.getName().equals("setHeader")) {
+          headers.put((String) args[0], (String) args[1]);
+        }
+        return null;
+      }
+    });
+  }
+}
@@ -0,0 +1,52 @@
+package cn.dreampie.common.util.scope;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScopedContextTest {
+
+  private final ContextLocal<String> name = new ContextLocal<String>();
+  private final ContextLocal<Integer> deep = new ContextLocal<Integer>();
+
+  @Test
+  public void testScope() {
+    name.set("outer");
+    ScopedContext.run(new Runnable() {
+      public void run() {
+        assertTrue(ScopedContext.isScoped());
+        assertNull(name.get());
+        name.set("inner");
+        deep.set(1);
+        assertEquals("inner", name.get());
+        assertEquals(1, deep.get().intValue());
+      }
+    });
+    //范围结束 还原之前的值
+    assertEquals("outer", name.get());
+    assertNull(deep.get());
+    name.remove();
+    assertFalse(ScopedContext.isScoped());
+    assertNull(name.get());
+  }
+
+  @Test
+  public void testRemove() {
+    ContextLocal<?>[] locals = new ContextLocal<?>[20];
+    for (int i = 0; i < locals.length; i++) {
+      locals[i] = new ContextLocal<Integer>();
+      ((ContextLocal<Integer>) locals[i]).set(i);
+    }
+    locals[3].remove();
+    assertNull(locals[3].get());
+    assertEquals(19, locals[19].get());
+    assertEquals(0, locals[0].get());
+    for (ContextLocal<?> local : locals) {
+      local.remove();
+    }
+    assertNull(locals[19].get());
+  }
+}
@@ -13,6 +13,8 @@ import cn.dreampie.orm.exception.DBException;
 import cn.dreampie.orm.generate.Generator;
 import cn.dreampie.orm.page.FullPage;
 import cn.dreampie.orm.page.Page;
+import cn.dreampie.orm.page.Seek;
+import cn.dreampie.orm.page.SeekPage;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -25,6 +27,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import static cn.dreampie.common.util.Checker.checkArgument;
 import static cn.dreampie.common.util.Checker.checkNotNull;
@@ -273,6 +277,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
   /**
    * 获取sql执行对象
    *
+   * @param dsm
    * @param conn
    * @param tableMeta
    * @param sql
@@ -280,7 +285,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
    * @return s
    * @throws SQLException
    */
-  private PreparedStatement getPreparedStatement(Connection conn, TableMeta tableMeta, String sql, Object[] params) throws SQLException {
+  private PreparedStatement getPreparedStatement(DataSourceMeta dsm, Connection conn, TableMeta tableMeta, String sql, Object[] params) throws SQLException {
     //打印sql语句
     logSql(sql, params);
     PreparedStatement pst;
@@ -288,9 +293,9 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     String generatedKey = tableMeta.getGeneratedKey();
     boolean generated = tableMeta.isGenerated();
     if (!generatedKey.isEmpty() && !generated) {
-      pst = conn.prepareStatement(sql, new String[]{generatedKey});
+      pst = dsm.prepareStatement(conn, sql, generatedKey);
     } else {
-      pst = conn.prepareStatement(sql);
+      pst = dsm.prepareStatement(conn, sql, null);
     }
     for (int i = 0; i < params.length; i++) {
       pst.setObject(i + 1, params[i]);
@@ -525,7 +530,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     ResultSet rs = null;
     try {
       conn = getConnection(dsm);
-      pst = getPreparedStatement(conn, tableMeta, sql, params);
+      pst = getPreparedStatement(dsm, conn, tableMeta, sql, params);
       rs = pst.executeQuery();
       result = BaseBuilder.build(rs, getMClass(), dsm, tableMeta);
     } catch (SQLException e) {
@@ -544,6 +549,34 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     return result;
   }
 
+  /**
+   * 游标查询 遍历时才读取每一行 适合大量数据 不使用查询缓存
+   *
+   * @param sql    an SQL statement that may contain one or more '?' IN parameter placeholders
+   * @param params the parameters of sql
+   * @return Cursor 没有遍历完时需要调用close
+   */
+  public Cursor<M> findCursor(String sql, Object... params) {
+    return findCursor(Constant.cursorFetchSize, sql, params);
+  }
+
+  /**
+   * 游标查询 遍历时才读取每一行 适合大量数据 不使用查询缓存
+   *
+   * @param fetchSize 每次从数据库读取的行数
+   * @param sql       an SQL statement that may contain one or more '?' IN parameter placeholders
+   * @param params    the parameters of sql
+   * @return Cursor 没有遍历完时需要调用close
+   */
+  public Cursor<M> findCursor(int fetchSize, String sql, Object... params) {
+    checkArgument(fetchSize > 0, "fetchSize must be more than 0");
+    TableMeta tableMeta = getTableMeta();
+    if (devMode)
+      checkTableName(tableMeta.getTableName(), sql);
+    logSql(sql, params);
+    return new Cursor<M>(getDataSourceMeta(), getMClass(), tableMeta, sql, params, fetchSize);
+  }
+
   /**
    * Find first model. I recommend add "limit 1" in your sql.
    *
@@ -653,33 +686,160 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
    * @return s
    */
   public FullPage<M> fullPaginate(int pageNumber, int pageSize, String sql, Object... params) {
+    return fullPaginate(pageNumber, pageSize, false, sql, params);
+  }
+
+  /**
+   * 总行数使用数据库执行计划的估算值 适合大表上不需要精确总数的分页, 数据库不支持估算时使用count
+   * 估算值为0时仍然执行分页查询, 总行数不少于查到的行数
+   *
+   * @param pageNumber 页码
+   * @param pageSize   每页数量
+   * @param sql        sql语句
+   * @param params     参数
+   * @return s
+   */
+  public FullPage<M> estimatePaginate(int pageNumber, int pageSize, String sql, Object... params) {
+    return fullPaginate(pageNumber, pageSize, true, sql, params);
+  }
+
+  private FullPage<M> fullPaginate(int pageNumber, int pageSize, final boolean estimate, final String sql, final Object[] params) {
     checkArgument(pageNumber >= 1 && pageSize >= 1, "pageNumber and pageSize must be more than 0");
 
     DataSourceMeta dsm = getDataSourceMeta();
     Dialect dialect = dsm.getDialect();
 
-    long totalRow = 0;
+    long totalRow;
     int totalPage = 0;
+    List<M> list = null;
+
+    final String countKey = PageCounter.getKey(dsm.getDsName(), estimate ? "estimate" : "count", sql, params);
+    Long cachedRow = Constant.countCacheExpired > 0 ? PageCounter.getCache(countKey) : null;
+    if (cachedRow != null) {
+      totalRow = cachedRow;
+    } else if (Constant.concurrentCount && !dsm.inTransaction()) {
+      //count和分页查询同时执行 各自使用一个连接
+      Future<Long> count = PageCounter.submit(new Callable<Long>() {
+        public Long call() throws Exception {
+          return count(estimate, sql, params);
+        }
+      });
+      try {
+        list = find(dialect.paginateWith(pageNumber, pageSize, sql), params);
+      } catch (RuntimeException e) {
+        count.cancel(true);
+        throw e;
+      }
+      totalRow = PageCounter.get(count);
+      PageCounter.addCache(countKey, totalRow, Constant.countCacheExpired);
+    } else {
+      totalRow = count(estimate, sql, params);
+      PageCounter.addCache(countKey, totalRow, Constant.countCacheExpired);
+    }
 
-    List result = query(dialect.countWith(sql), params);
-    int size = result.size();
-    if (size == 1)
-      totalRow = ((Number) result.get(0)).longValue();
-    else if (size > 1)
-      totalRow = result.size();
-    else
+    //估算值为0时不能确定没有数据 仍然执行分页查询
+    if (totalRow == 0 && !estimate) {
       return new FullPage<M>(new ArrayList<M>(0), pageNumber, pageSize, 0, 0);  // totalRow = 0;
+    }
+
+    // --------
+    if (list == null) {
+      list = find(dialect.paginateWith(pageNumber, pageSize, sql), params);
+    }
+    //估算值不能少于已经查到的行数
+    if (estimate && !list.isEmpty()) {
+      totalRow = Math.max(totalRow, (long) (pageNumber - 1) * pageSize + list.size());
+    }
 
     totalPage = (int) (totalRow / pageSize);
     if (totalRow % pageSize != 0) {
       totalPage++;
     }
-
-    // --------
-    List<M> list = find(dialect.paginateWith(pageNumber, pageSize, sql), params);
     return new FullPage<M>(list, pageNumber, pageSize, totalPage, (int) totalRow);
   }
 
+  /**
+   * 查询总行数
+   *
+   * @param estimate 是否使用估算值
+   * @param sql      sql语句
+   * @param params   参数
+   * @return 总行数
+   */
+  private long count(boolean estimate, String sql, Object[] params) {
+    Dialect dialect = getDialect();
+    if (estimate) {
+      String estimateSql = dialect.estimateCountWith(sql);
+      if (estimateSql != null) {
+        long estimated = estimateCount(estimateSql, params);
+        if (estimated >= 0) {
+          return estimated;
+        }
+      }
+    }
+    List result = query(dialect.countWith(sql), params);
+    int size = result.size();
+    if (size == 1)
+      return ((Number) result.get(0)).longValue();
+    else
+      return size;
+  }
+
+  /**
+   * 执行估算行数的sql
+   *
+   * @param sql    estimateCountWith生成的sql
+   * @param params 参数
+   * @return 估算的行数
+   */
+  private long estimateCount(String sql, Object[] params) {
+    DataSourceMeta dsm = getDataSourceMeta();
+    TableMeta tableMeta = getTableMeta();
+    Connection conn = null;
+    PreparedStatement pst = null;
+    ResultSet rs = null;
+    try {
+      conn = getConnection(dsm);
+      pst = getPreparedStatement(dsm, conn, tableMeta, sql, params);
+      rs = pst.executeQuery();
+      return dsm.getDialect().estimatedCount(rs);
+    } catch (SQLException e) {
+      throw new DBException(e.getMessage(), e);
+    } finally {
+      dsm.close(rs, pst, conn);
+    }
+  }
+
+  /**
+   * 键集分页 从上一页最后一行之后开始查询 翻页越深也不会变慢
+   *
+   * @param token    上一页返回的nextToken 第一页为null
+   * @param pageSize 每页数量
+   * @param keys     排序列 组合必须唯一且不为null 用逗号分割 例如 "created_at DESC,id DESC"
+   * @param sql      sql语句 ORDER BY会被排序列代替
+   * @param params   参数
+   * @return s
+   */
+  public SeekPage<M> seekPaginate(String token, int pageSize, String keys, String sql, Object... params) {
+    checkArgument(pageSize >= 1, "pageSize must be more than 0");
+    Seek seek = Seek.parse(keys, token);
+
+    List<Object> seekParams = new ArrayList<Object>(Arrays.asList(params));
+    //多查一行判断是否还有下一页
+    List<M> list = find(getDialect().seekWith(pageSize + 1, sql, seek, seekParams), seekParams.toArray());
+    String nextToken = null;
+    if (list.size() > pageSize) {
+      list = new ArrayList<M>(list.subList(0, pageSize));
+      M last = list.get(pageSize - 1);
+      Object[] values = new Object[seek.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = last.get(seek.getColumn(i));
+      }
+      nextToken = Seek.encode(values);
+    }
+    return new SeekPage<M>(list, pageSize, nextToken);
+  }
+
   /**
    * Save model.
    *
@@ -715,7 +875,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
       int result = 0;
       try {
         conn = getConnection(dsm);
-        pst = getPreparedStatement(conn, tableMeta, sql, getModifyAttrValues());
+        pst = getPreparedStatement(dsm, conn, tableMeta, sql, getModifyAttrValues());
 
         result = pst.executeUpdate();
 //        if(!generatedKey.isEmpty()) {
@@ -852,7 +1012,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     PreparedStatement pst = null;
     try {
       conn = getConnection(dsm);
-      pst = getPreparedStatement(conn, tableMeta, sql, params);
+      pst = getPreparedStatement(dsm, conn, tableMeta, sql, params);
       result = pst.executeUpdate();
     } catch (SQLException e) {
       throw new DBException(e.getMessage(), e);
@@ -1074,6 +1234,17 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     return find(getDialect().select(getTableMeta().getTableName(), getAlias(), where), params);
   }
 
+  /**
+   * 根据where条件游标查询
+   *
+   * @param where  条件
+   * @param params 参数
+   * @return Cursor 没有遍历完时需要调用close
+   */
+  public Cursor<M> findCursorBy(String where, Object... params) {
+    return findCursor(getDialect().select(getTableMeta().getTableName(), getAlias(), where), params);
+  }
+
   /**
    * 根据where条件查询model集合
    *
@@ -1234,6 +1405,45 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
     return fullPaginate(pageNumber, pageSize, getDialect().select(getTableMeta().getTableName(), getAlias(), where, columns.split(",")), params);
   }
 
+  /**
+   * 分页查询 总行数使用估算值
+   *
+   * @param pageNumber 页码
+   * @param pageSize   每页大小
+   * @param where      条件
+   * @param params     参数
+   * @return 分页对象
+   */
+  public FullPage<M> estimatePaginateBy(int pageNumber, int pageSize, String where, Object... params) {
+    return estimatePaginate(pageNumber, pageSize, getDialect().select(getTableMeta().getTableName(), getAlias(), where), params);
+  }
+
+  /**
+   * 键集分页查询
+   *
+   * @param token    上一页返回的nextToken 第一页为null
+   * @param pageSize 每页大小
+   * @param keys     排序列 用逗号分割
+   * @return 分页对象
+   */
+  public SeekPage<M> seekPaginateAll(String token, int pageSize, String keys) {
+    return seekPaginate(token, pageSize, keys, getDialect().select(getTableMeta().getTableName()));
+  }
+
+  /**
+   * 键集分页查询
+   *
+   * @param token    上一页返回的nextToken 第一页为null
+   * @param pageSize 每页大小
+   * @param keys     排序列 用逗号分割
+   * @param where    条件
+   * @param params   参数
+   * @return 分页对象
+   */
+  public SeekPage<M> seekPaginateBy(String token, int pageSize, String keys, String where, Object... params) {
+    return seekPaginate(token, pageSize, keys, getDialect().select(getTableMeta().getTableName(), getAlias(), where), params);
+  }
+
   /**
    * 更新全部传入的列  UPDATE table SET name=?,age=? 参数 "abc",20
    *
@@ -1333,7 +1543,7 @@ public abstract class Base<M extends Base> extends Entity<M> implements External
 
     try {
       conn = getConnection(dsm);
-      pst = getPreparedStatement(conn, tableMeta, sql, params);
+      pst = getPreparedStatement(dsm, conn, tableMeta, sql, params);
       rs = pst.executeQuery();
       result = readQueryResult(rs);
     } catch (SQLException e) {
@@ -1,5 +1,8 @@
 package cn.dreampie.orm;
 
+import cn.dreampie.common.entity.ColumnIndex;
+import cn.dreampie.common.entity.RowMap;
+
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -14,35 +17,65 @@ public class BaseBuilder {
 
   public static <T> List<T> build(ResultSet rs, Class<? extends Base> modelClass, DataSourceMeta dataSourceMeta, TableMeta tableMeta) throws SQLException, InstantiationException, IllegalAccessException {
     List<T> result = new ArrayList<T>();
-    ResultSetMetaData rsmd = rs.getMetaData();
-    int columnCount = rsmd.getColumnCount();
-    String[] labelNames = new String[columnCount + 1];
-    int[] types = new int[columnCount + 1];
-    buildLabelNamesAndTypes(rsmd, labelNames, types);
-
-    Base entity;
-    Object value;
+    //所有行共用列索引 每行只保存值数组
+    ColumnIndex columnIndex = buildColumnIndex(rs);
+    boolean record = Record.class.isAssignableFrom(modelClass);
 
     while (rs.next()) {
-      if (Record.class.isAssignableFrom(modelClass)) {
-        entity = new Record(tableMeta);
-      } else {
-        entity = modelClass.newInstance();
-      }
-      for (int i = 1; i <= columnCount; i++) {
-        value = rs.getObject(i);
-        entity.init(labelNames[i], value);
-      }
-      result.add((T) entity);
+      result.add(BaseBuilder.<T>buildRow(rs, modelClass, tableMeta, columnIndex, record));
     }
     return result;
   }
 
-  private static void buildLabelNamesAndTypes(ResultSetMetaData rsmd, String[] labelNames, int[] types) throws SQLException {
-    for (int i = 1; i < labelNames.length; i++) {
-      labelNames[i] = rsmd.getColumnLabel(i);
-      types[i] = rsmd.getColumnType(i);
+  /**
+   * 根据ResultSet的列名生成列索引
+   *
+   * @param rs ResultSet
+   * @return ColumnIndex
+   * @throws SQLException s
+   */
+  static ColumnIndex buildColumnIndex(ResultSet rs) throws SQLException {
+    ResultSetMetaData rsmd = rs.getMetaData();
+    int columnCount = rsmd.getColumnCount();
+    String[] labelNames = new String[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      labelNames[i] = rsmd.getColumnLabel(i + 1);
+    }
+    return new ColumnIndex(labelNames);
+  }
+
+  /**
+   * 把ResultSet当前行转换为model
+   *
+   * @param rs          已经移动到当前行的ResultSet
+   * @param modelClass  model类型
+   * @param tableMeta   表信息
+   * @param columnIndex 列索引
+   * @param record      modelClass是否是Record
+   * @return model
+   */
+  static <T> T buildRow(ResultSet rs, Class<? extends Base> modelClass, TableMeta tableMeta, ColumnIndex columnIndex, boolean record) throws SQLException, InstantiationException, IllegalAccessException {
+    Base entity;
+    if (record) {
+      entity = new Record(tableMeta);
+    } else {
+      entity = modelClass.newInstance();
+    }
+    int columnCount = columnIndex.getColumnCount();
+    Object[] values = new Object[columnIndex.size()];
+    for (int i = 0; i < columnCount; i++) {
+      values[columnIndex.getSlot(i)] = rs.getObject(i + 1);
+    }
+    if (entity.getAttrs().isEmpty()) {
+      entity.reSetAttrs(new RowMap<Object>(columnIndex, values));
+    } else {
+      //构造时已经有属性 逐个加入
+      for (int i = 0; i < columnCount; i++) {
+        int slot = columnIndex.getSlot(i);
+        entity.init(columnIndex.getName(slot), values[slot]);
+      }
     }
+    return (T) entity;
   }
 
 }
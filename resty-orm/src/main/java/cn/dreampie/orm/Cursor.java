@@ -0,0 +1,177 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.common.entity.ColumnIndex;
+import cn.dreampie.common.entity.exception.EntityException;
+import cn.dreampie.log.Logger;
+import cn.dreampie.orm.dialect.Dialect;
+import cn.dreampie.orm.exception.DBException;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 游标查询结果 遍历时才从ResultSet读取并转换每一行, 不会一次把结果全部加载到内存
+ * 在遍历结束, 出错或调用close时关闭ResultSet,Statement和连接; 没有遍历完时必须调用close
+ * 游标打开期间会一直占用连接, mysql逐行读取时同一个连接上不能执行其他查询
+ */
+public class Cursor<M extends Base> implements Iterator<M>, Iterable<M>, Closeable {
+
+  private static final Logger logger = Logger.getLogger(Cursor.class);
+
+  private final DataSourceMeta dataSourceMeta;
+  private final Class<? extends Base> modelClass;
+  private final TableMeta tableMeta;
+  private final boolean record;
+  private Connection conn;
+  private PreparedStatement pst;
+  private ResultSet rs;
+  private ColumnIndex columnIndex;
+  //为了游标关闭了自动提交 关闭时恢复
+  private boolean resetAutoCommit;
+  private boolean fetched;
+  private boolean hasNext;
+  private boolean closed;
+
+  Cursor(DataSourceMeta dataSourceMeta, Class<? extends Base> modelClass, TableMeta tableMeta, String sql, Object[] params, int fetchSize) {
+    this.dataSourceMeta = dataSourceMeta;
+    this.modelClass = modelClass;
+    this.tableMeta = tableMeta;
+    this.record = Record.class.isAssignableFrom(modelClass);
+    try {
+      open(sql, params, fetchSize);
+    } catch (SQLException e) {
+      close();
+      throw new DBException(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void open(String sql, Object[] params, int fetchSize) throws SQLException {
+    Dialect dialect = dataSourceMeta.getDialect();
+    dataSourceMeta.beginTransaction();
+    conn = dataSourceMeta.getConnection();
+    //事务中的连接由事务管理 不修改
+    if (dialect.cursorInTransaction() && dataSourceMeta.getCurrentConnection() != conn && conn.getAutoCommit()) {
+      conn.setAutoCommit(false);
+      resetAutoCommit = true;
+    }
+    //游标不使用statement缓存
+    pst = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    pst.setFetchSize(dialect.cursorFetchSize(fetchSize));
+    for (int i = 0; i < params.length; i++) {
+      pst.setObject(i + 1, params[i]);
+    }
+    rs = pst.executeQuery();
+    columnIndex = BaseBuilder.buildColumnIndex(rs);
+  }
+
+  public boolean hasNext() {
+    if (!fetched) {
+      if (closed) {
+        return false;
+      }
+      try {
+        hasNext = rs.next();
+      } catch (SQLException e) {
+        close();
+        throw new DBException(e.getMessage(), e);
+      }
+      fetched = true;
+      //遍历完自动关闭
+      if (!hasNext) {
+        close();
+      }
+    }
+    return hasNext;
+  }
+
+  public M next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    fetched = false;
+    try {
+      return BaseBuilder.buildRow(rs, modelClass, tableMeta, columnIndex, record);
+    } catch (SQLException e) {
+      close();
+      throw new DBException(e.getMessage(), e);
+    } catch (InstantiationException e) {
+      close();
+      throw new EntityException(e.getMessage(), e);
+    } catch (IllegalAccessException e) {
+      close();
+      throw new EntityException(e.getMessage(), e);
+    }
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException("Cursor is read only.");
+  }
+
+  public Iterator<M> iterator() {
+    return this;
+  }
+
+  /**
+   * 逐行处理 处理完成或者抛出异常时关闭游标
+   *
+   * @param action 每一行的处理
+   */
+  public void forEach(Consumer<? super M> action) {
+    try {
+      while (hasNext()) {
+        action.accept(next());
+      }
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * 转换为Stream, Stream关闭时关闭游标, 建议在try-with-resources中使用
+   *
+   * @return Stream
+   */
+  public Stream<M> stream() {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(new Runnable() {
+          public void run() {
+            close();
+          }
+        });
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    fetched = true;
+    hasNext = false;
+    if (resetAutoCommit) {
+      try {
+        conn.commit();
+        conn.setAutoCommit(true);
+      } catch (SQLException e) {
+        logger.warn("Could not reset autoCommit!", e);
+      }
+    }
+    dataSourceMeta.close(rs, pst, conn);
+  }
+}
@@ -1,5 +1,7 @@
 package cn.dreampie.orm;
 
+import cn.dreampie.common.Constant;
+import cn.dreampie.common.util.scope.ContextLocal;
 import cn.dreampie.log.Logger;
 import cn.dreampie.orm.dialect.Dialect;
 import cn.dreampie.orm.exception.TransactionException;
@@ -7,6 +9,7 @@ import cn.dreampie.orm.provider.DataSourceProvider;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -18,13 +21,23 @@ public class DataSourceMeta {
 
   private static final Logger logger = Logger.getLogger(DataSourceMeta.class);
   //不能使用static 让每个数据源都有一个connectionTL
-  private final ThreadLocal<Connection> connectionTL = new ThreadLocal<Connection>();
-  private final ThreadLocal<TransactionManager> transactionManagerTL = new ThreadLocal<TransactionManager>();
-  private final ThreadLocal<Integer> transactionDeepTL = new ThreadLocal<Integer>();
+  private final ContextLocal<Connection> connectionTL = new ContextLocal<Connection>();
+  private final ContextLocal<TransactionManager> transactionManagerTL = new ContextLocal<TransactionManager>();
+  private final ContextLocal<Integer> transactionDeepTL = new ContextLocal<Integer>();
   private DataSourceProvider dataSourceProvider;
+  private final StatementCache statementCache;
 
   public DataSourceMeta(DataSourceProvider dataSourceProvider) {
+    this(dataSourceProvider, Constant.statementCacheSize);
+  }
+
+  /**
+   * @param dataSourceProvider 数据源
+   * @param statementCacheSize 每个连接缓存的PreparedStatement数量 小于等于0不缓存
+   */
+  public DataSourceMeta(DataSourceProvider dataSourceProvider, int statementCacheSize) {
     this.dataSourceProvider = dataSourceProvider;
+    this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
   }
 
   public String getDsName() {
@@ -57,6 +70,44 @@ public class DataSourceMeta {
     return getDataSource().getConnection();
   }
 
+  /**
+   * 获取sql执行对象 开启缓存时复用同一个物理连接上的PreparedStatement 使用后调用close归还
+   *
+   * @param conn         连接对象
+   * @param sql          sql
+   * @param generatedKey 需要返回的自动生成主键 不需要时为null
+   * @return PreparedStatement
+   * @throws SQLException s
+   */
+  PreparedStatement prepareStatement(Connection conn, String sql, String generatedKey) throws SQLException {
+    if (statementCache != null) {
+      return statementCache.prepare(conn, sql, generatedKey);
+    }
+    if (generatedKey == null) {
+      return conn.prepareStatement(sql);
+    } else {
+      return conn.prepareStatement(sql, new String[]{generatedKey});
+    }
+  }
+
+  /**
+   * PreparedStatement缓存命中次数
+   *
+   * @return hits
+   */
+  public long getStatementCacheHits() {
+    return statementCache == null ? 0 : statementCache.getHits();
+  }
+
+  /**
+   * PreparedStatement缓存未命中次数
+   *
+   * @return misses
+   */
+  public long getStatementCacheMisses() {
+    return statementCache == null ? 0 : statementCache.getMisses();
+  }
+
   /**
    * 当前连接对象
    *
@@ -66,6 +117,15 @@ public class DataSourceMeta {
     return connectionTL.get();
   }
 
+  /**
+   * 当前线程是否在事务中 包括已经声明还没有开始的事务
+   *
+   * @return boolean
+   */
+  boolean inTransaction() {
+    return transactionManagerTL.get() != null || connectionTL.get() != null;
+  }
+
   /**
    * 设置当前连接对象
    *
@@ -159,6 +219,9 @@ public class DataSourceMeta {
    * 关闭数据源
    */
   public final void close() {
+    if (statementCache != null) {
+      statementCache.clear();
+    }
     dataSourceProvider.close();
   }
 
@@ -188,7 +251,8 @@ public class DataSourceMeta {
    * @param conn Connection
    */
   public final void close(Statement st, Connection conn) {
-    if (st != null) {
+    //缓存的statement归还后不关闭
+    if (st != null && (statementCache == null || !statementCache.release(st))) {
       try {
         st.close();
       } catch (SQLException e) {
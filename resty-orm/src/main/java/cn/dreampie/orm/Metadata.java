@@ -4,6 +4,7 @@ import cn.dreampie.common.entity.Entity;
 import cn.dreampie.log.Logger;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import static cn.dreampie.common.util.Checker.checkNotNull;
@@ -91,6 +92,33 @@ public class Metadata {
     return dataSourceMetaMap.put(dsName, dsm);
   }
 
+  /**
+   * 移除数据源和它的表 移除的是默认数据源时使用剩下的任意一个
+   *
+   * @param dsName 数据源名称
+   * @return 移除的数据源 不存在时为null
+   */
+  static DataSourceMeta removeDataSourceMeta(String dsName) {
+    DataSourceMeta dsm = dataSourceMetaMap.remove(dsName);
+    String prefix = getMark(dsName, "");
+    Iterator<String> marks = tableMetaMap.keySet().iterator();
+    while (marks.hasNext()) {
+      if (marks.next().startsWith(prefix)) {
+        marks.remove();
+      }
+    }
+    marks = tableMetaClassMap.values().iterator();
+    while (marks.hasNext()) {
+      if (marks.next().startsWith(prefix)) {
+        marks.remove();
+      }
+    }
+    if (dsName.equals(defaultDsName)) {
+      defaultDsName = dataSourceMetaMap.isEmpty() ? null : dataSourceMetaMap.keySet().iterator().next();
+    }
+    return dsm;
+  }
+
   static TableMeta addTableMeta(TableMeta tableMeta) {
     return addTableMeta(tableMeta.getModelClass(), tableMeta);
   }
@@ -0,0 +1,119 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.common.Constant;
+import cn.dreampie.common.util.scope.ScopedContext;
+import cn.dreampie.orm.exception.DBException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * fullPaginate的总行数 在独立的线程上执行count, 并按sql和参数缓存一小段时间
+ */
+final class PageCounter {
+
+  //最多缓存的count数量
+  private static final int MAX_CACHED = 1024;
+
+  private static final Map<String, long[]> cache = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+    protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+      return size() > MAX_CACHED;
+    }
+  };
+
+  //线程用完时在调用线程上执行count 和顺序执行一样
+  private static final ExecutorService executor = new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors() * 2,
+      60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+    private final AtomicInteger count = new AtomicInteger();
+
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "resty-count-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+  private PageCounter() {
+  }
+
+  static String getKey(String dsName, String type, String sql, Object[] params) {
+    return dsName + Constant.CONNECTOR + type + Constant.CONNECTOR + sql + Constant.CONNECTOR + Arrays.asList(params).toString();
+  }
+
+  /**
+   * @param key getKey生成的key
+   * @return 缓存的总行数 不存在或者已经过期时返回null
+   */
+  static Long getCache(String key) {
+    synchronized (cache) {
+      long[] entry = cache.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry[1] < System.currentTimeMillis()) {
+        cache.remove(key);
+        return null;
+      }
+      return entry[0];
+    }
+  }
+
+  /**
+   * @param key     getKey生成的key
+   * @param count   总行数
+   * @param expired 缓存秒数 小于等于0不缓存
+   */
+  static void addCache(String key, long count, int expired) {
+    if (expired <= 0) {
+      return;
+    }
+    synchronized (cache) {
+      cache.put(key, new long[]{count, System.currentTimeMillis() + expired * 1000L});
+    }
+  }
+
+  static void clearCache() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * 在count线程上执行 使用新的ScopedContext 不会拿到调用线程的事务连接
+   *
+   * @param task count
+   * @return Future
+   */
+  static Future<Long> submit(final Callable<Long> task) {
+    return executor.submit(new Callable<Long>() {
+      public Long call() throws Exception {
+        return ScopedContext.call(task);
+      }
+    });
+  }
+
+  /**
+   * 等待count完成 抛出count的异常
+   *
+   * @param future submit返回的Future
+   * @return 总行数
+   */
+  static long get(Future<Long> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new DBException("Interrupted while counting.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new DBException(cause.getMessage(), cause);
+    }
+  }
+}
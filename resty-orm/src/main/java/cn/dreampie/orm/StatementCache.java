@@ -0,0 +1,269 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.log.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PreparedStatement缓存 每个物理连接一个LRU, key是sql和获取自动生成主键的方式
+ * 连接池的连接unwrap到物理连接只用来做缓存的key, statement仍然在传入的连接上创建, 不绕过连接池的filter(如druid的stat,wall)
+ * 连接池包装statement时(如druid) 连接归还后statement随之关闭, 只在同一次借出(事务)内复用, 跨借出复用请使用连接池自己的PSCache
+ * 使用中的statement从缓存中取出, 同一个连接上相同的sql并发使用时会另外创建 不会共用
+ * 每个物理连接一把锁, 不同连接之间互不阻塞
+ */
+final class StatementCache {
+
+  private static final Logger logger = Logger.getLogger(StatementCache.class);
+
+  private final int maxSize;
+  //物理连接 -> 空闲的statement
+  private final ConcurrentMap<Connection, Idles> idles = new ConcurrentHashMap<Connection, Idles>();
+  //使用中的statement
+  private final ConcurrentMap<Statement, Lease> leases = new ConcurrentHashMap<Statement, Lease>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  StatementCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * 获取PreparedStatement 缓存中没有时在传入的连接上创建
+   *
+   * @param conn         连接
+   * @param sql          sql
+   * @param generatedKey 需要返回的自动生成主键 不需要时为null
+   * @return PreparedStatement
+   * @throws SQLException
+   */
+  PreparedStatement prepare(Connection conn, String sql, String generatedKey) throws SQLException {
+    Connection physical = unwrap(conn);
+    String key = generatedKey == null ? sql : generatedKey + ":" + sql;
+    Idles statements = idles(physical);
+    PreparedStatement pst = statements.take(key, conn);
+    if (pst != null) {
+      leases.put(pst, new Lease(statements, key));
+      hits.incrementAndGet();
+      return pst;
+    }
+    misses.incrementAndGet();
+    if (generatedKey == null) {
+      pst = conn.prepareStatement(sql);
+    } else {
+      pst = conn.prepareStatement(sql, new String[]{generatedKey});
+    }
+    leases.put(pst, new Lease(statements, key));
+    return pst;
+  }
+
+  /**
+   * 归还statement
+   *
+   * @param st statement
+   * @return 是否由缓存管理 false时需要调用者自己关闭
+   */
+  boolean release(Statement st) {
+    Lease lease = leases.remove(st);
+    if (lease == null) {
+      return false;
+    }
+    PreparedStatement pst = (PreparedStatement) st;
+    try {
+      pst.clearParameters();
+      if (lease.idles.offer(lease.key, pst)) {
+        return true;
+      }
+    } catch (SQLException e) {
+      logger.warn("Could not reuse statement!", e);
+    }
+    close(pst);
+    return true;
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * 空闲的statement数量
+   *
+   * @return size
+   */
+  int size() {
+    int size = 0;
+    for (Idles statements : idles.values()) {
+      size += statements.size();
+    }
+    return size;
+  }
+
+  /**
+   * 关闭所有空闲的statement
+   */
+  void clear() {
+    for (Map.Entry<Connection, Idles> entry : idles.entrySet()) {
+      if (idles.remove(entry.getKey(), entry.getValue())) {
+        entry.getValue().close();
+      }
+    }
+  }
+
+  private Idles idles(Connection physical) {
+    Idles statements = idles.get(physical);
+    if (statements == null) {
+      //新的物理连接出现时 清理连接池已经关闭的连接
+      purge();
+      Idles created = new Idles(maxSize);
+      statements = idles.putIfAbsent(physical, created);
+      if (statements == null) {
+        statements = created;
+      }
+    }
+    return statements;
+  }
+
+  private void purge() {
+    for (Map.Entry<Connection, Idles> entry : idles.entrySet()) {
+      if (isClosed(entry.getKey()) && idles.remove(entry.getKey(), entry.getValue())) {
+        entry.getValue().close();
+      }
+    }
+  }
+
+  /**
+   * 获取连接池包装下的物理连接 只作为缓存的key 驱动或连接池不支持时使用原连接
+   *
+   * @param conn 连接
+   * @return 物理连接
+   */
+  private static Connection unwrap(Connection conn) {
+    try {
+      if (conn.isWrapperFor(Connection.class)) {
+        Connection physical = conn.unwrap(Connection.class);
+        if (physical != null) {
+          return physical;
+        }
+      }
+    } catch (Throwable e) {
+      //jdbc4之前的连接池没有unwrap
+    }
+    return conn;
+  }
+
+  private static boolean isClosed(Statement st) {
+    try {
+      return st.isClosed();
+    } catch (Throwable e) {
+      return true;
+    }
+  }
+
+  private static boolean isOwner(Statement st, Connection conn) {
+    try {
+      return st.getConnection() == conn;
+    } catch (Throwable e) {
+      return false;
+    }
+  }
+
+  private static boolean isClosed(Connection conn) {
+    try {
+      return conn.isClosed();
+    } catch (Throwable e) {
+      return true;
+    }
+  }
+
+  /**
+   * 一个物理连接上空闲的statement LRU 由自己加锁
+   */
+  private static final class Idles {
+    private final Map<String, PreparedStatement> statements;
+    //连接已经被清理 不再接收归还的statement
+    private boolean closed;
+
+    private Idles(final int maxSize) {
+      this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+          if (size() > maxSize) {
+            StatementCache.close(eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    private synchronized PreparedStatement take(String key, Connection conn) {
+      PreparedStatement pst = statements.remove(key);
+      if (pst == null || isClosed(pst)) {
+        return null;
+      }
+      //连接池每次借出的是新的包装连接 之前借出时创建的statement不能再使用
+      if (!isOwner(pst, conn)) {
+        StatementCache.close(pst);
+        return null;
+      }
+      return pst;
+    }
+
+    /**
+     * @return false 连接已经被清理 或者相同的sql已经有空闲的statement
+     */
+    private synchronized boolean offer(String key, PreparedStatement pst) {
+      if (closed || statements.containsKey(key)) {
+        return false;
+      }
+      statements.put(key, pst);
+      return true;
+    }
+
+    private synchronized int size() {
+      return statements.size();
+    }
+
+    private void close() {
+      List<PreparedStatement> closing;
+      synchronized (this) {
+        closed = true;
+        closing = new ArrayList<PreparedStatement>(statements.values());
+        statements.clear();
+      }
+      for (PreparedStatement pst : closing) {
+        StatementCache.close(pst);
+      }
+    }
+  }
+
+  private static final class Lease {
+    private final Idles idles;
+    private final String key;
+
+    private Lease(Idles idles, String key) {
+      this.idles = idles;
+      this.key = key;
+    }
+  }
+
+  private static void close(Statement st) {
+    try {
+      st.close();
+    } catch (SQLException e) {
+      logger.warn("Could not close statement!", e);
+    }
+  }
+}
@@ -138,7 +138,7 @@ public class TableMetaBuilder {
 
     SortedMap<String, ColumnMeta> columns = new CaseInsensitiveMap<ColumnMeta>();
     while (rs.next()) {
-      if (dbProduct.equals("h2") && "INFORMATION_SCHEMA".equals(rs.getString("TABLE_SCHEMA"))) {
+      if (dbProduct.equals("h2") && "INFORMATION_SCHEMA".equals(rs.getString("TABLE_SCHEM"))) {
         continue; // skip h2 INFORMATION_SCHEMA table columns.
       }
 
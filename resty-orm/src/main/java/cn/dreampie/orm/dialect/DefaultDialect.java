@@ -2,10 +2,14 @@ package cn.dreampie.orm.dialect;
 
 
 import cn.dreampie.common.util.Joiner;
+import cn.dreampie.orm.page.Seek;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -43,6 +47,12 @@ public abstract class DefaultDialect implements Dialect {
   protected final Pattern havingPattern = Pattern.compile("\\s+HAVING\\s+",
       Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
 
+  //SELECT * FROM table [alias] [WHERE ...] 用在去掉括号内容后的sql上
+  protected final Pattern seekSinglePattern = Pattern.compile("^\\s*(SELECT)\\s+\\*\\s+FROM\\s+[\\w.$]+(?:\\s+(?:AS\\s+)?(?!WHERE\\b)\\w+)?\\s*(?:\\sWHERE\\s+(\\S[\\s\\S]*))?$",
+      Pattern.CASE_INSENSITIVE);
+  protected final Pattern seekExcludePattern = Pattern.compile(",|\\b(JOIN|GROUP|HAVING|UNION|INTERSECT|EXCEPT|MINUS|ORDER|LIMIT|OFFSET|FETCH|FOR|WINDOW|CONNECT|START)\\b",
+      Pattern.CASE_INSENSITIVE);
+
   protected final Pattern selectSinglePattern = Pattern.compile("^\\s*SELECT\\s+((COUNT)\\([\\s\\S]*\\)\\s*,?)+((\\s*)|(\\s+FROM[\\s\\S]*))?$",
       Pattern.CASE_INSENSITIVE);
 
@@ -198,6 +208,24 @@ public abstract class DefaultDialect implements Dialect {
   }
 
   public String countWith(String sql) {
+    return "SELECT COUNT(*) FROM (" + removeOrderBy(sql) + ") count_alias";
+  }
+
+  public String estimateCountWith(String sql) {
+    return null;
+  }
+
+  public long estimatedCount(ResultSet rs) throws SQLException {
+    return -1;
+  }
+
+  /**
+   * 去掉最外层的ORDER BY
+   *
+   * @param sql sql
+   * @return sql
+   */
+  protected String removeOrderBy(String sql) {
     Matcher om = orderPattern.matcher(sql);
     if (om.find()) {
       int index = om.end();
@@ -205,7 +233,133 @@ public abstract class DefaultDialect implements Dialect {
         sql = sql.substring(0, om.start());
       }
     }
-    return "SELECT COUNT(*) FROM (" + sql + ") count_alias";
+    return sql;
+  }
+
+  /**
+   * 是否支持(a,b) > (?,?)的行比较 所有排序列方向相同时使用
+   *
+   * @return boolean
+   */
+  protected boolean rowValueSeek() {
+    return false;
+  }
+
+  /**
+   * 生成不带行数限制的键集分页sql
+   * 单表的SELECT * FROM table [WHERE ...]直接把条件加到WHERE里, 可以使用排序列上的索引
+   * 其他sql(JOIN、GROUP BY、DISTINCT、UNION、子查询做表等)包装为派生表, 部分数据库(如mysql 5.6之前)会先物化整个派生表
+   *
+   * @param sql    sql
+   * @param seek   排序列
+   * @param params 参数
+   * @return SELECT * FROM table WHERE (...) AND ... ORDER BY ... 或者 SELECT * FROM (sql) seek_alias WHERE ... ORDER BY ...
+   */
+  protected String seekQuery(String sql, Seek seek, List<Object> params) {
+    sql = removeOrderBy(sql).trim();
+    String condition = seek.isFirst() ? null : seekCondition(seek, params);
+    StringBuilder querySql;
+    String outer = outerSql(sql);
+    Matcher sm = seekSinglePattern.matcher(outer);
+    if (sm.matches() && !seekExcludePattern.matcher(outer).find()) {
+      querySql = new StringBuilder("SELECT").append(sql.substring(sm.end(1), sm.start(2) >= 0 ? sm.start(2) : sql.length()));
+      if (condition != null) {
+        if (sm.start(2) >= 0) {
+          querySql.append('(').append(sql.substring(sm.start(2))).append(") AND ").append(condition);
+        } else {
+          querySql.append(" WHERE ").append(condition);
+        }
+      } else if (sm.start(2) >= 0) {
+        querySql.append(sql.substring(sm.start(2)));
+      }
+    } else {
+      querySql = new StringBuilder("SELECT * FROM (").append(sql).append(") seek_alias");
+      if (condition != null) {
+        querySql.append(" WHERE ").append(condition);
+      }
+    }
+    querySql.append(" ORDER BY ");
+    for (int i = 0; i < seek.size(); i++) {
+      if (i > 0) querySql.append(", ");
+      querySql.append(seek.getColumn(i)).append(seek.isDesc(i) ? " DESC" : " ASC");
+    }
+    return querySql.toString();
+  }
+
+  /**
+   * 上一页最后一行之后的条件
+   *
+   * @param seek   排序列
+   * @param params 参数
+   * @return (a, b) > (?,?) 或者 a >= ? AND ((a > ?) OR (a = ? AND b > ?))
+   */
+  private String seekCondition(Seek seek, List<Object> params) {
+    StringBuilder condition = new StringBuilder();
+    int size = seek.size();
+    if (rowValueSeek() && seek.isSameDirection()) {
+      condition.append('(');
+      for (int i = 0; i < size; i++) {
+        if (i > 0) condition.append(", ");
+        condition.append(seek.getColumn(i));
+        params.add(seek.getValue(i));
+      }
+      condition.append(seek.isDesc(0) ? ") < (" : ") > (");
+      appendQuestions(condition, size);
+      condition.append(')');
+    } else {
+      //第一列的范围条件 OR展开的条件不能直接使用索引
+      if (size > 1) {
+        condition.append(seek.getColumn(0)).append(seek.isDesc(0) ? " <= ?" : " >= ?").append(" AND (");
+        params.add(seek.getValue(0));
+      }
+      //a > ? OR (a = ? AND b > ?) ...
+      for (int i = 0; i < size; i++) {
+        if (i > 0) condition.append(" OR ");
+        condition.append('(');
+        for (int j = 0; j < i; j++) {
+          condition.append(seek.getColumn(j)).append(" = ? AND ");
+          params.add(seek.getValue(j));
+        }
+        condition.append(seek.getColumn(i)).append(seek.isDesc(i) ? " < ?" : " > ?").append(')');
+        params.add(seek.getValue(i));
+      }
+      if (size > 1) {
+        condition.append(')');
+      }
+    }
+    return condition.toString();
+  }
+
+  /**
+   * 把括号和引号里的内容替换为空格 长度不变, 用来判断最外层的sql结构
+   *
+   * @param sql sql
+   * @return 最外层的sql
+   */
+  private String outerSql(String sql) {
+    char[] outer = sql.toCharArray();
+    int depth = 0;
+    char quote = 0;
+    char c;
+    for (int i = 0; i < outer.length; i++) {
+      c = outer[i];
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+        outer[i] = ' ';
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+        outer[i] = ' ';
+      } else if (c == '(') {
+        depth++;
+        outer[i] = ' ';
+      } else if (c == ')') {
+        depth--;
+        outer[i] = ' ';
+      } else if (depth > 0) {
+        outer[i] = ' ';
+      }
+    }
+    return new String(outer);
   }
 
   public String paginate(int pageNumber, int pageSize, String table) {
@@ -224,4 +378,11 @@ public abstract class DefaultDialect implements Dialect {
     return paginateWith(pageNumber, pageSize, select(table, alias, where, columns));
   }
 
+  public int cursorFetchSize(int fetchSize) {
+    return fetchSize;
+  }
+
+  public boolean cursorInTransaction() {
+    return false;
+  }
 }
@@ -1,5 +1,11 @@
 package cn.dreampie.orm.dialect;
 
+import cn.dreampie.orm.page.Seek;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
 /**
  * @author wangrenhui
  */
@@ -36,6 +42,23 @@ public interface Dialect {
 
   public String countWith(String sql);
 
+  /**
+   * 根据执行计划估算行数的sql
+   *
+   * @param sql sql语句
+   * @return sql 不支持时返回null
+   */
+  public String estimateCountWith(String sql);
+
+  /**
+   * 从estimateCountWith的查询结果中读取估算的行数
+   *
+   * @param rs estimateCountWith的查询结果
+   * @return 估算的行数 无法估算时小于0
+   * @throws SQLException s
+   */
+  public long estimatedCount(ResultSet rs) throws SQLException;
+
   public String paginate(int pageNumber, int pageSize, String table);
 
   public String paginate(int pageNumber, int pageSize, String table, String... columns);
@@ -45,4 +68,30 @@ public interface Dialect {
   public String paginate(int pageNumber, int pageSize, String table, String alias, String where, String... columns);
 
   public String paginateWith(int pageNumber, int pageSize, String sql);
+
+  /**
+   * 键集分页 按seek的排序列从上一页最后一行之后开始查询, 不使用OFFSET
+   *
+   * @param pageSize 查询的行数
+   * @param sql      sql语句 其中的ORDER BY会被排序列代替
+   * @param seek     排序列和上一页最后一行的值
+   * @param params   sql的参数 生成的条件参数会加入到末尾
+   * @return sql
+   */
+  public String seekWith(int pageSize, String sql, Seek seek, List<Object> params);
+
+  /**
+   * 游标查询时传给Statement.setFetchSize的值
+   *
+   * @param fetchSize 期望每次从数据库读取的行数
+   * @return 驱动需要的fetchSize
+   */
+  public int cursorFetchSize(int fetchSize);
+
+  /**
+   * 游标查询是否需要关闭自动提交 有的驱动只在事务中才按fetchSize分批读取
+   *
+   * @return boolean
+   */
+  public boolean cursorInTransaction();
 }
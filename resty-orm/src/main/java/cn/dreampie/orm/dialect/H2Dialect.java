@@ -12,4 +12,12 @@ public class H2Dialect extends PostgreSQLDialect {
   public String driverClass() {
     return "org.h2.Driver";
   }
+
+  public boolean cursorInTransaction() {
+    return false;
+  }
+
+  public String estimateCountWith(String sql) {
+    return null;
+  }
 }
@@ -1,5 +1,8 @@
 package cn.dreampie.orm.dialect;
 
+import cn.dreampie.orm.page.Seek;
+
+import java.util.List;
 import java.util.regex.Matcher;
 
 /**
@@ -64,4 +67,8 @@ public class MSSQLDialect extends DefaultDialect {
     return querySql.toString();
   }
 
+  public String seekWith(int pageSize, String sql, Seek seek, List<Object> params) {
+    //seekQuery以"SELECT *"开始 ORDER BY在最外层 直接加TOP
+    return "SELECT TOP " + pageSize + seekQuery(sql, seek, params).substring("SELECT".length());
+  }
 }
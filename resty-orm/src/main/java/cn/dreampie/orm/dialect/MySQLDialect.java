@@ -1,5 +1,9 @@
 package cn.dreampie.orm.dialect;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
 /**
  * MySQLDialect
  */
@@ -16,4 +20,55 @@ public class MySQLDialect extends PostgreSQLDialect {
   public String driverClass() {
     return "com.mysql.jdbc.Driver";
   }
+
+  /**
+   * Integer.MIN_VALUE让驱动逐行读取结果
+   */
+  public int cursorFetchSize(int fetchSize) {
+    return Integer.MIN_VALUE;
+  }
+
+  public boolean cursorInTransaction() {
+    return false;
+  }
+
+  /**
+   * 旧版本mysql的行比较不使用索引
+   */
+  protected boolean rowValueSeek() {
+    return false;
+  }
+
+  public String estimateCountWith(String sql) {
+    return "EXPLAIN " + sql;
+  }
+
+  /**
+   * 第一行驱动表的rows乘以filtered/100(mysql 5.7+ 条件过滤后剩下的百分比), 之前的版本没有filtered只使用rows
+   * 只看驱动表 不考虑JOIN的其他表, 有JOIN时估算值可能相差很大
+   * rows大于0时至少返回1, 估算值不能变成没有数据
+   */
+  public long estimatedCount(ResultSet rs) throws SQLException {
+    if (rs.next()) {
+      long rows = rs.getLong("rows");
+      if (hasColumn(rs, "filtered")) {
+        double filtered = rs.getDouble("filtered");
+        if (!rs.wasNull()) {
+          rows = rows > 0 ? Math.max(1, Math.round(rows * filtered / 100)) : rows;
+        }
+      }
+      return rows;
+    }
+    return -1;
+  }
+
+  private boolean hasColumn(ResultSet rs, String column) throws SQLException {
+    ResultSetMetaData metaData = rs.getMetaData();
+    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+      if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
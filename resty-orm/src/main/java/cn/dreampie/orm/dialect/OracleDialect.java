@@ -1,5 +1,9 @@
 package cn.dreampie.orm.dialect;
 
+import cn.dreampie.orm.page.Seek;
+
+import java.util.List;
+
 /**
  * Created by ice on 15-1-12.
  */
@@ -30,4 +34,7 @@ public class OracleDialect extends DefaultDialect {
     return "SELECT * FROM ( SELECT row_.*, ROWNUM rownum_ FROM (  " + sql + " ) row_ WHERE ROWNUM <= " + end + ") paginate_alias" + " WHERE paginate_alias.rownum_ >= " + start;
   }
 
+  public String seekWith(int pageSize, String sql, Seek seek, List<Object> params) {
+    return "SELECT * FROM ( " + seekQuery(sql, seek, params) + " ) paginate_alias WHERE ROWNUM <= " + pageSize;
+  }
 }
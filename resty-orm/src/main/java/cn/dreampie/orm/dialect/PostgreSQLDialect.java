@@ -1,10 +1,20 @@
 package cn.dreampie.orm.dialect;
 
+import cn.dreampie.orm.page.Seek;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Created by ice on 15-1-12.
  */
 public class PostgreSQLDialect extends DefaultDialect {
 
+  private final Pattern rowsPattern = Pattern.compile("\\srows=(\\d+)");
+
   public String getDbType() {
     return "postgreSQL";
   }
@@ -27,4 +37,36 @@ public class PostgreSQLDialect extends DefaultDialect {
     int offset = pageSize * (pageNumber - 1);
     return sql + " LIMIT " + pageSize + " OFFSET " + offset;
   }
+
+  /**
+   * 自动提交时驱动会一次读取全部结果
+   */
+  public boolean cursorInTransaction() {
+    return true;
+  }
+
+  public String seekWith(int pageSize, String sql, Seek seek, List<Object> params) {
+    return seekQuery(sql, seek, params) + " LIMIT " + pageSize;
+  }
+
+  protected boolean rowValueSeek() {
+    return true;
+  }
+
+  public String estimateCountWith(String sql) {
+    return "EXPLAIN " + removeOrderBy(sql);
+  }
+
+  /**
+   * 第一行是最外层节点 例如 Seq Scan on sec_user  (cost=0.00..1.10 rows=10 width=8)
+   */
+  public long estimatedCount(ResultSet rs) throws SQLException {
+    if (rs.next()) {
+      Matcher rm = rowsPattern.matcher(rs.getString(1));
+      if (rm.find()) {
+        return Long.parseLong(rm.group(1));
+      }
+    }
+    return -1;
+  }
 }
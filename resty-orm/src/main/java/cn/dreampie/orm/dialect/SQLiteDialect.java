@@ -11,4 +11,15 @@ public class SQLiteDialect extends MySQLDialect {
   public String driverClass() {
     return "org.sqlite.JDBC";
   }
+
+  public int cursorFetchSize(int fetchSize) {
+    return fetchSize;
+  }
+
+  /**
+   * sqlite的EXPLAIN返回字节码 没有估算的行数
+   */
+  public String estimateCountWith(String sql) {
+    return null;
+  }
 }
@@ -0,0 +1,242 @@
+package cn.dreampie.orm.page;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+import static cn.dreampie.common.util.Checker.checkArgument;
+
+/**
+ * 键集(seek)分页的排序列和上一页最后一行的值
+ * 排序列组合必须唯一且不为null, 最后一列一般是主键, 例如 "created_at DESC,id DESC"
+ */
+public class Seek {
+
+  private static final Pattern columnPattern = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]*$");
+  private static final byte STRING = 1, INTEGER = 2, LONG = 3, SHORT = 4, BYTE = 5, DOUBLE = 6, FLOAT = 7, BOOLEAN = 8,
+      BIG_DECIMAL = 9, BIG_INTEGER = 10, TIMESTAMP = 11, DATE = 12, TIME = 13, UTIL_DATE = 14;
+
+  private final String[] columns;
+  private final boolean[] descs;
+  private final Object[] values;
+
+  private Seek(String[] columns, boolean[] descs, Object[] values) {
+    this.columns = columns;
+    this.descs = descs;
+    this.values = values;
+  }
+
+  /**
+   * @param keys  排序列 用逗号分割 每列后面可以跟ASC或DESC
+   * @param token 上一页返回的nextToken 第一页为null
+   * @return Seek
+   */
+  public static Seek parse(String keys, String token) {
+    checkArgument(keys != null && !"".equals(keys.trim()), "Seek keys must not be empty");
+    String[] items = keys.trim().split("\\s*,\\s*");
+    String[] columns = new String[items.length];
+    boolean[] descs = new boolean[items.length];
+    for (int i = 0; i < items.length; i++) {
+      String[] parts = items[i].split("\\s+");
+      checkArgument(parts.length <= 2 && columnPattern.matcher(parts[0]).matches(), "Invalid seek key: %s", items[i]);
+      columns[i] = parts[0];
+      if (parts.length == 2) {
+        checkArgument(parts[1].equalsIgnoreCase("DESC") || parts[1].equalsIgnoreCase("ASC"), "Invalid seek key: %s", items[i]);
+        descs[i] = parts[1].equalsIgnoreCase("DESC");
+      }
+    }
+    Object[] values = null;
+    if (token != null && !"".equals(token)) {
+      values = decode(token);
+      checkArgument(values.length == columns.length, "Seek token does not match keys: %s", keys);
+    }
+    return new Seek(columns, descs, values);
+  }
+
+  public int size() {
+    return columns.length;
+  }
+
+  public String getColumn(int i) {
+    return columns[i];
+  }
+
+  public boolean isDesc(int i) {
+    return descs[i];
+  }
+
+  /**
+   * @return 所有列的排序方向是否相同
+   */
+  public boolean isSameDirection() {
+    for (boolean desc : descs) {
+      if (desc != descs[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return 是否第一页
+   */
+  public boolean isFirst() {
+    return values == null;
+  }
+
+  /**
+   * @param i 列
+   * @return 上一页最后一行第i个排序列的值
+   */
+  public Object getValue(int i) {
+    return values[i];
+  }
+
+  /**
+   * 生成下一页的token
+   *
+   * @param values 本页最后一行排序列的值
+   * @return token
+   */
+  public static String encode(Object... values) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeByte(values.length);
+      for (Object value : values) {
+        write(out, value);
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+  }
+
+  private static void write(DataOutputStream out, Object value) throws IOException {
+    checkArgument(value != null, "Seek key value must not be null");
+    if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof BigDecimal) {
+      out.writeByte(BIG_DECIMAL);
+      writeString(out, value.toString());
+    } else if (value instanceof BigInteger) {
+      out.writeByte(BIG_INTEGER);
+      writeString(out, value.toString());
+    } else if (value instanceof java.sql.Timestamp) {
+      out.writeByte(TIMESTAMP);
+      out.writeLong(((java.sql.Timestamp) value).getTime());
+      out.writeInt(((java.sql.Timestamp) value).getNanos());
+    } else if (value instanceof java.sql.Date) {
+      out.writeByte(DATE);
+      out.writeLong(((java.sql.Date) value).getTime());
+    } else if (value instanceof java.sql.Time) {
+      out.writeByte(TIME);
+      out.writeLong(((java.sql.Time) value).getTime());
+    } else if (value instanceof java.util.Date) {
+      out.writeByte(UTIL_DATE);
+      out.writeLong(((java.util.Date) value).getTime());
+    } else {
+      throw new IllegalArgumentException("Unsupported seek key type: " + value.getClass().getName());
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * 解析token 非法的token抛出IllegalArgumentException
+   *
+   * @param token token
+   * @return 排序列的值
+   */
+  public static Object[] decode(String token) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+      Object[] values = new Object[in.readUnsignedByte()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = read(in);
+      }
+      checkArgument(in.read() == -1, "Invalid seek token");
+      return values;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid seek token", e);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid seek token", e);
+    }
+  }
+
+  private static Object read(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case STRING:
+        return readString(in);
+      case INTEGER:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case SHORT:
+        return in.readShort();
+      case BYTE:
+        return in.readByte();
+      case DOUBLE:
+        return in.readDouble();
+      case FLOAT:
+        return in.readFloat();
+      case BOOLEAN:
+        return in.readBoolean();
+      case BIG_DECIMAL:
+        return new BigDecimal(readString(in));
+      case BIG_INTEGER:
+        return new BigInteger(readString(in));
+      case TIMESTAMP:
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+        timestamp.setNanos(in.readInt());
+        return timestamp;
+      case DATE:
+        return new java.sql.Date(in.readLong());
+      case TIME:
+        return new java.sql.Time(in.readLong());
+      case UTIL_DATE:
+        return new java.util.Date(in.readLong());
+      default:
+        throw new IllegalArgumentException("Invalid seek token");
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    checkArgument(length >= 0 && length <= in.available(), "Invalid seek token");
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
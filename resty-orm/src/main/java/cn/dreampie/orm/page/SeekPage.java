@@ -0,0 +1,60 @@
+package cn.dreampie.orm.page;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * SeekPage is the result of Model.seekPaginate(......) or Record.seekPaginate(......)
+ */
+public class SeekPage<T> implements Serializable {
+
+  private List<T> list;        // list result of this page
+  private int pageSize;        // result amount of this page
+  private String nextToken;        // token of next page, null if this is the last page
+
+  /**
+   * Constructor.
+   *
+   * @param list      the list of seekPaginate result
+   * @param pageSize  the page size
+   * @param nextToken the token of next page
+   */
+  public SeekPage(List<T> list, int pageSize, String nextToken) {
+    this.list = list;
+    this.pageSize = pageSize;
+    this.nextToken = nextToken;
+  }
+
+  /**
+   * Return list of this page.
+   * @return s
+   */
+  public List<T> getList() {
+    return list;
+  }
+
+  /**
+   * Return page size.
+   * @return s
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Return the token to query next page, null if this is the last page.
+   * @return s
+   */
+  public String getNextToken() {
+    return nextToken;
+  }
+
+  /**
+   * Return true if this is the last page.
+   * @return s
+   */
+  public boolean isLastPage() {
+    return nextToken == null;
+  }
+
+}
@@ -0,0 +1,58 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.common.entity.RowMap;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BaseBuilderTest {
+
+  private static final String DS_NAME = "baseBuilder";
+
+  private static H2Fixture h2;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    h2 = new H2Fixture(DS_NAME).execute("CREATE TABLE sec_user (id BIGINT PRIMARY KEY, username VARCHAR(50), age INT)",
+        "INSERT INTO sec_user VALUES (1, 'a', 10), (2, 'b', 20)");
+    h2.register(DS_NAME);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    h2.close();
+  }
+
+  @Test
+  public void testRows() {
+    Record dao = new Record(DS_NAME, "sec_user", "id");
+    List<Record> users = dao.find("SELECT * FROM sec_user ORDER BY id");
+    assertEquals(2, users.size());
+    Record user = users.get(0);
+    assertTrue(user.getAttrs() instanceof RowMap);
+    assertEquals("a", user.get("USERNAME"));
+    assertEquals(10, user.<Integer>get("age").intValue());
+    assertTrue(user.getModifyAttrs().isEmpty());
+
+    user.set("age", 11);
+    assertEquals(1, user.getModifyAttrs().size());
+    assertTrue(user.update());
+    assertEquals(11, dao.findFirst("SELECT * FROM sec_user WHERE id=?", 1).<Integer>get("age").intValue());
+  }
+
+  @Test
+  public void testAlias() {
+    Record dao = new Record(DS_NAME, "sec_user", "id");
+    Record user = dao.findFirst("SELECT id, username AS name, id AS ID FROM sec_user WHERE id=?", 2);
+    assertEquals(2, user.getAttrs().size());
+    assertEquals("b", user.get("name"));
+    //查询结果以外的属性
+    user.put("total", 3);
+    assertEquals(3, user.<Integer>get("total").intValue());
+    assertEquals("{\"ID\":2,\"NAME\":\"b\",\"total\":3}", user.toJson());
+  }
+}
@@ -0,0 +1,153 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.orm.dialect.DialectFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CursorTest {
+
+  private static final String DS_NAME = "cursor";
+  //未关闭的连接数
+  private static final AtomicInteger opened = new AtomicInteger();
+
+  private static H2Fixture h2;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    h2 = new H2Fixture(DS_NAME).execute("CREATE TABLE sec_user (id BIGINT PRIMARY KEY, username VARCHAR(50))");
+    for (int i = 1; i <= 10; i++) {
+      h2.execute("INSERT INTO sec_user VALUES (" + i + ", 'u" + i + "')");
+    }
+    //记录借出和归还的连接
+    DataSource dataSource = (DataSource) Proxy.newProxyInstance(CursorTest.class.getClassLoader(), new Class[]{DataSource.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result = method.invoke(h2.getDataSource(), args);
+        if (method.getName().equals("getConnection")) {
+          return tracked((Connection) result);
+        }
+        return result;
+      }
+    });
+    h2.register(DS_NAME, dataSource, DialectFactory.get("h2"));
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    h2.close();
+  }
+
+  private static Connection tracked(final Connection conn) {
+    opened.incrementAndGet();
+    return (Connection) Proxy.newProxyInstance(CursorTest.class.getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("close") && !conn.isClosed()) {
+          opened.decrementAndGet();
+        }
+        return method.invoke(conn, args);
+      }
+    });
+  }
+
+  private Record dao() {
+    return new Record(DS_NAME, "sec_user", "id");
+  }
+
+  @Test
+  public void testIterate() {
+    Cursor<Record> cursor = dao().findCursor(3, "SELECT * FROM sec_user WHERE id>? ORDER BY id", 4L);
+    assertEquals(1, opened.get());
+    List<Long> ids = new ArrayList<Long>();
+    for (Record user : cursor) {
+      ids.add(user.<Long>get("id"));
+    }
+    assertEquals(6, ids.size());
+    assertEquals(5L, ids.get(0).longValue());
+    //遍历完自动关闭
+    assertTrue(cursor.isClosed());
+    assertEquals(0, opened.get());
+    assertFalse(cursor.hasNext());
+    try {
+      cursor.next();
+      fail();
+    } catch (NoSuchElementException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void testClose() {
+    Cursor<Record> cursor = dao().findCursorBy("id<=?", 5L);
+    assertTrue(cursor.hasNext());
+    assertEquals("u1", cursor.next().get("username"));
+    cursor.close();
+    cursor.close();
+    assertEquals(0, opened.get());
+    assertFalse(cursor.hasNext());
+  }
+
+  @Test
+  public void testForEachFailure() {
+    Cursor<Record> cursor = dao().findCursor("SELECT * FROM sec_user ORDER BY id");
+    final AtomicInteger count = new AtomicInteger();
+    try {
+      cursor.forEach(new Consumer<Record>() {
+        public void accept(Record user) {
+          if (count.incrementAndGet() == 2) {
+            throw new IllegalStateException("stop");
+          }
+        }
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("stop", e.getMessage());
+    }
+    assertEquals(2, count.get());
+    assertTrue(cursor.isClosed());
+    assertEquals(0, opened.get());
+  }
+
+  @Test
+  public void testStream() {
+    Stream<Record> stream = dao().findCursor("SELECT * FROM sec_user ORDER BY id").stream();
+    try {
+      List<String> names = stream.limit(2).map(new Function<Record, String>() {
+        public String apply(Record user) {
+          return user.get("username");
+        }
+      }).collect(Collectors.<String>toList());
+      assertEquals(2, names.size());
+      assertEquals("u2", names.get(1));
+    } finally {
+      stream.close();
+    }
+    assertEquals(0, opened.get());
+  }
+
+  @Test
+  public void testBadSql() {
+    try {
+      dao().findCursor("SELECT * FROM sec_user WHERE nothing=?", 1);
+      fail();
+    } catch (Exception e) {
+      //expected
+    }
+    assertEquals(0, opened.get());
+  }
+}
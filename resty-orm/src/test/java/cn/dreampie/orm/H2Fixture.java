@@ -0,0 +1,103 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.orm.dialect.Dialect;
+import cn.dreampie.orm.dialect.DialectFactory;
+import cn.dreampie.orm.provider.DataSourceProvider;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * orm测试共用的h2内存数据库 每个测试类一个库
+ * 注册的数据源在close时从Metadata中移除, 不影响其他测试类的默认数据源
+ */
+public class H2Fixture {
+
+  private final JdbcDataSource dataSource;
+  private final List<String> dsNames = new ArrayList<String>();
+
+  public H2Fixture(String name) {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+  }
+
+  public JdbcDataSource getDataSource() {
+    return dataSource;
+  }
+
+  public String getUrl() {
+    return dataSource.getURL();
+  }
+
+  /**
+   * 执行建表和初始化数据的sql
+   */
+  public H2Fixture execute(String... sqls) throws SQLException {
+    Connection conn = dataSource.getConnection();
+    try {
+      Statement st = conn.createStatement();
+      for (String sql : sqls) {
+        st.execute(sql);
+      }
+      st.close();
+    } finally {
+      conn.close();
+    }
+    return this;
+  }
+
+  public DataSourceMeta register(String dsName) {
+    return register(dsName, dataSource, DialectFactory.get("h2"));
+  }
+
+  public DataSourceMeta register(final String dsName, final DataSource dataSource, final Dialect dialect) {
+    return register(new DataSourceMeta(new DataSourceProvider() {
+      public DataSource getDataSource() {
+        return dataSource;
+      }
+
+      public Dialect getDialect() {
+        return dialect;
+      }
+
+      public String getDsName() {
+        return dsName;
+      }
+
+      public boolean isShowSql() {
+        return false;
+      }
+
+      public void close() {
+      }
+    }));
+  }
+
+  public DataSourceMeta register(DataSourceMeta dsm) {
+    Metadata.addDataSourceMeta(dsm);
+    dsNames.add(dsm.getDsName());
+    return dsm;
+  }
+
+  /**
+   * 移除注册的数据源 删除库中的表
+   */
+  public void close() throws SQLException {
+    DataSourceMeta dsm;
+    for (String dsName : dsNames) {
+      dsm = Metadata.removeDataSourceMeta(dsName);
+      if (dsm != null) {
+        dsm.close();
+      }
+    }
+    dsNames.clear();
+    execute("DROP ALL OBJECTS");
+  }
+}
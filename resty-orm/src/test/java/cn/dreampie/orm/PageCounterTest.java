@@ -0,0 +1,145 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.common.util.scope.ContextLocal;
+import cn.dreampie.orm.dialect.H2Dialect;
+import cn.dreampie.orm.dialect.MySQLDialect;
+import cn.dreampie.orm.exception.DBException;
+import cn.dreampie.orm.page.FullPage;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.*;
+
+public class PageCounterTest {
+
+  private static H2Fixture h2;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    h2 = new H2Fixture("pageCounter").execute("CREATE TABLE sec_user (id BIGINT PRIMARY KEY)");
+    for (int i = 1; i <= 10; i++) {
+      h2.execute("INSERT INTO sec_user VALUES (" + i + ")");
+    }
+    h2.register("pageCounter");
+    //用count*10模拟执行计划的估算值
+    h2.register("pageEstimate", h2.getDataSource(), new H2Dialect() {
+      public String estimateCountWith(String sql) {
+        return "SELECT COUNT(*) * 10 FROM (" + sql + ") estimate_alias";
+      }
+
+      public long estimatedCount(ResultSet rs) throws SQLException {
+        return rs.next() ? rs.getLong(1) : -1;
+      }
+    });
+    //统计信息过期 估算为0
+    h2.register("pageZero", h2.getDataSource(), new H2Dialect() {
+      public String estimateCountWith(String sql) {
+        return "SELECT COUNT(*) * 0 FROM (" + sql + ") estimate_alias";
+      }
+
+      public long estimatedCount(ResultSet rs) throws SQLException {
+        return rs.next() ? rs.getLong(1) : -1;
+      }
+    });
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    h2.close();
+  }
+
+  @Test
+  public void testEstimate() {
+    Record exact = new Record("pageCounter", "sec_user", "id");
+    FullPage<Record> page = exact.fullPaginateBy(2, 3, "id > ?", 0L);
+    assertEquals(10, page.getTotalRow());
+    assertEquals(4, page.getTotalPage());
+    assertEquals(4L, page.getList().get(0).<Long>get("id").longValue());
+    //不支持估算时使用count
+    assertEquals(10, exact.estimatePaginateBy(1, 3, "id > ?", 0L).getTotalRow());
+
+    Record estimate = new Record("pageEstimate", "sec_user", "id");
+    page = estimate.estimatePaginateBy(2, 3, "id > ?", 0L);
+    assertEquals(100, page.getTotalRow());
+    assertEquals(34, page.getTotalPage());
+    assertEquals(3, page.getList().size());
+    assertEquals(10, estimate.fullPaginateBy(2, 3, "id > ?", 0L).getTotalRow());
+
+    //估算为0时仍然查询 总数不少于已经查到的行数
+    Record zero = new Record("pageZero", "sec_user", "id");
+    page = zero.estimatePaginateBy(2, 3, "id > ?", 0L);
+    assertEquals(3, page.getList().size());
+    assertEquals(6, page.getTotalRow());
+    assertEquals(2, page.getTotalPage());
+    page = zero.estimatePaginateBy(1, 3, "id > ?", 100L);
+    assertEquals(0, page.getList().size());
+    assertEquals(0, page.getTotalRow());
+  }
+
+  @Test
+  public void testSubmit() {
+    final ContextLocal<String> local = new ContextLocal<String>();
+    local.set("caller");
+    try {
+      //count线程看不到调用线程的上下文
+      assertEquals(0L, PageCounter.get(PageCounter.submit(new Callable<Long>() {
+        public Long call() throws Exception {
+          return local.get() == null ? 0L : 1L;
+        }
+      })));
+      assertEquals("caller", local.get());
+    } finally {
+      local.remove();
+    }
+
+    try {
+      PageCounter.get(PageCounter.submit(new Callable<Long>() {
+        public Long call() throws Exception {
+          throw new SQLException("broken");
+        }
+      }));
+      fail();
+    } catch (DBException e) {
+      assertEquals("broken", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    PageCounter.clearCache();
+    String key = PageCounter.getKey("pageCounter", "count", "SELECT * FROM sec_user WHERE id > ?", new Object[]{0L});
+    assertNotEquals(key, PageCounter.getKey("pageCounter", "count", "SELECT * FROM sec_user WHERE id > ?", new Object[]{1L}));
+    PageCounter.addCache(key, 10, 0);
+    assertNull(PageCounter.getCache(key));
+    PageCounter.addCache(key, 10, 60);
+    assertEquals(10L, PageCounter.getCache(key).longValue());
+    PageCounter.clearCache();
+    assertNull(PageCounter.getCache(key));
+  }
+
+  @Test
+  public void testMySQLEstimate() throws Exception {
+    Connection conn = h2.getDataSource().getConnection();
+    try {
+      Statement stmt = conn.createStatement();
+      //模拟mysql的EXPLAIN结果 5.7+有filtered列
+      assertEquals(250L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 1000 AS \"rows\", 25.0 AS \"filtered\"")));
+      //过滤后四舍五入为0时 仍然至少有1行
+      assertEquals(1L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 4 AS \"rows\", 10.0 AS \"filtered\"")));
+      assertEquals(0L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 0 AS \"rows\", 10.0 AS \"filtered\"")));
+      assertEquals(1000L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 1000 AS \"rows\", NULL AS \"filtered\"")));
+      assertEquals(1000L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 1000 AS \"rows\"")));
+      assertEquals(-1L, new MySQLDialect().estimatedCount(stmt.executeQuery("SELECT 1000 AS \"rows\" FROM sec_user WHERE id < 0")));
+      stmt.close();
+    } finally {
+      conn.close();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.orm.dialect.DialectFactory;
+import cn.dreampie.orm.page.Seek;
+import cn.dreampie.orm.page.SeekPage;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeekPaginateTest {
+
+  private static final String DS_NAME = "seek";
+
+  private static H2Fixture h2;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    h2 = new H2Fixture(DS_NAME).execute("CREATE TABLE sec_user (id BIGINT PRIMARY KEY, age INT)");
+    for (int i = 1; i <= 10; i++) {
+      //age: 1,1,2,2,3,3,4,4,5,5
+      h2.execute("INSERT INTO sec_user VALUES (" + i + ", " + (i + 1) / 2 + ")");
+    }
+    h2.register(DS_NAME);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    h2.close();
+  }
+
+  private List<Long> seekAll(String keys, int pageSize) {
+    Record dao = new Record(DS_NAME, "sec_user", "id");
+    List<Long> ids = new ArrayList<Long>();
+    String token = null;
+    do {
+      SeekPage<Record> page = dao.seekPaginateBy(token, pageSize, keys, "id > ? ORDER BY id", 0L);
+      assertTrue(page.getList().size() <= pageSize);
+      for (Record user : page.getList()) {
+        ids.add(user.<Long>get("id"));
+      }
+      token = page.getNextToken();
+    } while (token != null);
+    return ids;
+  }
+
+  @Test
+  public void testPaginate() {
+    assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), seekAll("id", 3));
+    //行比较
+    assertEquals(Arrays.asList(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), seekAll("age DESC, id DESC", 4));
+    //方向不同
+    assertEquals(Arrays.asList(9L, 10L, 7L, 8L, 5L, 6L, 3L, 4L, 1L, 2L), seekAll("age DESC,id ASC", 5));
+    assertEquals(10, seekAll("id", 10).size());
+  }
+
+  @Test
+  public void testSql() {
+    Seek seek = Seek.parse("age DESC,id", Seek.encode(3, 5L));
+    List<Object> params = new ArrayList<Object>();
+    params.add("x");
+    String sql = "SELECT * FROM sec_user WHERE name=? ORDER BY id";
+    //单表直接加到WHERE里
+    assertEquals("SELECT * FROM sec_user WHERE (name=?) AND age <= ? AND ((age < ?) OR (age = ? AND id > ?)) ORDER BY age DESC, id ASC LIMIT 11",
+        DialectFactory.get("mysql").seekWith(11, sql, seek, params));
+    assertEquals(Arrays.<Object>asList("x", 3, 3, 3, 5L), params);
+
+    params.clear();
+    assertEquals("SELECT * FROM sec_user WHERE (age, id) < (?,?) ORDER BY age DESC, id DESC LIMIT 11",
+        DialectFactory.get("postgreSQL").seekWith(11, "SELECT * FROM sec_user", Seek.parse("age desc, id desc", Seek.encode(3, 5L)), params));
+    assertEquals(Arrays.<Object>asList(3, 5L), params);
+
+    params.clear();
+    //括号里的子查询不影响判断
+    assertEquals("SELECT TOP 11 * from sec_user u where u.id IN (SELECT user_id FROM sec_user_role WHERE role_id IN (1, 2)) ORDER BY id ASC",
+        DialectFactory.get("mssql").seekWith(11, "select * from sec_user u where u.id IN (SELECT user_id FROM sec_user_role WHERE role_id IN (1, 2))", Seek.parse("id", null), params));
+    assertTrue(params.isEmpty());
+    assertEquals("SELECT * FROM ( SELECT * FROM sec_user WHERE (id > ?) ORDER BY id ASC ) paginate_alias WHERE ROWNUM <= 11",
+        DialectFactory.get("oracle").seekWith(11, "SELECT * FROM sec_user", Seek.parse("id", Seek.encode(5L)), params));
+
+    //JOIN、GROUP BY等使用派生表
+    params.clear();
+    assertEquals("SELECT * FROM (SELECT u.*, r.name AS role FROM sec_user u JOIN sec_role r ON r.id=u.role_id WHERE r.name=?) seek_alias WHERE (id > ?) ORDER BY id ASC LIMIT 11",
+        DialectFactory.get("mysql").seekWith(11, "SELECT u.*, r.name AS role FROM sec_user u JOIN sec_role r ON r.id=u.role_id WHERE r.name=?", Seek.parse("id", Seek.encode(5L)), params));
+    assertEquals("SELECT * FROM (SELECT age, COUNT(*) AS total FROM sec_user GROUP BY age) seek_alias ORDER BY age ASC LIMIT 11",
+        DialectFactory.get("mysql").seekWith(11, "SELECT age, COUNT(*) AS total FROM sec_user GROUP BY age", Seek.parse("age", null), params));
+  }
+
+  @Test
+  public void testToken() {
+    Timestamp timestamp = new Timestamp(1000L);
+    timestamp.setNanos(123456789);
+    Object[] values = new Object[]{"a,b", 1, 2L, new BigDecimal("1.50"), timestamp, true};
+    assertArrayEquals(values, Seek.decode(Seek.encode(values)));
+
+    try {
+      Seek.parse("id", Seek.encode(1L, 2L));
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+    try {
+      Seek.decode("not-a-token");
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+    try {
+      Seek.parse("id; DROP TABLE sec_user", null);
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package cn.dreampie.orm;
+
+import cn.dreampie.orm.exception.DBException;
+import cn.dreampie.orm.provider.druid.DruidDataSourceProvider;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.stat.JdbcSqlStat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class StatementCacheTest {
+
+  private static final String DS_NAME = "statementCache";
+  private static H2Fixture h2;
+  private static Connection physical;
+  private static DruidDataSource druid;
+  private static DataSourceMeta dsm;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    h2 = new H2Fixture(DS_NAME).execute("CREATE TABLE sec_user (id BIGINT PRIMARY KEY, username VARCHAR(50))",
+        "INSERT INTO sec_user VALUES (1, 'a'), (2, 'b')");
+    physical = h2.getDataSource().getConnection();
+    //真实的连接池 statement由druid包装并经过stat,wall filter
+    DruidDataSourceProvider provider = new DruidDataSourceProvider(h2.getUrl(), "sa", "", "h2", false) {
+      public String getDsName() {
+        return DS_NAME;
+      }
+    };
+    provider.setInitialSize(1).setMinIdle(1).setMaxActive(2).setFilters("stat,wall");
+    druid = (DruidDataSource) provider.getDataSource();
+    dsm = h2.register(new DataSourceMeta(provider, 2));
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    physical.close();
+    h2.close();
+  }
+
+  @Test
+  public void testPoolFilters() throws SQLException {
+    Record record = new Record(DS_NAME, "sec_user", "id");
+    String sql = "SELECT * FROM sec_user WHERE id=?";
+    long executed = executeCount("sec_user WHERE id=?");
+    long hits = dsm.getStatementCacheHits();
+    long misses = dsm.getStatementCacheMisses();
+    assertEquals("a", record.findFirst(sql, 1).get("username"));
+    assertEquals("b", record.findFirst(sql, 2).get("username"));
+    //每次借出的是新的包装连接 上一次的statement已经随连接归还关闭 不能复用
+    assertEquals(hits, dsm.getStatementCacheHits());
+    assertEquals(misses + 2, dsm.getStatementCacheMisses());
+    //statement在连接池的连接上创建 stat能统计到
+    assertEquals(executed + 2, executeCount("sec_user WHERE id=?"));
+    //wall拦截永真条件
+    try {
+      record.find("SELECT * FROM sec_user WHERE id=1 OR 1=1");
+      fail();
+    } catch (DBException e) {
+      assertTrue(e.getCause() instanceof SQLException);
+    }
+  }
+
+  /**
+   * druid统计的执行次数 findFirst会加上分页
+   */
+  private long executeCount(String sql) {
+    long count = 0;
+    for (JdbcSqlStat stat : druid.getDataSourceStat().getSqlStatMap().values()) {
+      if (stat.getSql().contains(sql)) {
+        count += stat.getExecuteCount();
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testInUse() throws SQLException {
+    Connection conn = dsm.getConnection();
+    PreparedStatement first = dsm.prepareStatement(conn, "SELECT 1", null);
+    //使用中的statement不能共用
+    PreparedStatement second = dsm.prepareStatement(conn, "SELECT 1", null);
+    assertNotSame(first, second);
+    dsm.close(first, null);
+    dsm.close(second, null);
+    assertFalse(first.isClosed());
+    assertTrue(second.isClosed());
+    assertSame(first, dsm.prepareStatement(conn, "SELECT 1", null));
+    dsm.close(first, conn);
+  }
+
+  @Test
+  public void testEvict() throws SQLException {
+    Connection conn = dsm.getConnection();
+    PreparedStatement one = dsm.prepareStatement(conn, "SELECT 1", null);
+    dsm.close(one, null);
+    PreparedStatement two = dsm.prepareStatement(conn, "SELECT 2", null);
+    dsm.close(two, null);
+    PreparedStatement three = dsm.prepareStatement(conn, "SELECT 3", null);
+    dsm.close(three, null);
+    assertTrue(one.isClosed());
+    assertFalse(two.isClosed());
+    assertFalse(three.isClosed());
+    //连接归还时连接池关闭它包装的statement
+    dsm.close((Statement) null, conn);
+    assertTrue(two.isClosed());
+    assertTrue(three.isClosed());
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final StatementCache cache = new StatementCache(4);
+    final Connection[] connections = {h2.getDataSource().getConnection(), h2.getDataSource().getConnection()};
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final Connection conn = connections[t % connections.length];
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          try {
+            for (int i = 0; i < 200; i++) {
+              PreparedStatement pst = cache.prepare(conn, "SELECT ?", null);
+              pst.setInt(1, i);
+              ResultSet rs = pst.executeQuery();
+              rs.next();
+              assertEquals(i, rs.getInt(1));
+              rs.close();
+              assertTrue(cache.release(pst));
+            }
+          } catch (Throwable e) {
+            error.set(e);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(error.get());
+    assertEquals(800, cache.getHits() + cache.getMisses());
+    //每个连接最多保留一个相同sql的空闲statement
+    assertEquals(2, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+    for (Connection conn : connections) {
+      conn.close();
+    }
+  }
+
+  @Test
+  public void testClearInUse() throws SQLException {
+    StatementCache cache = new StatementCache(2);
+    PreparedStatement pst = cache.prepare(physical, "SELECT 1", null);
+    cache.clear();
+    //连接已经被清理 归还时直接关闭
+    assertTrue(cache.release(pst));
+    assertTrue(pst.isClosed());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testTransaction() {
+    Record record = new Record(DS_NAME, "sec_user", "id");
+    dsm.initTransaction(false, Connection.TRANSACTION_READ_COMMITTED);
+    try {
+      dsm.beginTransaction();
+      record.update("UPDATE sec_user SET username=? WHERE id=?", "c", 1);
+      long hits = dsm.getStatementCacheHits();
+      assertEquals("c", record.findFirst("SELECT * FROM sec_user WHERE id=?", 1).get("username"));
+      //同一次借出的连接上复用
+      assertEquals("b", record.findFirst("SELECT * FROM sec_user WHERE id=?", 2).get("username"));
+      assertEquals(hits + 1, dsm.getStatementCacheHits());
+      dsm.rollbackTransaction();
+    } finally {
+      dsm.endTranasaction();
+    }
+    List<Record> users = record.find("SELECT * FROM sec_user WHERE id=?", 1);
+    assertEquals("a", users.get(0).get("username"));
+  }
+}
@@ -4,6 +4,7 @@ import cn.dreampie.common.Constant;
 import cn.dreampie.common.http.HttpRequest;
 import cn.dreampie.common.http.HttpResponse;
 import cn.dreampie.common.util.matcher.AntPathMatcher;
+import cn.dreampie.common.util.scope.ScopedContext;
 import cn.dreampie.log.Logger;
 import cn.dreampie.route.config.Config;
 import cn.dreampie.route.exception.InitException;
@@ -77,12 +78,18 @@ public final class RestyFilter implements Filter {
     boolean[] isHandled = {false};
     //排除的参数
     if (!isExclusion(request.getRestPath())) {
+      //请求范围的上下文 请求结束时丢弃
+      ScopedContext context = ScopedContext.enter();
       try {
         handler.handle(request, response, isHandled);
       } catch (Exception e) {
         ExceptionHolder.HOLDER.hold(request, response, e, isHandled);
       } finally {
-        response.close();
+        ScopedContext.exit(context);
+        //异步请求由执行线程结束
+        if (!servletRequest.isAsyncStarted()) {
+          response.close();
+        }
       }
     }
     if (!isHandled[0]) {
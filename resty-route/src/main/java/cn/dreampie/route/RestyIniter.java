@@ -1,6 +1,7 @@
 package cn.dreampie.route;
 
 import cn.dreampie.route.config.Config;
+import cn.dreampie.route.core.AsyncExecutors;
 import cn.dreampie.route.core.RouteBuilder;
 import cn.dreampie.route.core.RouteHandler;
 import cn.dreampie.route.handler.Handler;
@@ -37,6 +38,7 @@ public final class RestyIniter {
   public void stop() {
     config.beforeStop();
     configIniter.stopPlugins();
+    AsyncExecutors.shutdown();
   }
 
 
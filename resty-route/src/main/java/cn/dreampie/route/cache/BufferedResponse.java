@@ -0,0 +1,191 @@
+package cn.dreampie.route.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把响应体缓存在内存中的response 响应头照常输出并记录下来用于重放
+ */
+public final class BufferedResponse extends HttpServletResponseWrapper {
+
+  private static final String CONTENT_LENGTH = "Content-Length";
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final List<String[]> headers = new ArrayList<String[]>();
+  private ServletOutputStream stream;
+  private PrintWriter writer;
+  private int status = SC_OK;
+  private boolean cookie;
+
+  public BufferedResponse(HttpServletResponse response) {
+    super(response);
+  }
+
+  /**
+   * @return 输出的内容
+   */
+  public byte[] toByteArray() {
+    if (writer != null) {
+      writer.flush();
+    }
+    return body.toByteArray();
+  }
+
+  /**
+   * 把缓存的内容输出到被包装的response
+   */
+  public void commit() throws IOException {
+    byte[] bytes = toByteArray();
+    getResponse().setContentLength(bytes.length);
+    getResponse().getOutputStream().write(bytes);
+  }
+
+  /**
+   * @return 记录的响应头 {name, value} 不包括Content-Length
+   */
+  public List<String[]> getHeaderList() {
+    return headers;
+  }
+
+  /**
+   * @return 是否设置了cookie
+   */
+  public boolean hasCookie() {
+    return cookie;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (stream == null) {
+      stream = new ServletOutputStream() {
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException("Buffered response does not support non-blocking output.");
+        }
+
+        public void write(int b) {
+          body.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) {
+          body.write(b, off, len);
+        }
+      };
+    }
+    return stream;
+  }
+
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  public boolean isCommitted() {
+    return false;
+  }
+
+  public void reset() {
+    super.reset();
+    resetBuffer();
+    headers.clear();
+    status = SC_OK;
+    cookie = false;
+  }
+
+  public void resetBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    body.reset();
+  }
+
+  public void setStatus(int sc) {
+    status = sc;
+    super.setStatus(sc);
+  }
+
+  public void sendError(int sc) throws IOException {
+    status = sc;
+    super.sendError(sc);
+  }
+
+  public void sendError(int sc, String msg) throws IOException {
+    status = sc;
+    super.sendError(sc, msg);
+  }
+
+  public void addCookie(Cookie c) {
+    cookie = true;
+    super.addCookie(c);
+  }
+
+  public void setContentType(String type) {
+    record("Content-Type", type, true);
+    super.setContentType(type);
+  }
+
+  public void setContentLength(int len) {
+  }
+
+  public void setContentLengthLong(long len) {
+  }
+
+  public void setHeader(String name, String value) {
+    if (!CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      record(name, value, true);
+      super.setHeader(name, value);
+    }
+  }
+
+  public void addHeader(String name, String value) {
+    if (!CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      record(name, value, false);
+      super.addHeader(name, value);
+    }
+  }
+
+  public void setIntHeader(String name, int value) {
+    setHeader(name, String.valueOf(value));
+  }
+
+  public void addIntHeader(String name, int value) {
+    addHeader(name, String.valueOf(value));
+  }
+
+  private void record(String name, String value, boolean replace) {
+    if (name.equalsIgnoreCase("Set-Cookie")) {
+      cookie = true;
+    }
+    if (replace) {
+      for (int i = headers.size() - 1; i >= 0; i--) {
+        if (headers.get(i)[0].equalsIgnoreCase(name)) {
+          headers.remove(i);
+        }
+      }
+    }
+    headers.add(new String[]{name, value});
+  }
+}
@@ -0,0 +1,115 @@
+package cn.dreampie.route.cache;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.common.util.crypto.Hex;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * 已经输出过的响应 包括响应头、内容和根据内容生成的强ETag
+ */
+public final class CachedResponse {
+
+  private final HttpStatus status;
+  private final List<String[]> headers;
+  private final byte[] body;
+  private final String etag;
+  private final long expires;
+
+  public CachedResponse(HttpStatus status, List<String[]> headers, byte[] body, long expires) {
+    this.status = status;
+    this.headers = headers;
+    this.body = body;
+    this.etag = etag(body);
+    this.expires = expires;
+  }
+
+  /**
+   * 从BufferedResponse创建
+   *
+   * @param response 输出完成的response
+   * @param expires  过期时间 毫秒
+   * @return CachedResponse
+   */
+  public static CachedResponse of(BufferedResponse response, long expires) {
+    return new CachedResponse(HttpStatus.havingCode(response.getStatus()), response.getHeaderList(), response.toByteArray(), expires);
+  }
+
+  /**
+   * 内容的md5作为强ETag
+   */
+  static String etag(byte[] body) {
+    try {
+      return "\"" + Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(body)) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * 输出到response, If-None-Match匹配时返回304
+   *
+   * @param request       请求
+   * @param response      响应
+   * @param replayHeaders 是否需要输出记录的响应头
+   */
+  public void write(HttpRequest request, HttpResponse response, boolean replayHeaders) {
+    HttpServletResponse servletResponse = response.unwrap(HttpServletResponse.class);
+    if (replayHeaders) {
+      for (String[] header : headers) {
+        servletResponse.addHeader(header[0], header[1]);
+      }
+    }
+    response.setHeader("ETag", etag);
+    if (status == HttpStatus.OK && isNotModified(request.getHeader("If-None-Match"))) {
+      response.setStatus(HttpStatus.NOT_MODIFIED);
+      return;
+    }
+    response.setStatus(status);
+    response.setHeader("Content-Length", Integer.toString(body.length));
+    try {
+      response.getOutputStream().write(body);
+    } catch (IOException e) {
+      throw new WebException(e.getMessage());
+    }
+  }
+
+  private boolean isNotModified(String ifNoneMatch) {
+    if (ifNoneMatch != null) {
+      String tag;
+      for (String t : ifNoneMatch.split(",")) {
+        tag = t.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(etag)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  public boolean isExpired(long now) {
+    return now >= expires;
+  }
+
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+}
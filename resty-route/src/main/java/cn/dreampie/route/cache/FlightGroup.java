@@ -0,0 +1,97 @@
+package cn.dreampie.route.cache;
+
+import cn.dreampie.route.core.annotation.SingleFlight;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * route上正在执行的请求 相同key的请求只有第一个执行, 其他的等待它输出的内容
+ */
+public final class FlightGroup {
+
+  private final long timeout;
+  private final String[] headers;
+  private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+
+  public FlightGroup(SingleFlight singleFlight) {
+    this(singleFlight.timeout(), singleFlight.headers());
+  }
+
+  /**
+   * @param timeout 等待的超时时间 毫秒
+   * @param headers 参与key的请求头
+   */
+  public FlightGroup(long timeout, String[] headers) {
+    this.timeout = timeout;
+    this.headers = headers;
+  }
+
+  public String[] getHeaders() {
+    return headers;
+  }
+
+  /**
+   * 没有相同的请求在执行时由当前请求执行
+   *
+   * @param key key
+   * @return 当前请求是leader时返回新的Flight, 否则返回null
+   */
+  public Flight lead(String key) {
+    Flight flight = new Flight(key);
+    return flights.putIfAbsent(key, flight) == null ? flight : null;
+  }
+
+  /**
+   * 等待正在执行的相同请求的输出
+   *
+   * @param key key
+   * @return 输出的内容 已经结束、超时、失败或者内容不能共享时返回null
+   */
+  public CachedResponse await(String key) {
+    Flight flight = flights.get(key);
+    return flight == null ? null : flight.await();
+  }
+
+  public int size() {
+    return flights.size();
+  }
+
+  /**
+   * 一次执行 leader输出后唤醒所有等待的请求
+   */
+  public final class Flight {
+    private final String key;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile CachedResponse result;
+
+    private Flight(String key) {
+      this.key = key;
+    }
+
+    private CachedResponse await() {
+      try {
+        if (latch.await(timeout, TimeUnit.MILLISECONDS)) {
+          return result;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+
+    /**
+     * leader执行结束 只有第一次调用有效
+     *
+     * @param result 输出的内容 or null
+     */
+    public void land(CachedResponse result) {
+      if (flights.remove(key, this)) {
+        this.result = result;
+        latch.countDown();
+      }
+    }
+  }
+}
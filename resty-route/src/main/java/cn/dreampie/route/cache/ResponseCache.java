@@ -0,0 +1,143 @@
+package cn.dreampie.route.cache;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.core.annotation.Cached;
+
+import java.util.*;
+
+/**
+ * route的响应缓存 进程内按访问顺序淘汰的LRU, 过期的在读取时删除
+ */
+public final class ResponseCache {
+
+  private final long expired;
+  private final String[] headers;
+  private final Map<String, CachedResponse> entries;
+
+  public ResponseCache(Cached cached) {
+    this(cached.expired() * 1000L, cached.headers(), cached.max());
+  }
+
+  /**
+   * @param expired 缓存时间 毫秒
+   * @param headers 参与缓存key的请求头
+   * @param max     最多缓存的条数
+   */
+  public ResponseCache(long expired, String[] headers, final int max) {
+    this.expired = expired;
+    this.headers = headers;
+    this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+        return size() > max;
+      }
+    };
+  }
+
+  /**
+   * 缓存的key rest路径+排序后的查询参数+指定的请求头
+   *
+   * @param request 请求
+   * @return key
+   */
+  public String key(HttpRequest request) {
+    return key(request, headers);
+  }
+
+  /**
+   * 请求的key 参数顺序不同的相同请求得到相同的key
+   *
+   * @param request 请求
+   * @param headers 参与key的请求头
+   * @return key
+   */
+  public static String key(HttpRequest request, String[] headers) {
+    StringBuilder key = new StringBuilder(request.getRestPath());
+    Map<String, List<String>> params = request.getQueryParams();
+    if (params != null && !params.isEmpty()) {
+      char separator = '?';
+      for (Map.Entry<String, List<String>> param : new TreeMap<String, List<String>>(params).entrySet()) {
+        for (String value : param.getValue()) {
+          key.append(separator).append(param.getKey()).append('=').append(value);
+          separator = '&';
+        }
+      }
+    }
+    String value;
+    for (String header : headers) {
+      value = request.getHeader(header);
+      key.append('\n').append(header).append(':').append(value == null ? "" : value);
+    }
+    return key.toString();
+  }
+
+  /**
+   * @param key key
+   * @return 没有过期的缓存 or null
+   */
+  public CachedResponse get(String key) {
+    synchronized (entries) {
+      CachedResponse cachedResponse = entries.get(key);
+      if (cachedResponse != null && cachedResponse.isExpired(System.currentTimeMillis())) {
+        entries.remove(key);
+        return null;
+      }
+      return cachedResponse;
+    }
+  }
+
+  /**
+   * 缓存输出完成的response 只缓存200并且没有设置cookie、ETag、no-store的响应
+   *
+   * @param key      key
+   * @param response 输出完成的response
+   * @return CachedResponse 不能缓存时返回null
+   */
+  public CachedResponse put(String key, BufferedResponse response) {
+    if (!isCacheable(response)) {
+      return null;
+    }
+    CachedResponse cachedResponse = CachedResponse.of(response, System.currentTimeMillis() + expired);
+    synchronized (entries) {
+      entries.put(key, cachedResponse);
+    }
+    return cachedResponse;
+  }
+
+  /**
+   * 只有200并且没有设置cookie、ETag、no-store的响应可以缓存或者共享
+   *
+   * @param response 输出完成的response
+   * @return boolean
+   */
+  public static boolean isCacheable(BufferedResponse response) {
+    if (response.getStatus() != HttpStatus.OK.getCode() || response.hasCookie()) {
+      return false;
+    }
+    for (String[] header : response.getHeaderList()) {
+      if (header[0].equalsIgnoreCase("ETag")
+          || (header[0].equalsIgnoreCase("Cache-Control") && (header[1].contains("no-store") || header[1].contains("private")))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void remove(String key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
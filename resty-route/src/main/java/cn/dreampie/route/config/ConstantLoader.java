@@ -3,6 +3,7 @@ package cn.dreampie.route.config;
 import cn.dreampie.common.Render;
 import cn.dreampie.common.http.result.HttpStatus;
 import cn.dreampie.common.util.json.Jsoner;
+import cn.dreampie.route.core.AsyncExecutors;
 import cn.dreampie.route.holder.ExceptionHolder;
 import cn.dreampie.route.render.RenderFactory;
 import com.alibaba.fastjson.parser.Feature;
@@ -11,6 +12,7 @@ import com.alibaba.fastjson.serializer.ObjectSerializer;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 
 import java.lang.reflect.Type;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The constant for Resty runtime.
@@ -33,6 +35,15 @@ final public class ConstantLoader {
     ExceptionHolder.addRedirect(status, url);
   }
 
+  //async
+  public void setAsyncExecutor(ExecutorService executor) {
+    AsyncExecutors.setDefault(executor);
+  }
+
+  public void addAsyncExecutor(String name, ExecutorService executor) {
+    AsyncExecutors.add(name, executor);
+  }
+
   //render
   public void addRender(String extension, Render render) {
     RenderFactory.add(extension, render);
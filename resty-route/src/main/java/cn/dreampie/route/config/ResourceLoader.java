@@ -1,8 +1,11 @@
 package cn.dreampie.route.config;
 
+import cn.dreampie.common.Constant;
 import cn.dreampie.common.util.scan.ClassScaner;
+import cn.dreampie.common.util.scan.ScanException;
 import cn.dreampie.log.Logger;
 import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.index.ResourceIndex;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -88,11 +91,7 @@ final public class ResourceLoader {
 
   public void build() {
     if (includeResourcePackages.size() > 0) {
-      if (includeResources.size() <= 0) {
-        includeResources = ClassScaner.of(Resource.class).includePackages(includeResourcePackages).scan();
-      } else {
-        includeResources.addAll(ClassScaner.of(Resource.class).includePackages(includeResourcePackages).<Resource>scan());
-      }
+      includeResources.addAll(scanResources());
     }
     boolean isExclude = false;
     if (includeResources.size() > 0) {
@@ -118,6 +117,45 @@ final public class ResourceLoader {
     }
   }
 
+  /**
+   * 有编译期索引的jar或目录直接从索引加载 其他的扫描classpath
+   * 没有经过ResourceIndexProcessor编译的模块(-proc:none、ecj、javac 23+默认不执行classpath上的processor)没有索引, 仍然会被扫描
+   *
+   * @return resources
+   */
+  private Set<Class<? extends Resource>> scanResources() {
+    final ResourceIndex index = Constant.resourceIndex ? ResourceIndex.load() : null;
+    if (index == null) {
+      return ClassScaner.of(Resource.class).includePackages(includeResourcePackages).<Resource>scan();
+    }
+    Set<Class<? extends Resource>> scanned = new HashSet<Class<? extends Resource>>();
+    for (String classPackage : includeResourcePackages) {
+      for (String className : index.getClassNames(classPackage)) {
+        scanned.add(loadResource(className));
+      }
+    }
+    ClassScaner scaner = new ClassScaner(Resource.class) {
+      public boolean checkRoot(String root) {
+        return !index.hasRoot(root);
+      }
+    };
+    scanned.addAll(scaner.includePackages(includeResourcePackages).<Resource>scan());
+    return scanned;
+  }
+
+  private Class<? extends Resource> loadResource(String className) {
+    Class<?> clazz;
+    try {
+      clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
+    } catch (ClassNotFoundException e) {
+      throw new ScanException("Resource index is out of date, could not load " + className, e);
+    }
+    if (!Resource.class.isAssignableFrom(clazz)) {
+      throw new ScanException("Resource index is out of date, " + className + " is not a resource.");
+    }
+    return (Class<? extends Resource>) clazz;
+  }
+
   public Set<Class<? extends Resource>> getResources() {
     return resources;
   }
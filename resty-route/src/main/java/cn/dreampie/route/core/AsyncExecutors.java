@@ -0,0 +1,118 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.Constant;
+import cn.dreampie.log.Logger;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cn.dreampie.common.util.Checker.checkNotNull;
+
+/**
+ * 异步route使用的executor
+ */
+public final class AsyncExecutors {
+
+  private static final Logger logger = Logger.getLogger(AsyncExecutors.class);
+  private static final Map<String, ExecutorService> executorMap = new ConcurrentHashMap<String, ExecutorService>();
+  private static volatile ExecutorService defaultExecutor;
+
+  private AsyncExecutors() {
+  }
+
+  /**
+   * 设置默认的executor
+   *
+   * @param executor executor
+   */
+  public static void setDefault(ExecutorService executor) {
+    defaultExecutor = checkNotNull(executor, "Executor could not be null.");
+  }
+
+  /**
+   * 添加命名的executor 通过@Async("name")使用
+   *
+   * @param name     名字
+   * @param executor executor
+   */
+  public static void add(String name, ExecutorService executor) {
+    executorMap.put(checkNotNull(name, "Name could not be null."), checkNotNull(executor, "Executor could not be null."));
+  }
+
+  /**
+   * 获取executor
+   *
+   * @param name 名字 为空时返回默认的executor
+   * @return executor
+   */
+  public static ExecutorService get(String name) {
+    if (name == null || "".equals(name)) {
+      return getDefault();
+    }
+    ExecutorService executor = executorMap.get(name);
+    if (executor == null) {
+      throw new IllegalArgumentException("Could not found async executor '" + name + "'.");
+    }
+    return executor;
+  }
+
+  public static ExecutorService getDefault() {
+    if (defaultExecutor == null) {
+      synchronized (AsyncExecutors.class) {
+        if (defaultExecutor == null && Constant.virtualThreads) {
+          defaultExecutor = newVirtualThreadExecutor();
+        }
+        if (defaultExecutor == null) {
+          defaultExecutor = Executors.newFixedThreadPool(Constant.asyncThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "resty-async-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+        }
+      }
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * 每个任务一个虚拟线程的executor
+   *
+   * @return executor jvm不支持虚拟线程时返回null
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      logger.info("Async routes run on virtual threads.");
+      return (ExecutorService) method.invoke(null);
+    } catch (NoSuchMethodException e) {
+      logger.warn("Virtual threads are not supported by this jvm, use a thread pool of " + Constant.asyncThreads + " threads.");
+    } catch (Exception e) {
+      logger.warn("Could not create virtual thread executor, use a thread pool of " + Constant.asyncThreads + " threads.", e);
+    }
+    return null;
+  }
+
+  /**
+   * 关闭所有的executor
+   */
+  public static void shutdown() {
+    if (defaultExecutor != null) {
+      defaultExecutor.shutdown();
+      defaultExecutor = null;
+    }
+    for (ExecutorService executor : executorMap.values()) {
+      executor.shutdown();
+    }
+    executorMap.clear();
+    logger.info("Async executors shutdown.");
+  }
+}
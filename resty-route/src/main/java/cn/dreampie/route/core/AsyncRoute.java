@@ -0,0 +1,136 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.log.Logger;
+import cn.dreampie.route.holder.ExceptionHolder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个异步执行的请求 超时返回503
+ * 输出和超时只有先到的一个生效
+ */
+final class AsyncRoute implements AsyncListener {
+
+  private static final Logger logger = Logger.getLogger(AsyncRoute.class);
+
+  private final RouteInvocation invocation;
+  private final HttpRequest request;
+  private final HttpResponse response;
+  private final AsyncContext asyncContext;
+  private final AtomicBoolean completed = new AtomicBoolean(false);
+  //结果由CompletionStage稍后输出
+  private volatile boolean deferred;
+
+  AsyncRoute(RouteInvocation invocation, HttpRequest request, HttpResponse response, long timeout) {
+    this.invocation = invocation;
+    this.request = request;
+    this.response = response;
+    HttpServletRequest servletRequest = request.unwrap(HttpServletRequest.class);
+    if (servletRequest.isAsyncStarted()) {
+      asyncContext = servletRequest.getAsyncContext();
+    } else {
+      asyncContext = servletRequest.startAsync();
+    }
+    asyncContext.setTimeout(timeout);
+    asyncContext.addListener(this);
+  }
+
+  void defer() {
+    deferred = true;
+  }
+
+  boolean isDeferred() {
+    return deferred;
+  }
+
+  boolean isCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * 输出结果并结束请求
+   *
+   * @param render 输出
+   */
+  void render(Runnable render) {
+    finish(render, null);
+  }
+
+  /**
+   * 输出异常并结束请求
+   *
+   * @param exception 异常
+   */
+  void fail(Exception exception) {
+    finish(null, exception);
+  }
+
+  /**
+   * route执行完 没有等待的结果时结束请求
+   */
+  void done() {
+    if (!deferred) {
+      finish(null, null);
+    }
+  }
+
+  private void finish(Runnable render, Exception exception) {
+    if (!completed.compareAndSet(false, true)) {
+      return;
+    }
+    HttpStatus status = null;
+    try {
+      if (exception != null) {
+        status = RouteInvocation.statusOf(exception);
+        hold(exception);
+      } else if (render != null) {
+        try {
+          render.run();
+        } catch (Exception e) {
+          status = RouteInvocation.statusOf(e);
+          hold(e);
+        }
+      }
+    } finally {
+      //CompletionStage完成后才能归还resource
+      if (deferred) {
+        invocation.release();
+      }
+      invocation.finished(status == null ? response.getStatus() : status);
+      try {
+        response.close();
+      } catch (IOException e) {
+        logger.warn("Could not close response.", e);
+      }
+      asyncContext.complete();
+    }
+  }
+
+  private void hold(Exception exception) {
+    ExceptionHolder.HOLDER.hold(request, response, exception, new boolean[]{true});
+  }
+
+  public void onComplete(AsyncEvent event) throws IOException {
+  }
+
+  public void onTimeout(AsyncEvent event) throws IOException {
+    fail(new WebException(HttpStatus.SERVICE_UNAVAILABLE, "Request timeout."));
+  }
+
+  public void onError(AsyncEvent event) throws IOException {
+    logger.warn("Async request error.", event.getThrowable());
+    finish(null, null);
+  }
+
+  public void onStartAsync(AsyncEvent event) throws IOException {
+  }
+}
@@ -10,12 +10,14 @@ import java.util.Set;
 
 /**
  * Created by ice on 15-1-26.
+ * Params with a loader are lazily backed, the loader runs at the first access of a param which is not set yet.
  */
 public class Params {
   /**
    * params for validate
    */
   private Map<String, Object> params;
+  private ParamsLoader loader;
 
   public Params() {
     this.params = new CaseInsensitiveMap<Object>();
@@ -29,6 +31,44 @@ public class Params {
     this.params = params;
   }
 
+  public Params(CaseInsensitiveMap<Object> params, ParamsLoader loader) {
+    this.params = params;
+    this.loader = loader;
+  }
+
+  /**
+   * 解析延迟的参数, 已经设置的参数不会被覆盖
+   */
+  private void load() {
+    if (loader != null) {
+      ParamsLoader current = loader;
+      loader = null;
+      Params loaded = current.load();
+      if (loaded != null) {
+        for (Map.Entry<String, Object> entry : loaded.params.entrySet()) {
+          if (!params.containsKey(entry.getKey())) {
+            params.put(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  private void load(String name) {
+    if (loader != null && !params.containsKey(name)) {
+      load();
+    }
+  }
+
+  /**
+   * 是否已经解析了所有参数
+   *
+   * @return boolean
+   */
+  public boolean isLoaded() {
+    return loader == null;
+  }
+
   /**
    * Put key value pair to the params.
    * @param key x
@@ -47,6 +87,7 @@ public class Params {
    *  @return s
    */
   public <T> T get(String name) {
+    load(name);
     return (T) (params.get(name));
   }
 
@@ -58,7 +99,7 @@ public class Params {
    *  @return s
    */
   public <T> T get(String attr, Class<T> clazz) {
-    Object value = params.get(attr);
+    Object value = get(attr);
     if (clazz.isAssignableFrom(value.getClass())) {
       return (T) value;
     } else {
@@ -96,6 +137,7 @@ public class Params {
    * @return s
    */
   public String[] getNames() {
+    load();
     Set<String> nameSet = params.keySet();
     return nameSet.toArray(new String[nameSet.size()]);
   }
@@ -105,6 +147,7 @@ public class Params {
    * @return s
    */
   public Object[] getValues() {
+    load();
     Collection<Object> valueCollection = params.values();
     return valueCollection.toArray(new Object[valueCollection.size()]);
   }
@@ -116,6 +159,7 @@ public class Params {
    * @return s
    */
   public boolean containsName(String name) {
+    load(name);
     return params.containsKey(name);
   }
 
@@ -126,6 +170,7 @@ public class Params {
    * @return s
    */
   public boolean containsValue(Object value) {
+    load();
     return params.containsValue(value);
   }
 }
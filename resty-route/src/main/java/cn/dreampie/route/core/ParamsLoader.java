@@ -0,0 +1,13 @@
+package cn.dreampie.route.core;
+
+/**
+ * Load the params which are parsed on demand, eg. the request body.
+ */
+public interface ParamsLoader {
+  /**
+   * 解析参数
+   *
+   * @return params
+   */
+  public Params load();
+}
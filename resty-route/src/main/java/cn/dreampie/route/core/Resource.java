@@ -6,6 +6,8 @@ import cn.dreampie.common.http.HttpResponse;
 
 /**
  * Resource
+ * The current request is read from the route match set by RouteInvocation, or from RouteMatchHolder
+ * when the resource object is shared by concurrent requests (see @Scope).
  */
 public abstract class Resource {
 
@@ -15,12 +17,17 @@ public abstract class Resource {
     this.routeMatch = routeMatch;
   }
 
+  private RouteMatch getRouteMatch() {
+    RouteMatch current = routeMatch;
+    return current != null ? current : RouteMatchHolder.get();
+  }
+
   final public String getPath() {
-    return routeMatch.getPath();
+    return getRouteMatch().getPath();
   }
 
   final public Params getParams() {
-    return routeMatch.getParams();
+    return getRouteMatch().getParams();
   }
 
   /**
@@ -34,11 +41,11 @@ public abstract class Resource {
   }
 
   final public HttpRequest getRequest() {
-    return routeMatch.getRequest();
+    return getRouteMatch().getRequest();
   }
 
   final public HttpResponse getResponse() {
-    return routeMatch.getResponse();
+    return getRouteMatch().getResponse();
   }
 
 }
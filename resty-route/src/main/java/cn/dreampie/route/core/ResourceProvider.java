@@ -0,0 +1,181 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.spring.SpringBuilder;
+import cn.dreampie.common.spring.SpringHolder;
+import cn.dreampie.route.core.annotation.Scope;
+import cn.dreampie.route.exception.InitException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Provide the resource object for each invocation, according to the @Scope of the resource class.
+ * When the spring plugin is alive the bean always comes from spring, and spring's scope wins.
+ */
+public abstract class ResourceProvider {
+
+  protected final Class<? extends Resource> resourceClass;
+
+  protected ResourceProvider(Class<? extends Resource> resourceClass) {
+    this.resourceClass = resourceClass;
+  }
+
+  public static ResourceProvider of(Class<? extends Resource> resourceClass) {
+    Scope scope = resourceClass.getAnnotation(Scope.class);
+    Scope.Type type = scope == null ? Scope.Type.PROTOTYPE : scope.value();
+    switch (type) {
+      case SINGLETON:
+        return new SingletonProvider(resourceClass);
+      case THREAD:
+        return new ThreadProvider(resourceClass);
+      case POOLED:
+        return new PooledProvider(resourceClass, scope.poolSize());
+      default:
+        return new PrototypeProvider(resourceClass);
+    }
+  }
+
+  /**
+   * 获取resource对象
+   *
+   * @return resource
+   */
+  public abstract Resource get();
+
+  /**
+   * 调用结束 归还resource对象
+   *
+   * @param resource resource
+   */
+  public void release(Resource resource) {
+  }
+
+  /**
+   * 结果由CompletionStage稍后输出 resource在release之前仍被这个请求使用
+   *
+   * @param resource resource
+   */
+  public void defer(Resource resource) {
+  }
+
+  /**
+   * 对象是否同时被多个请求使用, 共享的对象只能从RouteMatchHolder读取当前请求
+   *
+   * @return boolean
+   */
+  public boolean isShared() {
+    return SpringHolder.alive;
+  }
+
+  protected Resource newInstance() {
+    if (SpringHolder.alive) {
+      return SpringBuilder.getBean(resourceClass);
+    }
+    try {
+      return resourceClass.newInstance();
+    } catch (Exception e) {
+      throw new InitException("Could not create instance of class: " + resourceClass.getName(), e);
+    }
+  }
+
+  public Class<? extends Resource> getResourceClass() {
+    return resourceClass;
+  }
+
+  static final class PrototypeProvider extends ResourceProvider {
+
+    PrototypeProvider(Class<? extends Resource> resourceClass) {
+      super(resourceClass);
+    }
+
+    public Resource get() {
+      return newInstance();
+    }
+  }
+
+  static final class SingletonProvider extends ResourceProvider {
+    private volatile Resource resource;
+
+    SingletonProvider(Class<? extends Resource> resourceClass) {
+      super(resourceClass);
+    }
+
+    public Resource get() {
+      Resource result = resource;
+      if (result == null) {
+        synchronized (this) {
+          result = resource;
+          if (result == null) {
+            resource = result = newInstance();
+          }
+        }
+      }
+      return result;
+    }
+
+    public boolean isShared() {
+      return true;
+    }
+  }
+
+  static final class ThreadProvider extends ResourceProvider {
+    private final ThreadLocal<Resource> resourceTL = new ThreadLocal<Resource>();
+
+    ThreadProvider(Class<? extends Resource> resourceClass) {
+      super(resourceClass);
+    }
+
+    public Resource get() {
+      if (SpringHolder.alive) {
+        return newInstance();
+      }
+      Resource result = resourceTL.get();
+      if (result == null) {
+        result = newInstance();
+        resourceTL.set(result);
+      }
+      return result;
+    }
+
+    public void release(Resource resource) {
+      if (resource != null) {
+        resource.setRouteMatch(null);
+      }
+    }
+
+    public void defer(Resource resource) {
+      //当前线程的下一个请求使用新的对象
+      if (resource != null && resourceTL.get() == resource) {
+        resourceTL.remove();
+      }
+    }
+  }
+
+  static final class PooledProvider extends ResourceProvider {
+    private final BlockingQueue<Resource> pool;
+
+    PooledProvider(Class<? extends Resource> resourceClass, int poolSize) {
+      super(resourceClass);
+      this.pool = new ArrayBlockingQueue<Resource>(poolSize > 0 ? poolSize : 1);
+    }
+
+    public Resource get() {
+      if (SpringHolder.alive) {
+        return newInstance();
+      }
+      Resource result = pool.poll();
+      if (result == null) {
+        result = newInstance();
+      }
+      return result;
+    }
+
+    public void release(Resource resource) {
+      if (!SpringHolder.alive && resource != null) {
+        resource.setRouteMatch(null);
+        //池满时丢弃
+        pool.offer(resource);
+      }
+    }
+  }
+}
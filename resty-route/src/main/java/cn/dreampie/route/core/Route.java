@@ -2,31 +2,50 @@ package cn.dreampie.route.core;
 
 
 import cn.dreampie.common.Constant;
+import cn.dreampie.common.entity.CaseInsensitiveMap;
 import cn.dreampie.common.entity.Entity;
 import cn.dreampie.common.http.*;
 import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
 import cn.dreampie.common.util.Joiner;
 import cn.dreampie.common.util.analysis.ParamAttribute;
 import cn.dreampie.common.util.analysis.ParamNamesScaner;
 import cn.dreampie.common.util.json.Jsoner;
 import cn.dreampie.common.util.json.ModelDeserializer;
+import cn.dreampie.common.util.stream.FileException;
+import cn.dreampie.common.util.stream.LimitedInputStream;
 import cn.dreampie.common.util.stream.StreamReader;
 import cn.dreampie.log.Logger;
+import cn.dreampie.route.cache.ResponseCache;
+import cn.dreampie.route.cache.FlightGroup;
+import cn.dreampie.route.core.annotation.Async;
+import cn.dreampie.route.core.annotation.Bulkhead;
+import cn.dreampie.route.core.annotation.Cached;
+import cn.dreampie.route.core.annotation.SingleFlight;
 import cn.dreampie.route.core.multipart.MultipartBuilder;
 import cn.dreampie.route.core.multipart.MultipartParam;
 import cn.dreampie.route.exception.InitException;
 import cn.dreampie.route.interceptor.Interceptor;
+import cn.dreampie.route.limit.ConcurrencyLimiter;
+import cn.dreampie.route.limit.ConcurrencyLimiters;
+import cn.dreampie.route.metrics.Metrics;
+import cn.dreampie.route.metrics.RouteMetrics;
 import cn.dreampie.route.render.RenderFactory;
 import cn.dreampie.route.valid.Validator;
 import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.JSONToken;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +59,8 @@ public class Route {
 
   public static final String PARAM_PATTERN = "([^\\/]+)";
   private static final Logger logger = Logger.getLogger(Route.class);
+  //resty-security是可选的依赖 只按类名判断
+  private static final String SECURITY_INTERCEPTOR = "cn.dreampie.route.interceptor.security.SecurityInterceptor";
   private static final PathParserCharProcessor regularCharPathParserCharProcessor = new PathParserCharProcessor() {
 
     public void handle(int curChar, PathPatternParser pathPatternParser) {
@@ -72,10 +93,24 @@ public class Route {
   private final Validator[] validators;
   private final int[][] validsLineNumbers;
   private final MultipartBuilder multipartBuilder;
+  private final RouteInvoker invoker;
+  private final ResourceProvider resourceProvider;
+  private final Async async;
+  private final RouteMetrics metrics;
+  private final ResponseCache responseCache;
+  private final FlightGroup flightGroup;
+  private final ConcurrencyLimiter limiter;
+  //json请求体最大的尺寸 小于等于0不限制
+  private int jsonMaxSize = Constant.jsonMaxSize;
 
 
   public Route(Class<? extends Resource> resourceClass, ParamAttribute paramAttribute, String httpMethod, String pathPattern, Method method, Interceptor[] interceptors, String des, Validator[] validators, MultipartBuilder multipartBuilder) {
-    this.resourceClass = resourceClass;
+    this(ResourceProvider.of(resourceClass), paramAttribute, httpMethod, pathPattern, method, interceptors, des, validators, multipartBuilder);
+  }
+
+  public Route(ResourceProvider resourceProvider, ParamAttribute paramAttribute, String httpMethod, String pathPattern, Method method, Interceptor[] interceptors, String des, Validator[] validators, MultipartBuilder multipartBuilder) {
+    this.resourceProvider = checkNotNull(resourceProvider);
+    this.resourceClass = resourceProvider.getResourceClass();
     this.httpMethod = checkNotNull(httpMethod);
     this.pathPattern = checkNotNull(pathPattern);
     this.method = method;
@@ -87,6 +122,29 @@ public class Route {
     this.allParamTypes = Arrays.asList(method.getParameterTypes());
     this.allGenericParamTypes = Arrays.asList(method.getGenericParameterTypes());
     this.validators = validators;
+    this.invoker = new RouteInvoker(method, allParamNames);
+    this.async = method.getAnnotation(Async.class);
+    this.metrics = Metrics.isEnabled() ? Metrics.register(httpMethod, pathPattern) : null;
+    //只缓存GET请求 需要登录的route必须用headers区分用户 否则会把一个用户的响应给其他用户
+    Cached cached = method.getAnnotation(Cached.class);
+    if (cached != null && cached.headers().length == 0 && isSecured(interceptors)) {
+      throw new InitException("@Cached on secured route '" + httpMethod + " " + pathPattern + "' must set headers to vary by user, eg. Cookie or Authorization.");
+    }
+    this.responseCache = cached != null && httpMethod.equals(HttpMethod.GET) ? new ResponseCache(cached) : null;
+    SingleFlight singleFlight = method.getAnnotation(SingleFlight.class);
+    if (singleFlight != null && singleFlight.headers().length == 0 && isSecured(interceptors)) {
+      throw new InitException("@SingleFlight on secured route '" + httpMethod + " " + pathPattern + "' must set headers to vary by user, eg. Cookie or Authorization.");
+    }
+    this.flightGroup = singleFlight != null && httpMethod.equals(HttpMethod.GET) ? new FlightGroup(singleFlight) : null;
+    //方法上的优先于resource上的
+    Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+    if (bulkhead == null) {
+      bulkhead = resourceClass.getAnnotation(Bulkhead.class);
+    }
+    this.limiter = bulkhead != null ? ConcurrencyLimiters.get(httpMethod + " " + pathPattern, bulkhead) : null;
+    if (metrics != null) {
+      metrics.setLimiter(limiter);
+    }
     //获取拦截器的行号
     if (Constant.showRoute) {
       this.interceptorsLineNumbers = new int[interceptors.length][];
@@ -202,27 +260,53 @@ public class Route {
       return null;
     }
     String restPath = request.getRestPath();
-
-    String extension = "";
-    if (restPath.contains(".")) {
-      int index = restPath.lastIndexOf(".");
-      extension = restPath.substring(index + 1);
-      if (RenderFactory.contains(extension)) {
-        restPath = restPath.substring(0, index);
-      } else {
-        extension = "";
-      }
+    String extension = getExtension(restPath);
+    if (!extension.equals("")) {
+      restPath = restPath.substring(0, restPath.length() - extension.length() - 1);
     }
 
-    Matcher m = pattern.matcher(restPath);
+    Matcher m = matcher(restPath);
     if (!m.matches()) {
       return null;
     }
     //pathParams
     Map<String, String> pathParams = new HashMap<String, String>();
-    for (int i = 0; i < m.groupCount() && i < pathParamNames.size(); i++) {
-      pathParams.put(pathParamNames.get(i), m.group(i + 1));
+    fillPathParams(m, pathParams);
+    return match(request, response, restPath, extension, pathParams);
+  }
+
+  /**
+   * 已经匹配到路径 解析参数
+   *
+   * @param request    request对象
+   * @param response   response对象
+   * @param restPath   去掉扩展名的rest路径
+   * @param extension  扩展名
+   * @param pathParams path参数
+   * @return route
+   */
+  public RouteMatch match(final HttpRequest request, HttpResponse response, String restPath, String extension, final Map<String, String> pathParams) {
+    Params params = null;
+    final String contentType = request.getContentType();
+    final boolean json = contentType != null && contentType.toLowerCase().contains(ContentType.JSON);
+    try {
+      //path参数在匹配时解析 其他参数在第一次读取时解析
+      params = new Params(parsePathParams(pathParams, json), new ParamsLoader() {
+        public Params load() {
+          return parseParams(request, contentType, json, pathParams);
+        }
+      });
+    } catch (Exception e) {
+      printMatchRoute(contentType, null, pathParams, null, null);
+      throwException(e);
     }
+    return new RouteMatch(pathPattern, restPath, extension, params, request, response);
+  }
+
+  /**
+   * 解析body/query/multipart参数
+   */
+  private Params parseParams(HttpRequest request, String contentType, boolean json, Map<String, String> pathParams) {
     //formParams
     Map<String, List<String>> formParams = null;
 
@@ -232,23 +316,22 @@ public class Route {
       multipartParam = multipartBuilder.readMultipart(request);
     }
 
-    RouteMatch routeMatch = null;
     Params params = null;
     Map<String, UploadedFile> fileParams = null;
     String jsonParams = null;
-    String contentType = request.getContentType();
     try {
-      if (contentType != null && contentType.toLowerCase().contains(ContentType.JSON)) {
+      if (json) {
         //从 queryString 取json
         if (httpMethod.equals(HttpMethod.GET) || httpMethod.equals(HttpMethod.DELETE)) {
           jsonParams = request.getQueryString();
+          printMatchRoute(contentType, jsonParams, pathParams, formParams, null);
+          params = parseJsonParams(jsonParams, pathParams, formParams);
         } else {
+          //从请求体流式解析json
           formParams = request.getQueryParams();
-          jsonParams = getJson(request);
+          printMatchRoute(contentType, null, pathParams, formParams, null);
+          params = readJsonParams(request, pathParams, formParams);
         }
-
-        printMatchRoute(request.getContentType(), jsonParams, pathParams, formParams, null);
-        params = parseJsonParams(jsonParams, pathParams, formParams);
       } else {
         formParams = request.getQueryParams();
         //print match route
@@ -256,24 +339,75 @@ public class Route {
           fileParams = multipartParam.getUploadedFiles();
 
           if (formParams != null) {
+            //不修改request缓存的queryParams
+            formParams = new HashMap<String, List<String>>(formParams);
             formParams.putAll(multipartParam.getParams());
           } else {
             formParams = multipartParam.getParams();
           }
 
-          printMatchRoute(request.getContentType(), null, pathParams, formParams, fileParams);
+          printMatchRoute(contentType, null, pathParams, formParams, fileParams);
           params = parseFormParams(pathParams, formParams, fileParams);
         } else {
-          printMatchRoute(request.getContentType(), null, pathParams, formParams, null);
+          printMatchRoute(contentType, null, pathParams, formParams, null);
           params = parseFormParams(pathParams, formParams, new Hashtable<String, UploadedFile>());
         }
       }
     } catch (Exception e) {
-      printMatchRoute(request.getContentType(), jsonParams, pathParams, formParams, fileParams);
+      printMatchRoute(contentType, jsonParams, pathParams, formParams, fileParams);
       throwException(e);
     }
-    routeMatch = new RouteMatch(pathPattern, restPath, extension, params, request, response);
-    return routeMatch;
+    return params;
+  }
+
+  /**
+   * 转换path参数到方法参数的类型
+   */
+  private CaseInsensitiveMap<Object> parsePathParams(Map<String, String> pathParams, boolean json) throws IllegalAccessException, InstantiationException {
+    CaseInsensitiveMap<Object> params = new CaseInsensitiveMap<Object>();
+    if (pathParams.size() > 0) {
+      Class paramType;
+      String value;
+      for (String name : pathParamNames) {
+        paramType = allParamTypes.get(allParamNames.indexOf(name));
+        value = pathParams.get(name);
+        if (paramType == String.class) {
+          params.put(name, value);
+        } else if (json) {
+          params.put(name, Jsoner.toObject(value, paramType));
+        } else {
+          params.put(name, ModelDeserializer.parse(value, paramType));
+        }
+      }
+    }
+    return params;
+  }
+
+  /**
+   * 获取render支持的扩展名
+   *
+   * @param restPath rest路径
+   * @return 扩展名 没有时返回""
+   */
+  public static String getExtension(String restPath) {
+    int index = restPath.lastIndexOf('.');
+    if (index != -1) {
+      String extension = restPath.substring(index + 1);
+      if (RenderFactory.contains(extension)) {
+        return extension;
+      }
+    }
+    return "";
+  }
+
+  Matcher matcher(String restPath) {
+    return pattern.matcher(restPath);
+  }
+
+  void fillPathParams(Matcher m, Map<String, String> pathParams) {
+    for (int i = 0; i < m.groupCount() && i < pathParamNames.size(); i++) {
+      pathParams.put(pathParamNames.get(i), m.group(i + 1));
+    }
   }
 
   /**
@@ -375,6 +509,86 @@ public class Route {
     return method;
   }
 
+  public RouteInvoker getInvoker() {
+    return invoker;
+  }
+
+  public ResourceProvider getResourceProvider() {
+    return resourceProvider;
+  }
+
+  /**
+   * 异步执行使用的executor
+   *
+   * @return executor 同步执行时返回null
+   */
+  public Executor getAsyncExecutor() {
+    if (async != null) {
+      return AsyncExecutors.get(async.value());
+    }
+    if (Constant.asyncEnabled || Constant.virtualThreads) {
+      return AsyncExecutors.getDefault();
+    }
+    return null;
+  }
+
+  /**
+   * 异步执行的超时时间
+   *
+   * @return 毫秒
+   */
+  public long getAsyncTimeout() {
+    if (async != null && async.timeout() >= 0) {
+      return async.timeout();
+    }
+    return Constant.asyncTimeout;
+  }
+
+  /**
+   * route的指标
+   *
+   * @return 没有开启app.metricsEnabled时返回null
+   */
+  public RouteMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * route的响应缓存
+   *
+   * @return 没有@Cached时返回null
+   */
+  public ResponseCache getResponseCache() {
+    return responseCache;
+  }
+
+  /**
+   * 合并相同请求的执行
+   *
+   * @return 没有@SingleFlight时返回null
+   */
+  public FlightGroup getFlightGroup() {
+    return flightGroup;
+  }
+
+  /**
+   * route的并发限制
+   *
+   * @return 没有@Bulkhead时返回null
+   */
+  public ConcurrencyLimiter getLimiter() {
+    return limiter;
+  }
+
+  /**
+   * 修改json请求体最大的尺寸 默认为app.jsonMaxSize
+   *
+   * @param jsonMaxSize 最大字节数 小于等于0不限制
+   */
+  void setJsonMaxSize(int jsonMaxSize) {
+    this.jsonMaxSize = jsonMaxSize;
+  }
+
   public String getHttpMethod() {
     return httpMethod;
   }
@@ -461,22 +675,44 @@ public class Route {
   }
 
   /**
-   * 获取json字符串
+   * 是否经过SecurityInterceptor 按类名判断 没有引入resty-security时不会加载它
+   *
+   * @param interceptors route的拦截器
+   * @return boolean
+   */
+  private static boolean isSecured(Interceptor[] interceptors) {
+    for (Interceptor interceptor : interceptors) {
+      for (Class<?> clazz = interceptor.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+        if (clazz.getName().equals(SECURITY_INTERCEPTOR)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 获取限制了最大长度的请求体
    *
    * @param request s
    * @return s
    */
-  private String getJson(HttpRequest request) {
-    String json;
+  private InputStream getJsonStream(HttpRequest request) {
+    int maxSize = jsonMaxSize;
+    if (maxSize > 0 && request.getContentLength() > maxSize) {
+      throw new WebException(HttpStatus.REQUEST_ENTITY_TOO_LARGE, "Request body exceeds the maximum size of " + maxSize + " bytes.");
+    }
     try {
       InputStream is = request.getContentStream();
-      json = StreamReader.readString(is);
+      if (is == null) {
+        return null;
+      }
+      return new LimitedInputStream(is, maxSize);
     } catch (IOException e) {
       String msg = "Could not read inputStream when contentType is '" + request.getContentType() + "'.";
       logger.error(msg, e);
       throw new WebException(msg);
     }
-    return json;
   }
 
   /**
@@ -514,15 +750,15 @@ public class Route {
             if (keyTypeClass == String.class && valueTypeClass == UploadedFile.class) {
               params.set(name, fileParams);
             } else {
-              valueArr = formParams.remove(name);
+              valueArr = formParams.get(name);
               params.set(name, parseString(paramType, valueArr));
             }
           } else {
-            valueArr = formParams.remove(name);
+            valueArr = formParams.get(name);
             params.set(name, parseString(paramType, valueArr));
           }
         } else {
-          valueArr = formParams.remove(name);
+          valueArr = formParams.get(name);
           params.set(name, parseString(paramType, valueArr));
         }
       }
@@ -585,25 +821,201 @@ public class Route {
    */
   private Params parseJsonParams(String json, Map<String, String> pathParams, Map<String, List<String>> formParams) throws IllegalAccessException, InstantiationException {
     Params params = new Params();
+    Map<String, Object> receiveParams = null;
+
+    if (null != json && !"".equals(json)) {
+      //只有一个参数时 直接把该参数 放入方法
+      int i = getOneParamIndex();
+      if (i >= 0) {
+        Class paramType = allParamTypes.get(i);
+        //转换对象到指定的类型
+        params.set(allParamNames.get(i), parse(allGenericParamTypes.get(i), paramType, ModelDeserializer.parse(json, paramType)));
+      } else {
+        Object obj = Jsoner.toObject(json);
+        if (obj instanceof Map) {
+          receiveParams = (Map<String, Object>) obj;
+          for (String name : allParamNames) {
+            if (!pathParamNames.contains(name)) {
+              obj = receiveParams.remove(name);
+              if (obj != null) {
+                setJsonParam(params, name, obj);
+              }
+            }
+          }
+        }
+      }
+    }
+    return fillJsonParams(params, pathParams, receiveParams, formParams);
+  }
 
-    int i = 0;
-    Class paramType = null;
+  /**
+   * 从请求体流式读取json 按参数名直接转换为方法参数的类型 不生成完整的json字符串和对象树
+   *
+   * @param request request对象
+   * @return 所有参数
+   */
+  private Params readJsonParams(HttpRequest request, Map<String, String> pathParams, Map<String, List<String>> formParams) throws IllegalAccessException, InstantiationException {
+    Params params = new Params();
+    Map<String, Object> receiveParams = null;
 
-    //只有一个参数时 直接把该参数 放入方法
-    boolean oneParamParse = false;
-    if (Constant.oneParamParse) {
-      oneParamParse = (allParamNames.size() - pathParamNames.size()) == 1;
+    InputStream is = getJsonStream(request);
+    if (is != null) {
+      String encoding = request.getCharacterEncoding();
+      if (encoding == null) {
+        encoding = Constant.encoding;
+      }
+      int i = getOneParamIndex();
+      JSONReader reader = null;
+      try {
+        if (i >= 0 && allParamTypes.get(i) == String.class) {
+          //String类型直接接收原始的json
+          String json = StreamReader.readString(is, encoding);
+          if (!"".equals(json)) {
+            params.set(allParamNames.get(i), json);
+          }
+        } else {
+          DefaultJSONParser parser = Jsoner.toParser(new InputStreamReader(is, encoding));
+          reader = new JSONReader(parser);
+          int token = parser.getLexer().token();
+          if (token != JSONToken.EOF) {
+            if (i >= 0) {
+              //只有一个参数时 直接把该参数 放入方法
+              Class paramType = allParamTypes.get(i);
+              params.set(allParamNames.get(i), readJsonValue(reader, allGenericParamTypes.get(i), paramType));
+            } else if (token == JSONToken.LBRACE) {
+              receiveParams = new HashMap<String, Object>();
+              String name;
+              reader.startObject();
+              while (reader.hasNext()) {
+                name = reader.readString();
+                i = allParamNames.indexOf(name);
+                if (i >= 0 && !pathParamNames.contains(name)) {
+                  readJsonParam(params, parser, reader, name, i);
+                } else {
+                  receiveParams.put(name, reader.readObject());
+                }
+              }
+              reader.endObject();
+            } else {
+              //不是json对象 没有可以按名字绑定的参数
+              reader.readObject();
+            }
+          }
+        }
+      } catch (FileException e) {
+        throw new WebException(HttpStatus.REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+      } catch (IOException e) {
+        String msg = "Could not read inputStream when contentType is '" + request.getContentType() + "'.";
+        logger.error(msg, e);
+        throw new WebException(msg);
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
     }
+    return fillJsonParams(params, pathParams, receiveParams, formParams);
+  }
 
-    Object obj = null;
-    List<String> valueArr = null;
+  /**
+   * 读取一个方法参数的值 直接由json流绑定到目标类型
+   */
+  private void readJsonParam(Params params, DefaultJSONParser parser, JSONReader reader, String name, int i) throws IllegalAccessException, InstantiationException {
+    Class paramType = allParamTypes.get(i);
+    if (parser.getLexer().token() == JSONToken.NULL || paramType == String.class) {
+      Object obj = reader.readObject();
+      if (obj != null) {
+        setJsonParam(params, name, obj);
+      }
+    } else {
+      params.set(name, readJsonValue(reader, allGenericParamTypes.get(i), paramType));
+    }
+  }
 
-    boolean hasJsonParam = null != json && !"".equals(json);
-    Object receiveParams = null;
-    if (hasJsonParam && !oneParamParse) {
-      receiveParams = Jsoner.toObject(json);
-      hasJsonParam = receiveParams != null;
+  /**
+   * 按参数类型从json流读取 Entity的集合逐个元素读取 不会先生成整个json树
+   */
+  private Object readJsonValue(JSONReader reader, Type genericParamType, Class paramType) throws IllegalAccessException, InstantiationException {
+    if (Entity.class.isAssignableFrom(paramType)) {
+      return readEntity(reader, paramType);
+    }
+    if (genericParamType instanceof ParameterizedType) {
+      Type[] argTypes = ((ParameterizedType) genericParamType).getActualTypeArguments();
+      Type valueType = argTypes[argTypes.length - 1];
+      if (valueType instanceof Class && Entity.class.isAssignableFrom((Class) valueType)) {
+        if (Collection.class.isAssignableFrom(paramType)) {
+          Collection<Entity> entities;
+          if (Set.class.isAssignableFrom(paramType)) {
+            entities = new HashSet<Entity>();
+          } else {
+            entities = new ArrayList<Entity>();
+          }
+          reader.startArray();
+          while (reader.hasNext()) {
+            entities.add(readEntity(reader, (Class) valueType));
+          }
+          reader.endArray();
+          return entities;
+        } else if (Map.class.isAssignableFrom(paramType)) {
+          Map<Object, Entity> entities = new HashMap<Object, Entity>();
+          reader.startObject();
+          while (reader.hasNext()) {
+            Object key = ModelDeserializer.parse(reader.readString(), (Class) argTypes[0]);
+            entities.put(key, readEntity(reader, (Class) valueType));
+          }
+          reader.endObject();
+          return entities;
+        }
+      }
+    }
+    return reader.readObject(genericParamType);
+  }
+
+  /**
+   * 只读取当前的json对象 转换为Entity
+   */
+  private Entity readEntity(JSONReader reader, Class entityClass) {
+    JSONObject jsonObject = reader.readObject(JSONObject.class);
+    if (jsonObject == null) {
+      return null;
+    }
+    return ModelDeserializer.deserialze(jsonObject, entityClass);
+  }
+
+  private void setJsonParam(Params params, String name, Object obj) throws IllegalAccessException, InstantiationException {
+    int i = allParamNames.indexOf(name);
+    Class paramType = allParamTypes.get(i);
+    if (paramType == String.class) {
+      params.set(name, obj.toString());
+    } else {
+      //转换对象到指定的类型
+      params.set(name, parse(allGenericParamTypes.get(i), paramType, obj));
     }
+  }
+
+  /**
+   * 只有一个参数时 该参数的位置
+   *
+   * @return 参数位置 不是单一参数时返回-1
+   */
+  private int getOneParamIndex() {
+    if (Constant.oneParamParse && (allParamNames.size() - pathParamNames.size()) == 1) {
+      for (int i = 0; i < allParamNames.size(); i++) {
+        if (!pathParamNames.contains(allParamNames.get(i))) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 补全path参数 没有获取到的参数从queryString中获取 其余的json和queryString参数也放入params
+   */
+  private Params fillJsonParams(Params params, Map<String, String> pathParams, Map<String, Object> receiveParams, Map<String, List<String>> formParams) throws IllegalAccessException, InstantiationException {
+    int i = 0;
+    Class paramType;
+    List<String> valueArr = null;
     for (String name : allParamNames) {
       paramType = allParamTypes.get(i);
 
@@ -614,41 +1026,19 @@ public class Route {
         } else {
           params.set(name, Jsoner.toObject(pathParams.get(name), paramType));
         }
-      } else {//其他参数
-        if (hasJsonParam) {
-          if (oneParamParse) {
-            //转换对象到指定的类型
-            params.set(name, parse(allGenericParamTypes.get(i), paramType, ModelDeserializer.parse(json, paramType)));
-          } else {
-            if (receiveParams instanceof Map) {
-              obj = ((Map<String, Object>) receiveParams).remove(name);
-
-              if (obj != null) {
-                if (paramType == String.class) {
-                  params.set(name, obj.toString());
-                } else {
-                  //转换对象到指定的类型
-                  params.set(name, parse(allGenericParamTypes.get(i), paramType, obj));
-                }
-              }
-            }
-          }
-        }
+      } else if (!params.containsName(name)) {
         //没有获取到的参数设置为空
-        if (!params.containsName(name)) {
-          if (formParams != null && formParams.size() > 0) {
-            valueArr = formParams.remove(name);
-          }
-          params.set(name, parseString(paramType, valueArr));
+        if (formParams != null && formParams.size() > 0) {
+          valueArr = formParams.get(name);
         }
+        params.set(name, parseString(paramType, valueArr));
       }
-
       i++;
     }
 
     String name;
-    if (hasJsonParam && receiveParams instanceof Map && !oneParamParse) {
-      for (Map.Entry<String, Object> receiveEntry : ((Map<String, Object>) receiveParams).entrySet()) {
+    if (receiveParams != null) {
+      for (Map.Entry<String, Object> receiveEntry : receiveParams.entrySet()) {
         name = receiveEntry.getKey();
         if (!params.containsName(name)) {
           params.set(receiveEntry.getKey(), receiveEntry.getValue());
@@ -1,5 +1,6 @@
 package cn.dreampie.route.core;
 
+import cn.dreampie.common.Constant;
 import cn.dreampie.common.entity.CaseInsensitiveMap;
 import cn.dreampie.common.http.HttpMethod;
 import cn.dreampie.common.spring.SpringBuilder;
@@ -11,6 +12,7 @@ import cn.dreampie.route.config.ResourceLoader;
 import cn.dreampie.route.core.annotation.*;
 import cn.dreampie.route.core.multipart.FILE;
 import cn.dreampie.route.core.multipart.MultipartBuilder;
+import cn.dreampie.route.index.ResourceIndex;
 import cn.dreampie.route.interceptor.Interceptor;
 import cn.dreampie.route.interceptor.InterceptorBuilder;
 import cn.dreampie.route.valid.Validator;
@@ -29,6 +31,8 @@ public final class RouteBuilder {
 
   //对routes排序
   private Map<String, Map<String, Set<Route>>> routesMap = new CaseInsensitiveMap<Map<String, Set<Route>>>();
+  //按httpMethod编译的route树
+  private Map<String, RouteTree> routeTreesMap = new HashMap<String, RouteTree>();
 
   public RouteBuilder(ResourceLoader resourceLoader, InterceptorLoader interceptorLoader) {
     this.resourceLoader = resourceLoader;
@@ -38,9 +42,20 @@ public final class RouteBuilder {
   /**
    * 添加route
    */
-  private void addRoute(String httpMethod, String apiPath, String methodPath, String des, MultipartBuilder multipartBuilder, Interceptor[] routeInters, Map<String, ParamAttribute> classParamNames, Class<? extends Validator>[] validClasses, Class<? extends Resource> resourceClazz, Method method) {
-    Route route = new Route(resourceClazz, ParamNamesScaner.getParamNames(method, classParamNames), httpMethod, getApi(apiPath, methodPath), method, routeInters,
+  private void addRoute(String httpMethod, String apiPath, String methodPath, String des, MultipartBuilder multipartBuilder, Interceptor[] routeInters, Map<String, ParamAttribute> classParamNames, Class<? extends Validator>[] validClasses, ResourceProvider resourceProvider, Method method) {
+    Route route = new Route(resourceProvider, ParamNamesScaner.getParamNames(method, classParamNames), httpMethod, getApi(apiPath, methodPath), method, routeInters,
         des, getValidators(validClasses), multipartBuilder);
+    addRoute(apiPath, route);
+  }
+
+  /**
+   * 添加一个已经创建的route 在build之前调用
+   *
+   * @param apiPath resource的api路径 route的路径以它开头
+   * @param route   route
+   */
+  void addRoute(String apiPath, Route route) {
+    String httpMethod = route.getHttpMethod();
     //资源的标志
     if (apiPath.contains(Route.PARAM_PATTERN)) {
       throw new IllegalArgumentException("Api path could not contains pattern. Because this is a resource url.");
@@ -92,6 +107,10 @@ public final class RouteBuilder {
     Map<String, ParamAttribute> classParamNames;
     //当前resource的方法
     Method[] methods;
+    //同一个resource的route共用
+    ResourceProvider resourceProvider;
+    //编译期生成的参数名索引
+    ResourceIndex resourceIndex = Constant.resourceIndex ? ResourceIndex.load() : null;
 
     //addResources
     for (Class<? extends Resource> resourceClazz : resourceLoader.getResources()) {
@@ -99,7 +118,8 @@ public final class RouteBuilder {
         SpringBuilder.register(resourceClazz);//如果spring plugin init注入到spring容器
       }
       resourceInters = interceptorBuilder.buildResourceInterceptors(resourceClazz);
-      classParamNames = ParamNamesScaner.getParamNames(resourceClazz);
+      classParamNames = getParamNames(resourceIndex, resourceClazz);
+      resourceProvider = ResourceProvider.of(resourceClazz);
 
       apiPath = getApi(resourceClazz);
       //自己的方法
@@ -125,7 +145,7 @@ public final class RouteBuilder {
           methodInters = interceptorBuilder.buildMethodInterceptors(method);
           routeInters = interceptorBuilder.buildRouteInterceptors(defaultInters, resourceInters, resourceClazz, methodInters, method);
 
-          addRoute(HttpMethod.DELETE, apiPath, delete.value(), delete.des(), multipartBuilder, routeInters, classParamNames, delete.valid(), resourceClazz, method);
+          addRoute(HttpMethod.DELETE, apiPath, delete.value(), delete.des(), multipartBuilder, routeInters, classParamNames, delete.valid(), resourceProvider, method);
           continue;
         }
         //get 请求
@@ -135,7 +155,7 @@ public final class RouteBuilder {
           methodInters = interceptorBuilder.buildMethodInterceptors(method);
           routeInters = interceptorBuilder.buildRouteInterceptors(defaultInters, resourceInters, resourceClazz, methodInters, method);
 
-          addRoute(HttpMethod.GET, apiPath, get.value(), get.des(), multipartBuilder, routeInters, classParamNames, get.valid(), resourceClazz, method);
+          addRoute(HttpMethod.GET, apiPath, get.value(), get.des(), multipartBuilder, routeInters, classParamNames, get.valid(), resourceProvider, method);
           continue;
         }
         //post 请求
@@ -145,7 +165,7 @@ public final class RouteBuilder {
           methodInters = interceptorBuilder.buildMethodInterceptors(method);
           routeInters = interceptorBuilder.buildRouteInterceptors(defaultInters, resourceInters, resourceClazz, methodInters, method);
 
-          addRoute(HttpMethod.POST, apiPath, post.value(), post.des(), multipartBuilder, routeInters, classParamNames, post.valid(), resourceClazz, method);
+          addRoute(HttpMethod.POST, apiPath, post.value(), post.des(), multipartBuilder, routeInters, classParamNames, post.valid(), resourceProvider, method);
           continue;
         }
         //put 请求
@@ -155,7 +175,7 @@ public final class RouteBuilder {
           methodInters = interceptorBuilder.buildMethodInterceptors(method);
           routeInters = interceptorBuilder.buildRouteInterceptors(defaultInters, resourceInters, resourceClazz, methodInters, method);
 
-          addRoute(HttpMethod.PUT, apiPath, put.value(), put.des(), multipartBuilder, routeInters, classParamNames, put.valid(), resourceClazz, method);
+          addRoute(HttpMethod.PUT, apiPath, put.value(), put.des(), multipartBuilder, routeInters, classParamNames, put.valid(), resourceProvider, method);
           continue;
         }
         //patch 请求
@@ -165,11 +185,57 @@ public final class RouteBuilder {
           methodInters = interceptorBuilder.buildMethodInterceptors(method);
           routeInters = interceptorBuilder.buildRouteInterceptors(defaultInters, resourceInters, resourceClazz, methodInters, method);
 
-          addRoute(HttpMethod.PATCH, apiPath, patch.value(), patch.des(), multipartBuilder, routeInters, classParamNames, patch.valid(), resourceClazz, method);
+          addRoute(HttpMethod.PATCH, apiPath, patch.value(), patch.des(), multipartBuilder, routeInters, classParamNames, patch.valid(), resourceProvider, method);
           continue;
         }
       }
     }
+    buildRouteTrees();
+  }
+
+  /**
+   * 优先从索引获取参数名 没有索引或索引过期时解析class文件
+   *
+   * @param resourceIndex resource索引
+   * @param resourceClazz resource class
+   * @return 所有方法的参数信息
+   */
+  private Map<String, ParamAttribute> getParamNames(ResourceIndex resourceIndex, Class<? extends Resource> resourceClazz) {
+    if (resourceIndex != null) {
+      Map<String, ParamAttribute> classParamNames = resourceIndex.getParamNames(resourceClazz.getName());
+      if (classParamNames != null) {
+        boolean outdated = false;
+        for (Method method : resourceClazz.getDeclaredMethods()) {
+          if (!method.isSynthetic() && !Modifier.isAbstract(method.getModifiers()) && !classParamNames.containsKey(ParamNamesScaner.getKey(method))) {
+            outdated = true;
+            break;
+          }
+        }
+        if (!outdated) {
+          return classParamNames;
+        }
+      }
+    }
+    return ParamNamesScaner.getParamNames(resourceClazz);
+  }
+
+  /**
+   * 按排序后的顺序把route编译到树 顺序即匹配的优先级
+   */
+  private void buildRouteTrees() {
+    routeTreesMap.clear();
+    RouteTree routeTree;
+    int rank;
+    for (Map.Entry<String, Map<String, Set<Route>>> routesEntry : routesMap.entrySet()) {
+      routeTree = new RouteTree();
+      rank = 0;
+      for (Map.Entry<String, Set<Route>> apiEntry : routesEntry.getValue().entrySet()) {
+        for (Route route : apiEntry.getValue()) {
+          routeTree.add(route, apiEntry.getKey(), rank++);
+        }
+      }
+      routeTreesMap.put(routesEntry.getKey().toUpperCase(), routeTree);
+    }
   }
 
 
@@ -244,6 +310,16 @@ public final class RouteBuilder {
     return Collections.unmodifiableMap(routesMap);
   }
 
+  /**
+   * 获取httpMethod对应的route树
+   *
+   * @param httpMethod httpMethod
+   * @return RouteTree or null
+   */
+  public RouteTree getRouteTree(String httpMethod) {
+    return routeTreesMap.get(httpMethod);
+  }
+
   /**
    * 创建一个对key排序的map
    *
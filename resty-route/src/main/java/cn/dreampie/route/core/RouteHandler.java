@@ -8,8 +8,9 @@ import cn.dreampie.common.http.result.HttpStatus;
 import cn.dreampie.log.Logger;
 import cn.dreampie.route.handler.Handler;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * ActionHandler
@@ -20,53 +21,58 @@ public final class RouteHandler extends Handler {
 
   public RouteHandler(RouteBuilder routeBuilder) {
     this.routeBuilder = routeBuilder;
-    
   }
 
   /**
    * handle
    */
   public final void handle(HttpRequest request, HttpResponse response, boolean[] isHandled) {
+    long startNanos = System.nanoTime();
     RouteMatch routeMatch = null;
     Route route = null;
     RouteInvocation routeInvocation = null;
     //请求的rest路径
     String restPath = request.getRestPath();
-    System.out.println(restPath+"zyz打印");
-    Map<String, Map<String, Set<Route>>> routesMap = routeBuilder.getRoutesMap();
-    Set<Route> routesSet;
     String httpMethod = request.getHttpMethod();
     boolean supportMethod = HttpMethod.support(httpMethod);
     //httpmethod区分
     if (supportMethod) {
-      if (routesMap.containsKey(httpMethod)) {
-        Set<Map.Entry<String, Set<Route>>> routesEntrySet = routesMap.get(httpMethod).entrySet();
-        //url区分
-        for (Map.Entry<String, Set<Route>> routesEntry : routesEntrySet) {
-          if (restPath.startsWith(routesEntry.getKey())) {
-            routesSet = routesEntry.getValue();
-            for (Route r : routesSet) {
-              routeMatch = r.match(request, response);
-              if (routeMatch != null) {
-                route = r;
-                break;
-              }
-            }
-            if (routeMatch != null) {
-              break;
-            }
-          }
+      RouteTree routeTree = routeBuilder.getRouteTree(httpMethod);
+      if (routeTree != null) {
+        String extension = Route.getExtension(restPath);
+        String path = restPath;
+        if (!extension.equals("")) {
+          path = restPath.substring(0, restPath.length() - extension.length() - 1);
+        }
+        Map<String, String> pathParams = new HashMap<String, String>();
+        route = routeTree.find(path, pathParams);
+        if (route != null) {
+          routeMatch = route.match(request, response, path, extension, pathParams);
         }
       }
 
       if (routeMatch != null) {
         routeInvocation = new RouteInvocation(route, routeMatch);
+        routeInvocation.matched(startNanos);
       }
     }
     isHandled[0] = true;
     //route
     if (routeInvocation != null) {
-      routeInvocation.invoke();
+      Executor executor = route.getAsyncExecutor();
+      routeInvocation.acquire(executor == null);
+      try {
+        if (executor != null) {
+          //startAsync失败时同样要释放并发许可
+          routeInvocation.invokeAsync(executor);
+        } else {
+          routeInvocation.invoke();
+        }
+      } catch (RuntimeException e) {
+        routeInvocation.completed(e);
+        throw e;
+      }
+      routeInvocation.completed(null);
     } else {
       if (!restPath.equals("/") && supportMethod) {
         // no route matched
@@ -6,20 +6,33 @@ import cn.dreampie.common.http.exception.WebException;
 import cn.dreampie.common.http.result.HttpStatus;
 import cn.dreampie.common.http.result.ImageResult;
 import cn.dreampie.common.http.result.WebResult;
-import cn.dreampie.common.spring.SpringBuilder;
-import cn.dreampie.common.spring.SpringHolder;
+import cn.dreampie.common.util.scope.ScopedContext;
 import cn.dreampie.log.Logger;
+import cn.dreampie.route.cache.BufferedResponse;
+import cn.dreampie.route.cache.CachedResponse;
+import cn.dreampie.route.cache.ResponseCache;
+import cn.dreampie.route.cache.FlightGroup;
 import cn.dreampie.route.interceptor.Interceptor;
+import cn.dreampie.route.limit.ConcurrencyLimiter;
+import cn.dreampie.route.metrics.RouteMetrics;
 import cn.dreampie.route.render.RenderFactory;
 import cn.dreampie.route.valid.ValidResult;
 import cn.dreampie.route.valid.Validator;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.awt.image.RenderedImage;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 import static cn.dreampie.common.util.Checker.checkNotNull;
 
@@ -33,6 +46,29 @@ public class RouteInvocation {
   private RouteMatch routeMatch;
   private Interceptor[] interceptors;
   private int index = 0;
+  //异步执行或返回CompletionStage时使用
+  private AsyncRoute asyncRoute;
+  //没有开启指标时为null 以下各阶段的耗时都是纳秒
+  private RouteMetrics metrics;
+  private long startNanos;
+  private long matchNanos;
+  private long bindNanos;
+  private long invokeNanos;
+  private long renderNanos;
+  //没有@Cached时为null
+  private ResponseCache responseCache;
+  private String cacheKey;
+  //没有@SingleFlight时为null
+  private FlightGroup flightGroup;
+  //当前请求是leader时等待它输出的Flight
+  private FlightGroup.Flight flight;
+  //没有@Bulkhead时为null
+  private ConcurrencyLimiter limiter;
+  //异步的route可能在executor和超时的线程中同时结束 许可只能归还一次
+  private final AtomicBoolean permitted = new AtomicBoolean();
+  //执行中的resource 返回CompletionStage时在AsyncRoute结束时归还
+  private ResourceProvider resourceProvider;
+  private Resource resource;
 
   // ActionInvocationWrapper need this constructor
   private RouteInvocation() {
@@ -43,6 +79,136 @@ public class RouteInvocation {
     this.route = route;
     this.routeMatch = routeMatch;
     this.interceptors = route.getInterceptors();
+    this.metrics = route.getMetrics();
+    this.responseCache = route.getResponseCache();
+    this.flightGroup = route.getFlightGroup();
+    this.limiter = route.getLimiter();
+  }
+
+  /**
+   * 记录查找route的耗时
+   *
+   * @param startNanos 进入RouteHandler的时间
+   */
+  void matched(long startNanos) {
+    if (metrics != null) {
+      this.startNanos = startNanos;
+      this.matchNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  /**
+   * 获取route的并发许可 超过限制时返回503和Retry-After
+   *
+   * @param wait 是否在当前线程排队等待, 异步的route为false 没有立即获得许可时在executor中等待 不占用容器线程
+   */
+  void acquire(boolean wait) {
+    if (limiter != null) {
+      if (!wait && limiter.isQueued()) {
+        permitted.set(limiter.tryAcquire());
+      } else if (limiter.acquire()) {
+        permitted.set(true);
+      } else {
+        rejected();
+        finished(HttpStatus.SERVICE_UNAVAILABLE);
+        throw new WebException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy.");
+      }
+    }
+  }
+
+  /**
+   * 在executor中排队等待许可
+   *
+   * @return 是否获得许可 false时请求已经结束
+   */
+  private boolean acquireAsync() {
+    if (limiter == null || permitted.get()) {
+      return true;
+    }
+    if (!limiter.acquire()) {
+      rejected();
+      asyncRoute.fail(new WebException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy."));
+      return false;
+    }
+    permitted.set(true);
+    //等待期间请求已经超时结束
+    if (asyncRoute.isCompleted()) {
+      if (permitted.compareAndSet(true, false)) {
+        limiter.release();
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private void rejected() {
+    if (metrics != null) {
+      metrics.recordRejected();
+    }
+    routeMatch.getResponse().setHeader("Retry-After", String.valueOf(limiter.getRetryAfter()));
+  }
+
+  /**
+   * 同步执行结束时记录指标 结果由异步输出时在AsyncRoute结束时记录
+   *
+   * @param exception 执行时的异常 or null
+   */
+  void completed(Exception exception) {
+    if (asyncRoute == null) {
+      finished(exception == null ? routeMatch.getResponse().getStatus() : statusOf(exception));
+    }
+  }
+
+  /**
+   * 请求结束 释放并发许可并记录指标
+   *
+   * @param status 响应状态
+   */
+  void finished(HttpStatus status) {
+    if (permitted.compareAndSet(true, false)) {
+      limiter.release();
+    }
+    if (metrics != null) {
+      metrics.record(status.getCode(), matchNanos, bindNanos, invokeNanos, renderNanos, System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * 异常对应的响应状态 和DefaultExceptionHolder一致
+   */
+  static HttpStatus statusOf(Exception exception) {
+    if (exception instanceof WebException) {
+      return ((WebException) exception).getStatus();
+    }
+    return HttpStatus.BAD_REQUEST;
+  }
+
+  /**
+   * 在executor中执行route 容器线程直接返回
+   *
+   * @param executor executor
+   */
+  public void invokeAsync(Executor executor) {
+    asyncRoute = new AsyncRoute(this, routeMatch.getRequest(), routeMatch.getResponse(), route.getAsyncTimeout());
+    try {
+      //每次执行一个新的上下文 线程复用或者大量的虚拟线程都不会残留上次的值
+      executor.execute(ScopedContext.wrap(new Runnable() {
+        public void run() {
+          if (!acquireAsync()) {
+            return;
+          }
+          try {
+            invoke();
+          } catch (Exception e) {
+            asyncRoute.fail(e);
+            return;
+          }
+          asyncRoute.done();
+        }
+      }));
+    } catch (RejectedExecutionException e) {
+      asyncRoute.fail(new WebException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy."));
+    }
   }
 
   /**
@@ -52,64 +218,135 @@ public class RouteInvocation {
     if (index < interceptors.length) {
       interceptors[index++].intercept(this);
     } else if (index++ == interceptors.length) {
-      Resource resource;
+      //拦截器之后读取缓存 命中时不执行resource方法
+      if (responseCache != null) {
+        cacheKey = responseCache.key(routeMatch.getRequest());
+        CachedResponse cachedResponse = responseCache.get(cacheKey);
+        if (cachedResponse != null) {
+          cachedResponse.write(routeMatch.getRequest(), routeMatch.getResponse(), true);
+          return;
+        }
+      }
+      //相同的请求正在执行时等待它的输出
+      if (flightGroup != null) {
+        String flightKey = ResponseCache.key(routeMatch.getRequest(), flightGroup.getHeaders());
+        flight = flightGroup.lead(flightKey);
+        if (flight == null) {
+          CachedResponse sharedResponse = flightGroup.await(flightKey);
+          if (sharedResponse != null) {
+            sharedResponse.write(routeMatch.getRequest(), routeMatch.getResponse(), true);
+            return;
+          }
+        }
+      }
+      resourceProvider = route.getResourceProvider();
+      boolean shared = resourceProvider.isShared();
+      RouteMatch oldRouteMatch = null;
       try {
         //初始化resource
-        if (SpringHolder.alive) {
-          resource = SpringBuilder.getBean(route.getResourceClass());
-        } else {
-          resource = route.getResourceClass().newInstance();
-        }
+        resource = resourceProvider.get();
 
         checkNotNull(resource, "Could init '" + route.getResourceClass() + "' before invoke method.");
-        resource.setRouteMatch(routeMatch);
+        if (shared) {
+          oldRouteMatch = RouteMatchHolder.set(routeMatch);
+        } else {
+          resource.setRouteMatch(routeMatch);
+        }
+        long begin = metrics != null ? System.nanoTime() : 0;
         //获取所有参数
         Params params = routeMatch.getParams();
 
         //数据验证
         validate(params);
-        Method method = route.getMethod();
-        method.setAccessible(true);
-        Object invokeResult;
+        RouteInvoker invoker = route.getInvoker();
+        Object[] args = invoker.bind(routeMatch);
+        if (metrics != null) {
+          long now = System.nanoTime();
+          bindNanos = now - begin;
+          begin = now;
+        }
         //执行方法
-        if (route.getAllParamNames().size() > 0) {
-          List<Class<?>> allParamTypes = route.getAllParamTypes();
-          List<String> allParamNames = route.getAllParamNames();
-          //执行方法的参数
-          Object[] args = new Object[allParamNames.size()];
-          int i = 0;
-          for (String name : allParamNames) {
-            if (HttpRequest.class.isAssignableFrom(allParamTypes.get(i))) {
-              args[i++] = routeMatch.getRequest();
-            } else if (HttpResponse.class.isAssignableFrom(allParamTypes.get(i))) {
-              args[i++] = routeMatch.getResponse();
-            } else if (Headers.class.isAssignableFrom(allParamTypes.get(i))) {
-              args[i++] = routeMatch.getHeaders();
-            } else if (Params.class.isAssignableFrom(allParamTypes.get(i))) {
-              args[i++] = routeMatch.getParams();
-            } else {
-              args[i++] = params.get(name);
-            }
-          }
-          invokeResult = method.invoke(resource, args);
-        } else {
-          invokeResult = method.invoke(resource);
+        Object invokeResult = invoker.invoke(resource, args);
+        if (metrics != null) {
+          invokeNanos = System.nanoTime() - begin;
         }
         //输出结果
         render(invokeResult);
       } catch (Exception e) {
+        land(null);
         route.throwException(e);
+      } finally {
+        //RouteMatchHolder只属于当前线程 必须在这里还原
+        if (shared) {
+          RouteMatchHolder.restore(oldRouteMatch);
+        }
+        //CompletionStage的回调还在使用resource 由AsyncRoute结束时归还
+        if (asyncRoute != null && asyncRoute.isDeferred()) {
+          resourceProvider.defer(resource);
+        } else {
+          release();
+        }
       }
     }
   }
 
+  /**
+   * 归还resource对象
+   */
+  void release() {
+    if (resource != null) {
+      resourceProvider.release(resource);
+      resource = null;
+    }
+  }
+
 
   /**
    * 输出内容
    *
    * @param invokeResult invokeResult
    */
-  private void render(Object invokeResult) {
+  private void render(final Object invokeResult) {
+    //等待CompletionStage完成后输出
+    if (invokeResult instanceof CompletionStage) {
+      if (asyncRoute == null) {
+        asyncRoute = new AsyncRoute(this, routeMatch.getRequest(), routeMatch.getResponse(), route.getAsyncTimeout());
+      }
+      asyncRoute.defer();
+      ((CompletionStage<Object>) invokeResult).whenComplete(new BiConsumer<Object, Throwable>() {
+        public void accept(final Object result, Throwable throwable) {
+          if (throwable != null) {
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+              throwable = throwable.getCause();
+            }
+            land(null);
+            try {
+              route.throwException(throwable);
+            } catch (WebException e) {
+              asyncRoute.fail(e);
+            }
+          } else {
+            asyncRoute.render(new Runnable() {
+              public void run() {
+                doRender(result);
+              }
+            });
+          }
+        }
+      });
+    } else if (asyncRoute != null) {
+      asyncRoute.render(new Runnable() {
+        public void run() {
+          doRender(invokeResult);
+        }
+      });
+    } else {
+      doRender(invokeResult);
+    }
+  }
+
+  private void doRender(Object invokeResult) {
+    long begin = metrics != null ? System.nanoTime() : 0;
     Object result = null;
     HttpRequest request = routeMatch.getRequest();
     HttpResponse response = routeMatch.getResponse();
@@ -122,22 +359,71 @@ public class RouteInvocation {
       result = invokeResult;
     }
     String extension = routeMatch.getExtension();
-    //file render
-    if ((result instanceof File && extension.equals("")) || extension.equals(RenderFactory.FILE)) {
-      RenderFactory.getFileRender().render(request, response, result);
-    } else
-      //image render
-      if (((result instanceof ImageResult || result instanceof RenderedImage) && extension.equals(""))
-          || extension.equals(RenderFactory.IMAGE)) {
-        //如果是string  表示为文件类型
-        if (result instanceof String) {
-          RenderFactory.getFileRender().render(request, response, result);
+    try {
+      //file render
+      if ((result instanceof File && extension.equals("")) || extension.equals(RenderFactory.FILE)) {
+        RenderFactory.getFileRender().render(request, response, result);
+      } else
+        //image render
+        if (((result instanceof ImageResult || result instanceof RenderedImage) && extension.equals(""))
+            || extension.equals(RenderFactory.IMAGE)) {
+          //如果是string  表示为文件类型
+          if (result instanceof String) {
+            RenderFactory.getFileRender().render(request, response, result);
+          } else {
+            RenderFactory.getImageRender().render(request, response, result);
+          }
+        } else if (cacheKey != null || flight != null) {
+          renderCached(request, response, result, extension);
         } else {
-          RenderFactory.getImageRender().render(request, response, result);
+          RenderFactory.get(extension).render(request, response, result);
         }
+    } finally {
+      land(null);
+      if (metrics != null) {
+        renderNanos = System.nanoTime() - begin;
+      }
+    }
+  }
+
+  /**
+   * leader执行结束 唤醒等待的请求
+   *
+   * @param cachedResponse 可以共享的输出 or null
+   */
+  private void land(CachedResponse cachedResponse) {
+    if (flight != null) {
+      flight.land(cachedResponse);
+      flight = null;
+    }
+  }
+
+  /**
+   * 输出到内存 缓存或者共享后再输出到response
+   */
+  private void renderCached(HttpRequest request, HttpResponse response, Object result, String extension) {
+    BufferedResponse bufferedResponse = new BufferedResponse(response.unwrap(HttpServletResponse.class));
+    bufferedResponse.setStatus(response.getStatus().getCode());
+    HttpResponse buffered = new HttpResponse(bufferedResponse, request.unwrap(HttpServletRequest.class));
+    RenderFactory.get(extension).render(request, buffered, result);
+    try {
+      buffered.close();
+      CachedResponse cachedResponse;
+      if (responseCache != null) {
+        cachedResponse = responseCache.put(cacheKey, bufferedResponse);
       } else {
-        RenderFactory.get(extension).render(request, response, result);
+        cachedResponse = ResponseCache.isCacheable(bufferedResponse) ? CachedResponse.of(bufferedResponse, 0) : null;
       }
+      land(cachedResponse);
+      if (cachedResponse != null) {
+        cachedResponse.write(request, response, false);
+      } else {
+        response.setStatus(HttpStatus.havingCode(bufferedResponse.getStatus()));
+        bufferedResponse.commit();
+      }
+    } catch (IOException e) {
+      throw new WebException(e.getMessage());
+    }
   }
 
   /**
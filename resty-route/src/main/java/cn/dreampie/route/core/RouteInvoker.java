@@ -0,0 +1,117 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.exception.InitException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Invoke the resource method of a route.
+ * The argument slots and the method handle are resolved once when the route is built,
+ * so a request only fills the argument array and calls the handle.
+ */
+public final class RouteInvoker {
+
+  private static final int PARAM = 0;
+  private static final int REQUEST = 1;
+  private static final int RESPONSE = 2;
+  private static final int HEADERS = 3;
+  private static final int PARAMS = 4;
+
+  private final String[] names;
+  private final int[] slots;
+  private final MethodHandle handle;
+
+  public RouteInvoker(Method method, List<String> paramNames) {
+    Class<?>[] paramTypes = method.getParameterTypes();
+    this.names = new String[paramTypes.length];
+    this.slots = new int[paramTypes.length];
+    for (int i = 0; i < paramTypes.length; i++) {
+      names[i] = paramNames.get(i);
+      if (HttpRequest.class.isAssignableFrom(paramTypes[i])) {
+        slots[i] = REQUEST;
+      } else if (HttpResponse.class.isAssignableFrom(paramTypes[i])) {
+        slots[i] = RESPONSE;
+      } else if (Headers.class.isAssignableFrom(paramTypes[i])) {
+        slots[i] = HEADERS;
+      } else if (Params.class.isAssignableFrom(paramTypes[i])) {
+        slots[i] = PARAMS;
+      } else {
+        slots[i] = PARAM;
+      }
+    }
+
+    method.setAccessible(true);
+    try {
+      this.handle = MethodHandles.lookup().unreflect(method)
+          .asSpreader(Object[].class, paramTypes.length)
+          .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    } catch (IllegalAccessException e) {
+      throw new InitException("Could not access method '" + method + "'.", e);
+    }
+  }
+
+  /**
+   * 绑定参数并执行方法
+   *
+   * @param resource   resource对象
+   * @param routeMatch 匹配到的route
+   * @return 方法的返回值
+   * @throws InvocationTargetException 方法抛出的异常
+   */
+  public Object invoke(Object resource, RouteMatch routeMatch) throws InvocationTargetException {
+    return invoke(resource, bind(routeMatch));
+  }
+
+  /**
+   * 按方法的参数顺序取出参数
+   *
+   * @param routeMatch 匹配到的route
+   * @return 方法参数
+   */
+  public Object[] bind(RouteMatch routeMatch) {
+    Object[] args = new Object[slots.length];
+    for (int i = 0; i < slots.length; i++) {
+      switch (slots[i]) {
+        case REQUEST:
+          args[i] = routeMatch.getRequest();
+          break;
+        case RESPONSE:
+          args[i] = routeMatch.getResponse();
+          break;
+        case HEADERS:
+          args[i] = routeMatch.getHeaders();
+          break;
+        case PARAMS:
+          args[i] = routeMatch.getParams();
+          break;
+        default:
+          args[i] = routeMatch.getParams().get(names[i]);
+      }
+    }
+    return args;
+  }
+
+  /**
+   * 执行方法
+   *
+   * @param resource resource对象
+   * @param args     bind得到的参数
+   * @return 方法的返回值
+   * @throws InvocationTargetException 方法抛出的异常
+   */
+  public Object invoke(Object resource, Object[] args) throws InvocationTargetException {
+    try {
+      return (Object) handle.invokeExact(resource, args);
+    } catch (Throwable e) {
+      //和Method.invoke一样包装方法抛出的异常
+      throw new InvocationTargetException(e);
+    }
+  }
+}
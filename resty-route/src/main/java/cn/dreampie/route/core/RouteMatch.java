@@ -14,7 +14,7 @@ public class RouteMatch {
   private final String path;
   private final String extension;
   private final Params params;
-  private final Headers headers;
+  private Headers headers;
   private final HttpRequest request;
   private final HttpResponse response;
 
@@ -26,7 +26,6 @@ public class RouteMatch {
     this.params = checkNotNull(params);
     this.extension = checkNotNull(extension);
     this.request = checkNotNull(request);
-    this.headers = new Headers(request.getHeaders());
     this.response = checkNotNull(response);
   }
 
@@ -51,6 +50,9 @@ public class RouteMatch {
   }
 
   public Headers getHeaders() {
+    if (headers == null) {
+      headers = new Headers(request.getHeaders());
+    }
     return headers;
   }
 
@@ -0,0 +1,39 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.util.scope.ContextLocal;
+
+/**
+ * Hold the route match of the request executing on the current thread,
+ * resources shared by many requests read it from here instead of an instance field.
+ */
+public final class RouteMatchHolder {
+
+  private static final ContextLocal<RouteMatch> routeMatchTL = new ContextLocal<RouteMatch>();
+
+  private RouteMatchHolder() {
+  }
+
+  public static RouteMatch get() {
+    return routeMatchTL.get();
+  }
+
+  /**
+   * 设置当前的routeMatch
+   *
+   * @param routeMatch routeMatch
+   * @return 之前的routeMatch 用于还原
+   */
+  static RouteMatch set(RouteMatch routeMatch) {
+    RouteMatch old = routeMatchTL.get();
+    routeMatchTL.set(routeMatch);
+    return old;
+  }
+
+  static void restore(RouteMatch old) {
+    if (old == null) {
+      routeMatchTL.remove();
+    } else {
+      routeMatchTL.set(old);
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package cn.dreampie.route.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Segment trie of the routes of one http method.
+ * Literal segments and whole-segment path params ({id} or :id) are walked segment by segment,
+ * a route with a custom regex (or a mixed segment) is hung on the deepest plain node as a regex leaf
+ * and checked with its full pattern.
+ * Every route has a rank (the order of RouteBuilder's DESC sort), the lowest matched rank wins.
+ * The api path part is matched as a literal prefix, like the former startsWith scan.
+ */
+public final class RouteTree {
+
+  private static final String REGEX_CHARS = ".[]{}()\\*+?^$|:";
+
+  private final Node root = new Node();
+
+  /**
+   * 添加route
+   *
+   * @param route   route
+   * @param apiPath resource的api路径 请求路径必须以它开头
+   * @param rank    匹配的优先级 越小越优先
+   */
+  public void add(Route route, String apiPath, int rank) {
+    Leaf leaf = new Leaf(route, rank);
+    Node node = root;
+    node.minRank = Math.min(node.minRank, rank);
+    List<String> apiSegments = splitPattern(apiPath);
+    List<String> segments = splitPattern(route.getPathPattern());
+    String segment;
+    boolean apiLiteral;
+    for (int i = 0; i < segments.size(); i++) {
+      segment = segments.get(i);
+      apiLiteral = isApiLiteral(segment, i, apiSegments);
+      if (!apiLiteral && isParam(segment)) {
+        if (node.param == null) {
+          node.param = new Node();
+        }
+        node = node.param;
+      } else if (apiLiteral || isLiteral(segment)) {
+        if (node.literals == null) {
+          node.literals = new HashMap<String, Node>();
+        }
+        Node child = node.literals.get(segment);
+        if (child == null) {
+          child = new Node();
+          node.literals.put(segment, child);
+        }
+        node = child;
+      } else {
+        //正则 从这里开始使用完整的pattern匹配
+        node.regexLeaves = insert(node.regexLeaves, leaf);
+        return;
+      }
+      node.minRank = Math.min(node.minRank, rank);
+    }
+    node.leaves = insert(node.leaves, leaf);
+  }
+
+  /**
+   * 查找route
+   *
+   * @param restPath   去掉扩展名的rest路径
+   * @param pathParams 匹配到的path参数
+   * @return route or null
+   */
+  public Route find(String restPath, Map<String, String> pathParams) {
+    String[] segments = splitPath(restPath);
+    Found found = new Found();
+    find(root, restPath, segments, 0, new String[segments.length], 0, found);
+    if (found.leaf == null) {
+      return null;
+    }
+    Route route = found.leaf.route;
+    if (found.matcher != null) {
+      route.fillPathParams(found.matcher, pathParams);
+    } else {
+      List<String> names = route.getPathParamNames();
+      for (int i = 0; i < names.size(); i++) {
+        pathParams.put(names.get(i), found.captures[i]);
+      }
+    }
+    return route;
+  }
+
+  private void find(Node node, String restPath, String[] segments, int depth, String[] captures, int captured, Found found) {
+    if (node.minRank >= found.rank) {
+      return;
+    }
+    if (node.regexLeaves != null) {
+      for (Leaf leaf : node.regexLeaves) {
+        if (leaf.rank >= found.rank) {
+          break;
+        }
+        Matcher matcher = leaf.route.matcher(restPath);
+        if (matcher.matches()) {
+          found.set(leaf, matcher, null);
+          break;
+        }
+      }
+    }
+    if (depth == segments.length) {
+      if (node.leaves != null && node.leaves[0].rank < found.rank) {
+        String[] values = new String[captured];
+        System.arraycopy(captures, 0, values, 0, captured);
+        found.set(node.leaves[0], null, values);
+      }
+      return;
+    }
+    String segment = segments[depth];
+    if (node.literals != null) {
+      Node child = node.literals.get(segment);
+      if (child != null) {
+        find(child, restPath, segments, depth + 1, captures, captured, found);
+      }
+    }
+    //([^\/]+) 不匹配空字符
+    if (node.param != null && segment.length() > 0) {
+      captures[captured] = segment;
+      find(node.param, restPath, segments, depth + 1, captures, captured + 1, found);
+    }
+  }
+
+  private static Leaf[] insert(Leaf[] leaves, Leaf leaf) {
+    if (leaves == null) {
+      return new Leaf[]{leaf};
+    }
+    Leaf[] result = new Leaf[leaves.length + 1];
+    int i = 0;
+    int j = 0;
+    while (i < leaves.length && leaves[i].rank < leaf.rank) {
+      result[j++] = leaves[i++];
+    }
+    result[j++] = leaf;
+    while (i < leaves.length) {
+      result[j++] = leaves[i++];
+    }
+    return result;
+  }
+
+  private static boolean isParam(String segment) {
+    if (segment.length() > 1 && segment.charAt(0) == ':') {
+      return segment.indexOf('{') == -1 && segment.indexOf(':', 1) == -1;
+    }
+    if (segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+      for (int i = 1; i < segment.length() - 1; i++) {
+        if (!Character.isLetterOrDigit(segment.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * api路径部分以startsWith匹配, 能匹配自身的片段可以当作字面量 eg. /api/v1.0
+   */
+  private static boolean isApiLiteral(String segment, int index, List<String> apiSegments) {
+    if (index >= apiSegments.size() || !segment.equals(apiSegments.get(index))) {
+      return false;
+    }
+    if (isLiteral(segment)) {
+      return true;
+    }
+    try {
+      return Pattern.matches(segment, segment);
+    } catch (PatternSyntaxException e) {
+      return false;
+    }
+  }
+
+  private static boolean isLiteral(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      if (REGEX_CHARS.indexOf(segment.charAt(i)) != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 按'/'拆分pattern, 忽略{}里的'/'
+   */
+  private static List<String> splitPattern(String pathPattern) {
+    List<String> segments = new ArrayList<String>();
+    int braces = 0;
+    int start = 0;
+    char c;
+    for (int i = 0; i < pathPattern.length(); i++) {
+      c = pathPattern.charAt(i);
+      if (c == '{') {
+        braces++;
+      } else if (c == '}') {
+        braces--;
+      } else if (c == '/' && braces == 0) {
+        segments.add(pathPattern.substring(start, i));
+        start = i + 1;
+      }
+    }
+    segments.add(pathPattern.substring(start));
+    return segments;
+  }
+
+  /**
+   * 按'/'拆分路径, 保留空的片段
+   */
+  private static String[] splitPath(String restPath) {
+    int count = 1;
+    for (int i = 0; i < restPath.length(); i++) {
+      if (restPath.charAt(i) == '/') {
+        count++;
+      }
+    }
+    String[] segments = new String[count];
+    int start = 0;
+    int j = 0;
+    for (int i = 0; i < restPath.length(); i++) {
+      if (restPath.charAt(i) == '/') {
+        segments[j++] = restPath.substring(start, i);
+        start = i + 1;
+      }
+    }
+    segments[j] = restPath.substring(start);
+    return segments;
+  }
+
+  private static final class Node {
+    private Map<String, Node> literals;
+    private Node param;
+    private Leaf[] leaves;
+    private Leaf[] regexLeaves;
+    private int minRank = Integer.MAX_VALUE;
+  }
+
+  private static final class Leaf {
+    private final Route route;
+    private final int rank;
+
+    private Leaf(Route route, int rank) {
+      this.route = route;
+      this.rank = rank;
+    }
+  }
+
+  private static final class Found {
+    private Leaf leaf;
+    private Matcher matcher;
+    private String[] captures;
+    private int rank = Integer.MAX_VALUE;
+
+    private void set(Leaf leaf, Matcher matcher, String[] captures) {
+      this.leaf = leaf;
+      this.matcher = matcher;
+      this.captures = captures;
+      this.rank = leaf.rank;
+    }
+  }
+}
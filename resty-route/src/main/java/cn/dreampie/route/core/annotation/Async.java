@@ -0,0 +1,26 @@
+package cn.dreampie.route.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used to mark a resource method that is executed asynchronously (Servlet 3 AsyncContext).
+ * 容器线程只负责接收请求, route在指定的executor中执行
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Async {
+  /**
+   * executor的名字 为空时使用默认的executor
+   *
+   * @return name
+   */
+  String value() default "";
+
+  /**
+   * 超时时间(毫秒) 超时返回503 小于0时使用app.asyncTimeout
+   *
+   * @return timeout
+   */
+  long timeout() default -1;
+}
@@ -0,0 +1,48 @@
+package cn.dreampie.route.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used to limit the concurrent requests of a resource method or all methods of a resource.
+ * 同时执行的请求超过limit时最多queue个请求等待timeout毫秒, 其余的直接返回503和Retry-After
+ * 同步的route在容器线程中等待, @Async的route在executor中等待 不占用容器线程
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface Bulkhead {
+  /**
+   * 分组的名字 相同名字的route共用一个限制 为空时每个route单独限制
+   *
+   * @return name
+   */
+  String value() default "";
+
+  /**
+   * 最多同时执行的请求数
+   *
+   * @return limit
+   */
+  int limit() default 10;
+
+  /**
+   * 最多等待的请求数
+   *
+   * @return queue
+   */
+  int queue() default 0;
+
+  /**
+   * 等待的超时时间(毫秒)
+   *
+   * @return timeout
+   */
+  long timeout() default 0;
+
+  /**
+   * 拒绝时Retry-After的秒数
+   *
+   * @return retryAfter
+   */
+  int retryAfter() default 1;
+}
@@ -0,0 +1,34 @@
+package cn.dreampie.route.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used to cache the rendered response of a GET resource method.
+ * 按rest路径、排序后的查询参数和指定的请求头缓存输出的内容, 命中时不执行resource方法, If-None-Match匹配时返回304
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Cached {
+  /**
+   * 缓存时间(秒)
+   *
+   * @return expired
+   */
+  int expired() default 60;
+
+  /**
+   * 参与缓存key的请求头 eg. Accept-Language
+   * 有SecurityInterceptor的route必须指定 用来区分用户 eg. Cookie、Authorization
+   *
+   * @return headers
+   */
+  String[] headers() default {};
+
+  /**
+   * 最多缓存的条数 超过时淘汰最久没有访问的
+   *
+   * @return max
+   */
+  int max() default 1000;
+}
@@ -0,0 +1,35 @@
+package cn.dreampie.route.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used to mark how a resource class is instantiated.
+ * SINGLETON, THREAD and POOLED instances serve many requests, so the resource should be stateless
+ * and read the current request through Resource.getParams()/getRequest()... only.
+ * When a method returns a CompletionStage, THREAD and POOLED instances are held until the stage completes,
+ * but a SINGLETON callback running on another thread can not see the current request, read it before returning.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+public @interface Scope {
+  Type value() default Type.PROTOTYPE;
+
+  /**
+   * 对象池的最大空闲数量 only for POOLED
+   *
+   * @return size
+   */
+  int poolSize() default 16;
+
+  enum Type {
+    //每个请求创建一个新的对象
+    PROTOTYPE,
+    //所有请求共用一个对象
+    SINGLETON,
+    //每个线程一个对象
+    THREAD,
+    //从对象池借用 用完归还
+    POOLED
+  }
+}
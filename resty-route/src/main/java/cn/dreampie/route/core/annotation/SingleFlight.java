@@ -0,0 +1,27 @@
+package cn.dreampie.route.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used to coalesce identical concurrent GET requests.
+ * 相同route、相同参数的并发请求只执行一次, 其他请求等待并共享输出的内容, 等待超时后各自执行
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface SingleFlight {
+  /**
+   * 等待正在执行的请求的超时时间(毫秒)
+   *
+   * @return timeout
+   */
+  long timeout() default 3000;
+
+  /**
+   * 参与key的请求头 eg. Accept-Language
+   * 有SecurityInterceptor的route必须指定 用来区分用户 eg. Cookie、Authorization
+   *
+   * @return headers
+   */
+  String[] headers() default {};
+}
@@ -0,0 +1,123 @@
+package cn.dreampie.route.handler.batch;
+
+import javax.servlet.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 子请求的异步上下文 batch在执行子请求的线程上等待异步route结束
+ */
+final class BatchAsyncContext implements AsyncContext {
+
+  private final ServletRequest request;
+  private final ServletResponse response;
+  private final List<AsyncListener> listeners = new ArrayList<AsyncListener>();
+  private final CountDownLatch latch = new CountDownLatch(1);
+  private volatile long timeout = 30000;
+
+  BatchAsyncContext(ServletRequest request, ServletResponse response) {
+    this.request = request;
+    this.response = response;
+  }
+
+  boolean isCompleted() {
+    return latch.getCount() == 0;
+  }
+
+  /**
+   * 等待异步route结束 超时时通知listener
+   *
+   * @param maxWait 最多等待的毫秒数 和异步route自己的超时时间取较小的
+   */
+  void await(long maxWait) throws InterruptedException {
+    long wait = timeout > 0 ? Math.min(timeout, maxWait) : maxWait;
+    if (!latch.await(wait, TimeUnit.MILLISECONDS)) {
+      for (AsyncListener listener : listeners()) {
+        try {
+          listener.onTimeout(new AsyncEvent(this, request, response));
+        } catch (IOException e) {
+          throw new IllegalStateException(e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  private List<AsyncListener> listeners() {
+    synchronized (listeners) {
+      return new ArrayList<AsyncListener>(listeners);
+    }
+  }
+
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  public boolean hasOriginalRequestAndResponse() {
+    return true;
+  }
+
+  public void dispatch() {
+    throw new UnsupportedOperationException("Batch request does not support dispatch.");
+  }
+
+  public void dispatch(String path) {
+    dispatch();
+  }
+
+  public void dispatch(ServletContext context, String path) {
+    dispatch();
+  }
+
+  public void complete() {
+    if (isCompleted()) {
+      return;
+    }
+    latch.countDown();
+    for (AsyncListener listener : listeners()) {
+      try {
+        listener.onComplete(new AsyncEvent(this, request, response));
+      } catch (IOException e) {
+        throw new IllegalStateException(e.getMessage(), e);
+      }
+    }
+  }
+
+  public void start(Runnable run) {
+    Thread thread = new Thread(run, "resty-batch-async");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void addListener(AsyncListener listener) {
+    synchronized (listeners) {
+      listeners.add(listener);
+    }
+  }
+
+  public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+    addListener(listener);
+  }
+
+  public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+    try {
+      return clazz.newInstance();
+    } catch (Exception e) {
+      throw new ServletException(e.getMessage(), e);
+    }
+  }
+
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+}
@@ -0,0 +1,328 @@
+package cn.dreampie.route.handler.batch;
+
+import cn.dreampie.common.Constant;
+import cn.dreampie.common.http.ContentType;
+import cn.dreampie.common.http.HttpMethod;
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.ResponseWriter;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.common.util.json.Jsoner;
+import cn.dreampie.common.util.scope.ScopedContext;
+import cn.dreampie.common.util.stream.LimitedInputStream;
+import cn.dreampie.common.util.stream.StreamReader;
+import cn.dreampie.log.Logger;
+import cn.dreampie.route.handler.Handler;
+import cn.dreampie.route.holder.ExceptionHolder;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cn.dreampie.common.util.Checker.checkArgument;
+import static cn.dreampie.common.util.Checker.checkNotNull;
+
+/**
+ * 一次请求执行多个api 减少移动端的请求次数
+ * POST /batch 请求体 [{"method":"GET","path":"/api/users/1","params":{"a":"1"},"headers":{},"body":{}}, ...]
+ * 子请求经过后面的handler和RouteHandler执行, 拦截器、限流、指标都和普通请求一样, 子请求之间相互独立并行执行
+ * 子请求的headers可以覆盖batch请求的请求头, 但Host和X-Forwarded-For等代理转发的请求头只使用batch请求的
+ * 响应体 [{"status":200,"headers":{"content-type":"application/json"},"body":...}, ...] 顺序和请求一致
+ */
+public class BatchHandler extends Handler {
+
+  private static final Logger logger = Logger.getLogger(BatchHandler.class);
+
+  private final String path;
+  private final int maxRequests;
+  private final long timeout;
+  private final Executor executor;
+
+  public BatchHandler() {
+    this("/batch");
+  }
+
+  /**
+   * @param path batch的访问路径 eg. /batch
+   */
+  public BatchHandler(String path) {
+    this(path, 20, Constant.asyncTimeout, newExecutor(Constant.asyncThreads));
+  }
+
+  /**
+   * @param path        batch的访问路径 eg. /batch
+   * @param maxRequests 一次最多的子请求数
+   * @param timeout     所有子请求的超时时间 毫秒 超时的子请求返回503
+   * @param executor    并行执行子请求的executor 不要和异步route使用同一个executor
+   */
+  public BatchHandler(String path, int maxRequests, long timeout, Executor executor) {
+    checkArgument(maxRequests > 0, "Max requests must be greater than 0.");
+    this.path = checkNotNull(path, "Path could not be null.");
+    this.maxRequests = maxRequests;
+    this.timeout = timeout;
+    this.executor = checkNotNull(executor, "Executor could not be null.");
+  }
+
+  /**
+   * 有界的线程池 队列满时在batch的线程上执行子请求
+   *
+   * @param threads 线程数
+   * @return executor
+   */
+  public static ExecutorService newExecutor(int threads) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "resty-batch-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  public void handle(HttpRequest request, HttpResponse response, boolean[] isHandled) {
+    if (request.getHttpMethod().equals(HttpMethod.POST) && request.getRestPath().equals(path)) {
+      isHandled[0] = true;
+      JSONArray items = readItems(request);
+      HttpServletRequest servletRequest = request.unwrap(HttpServletRequest.class);
+      HttpServletResponse servletResponse = response.unwrap(HttpServletResponse.class);
+      ServletContext servletContext = servletRequest.getServletContext();
+
+      List<FutureTask<BatchResponse>> tasks = new ArrayList<FutureTask<BatchResponse>>(items.size());
+      FutureTask<BatchResponse> task;
+      for (int i = 0; i < items.size(); i++) {
+        task = new FutureTask<BatchResponse>(newCall(servletContext, servletRequest, servletResponse, items.getJSONObject(i)));
+        tasks.add(task);
+        //最后一个在当前线程执行
+        if (i < items.size() - 1) {
+          executor.execute(task);
+        }
+      }
+      tasks.get(tasks.size() - 1).run();
+      write(response, tasks);
+      return;
+    }
+    nextHandler.handle(request, response, isHandled);
+  }
+
+  /**
+   * 读取子请求
+   */
+  private JSONArray readItems(HttpRequest request) {
+    JSONArray items;
+    try {
+      InputStream is = request.getContentStream();
+      String json = StreamReader.readString(Constant.jsonMaxSize > 0 ? new LimitedInputStream(is, Constant.jsonMaxSize) : is, request.getCharacterEncoding());
+      items = Jsoner.toObject(json, JSONArray.class);
+    } catch (IOException e) {
+      throw new WebException(HttpStatus.BAD_REQUEST, "Could not read batch requests.");
+    } catch (WebException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new WebException(HttpStatus.BAD_REQUEST, "Batch requests must be a json array.");
+    }
+    if (items == null || items.isEmpty()) {
+      throw new WebException(HttpStatus.BAD_REQUEST, "Batch requests could not be empty.");
+    }
+    if (items.size() > maxRequests) {
+      throw new WebException(HttpStatus.BAD_REQUEST, "Batch requests could not be more than " + maxRequests + ".");
+    }
+    for (int i = 0; i < items.size(); i++) {
+      if (!(items.get(i) instanceof JSONObject) || items.getJSONObject(i).getString("path") == null) {
+        throw new WebException(HttpStatus.BAD_REQUEST, "Batch request at " + i + " must be an object with path.");
+      }
+    }
+    return items;
+  }
+
+  private Callable<BatchResponse> newCall(final ServletContext servletContext, final HttpServletRequest servletRequest,
+                                          final HttpServletResponse servletResponse, final JSONObject item) {
+    return new Callable<BatchResponse>() {
+      public BatchResponse call() throws Exception {
+        BatchRequest batchRequest = newRequest(servletRequest, item);
+        BatchResponse batchResponse = new BatchResponse(servletResponse);
+        batchRequest.setResponse(batchResponse);
+        dispatch(servletContext, batchRequest, batchResponse);
+        return batchResponse;
+      }
+    };
+  }
+
+  /**
+   * 创建子请求 path中的查询参数和params合并
+   */
+  private BatchRequest newRequest(HttpServletRequest servletRequest, JSONObject item) throws UnsupportedEncodingException {
+    String method = item.getString("method");
+    method = method == null ? HttpMethod.GET : method.toUpperCase(Locale.ENGLISH);
+    String subPath = item.getString("path");
+    String queryString = null;
+    int index = subPath.indexOf('?');
+    if (index >= 0) {
+      queryString = subPath.substring(index + 1);
+      subPath = subPath.substring(0, index);
+    }
+    String encoding = servletRequest.getCharacterEncoding() == null ? "UTF-8" : servletRequest.getCharacterEncoding();
+    Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+    if (queryString != null) {
+      String name;
+      String value;
+      for (String pair : queryString.split("&")) {
+        if (pair.length() == 0) {
+          continue;
+        }
+        index = pair.indexOf('=');
+        name = URLDecoder.decode(index >= 0 ? pair.substring(0, index) : pair, encoding);
+        value = index >= 0 ? URLDecoder.decode(pair.substring(index + 1), encoding) : "";
+        addValue(values, name, value);
+      }
+    }
+    JSONObject params = item.getJSONObject("params");
+    if (params != null) {
+      Object value;
+      for (Map.Entry<String, Object> param : params.entrySet()) {
+        value = param.getValue();
+        if (value instanceof Collection) {
+          for (Object v : (Collection) value) {
+            addValue(values, param.getKey(), v == null ? null : v.toString());
+          }
+        } else {
+          addValue(values, param.getKey(), value == null ? null : value.toString());
+        }
+      }
+    }
+    Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+    for (Map.Entry<String, List<String>> value : values.entrySet()) {
+      parameters.put(value.getKey(), value.getValue().toArray(new String[value.getValue().size()]));
+    }
+
+    Map<String, String> headers = new HashMap<String, String>();
+    JSONObject headerObject = item.getJSONObject("headers");
+    if (headerObject != null) {
+      for (Map.Entry<String, Object> header : headerObject.entrySet()) {
+        headers.put(header.getKey(), header.getValue() == null ? null : header.getValue().toString());
+      }
+    }
+    byte[] body = null;
+    Object bodyObject = item.get("body");
+    if (bodyObject != null) {
+      body = (bodyObject instanceof String ? (String) bodyObject : Jsoner.toJSON(bodyObject)).getBytes(encoding);
+    }
+    return new BatchRequest(servletRequest, method, subPath, queryString, parameters, headers, body);
+  }
+
+  private static void addValue(Map<String, List<String>> values, String name, String value) {
+    List<String> list = values.get(name);
+    if (list == null) {
+      list = new ArrayList<String>(1);
+      values.put(name, list);
+    }
+    list.add(value);
+  }
+
+  /**
+   * 和RestyFilter一样执行子请求 在新的范围内执行, 异常输出到子请求的响应
+   */
+  private void dispatch(ServletContext servletContext, BatchRequest batchRequest, BatchResponse batchResponse) throws IOException {
+    HttpRequest request = new HttpRequest(batchRequest, servletContext);
+    HttpResponse response = new HttpResponse(batchResponse, batchRequest);
+    boolean[] isHandled = {false};
+    ScopedContext scopedContext = ScopedContext.enter();
+    try {
+      nextHandler.handle(request, response, isHandled);
+    } catch (Exception e) {
+      ExceptionHolder.HOLDER.hold(request, response, e, isHandled);
+    } finally {
+      ScopedContext.exit(scopedContext);
+    }
+    //异步route在这里等待结束
+    BatchAsyncContext asyncContext = batchRequest.getBatchAsyncContext();
+    if (asyncContext != null) {
+      try {
+        asyncContext.await(timeout);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    } else {
+      response.close();
+    }
+    if (!isHandled[0]) {
+      batchResponse.setStatus(HttpStatus.NOT_FOUND.getCode());
+    }
+  }
+
+  /**
+   * 按顺序输出子请求的响应 json的内容直接输出, 其他内容输出为字符串
+   */
+  private void write(HttpResponse response, List<FutureTask<BatchResponse>> tasks) {
+    response.setContentType(ContentType.JSON);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    ResponseWriter writer = new ResponseWriter(response);
+    try {
+      writer.write('[');
+      for (int i = 0; i < tasks.size(); i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writeItem(writer, tasks.get(i), deadline);
+      }
+      writer.write(']');
+      writer.close();
+    } catch (IOException e) {
+      throw new WebException(e.getMessage());
+    } finally {
+      writer.release();
+    }
+  }
+
+  private void writeItem(Writer writer, FutureTask<BatchResponse> task, long deadline) throws IOException {
+    BatchResponse batchResponse = null;
+    HttpStatus status = null;
+    try {
+      batchResponse = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      status = HttpStatus.SERVICE_UNAVAILABLE;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = HttpStatus.SERVICE_UNAVAILABLE;
+    } catch (ExecutionException e) {
+      logger.error("Could not execute batch request.", e.getCause());
+      status = HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+    if (batchResponse == null) {
+      writer.write("{\"status\":" + status.getCode() + ",\"headers\":{},\"body\":" + Jsoner.toJSON(status.getDesc()) + "}");
+      return;
+    }
+    writer.write("{\"status\":" + batchResponse.getStatus() + ",\"headers\":");
+    writer.write(Jsoner.toJSON(batchResponse.getHeaderMap()));
+    writer.write(",\"body\":");
+    byte[] body = batchResponse.toByteArray();
+    if (body.length == 0) {
+      writer.write("null");
+    } else {
+      String text = new String(body, Charset.forName(batchResponse.getCharacterEncoding()));
+      String contentType = batchResponse.getContentType();
+      if (contentType != null && contentType.toLowerCase(Locale.ENGLISH).contains(ContentType.JSON)) {
+        writer.write(text);
+      } else {
+        writer.write(Jsoner.toJSON(text));
+      }
+    }
+    writer.write('}');
+  }
+}
@@ -0,0 +1,284 @@
+package cn.dreampie.route.handler.batch;
+
+import cn.dreampie.common.http.ContentType;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * batch中的一个子请求 请求方法、路径、参数、请求体是自己的, cookie等其他信息来自batch请求
+ */
+final class BatchRequest extends HttpServletRequestWrapper {
+
+  //不继承batch请求的请求头 这些请求头描述的是batch请求本身
+  private static final Set<String> EXCLUDED_HEADERS = new HashSet<String>(Arrays.asList(
+      "content-type", "content-length", "content-encoding", "transfer-encoding", "accept-encoding", "range", "if-range"));
+  //只能来自batch请求 子请求不能覆盖 否则客户端可以给每个子请求伪造不同的来源地址(如绕过按客户端地址的限流)
+  private static final Set<String> PROTECTED_HEADERS = new HashSet<String>(Arrays.asList(
+      "host", "via", "forwarded", "x-forwarded-for", "x-forwarded-host", "x-forwarded-proto", "x-forwarded-port",
+      "x-forwarded-server", "x-real-ip"));
+
+  private final String method;
+  private final String requestURI;
+  private final String queryString;
+  private final Map<String, String[]> parameters;
+  private final Map<String, String> headers;
+  private final byte[] body;
+  private final String contentType;
+  private final Map<String, Object> attributes = new HashMap<String, Object>();
+  private ServletResponse response;
+  private BatchAsyncContext asyncContext;
+  private ServletInputStream inputStream;
+
+  /**
+   * @param request     batch请求
+   * @param method      请求方法
+   * @param path        rest路径 不包括contextPath
+   * @param queryString 查询字符串 没有时为null
+   * @param parameters  参数
+   * @param headers     子请求自己的请求头 代理和转发相关的请求头会被忽略
+   * @param body        json请求体 没有时为null
+   */
+  BatchRequest(HttpServletRequest request, String method, String path, String queryString,
+               Map<String, String[]> parameters, Map<String, String> headers, byte[] body) {
+    super(request);
+    this.method = method;
+    this.requestURI = request.getContextPath() + path;
+    this.queryString = queryString;
+    this.parameters = Collections.unmodifiableMap(parameters);
+    this.headers = new HashMap<String, String>();
+    String name;
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      name = header.getKey().toLowerCase(Locale.ENGLISH);
+      if (!PROTECTED_HEADERS.contains(name)) {
+        this.headers.put(name, header.getValue());
+      }
+    }
+    this.body = body;
+    if (body != null) {
+      String type = this.headers.get("content-type");
+      this.contentType = type != null ? type : ContentType.JSON + ";charset=" + getCharacterEncoding();
+    } else {
+      this.contentType = this.headers.get("content-type");
+    }
+  }
+
+  void setResponse(ServletResponse response) {
+    this.response = response;
+  }
+
+  BatchAsyncContext getBatchAsyncContext() {
+    return asyncContext;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getRequestURI() {
+    return requestURI;
+  }
+
+  public StringBuffer getRequestURL() {
+    StringBuffer url = new StringBuffer();
+    url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(requestURI);
+    return url;
+  }
+
+  public String getServletPath() {
+    return requestURI.substring(getContextPath().length());
+  }
+
+  public String getPathInfo() {
+    return null;
+  }
+
+  public String getQueryString() {
+    return queryString;
+  }
+
+  public String getParameter(String name) {
+    String[] values = parameters.get(name);
+    return values != null && values.length > 0 ? values[0] : null;
+  }
+
+  public Map<String, String[]> getParameterMap() {
+    return parameters;
+  }
+
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters.keySet());
+  }
+
+  public String[] getParameterValues(String name) {
+    return parameters.get(name);
+  }
+
+  public String getHeader(String name) {
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    if (headers.containsKey(lowerName)) {
+      return headers.get(lowerName);
+    }
+    return EXCLUDED_HEADERS.contains(lowerName) ? null : super.getHeader(name);
+  }
+
+  public Enumeration<String> getHeaders(String name) {
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    if (headers.containsKey(lowerName)) {
+      return Collections.enumeration(Collections.singletonList(headers.get(lowerName)));
+    }
+    if (EXCLUDED_HEADERS.contains(lowerName)) {
+      return Collections.enumeration(Collections.<String>emptyList());
+    }
+    return super.getHeaders(name);
+  }
+
+  public Enumeration<String> getHeaderNames() {
+    Set<String> names = new LinkedHashSet<String>(headers.keySet());
+    Enumeration<String> parentNames = super.getHeaderNames();
+    if (parentNames != null) {
+      String name;
+      while (parentNames.hasMoreElements()) {
+        name = parentNames.nextElement();
+        if (!EXCLUDED_HEADERS.contains(name.toLowerCase(Locale.ENGLISH)) && !headers.containsKey(name.toLowerCase(Locale.ENGLISH))) {
+          names.add(name);
+        }
+      }
+    }
+    return Collections.enumeration(names);
+  }
+
+  public long getDateHeader(String name) {
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    if (!headers.containsKey(lowerName)) {
+      return EXCLUDED_HEADERS.contains(lowerName) ? -1 : super.getDateHeader(name);
+    }
+    String value = headers.get(lowerName);
+    if (value == null) {
+      return -1;
+    }
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return format.parse(value).getTime();
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid date header '" + name + "': " + value);
+    }
+  }
+
+  public int getIntHeader(String name) {
+    String value = getHeader(name);
+    return value == null ? -1 : Integer.parseInt(value);
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public int getContentLength() {
+    return body == null ? -1 : body.length;
+  }
+
+  public long getContentLengthLong() {
+    return getContentLength();
+  }
+
+  public ServletInputStream getInputStream() throws IOException {
+    if (inputStream == null) {
+      final ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+      inputStream = new ServletInputStream() {
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException("Batch request does not support non-blocking input.");
+        }
+
+        public int read() {
+          return in.read();
+        }
+
+        public int read(byte[] b, int off, int len) {
+          return in.read(b, off, len);
+        }
+      };
+    }
+    return inputStream;
+  }
+
+  public BufferedReader getReader() throws IOException {
+    return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(getCharacterEncoding())));
+  }
+
+  public String getCharacterEncoding() {
+    String encoding = super.getCharacterEncoding();
+    return encoding == null ? "UTF-8" : encoding;
+  }
+
+  public Object getAttribute(String name) {
+    synchronized (attributes) {
+      if (attributes.containsKey(name)) {
+        return attributes.get(name);
+      }
+    }
+    return super.getAttribute(name);
+  }
+
+  public Enumeration<String> getAttributeNames() {
+    Set<String> names = new LinkedHashSet<String>(Collections.list(super.getAttributeNames()));
+    synchronized (attributes) {
+      names.addAll(attributes.keySet());
+    }
+    return Collections.enumeration(names);
+  }
+
+  /**
+   * 属性只保存在子请求上 并行的子请求之间互不影响
+   */
+  public void setAttribute(String name, Object o) {
+    synchronized (attributes) {
+      attributes.put(name, o);
+    }
+  }
+
+  public void removeAttribute(String name) {
+    setAttribute(name, null);
+  }
+
+  public AsyncContext startAsync() {
+    return startAsync(this, response);
+  }
+
+  public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+    if (asyncContext == null) {
+      asyncContext = new BatchAsyncContext(servletRequest, servletResponse);
+    }
+    return asyncContext;
+  }
+
+  public boolean isAsyncStarted() {
+    return asyncContext != null && !asyncContext.isCompleted();
+  }
+
+  public boolean isAsyncSupported() {
+    return true;
+  }
+
+  public AsyncContext getAsyncContext() {
+    if (asyncContext == null) {
+      throw new IllegalStateException("Async is not started.");
+    }
+    return asyncContext;
+  }
+}
@@ -0,0 +1,254 @@
+package cn.dreampie.route.handler.batch;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * batch中一个子请求的响应 状态、响应头和内容都保存在内存中, 只有cookie输出到batch的响应
+ */
+final class BatchResponse extends HttpServletResponseWrapper {
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+  private ServletOutputStream stream;
+  private PrintWriter writer;
+  private int status = SC_OK;
+  private String characterEncoding;
+  private String contentType;
+
+  BatchResponse(HttpServletResponse response) {
+    super(response);
+  }
+
+  /**
+   * @return 输出的内容
+   */
+  byte[] toByteArray() {
+    if (writer != null) {
+      writer.flush();
+    }
+    return body.toByteArray();
+  }
+
+  /**
+   * @return 响应头 多个值用逗号连接
+   */
+  Map<String, String> getHeaderMap() {
+    Map<String, String> headerMap = new LinkedHashMap<String, String>();
+    StringBuilder value;
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      value = new StringBuilder();
+      for (String v : header.getValue()) {
+        if (value.length() > 0) {
+          value.append(", ");
+        }
+        value.append(v);
+      }
+      headerMap.put(header.getKey(), value.toString());
+    }
+    return headerMap;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int sc) {
+    status = sc;
+  }
+
+  public void setStatus(int sc, String sm) {
+    status = sc;
+  }
+
+  public void sendError(int sc) throws IOException {
+    status = sc;
+  }
+
+  public void sendError(int sc, String msg) throws IOException {
+    status = sc;
+    resetBuffer();
+    if (msg != null) {
+      getWriter().write(msg);
+    }
+  }
+
+  public void sendRedirect(String location) throws IOException {
+    status = SC_FOUND;
+    setHeader("Location", location);
+  }
+
+  /**
+   * 并行的子请求都可能设置cookie 需要同步
+   */
+  public void addCookie(Cookie cookie) {
+    HttpServletResponse response = (HttpServletResponse) getResponse();
+    synchronized (response) {
+      response.addCookie(cookie);
+    }
+  }
+
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (stream == null) {
+      stream = new ServletOutputStream() {
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException("Batch response does not support non-blocking output.");
+        }
+
+        public void write(int b) {
+          body.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) {
+          body.write(b, off, len);
+        }
+      };
+    }
+    return stream;
+  }
+
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  public String getCharacterEncoding() {
+    return characterEncoding != null ? characterEncoding : "UTF-8";
+  }
+
+  public void setCharacterEncoding(String charset) {
+    characterEncoding = charset;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void setContentType(String type) {
+    setHeader("Content-Type", type);
+  }
+
+  public void setContentLength(int len) {
+  }
+
+  public void setContentLengthLong(long len) {
+  }
+
+  public void setBufferSize(int size) {
+  }
+
+  public int getBufferSize() {
+    return body.size();
+  }
+
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  public boolean isCommitted() {
+    return false;
+  }
+
+  public void reset() {
+    resetBuffer();
+    headers.clear();
+    status = SC_OK;
+    contentType = null;
+  }
+
+  public void resetBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    body.reset();
+  }
+
+  public boolean containsHeader(String name) {
+    return headers.containsKey(name.toLowerCase(Locale.ENGLISH));
+  }
+
+  public String getHeader(String name) {
+    List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+    return values == null ? null : values.get(0);
+  }
+
+  public Collection<String> getHeaders(String name) {
+    List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+    return values == null ? Collections.<String>emptyList() : values;
+  }
+
+  public Collection<String> getHeaderNames() {
+    return headers.keySet();
+  }
+
+  public void setHeader(String name, String value) {
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    if (lowerName.equals("content-length")) {
+      return;
+    }
+    if (lowerName.equals("content-type")) {
+      contentType = value;
+      //和servlet容器一样 从Content-Type中取charset
+      int index = value == null ? -1 : value.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+      if (index >= 0) {
+        characterEncoding = value.substring(index + "charset=".length()).trim();
+      }
+    }
+    if (value == null) {
+      headers.remove(lowerName);
+    } else {
+      List<String> values = new ArrayList<String>(1);
+      values.add(value);
+      headers.put(lowerName, values);
+    }
+  }
+
+  public void addHeader(String name, String value) {
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    List<String> values = headers.get(lowerName);
+    if (values == null || lowerName.equals("content-type") || lowerName.equals("content-length")) {
+      setHeader(name, value);
+    } else {
+      values.add(value);
+    }
+  }
+
+  public void setIntHeader(String name, int value) {
+    setHeader(name, String.valueOf(value));
+  }
+
+  public void addIntHeader(String name, int value) {
+    addHeader(name, String.valueOf(value));
+  }
+
+  public void setDateHeader(String name, long date) {
+    setHeader(name, formatDate(date));
+  }
+
+  public void addDateHeader(String name, long date) {
+    addHeader(name, formatDate(date));
+  }
+
+  private static String formatDate(long date) {
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format.format(new Date(date));
+  }
+}
@@ -0,0 +1,80 @@
+package cn.dreampie.route.handler.compress;
+
+import cn.dreampie.common.http.HttpMethod;
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.util.HttpTyper;
+import cn.dreampie.log.Logger;
+import cn.dreampie.route.handler.Handler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * 按Accept-Encoding使用gzip或deflate压缩文本类型的响应
+ * 响应体小于minSize时不压缩, 已经设置了Content-Encoding的响应(eg. FileRender输出的.gz文件)原样输出
+ */
+public class CompressHandler extends Handler {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  private static final Logger logger = Logger.getLogger(CompressHandler.class);
+
+  private final int minSize;
+  private final int level;
+
+  public CompressHandler() {
+    this(1024);
+  }
+
+  /**
+   * @param minSize 小于该字节数的响应不压缩
+   */
+  public CompressHandler(int minSize) {
+    this(minSize, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * @param minSize 小于该字节数的响应不压缩
+   * @param level   压缩级别 1-9
+   */
+  public CompressHandler(int minSize, int level) {
+    this.minSize = minSize;
+    this.level = level;
+  }
+
+  public void handle(HttpRequest request, HttpResponse response, boolean[] isHandled) {
+    String encoding = null;
+    if (!request.getHttpMethod().equals(HttpMethod.HEAD)) {
+      encoding = HttpTyper.negotiateEncoding(request.getHeader("Accept-Encoding"), GZIP, DEFLATE);
+    }
+    if (encoding == null) {
+      nextHandler.handle(request, response, isHandled);
+      return;
+    }
+    HttpServletRequest servletRequest = request.unwrap(HttpServletRequest.class);
+    CompressResponse compressResponse = new CompressResponse(response.unwrap(HttpServletResponse.class), encoding, minSize, level);
+    HttpResponse compressedResponse = new HttpResponse(compressResponse, servletRequest);
+    boolean completed = false;
+    try {
+      nextHandler.handle(request, compressedResponse, isHandled);
+      completed = true;
+    } finally {
+      //异步执行时由AsyncRoute关闭response
+      if (!servletRequest.isAsyncStarted()) {
+        if (completed) {
+          try {
+            compressedResponse.close();
+            compressResponse.finish();
+          } catch (IOException e) {
+            logger.warn("Could not close compressed response.", e);
+          }
+        } else {
+          compressResponse.abort();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package cn.dreampie.route.handler.compress;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 先缓冲minSize字节 超过后(或者主动flush时)开始压缩, 关闭时还不足minSize则原样输出
+ */
+final class CompressOutputStream extends ServletOutputStream {
+
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+  private static final int BUFFERING = 0;
+  private static final int IDENTITY = 1;
+  private static final int COMPRESSING = 2;
+  private static final int CLOSED = 3;
+
+  private final CompressResponse response;
+  private final boolean gzip;
+  private final int level;
+  private byte[] buffer;
+  private int count;
+  private int state = BUFFERING;
+  private ServletOutputStream out;
+  private Deflater deflater;
+  private DeflaterOutputStream deflaterStream;
+  private CRC32 crc;
+  private final byte[] single = new byte[1];
+
+  CompressOutputStream(CompressResponse response, boolean gzip, int minSize, int level) {
+    this.response = response;
+    this.gzip = gzip;
+    this.level = level;
+    this.buffer = new byte[minSize];
+  }
+
+  public void write(int b) throws IOException {
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    switch (state) {
+      case BUFFERING:
+        if (count + len <= buffer.length) {
+          System.arraycopy(b, off, buffer, count, len);
+          count += len;
+          return;
+        }
+        start(true);
+        write(b, off, len);
+        return;
+      case IDENTITY:
+        out.write(b, off, len);
+        return;
+      case COMPRESSING:
+        if (crc != null) {
+          crc.update(b, off, len);
+        }
+        deflaterStream.write(b, off, len);
+        return;
+      default:
+        throw new IOException("Stream closed.");
+    }
+  }
+
+  public void flush() throws IOException {
+    if (state == BUFFERING) {
+      if (count == 0) {
+        return;
+      }
+      //流式输出 长度未知
+      start(true);
+    }
+    if (state == COMPRESSING) {
+      deflaterStream.flush();
+    }
+    if (state != CLOSED) {
+      out.flush();
+    }
+  }
+
+  public void close() throws IOException {
+    if (state == CLOSED) {
+      return;
+    }
+    try {
+      if (state == BUFFERING) {
+        start(false);
+      }
+      if (state == COMPRESSING) {
+        deflaterStream.finish();
+        if (gzip) {
+          writeInt(out, (int) crc.getValue());
+          writeInt(out, (int) deflater.getBytesRead());
+        }
+      }
+      out.close();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * 出错时丢弃还没有输出的内容
+   */
+  void abort() {
+    release();
+  }
+
+  /**
+   * 丢弃缓冲的内容 已经开始输出时返回false
+   */
+  boolean resetBuffer() {
+    if (state == BUFFERING) {
+      count = 0;
+      return true;
+    }
+    return false;
+  }
+
+  boolean isStarted() {
+    return state != BUFFERING;
+  }
+
+  private void start(boolean compress) throws IOException {
+    compress = response.start(compress);
+    out = response.getResponse().getOutputStream();
+    if (compress) {
+      deflater = Deflaters.get(gzip, level);
+      if (gzip) {
+        crc = new CRC32();
+        out.write(GZIP_HEADER);
+      }
+      deflaterStream = new DeflaterOutputStream(out, deflater, 8192, true);
+      state = COMPRESSING;
+    } else {
+      state = IDENTITY;
+    }
+    int length = count;
+    count = 0;
+    if (length > 0) {
+      write(buffer, 0, length);
+    }
+    buffer = null;
+  }
+
+  private void release() {
+    state = CLOSED;
+    buffer = null;
+    if (deflater != null) {
+      Deflaters.release(deflater, gzip);
+      deflater = null;
+    }
+  }
+
+  private static void writeInt(OutputStream out, int i) throws IOException {
+    out.write(i & 0xff);
+    out.write((i >> 8) & 0xff);
+    out.write((i >> 16) & 0xff);
+    out.write((i >> 24) & 0xff);
+  }
+
+  public boolean isReady() {
+    return out == null || out.isReady();
+  }
+
+  public void setWriteListener(WriteListener writeListener) {
+    try {
+      response.getResponse().getOutputStream().setWriteListener(writeListener);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package cn.dreampie.route.handler.compress;
+
+import cn.dreampie.common.util.HttpTyper;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * 压缩输出的response 在开始输出前拦截Content-Length
+ */
+final class CompressResponse extends HttpServletResponseWrapper {
+
+  private static final String CONTENT_LENGTH = "Content-Length";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+
+  private final String encoding;
+  private final int minSize;
+  private final int level;
+  private CompressOutputStream stream;
+  private PrintWriter writer;
+  private int status = SC_OK;
+  private long contentLength = -1;
+  private boolean started;
+
+  CompressResponse(HttpServletResponse response, String encoding, int minSize, int level) {
+    super(response);
+    this.encoding = encoding;
+    this.minSize = minSize;
+    this.level = level;
+  }
+
+  /**
+   * 开始输出 设置编码相关的响应头
+   *
+   * @param compress 内容是否足够大
+   * @return 是否压缩
+   */
+  boolean start(boolean compress) {
+    started = true;
+    boolean compressible = isCompressible();
+    if (compressible) {
+      addHeader("Vary", "Accept-Encoding");
+    }
+    if (compress && compressible) {
+      super.setHeader(CONTENT_ENCODING, encoding);
+      return true;
+    }
+    if (contentLength >= 0) {
+      super.setContentLengthLong(contentLength);
+    }
+    return false;
+  }
+
+  private boolean isCompressible() {
+    if (status == SC_NO_CONTENT || status == SC_PARTIAL_CONTENT || status == SC_NOT_MODIFIED || containsHeader(CONTENT_ENCODING)) {
+      return false;
+    }
+    String contentType = getContentType();
+    return contentType != null && (HttpTyper.isTextContentType(contentType.toLowerCase()) || contentType.contains("+xml"));
+  }
+
+  /**
+   * 结束输出
+   */
+  void finish() throws IOException {
+    if (writer != null) {
+      writer.close();
+    } else if (stream != null) {
+      stream.close();
+    } else if (!started) {
+      start(false);
+    }
+  }
+
+  /**
+   * 出错时丢弃还没有输出的内容
+   */
+  void abort() {
+    if (stream != null) {
+      stream.abort();
+    }
+  }
+
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (stream == null) {
+      stream = new CompressOutputStream(this, encoding.equals(CompressHandler.GZIP), minSize, level);
+    }
+    return stream;
+  }
+
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    } else if (stream != null) {
+      stream.flush();
+    }
+    super.flushBuffer();
+  }
+
+  public void reset() {
+    super.reset();
+    resetStream();
+    status = SC_OK;
+    contentLength = -1;
+  }
+
+  public void resetBuffer() {
+    super.resetBuffer();
+    resetStream();
+  }
+
+  private void resetStream() {
+    if (stream != null && stream.resetBuffer()) {
+      stream = null;
+      writer = null;
+    }
+  }
+
+  public void setStatus(int sc) {
+    status = sc;
+    super.setStatus(sc);
+  }
+
+  public void setContentLength(int len) {
+    setContentLengthLong(len);
+  }
+
+  public void setContentLengthLong(long len) {
+    if (started) {
+      if (!containsHeader(CONTENT_ENCODING)) {
+        super.setContentLengthLong(len);
+      }
+    } else {
+      contentLength = len;
+    }
+  }
+
+  public void setHeader(String name, String value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      setContentLengthLong(Long.parseLong(value));
+    } else {
+      super.setHeader(name, value);
+    }
+  }
+
+  public void addHeader(String name, String value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      setContentLengthLong(Long.parseLong(value));
+    } else {
+      super.addHeader(name, value);
+    }
+  }
+
+  public void setIntHeader(String name, int value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      setContentLengthLong(value);
+    } else {
+      super.setIntHeader(name, value);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package cn.dreampie.route.handler.compress;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater池 Deflater持有native内存 创建和end的代价都不小
+ * gzip使用nowrap的Deflater自己写头尾, deflate使用zlib格式
+ */
+final class Deflaters {
+
+  private static final BlockingQueue<Deflater> gzipPool = new ArrayBlockingQueue<Deflater>(64);
+  private static final BlockingQueue<Deflater> deflatePool = new ArrayBlockingQueue<Deflater>(64);
+
+  private Deflaters() {
+  }
+
+  static Deflater get(boolean nowrap, int level) {
+    Deflater deflater = (nowrap ? gzipPool : deflatePool).poll();
+    if (deflater == null) {
+      deflater = new Deflater(level, nowrap);
+    } else {
+      deflater.setLevel(level);
+    }
+    return deflater;
+  }
+
+  static void release(Deflater deflater, boolean nowrap) {
+    deflater.reset();
+    if (!(nowrap ? gzipPool : deflatePool).offer(deflater)) {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package cn.dreampie.route.handler.metrics;
+
+import cn.dreampie.common.http.HttpMethod;
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.handler.Handler;
+import cn.dreampie.route.limit.ConcurrencyLimiter;
+import cn.dreampie.route.metrics.LatencyHistogram;
+import cn.dreampie.route.metrics.Metrics;
+import cn.dreampie.route.metrics.Phase;
+import cn.dreampie.route.metrics.RouteMetrics;
+import cn.dreampie.route.render.RenderFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 输出所有route的指标 需要app.metricsEnabled=true
+ * GET /metrics 输出prometheus文本格式 GET /metrics.json 输出json
+ */
+public class MetricsHandler extends Handler {
+
+  public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4";
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+  private static final double NANOS_PER_SECOND = 1000000000d;
+  private static final double NANOS_PER_MILLI = 1000000d;
+
+  private final String path;
+
+  public MetricsHandler() {
+    this("/metrics");
+  }
+
+  /**
+   * @param path 指标的访问路径 eg. /metrics
+   */
+  public MetricsHandler(String path) {
+    this.path = path;
+  }
+
+  public void handle(HttpRequest request, HttpResponse response, boolean[] isHandled) {
+    String restPath = request.getRestPath();
+    if (request.getHttpMethod().equals(HttpMethod.GET)) {
+      if (restPath.equals(path)) {
+        isHandled[0] = true;
+        response.setContentType(PROMETHEUS_CONTENT_TYPE);
+        RenderFactory.getTextRender().write(request, response, toPrometheus(Metrics.getAll()));
+        return;
+      } else if (restPath.equals(path + "." + RenderFactory.JSON)) {
+        isHandled[0] = true;
+        RenderFactory.getJsonRender().render(request, response, toList(Metrics.getAll()));
+        return;
+      }
+    }
+    nextHandler.handle(request, response, isHandled);
+  }
+
+  /**
+   * prometheus文本格式 延迟以summary输出
+   *
+   * @param routeMetricsList 所有route的指标
+   * @return text
+   */
+  public static String toPrometheus(List<RouteMetrics> routeMetricsList) {
+    StringBuilder text = new StringBuilder();
+    text.append("# HELP resty_route_requests_total Requests handled by the route.\n");
+    text.append("# TYPE resty_route_requests_total counter\n");
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      text.append("resty_route_requests_total{").append(labels(routeMetrics)).append("} ").append(routeMetrics.getRequests()).append('\n');
+    }
+    text.append("# HELP resty_route_responses_total Responses of the route by http status.\n");
+    text.append("# TYPE resty_route_responses_total counter\n");
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      for (int status : routeMetrics.getStatuses()) {
+        text.append("resty_route_responses_total{").append(labels(routeMetrics)).append(",status=\"").append(status).append("\"} ")
+            .append(routeMetrics.getStatusCount(status)).append('\n');
+      }
+    }
+    text.append("# HELP resty_route_rejected_total Requests rejected by the concurrency limit of the route.\n");
+    text.append("# TYPE resty_route_rejected_total counter\n");
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      if (routeMetrics.getLimiter() != null) {
+        text.append("resty_route_rejected_total{").append(labels(routeMetrics)).append("} ").append(routeMetrics.getRejected()).append('\n');
+      }
+    }
+    text.append("# HELP resty_route_concurrency Concurrency of the route by state.\n");
+    text.append("# TYPE resty_route_concurrency gauge\n");
+    ConcurrencyLimiter limiter;
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      limiter = routeMetrics.getLimiter();
+      if (limiter != null) {
+        text.append("resty_route_concurrency{").append(labels(routeMetrics)).append(",state=\"limit\"} ").append(limiter.getLimit()).append('\n');
+        text.append("resty_route_concurrency{").append(labels(routeMetrics)).append(",state=\"active\"} ").append(limiter.getActive()).append('\n');
+        text.append("resty_route_concurrency{").append(labels(routeMetrics)).append(",state=\"waiting\"} ").append(limiter.getWaiting()).append('\n');
+      }
+    }
+    text.append("# HELP resty_route_latency_seconds Latency of the route by phase.\n");
+    text.append("# TYPE resty_route_latency_seconds summary\n");
+    LatencyHistogram histogram;
+    String labels;
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      for (Phase phase : Phase.values()) {
+        histogram = routeMetrics.getHistogram(phase);
+        labels = labels(routeMetrics) + ",phase=\"" + phase.getName() + "\"";
+        for (double quantile : QUANTILES) {
+          text.append("resty_route_latency_seconds{").append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+              .append(histogram.getQuantile(quantile) / NANOS_PER_SECOND).append('\n');
+        }
+        text.append("resty_route_latency_seconds_sum{").append(labels).append("} ").append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+        text.append("resty_route_latency_seconds_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * json格式 延迟单位为毫秒
+   *
+   * @param routeMetricsList 所有route的指标
+   * @return list
+   */
+  public static List<Map<String, Object>> toList(List<RouteMetrics> routeMetricsList) {
+    List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+    Map<String, Object> route;
+    Map<String, Long> statuses;
+    Map<String, Object> latency;
+    Map<String, Object> phaseLatency;
+    Map<String, Object> concurrency;
+    LatencyHistogram histogram;
+    ConcurrencyLimiter limiter;
+    for (RouteMetrics routeMetrics : routeMetricsList) {
+      route = new LinkedHashMap<String, Object>();
+      route.put("method", routeMetrics.getHttpMethod());
+      route.put("route", routeMetrics.getPathPattern());
+      route.put("requests", routeMetrics.getRequests());
+      route.put("errors", routeMetrics.getErrors());
+      statuses = new LinkedHashMap<String, Long>();
+      for (int status : routeMetrics.getStatuses()) {
+        statuses.put(String.valueOf(status), routeMetrics.getStatusCount(status));
+      }
+      route.put("statuses", statuses);
+      limiter = routeMetrics.getLimiter();
+      if (limiter != null) {
+        concurrency = new LinkedHashMap<String, Object>();
+        concurrency.put("group", limiter.getName());
+        concurrency.put("limit", limiter.getLimit());
+        concurrency.put("active", limiter.getActive());
+        concurrency.put("waiting", limiter.getWaiting());
+        concurrency.put("rejected", routeMetrics.getRejected());
+        route.put("concurrency", concurrency);
+      }
+      latency = new LinkedHashMap<String, Object>();
+      for (Phase phase : Phase.values()) {
+        histogram = routeMetrics.getHistogram(phase);
+        phaseLatency = new LinkedHashMap<String, Object>();
+        phaseLatency.put("count", histogram.getCount());
+        phaseLatency.put("mean", histogram.getCount() == 0 ? 0 : (double) histogram.getSum() / histogram.getCount() / NANOS_PER_MILLI);
+        for (int i = 0; i < QUANTILES.length; i++) {
+          phaseLatency.put(QUANTILE_NAMES[i], histogram.getQuantile(QUANTILES[i]) / NANOS_PER_MILLI);
+        }
+        phaseLatency.put("max", histogram.getMax() / NANOS_PER_MILLI);
+        latency.put(phase.getName(), phaseLatency);
+      }
+      route.put("latency", latency);
+      result.add(route);
+    }
+    return result;
+  }
+
+  private static String labels(RouteMetrics routeMetrics) {
+    return "method=\"" + escape(routeMetrics.getHttpMethod()) + "\",route=\"" + escape(routeMetrics.getPathPattern()) + "\"";
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,173 @@
+package cn.dreampie.route.index;
+
+import cn.dreampie.common.util.analysis.ParamAttribute;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * 编译期生成的resource索引 由ResourceIndexProcessor写入jar的META-INF/resty/resources.index
+ * 启动时有索引的jar或目录直接读取 不再扫描和解析class文件, 没有索引的仍然扫描
+ * <p>
+ * 格式: resource类名一行, 之后每个方法一行 以tab开头 "\tname,descriptor\t参数1,参数2\t行号"
+ */
+public final class ResourceIndex {
+
+  public static final String LOCATION = "META-INF/resty/resources.index";
+
+  private final Map<String, Map<String, ParamAttribute>> resources = new LinkedHashMap<String, Map<String, ParamAttribute>>();
+  //有索引文件的classpath根路径
+  private final Set<String> roots = new HashSet<String>();
+
+  /**
+   * 读取classpath下所有的索引文件
+   *
+   * @return index 没有索引时为空
+   */
+  public static ResourceIndex load() {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = ResourceIndex.class.getClassLoader();
+    }
+    return load(classLoader);
+  }
+
+  public static ResourceIndex load(ClassLoader classLoader) {
+    ResourceIndex index = new ResourceIndex();
+    try {
+      Enumeration<URL> urls = classLoader.getResources(LOCATION);
+      URL url;
+      while (urls.hasMoreElements()) {
+        url = urls.nextElement();
+        String path = url.toString();
+        index.roots.add(path.substring(0, path.length() - LOCATION.length()));
+        InputStream in = url.openStream();
+        try {
+          index.read(in);
+        } finally {
+          in.close();
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e.getMessage(), e);
+    }
+    return index;
+  }
+
+  public void read(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    String line;
+    Map<String, ParamAttribute> methods = null;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      if (line.charAt(0) != '\t') {
+        methods = new HashMap<String, ParamAttribute>();
+        resources.put(line.trim(), methods);
+      } else if (methods != null) {
+        String[] parts = line.substring(1).split("\t", -1);
+        if (parts.length < 3) {
+          continue;
+        }
+        List<String> names;
+        if (parts[1].isEmpty()) {
+          names = new ArrayList<String>(0);
+        } else {
+          names = Arrays.asList(parts[1].split(","));
+        }
+        methods.put(parts[0], new ParamAttribute(names, new int[]{Integer.parseInt(parts[2])}));
+      }
+    }
+  }
+
+  public void write(Writer writer) throws IOException {
+    writer.write("# Generated by resty, do not edit.\n");
+    for (Map.Entry<String, Map<String, ParamAttribute>> resource : resources.entrySet()) {
+      writer.write(resource.getKey());
+      writer.write('\n');
+      for (Map.Entry<String, ParamAttribute> method : resource.getValue().entrySet()) {
+        writer.write('\t');
+        writer.write(method.getKey());
+        writer.write('\t');
+        List<String> names = method.getValue().getNames();
+        for (int i = 0; i < names.size(); i++) {
+          if (i > 0) {
+            writer.write(',');
+          }
+          writer.write(names.get(i));
+        }
+        writer.write('\t');
+        int[] lines = method.getValue().getLines();
+        writer.write(String.valueOf(lines != null && lines.length > 0 ? lines[0] : 0));
+        writer.write('\n');
+      }
+    }
+  }
+
+  public void put(String className, Map<String, ParamAttribute> methods) {
+    resources.put(className, methods);
+  }
+
+  public void remove(String className) {
+    resources.remove(className);
+  }
+
+  public boolean isEmpty() {
+    return resources.isEmpty();
+  }
+
+  /**
+   * 该classpath根路径下是否有索引 有索引时它的resource都在索引里 不需要扫描
+   *
+   * @param root 根路径 eg. jar:file:/lib/a.jar!/ 或 file:/app/classes/
+   * @return boolean
+   */
+  public boolean hasRoot(String root) {
+    return roots.contains(root);
+  }
+
+  public Set<String> getClassNames() {
+    return Collections.unmodifiableSet(resources.keySet());
+  }
+
+  /**
+   * 包下被索引的resource类名 包括子包
+   *
+   * @param classPackage 包名
+   * @return 类名
+   */
+  public Set<String> getClassNames(String classPackage) {
+    Set<String> classNames = new LinkedHashSet<String>();
+    String prefix = classPackage.endsWith(".") ? classPackage : classPackage + ".";
+    for (String className : resources.keySet()) {
+      if (className.startsWith(prefix)) {
+        classNames.add(className);
+      }
+    }
+    return classNames;
+  }
+
+  /**
+   * 和ParamNamesScaner.getParamNames(Class)相同的结构 每次返回新的对象
+   *
+   * @param className resource类名
+   * @return 方法的参数信息 没有索引时返回null
+   */
+  public Map<String, ParamAttribute> getParamNames(String className) {
+    Map<String, ParamAttribute> methods = resources.get(className);
+    if (methods == null) {
+      return null;
+    }
+    Map<String, ParamAttribute> paramNames = new HashMap<String, ParamAttribute>();
+    for (Map.Entry<String, ParamAttribute> method : methods.entrySet()) {
+      paramNames.put(method.getKey(), new ParamAttribute(new ArrayList<String>(method.getValue().getNames()), method.getValue().getLines().clone()));
+    }
+    return paramNames;
+  }
+}
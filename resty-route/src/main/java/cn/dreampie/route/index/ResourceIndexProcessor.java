@@ -0,0 +1,241 @@
+package cn.dreampie.route.index;
+
+import cn.dreampie.common.util.analysis.ParamAttribute;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译时生成resource索引 jar中带有META-INF/services注册, javac 8-22编译依赖resty-route的工程时自动执行
+ * javac 23+默认不执行classpath上的processor, 需要-proc:full或在maven-compiler-plugin的annotationProcessorPaths里配置resty-route
+ * 没有执行时(包括-proc:none和ecj)不生成索引, 运行时扫描该jar或目录
+ * 记录所有Resource子类和它们方法的参数名/行号, 运行时由ResourceLoader和RouteBuilder读取
+ */
+@SupportedAnnotationTypes("*")
+public class ResourceIndexProcessor extends AbstractProcessor {
+
+  private static final String RESOURCE_CLASS = "cn.dreampie.route.core.Resource";
+
+  private Elements elements;
+  private Types types;
+  private Trees trees;
+  private TypeMirror resourceType;
+  private ResourceIndex index;
+
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
+    try {
+      trees = Trees.instance(processingEnv);
+    } catch (Throwable e) {
+      //不是javac编译 行号记为0
+      trees = null;
+    }
+  }
+
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (index == null) {
+      TypeElement resourceElement = elements.getTypeElement(RESOURCE_CLASS);
+      if (resourceElement == null) {
+        return false;
+      }
+      resourceType = types.erasure(resourceElement.asType());
+      index = readIndex();
+    }
+    if (roundEnv.processingOver()) {
+      writeIndex();
+    } else {
+      for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+        addType(type);
+      }
+    }
+    return false;
+  }
+
+  private void addType(TypeElement type) {
+    String className = elements.getBinaryName(type).toString();
+    TypeMirror typeMirror = types.erasure(type.asType());
+    if (type.getKind() == ElementKind.CLASS && types.isSubtype(typeMirror, resourceType) && !types.isSameType(typeMirror, resourceType)) {
+      index.put(className, getParamNames(type));
+    } else {
+      index.remove(className);
+    }
+    //内部类
+    for (TypeElement inner : ElementFilter.typesIn(type.getEnclosedElements())) {
+      addType(inner);
+    }
+  }
+
+  private Map<String, ParamAttribute> getParamNames(TypeElement type) {
+    Map<String, ParamAttribute> paramNames = new LinkedHashMap<String, ParamAttribute>();
+    List<String> names;
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getModifiers().contains(Modifier.ABSTRACT) || method.getModifiers().contains(Modifier.NATIVE)) {
+        continue;
+      }
+      names = new ArrayList<String>(method.getParameters().size());
+      for (VariableElement parameter : method.getParameters()) {
+        names.add(parameter.getSimpleName().toString());
+      }
+      paramNames.put(getKey(method), new ParamAttribute(names, new int[]{getLine(method)}));
+    }
+    return paramNames;
+  }
+
+  /**
+   * 和ParamNamesScaner.getKey(Method)一致 name,descriptor
+   */
+  private String getKey(ExecutableElement method) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(method.getSimpleName()).append(',').append('(');
+    for (VariableElement parameter : method.getParameters()) {
+      getDescriptor(sb, types.erasure(parameter.asType()));
+    }
+    sb.append(')');
+    getDescriptor(sb, types.erasure(method.getReturnType()));
+    return sb.toString();
+  }
+
+  private void getDescriptor(StringBuilder sb, TypeMirror type) {
+    TypeKind kind = type.getKind();
+    switch (kind) {
+      case BOOLEAN:
+        sb.append('Z');
+        break;
+      case BYTE:
+        sb.append('B');
+        break;
+      case CHAR:
+        sb.append('C');
+        break;
+      case SHORT:
+        sb.append('S');
+        break;
+      case INT:
+        sb.append('I');
+        break;
+      case LONG:
+        sb.append('J');
+        break;
+      case FLOAT:
+        sb.append('F');
+        break;
+      case DOUBLE:
+        sb.append('D');
+        break;
+      case VOID:
+        sb.append('V');
+        break;
+      case ARRAY:
+        sb.append('[');
+        getDescriptor(sb, types.erasure(((ArrayType) type).getComponentType()));
+        break;
+      case DECLARED:
+        sb.append('L').append(elements.getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString().replace('.', '/')).append(';');
+        break;
+      default:
+        sb.append('L').append(type.toString().replace('.', '/')).append(';');
+    }
+  }
+
+  /**
+   * 方法第一行代码的行号 和class文件LineNumberTable的第一项一致
+   */
+  private int getLine(ExecutableElement method) {
+    if (trees == null) {
+      return 0;
+    }
+    try {
+      TreePath path = trees.getPath(method);
+      if (path == null) {
+        return 0;
+      }
+      MethodTree methodTree = (MethodTree) path.getLeaf();
+      CompilationUnitTree unit = path.getCompilationUnit();
+      long position;
+      if (methodTree.getBody() == null) {
+        position = trees.getSourcePositions().getStartPosition(unit, methodTree);
+      } else if (methodTree.getBody().getStatements().isEmpty()) {
+        //空方法只有结束的return 行号在右括号
+        position = trees.getSourcePositions().getEndPosition(unit, methodTree.getBody()) - 1;
+      } else {
+        position = trees.getSourcePositions().getStartPosition(unit, methodTree.getBody().getStatements().get(0));
+      }
+      return position < 0 ? 0 : (int) unit.getLineMap().getLineNumber(position);
+    } catch (Throwable e) {
+      return 0;
+    }
+  }
+
+  /**
+   * 增量编译时保留没有重新编译的resource
+   */
+  private ResourceIndex readIndex() {
+    ResourceIndex existing = new ResourceIndex();
+    try {
+      FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ResourceIndex.LOCATION);
+      InputStream in = file.openInputStream();
+      try {
+        existing.read(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      //还没有索引
+      return existing;
+    } catch (IllegalArgumentException e) {
+      return existing;
+    }
+    for (String className : new ArrayList<String>(existing.getClassNames())) {
+      if (elements.getTypeElement(className.replace('$', '.')) == null) {
+        existing.remove(className);
+      }
+    }
+    return existing;
+  }
+
+  private void writeIndex() {
+    if (index.isEmpty()) {
+      return;
+    }
+    try {
+      FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ResourceIndex.LOCATION);
+      Writer writer = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+      try {
+        index.write(writer);
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write resource index: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+/**
+ * 令牌桶的存储
+ */
+public interface BucketStore {
+  /**
+   * 从key对应的令牌桶中取一个令牌
+   *
+   * @param key      key
+   * @param capacity 桶的容量 即允许的突发请求数
+   * @param interval 生成一个令牌的纳秒数
+   * @return 0表示获得令牌, 否则为下一个令牌需要等待的毫秒数
+   */
+  public long consume(String key, int capacity, long interval);
+}
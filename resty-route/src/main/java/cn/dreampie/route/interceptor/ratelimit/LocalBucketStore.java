@@ -0,0 +1,81 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的令牌桶 每个桶只有一个AtomicLong(GCRA 理论到达时间), 通过CAS取令牌不加锁
+ * 桶装满后和不存在等价, 定期清理装满的桶
+ */
+public final class LocalBucketStore implements BucketStore {
+
+  private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<String, AtomicLong>();
+  private final long sweepInterval;
+  private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+  public LocalBucketStore() {
+    this(60, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param sweepInterval 清理空闲桶的间隔
+   * @param unit          时间单位
+   */
+  public LocalBucketStore(long sweepInterval, TimeUnit unit) {
+    this.sweepInterval = unit.toNanos(sweepInterval);
+  }
+
+  public long consume(String key, int capacity, long interval) {
+    long now = System.nanoTime();
+    sweep(now);
+    AtomicLong bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = new AtomicLong(now);
+      AtomicLong old = buckets.putIfAbsent(key, bucket);
+      if (old != null) {
+        bucket = old;
+      }
+    }
+    long burst = capacity * interval;
+    long tat;
+    long base;
+    long allowAt;
+    while (true) {
+      tat = bucket.get();
+      base = tat - now > 0 ? tat : now;
+      allowAt = base + interval - burst;
+      if (allowAt - now > 0) {
+        return TimeUnit.NANOSECONDS.toMillis(allowAt - now) + 1;
+      }
+      if (bucket.compareAndSet(tat, base + interval)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * 删除已经装满的桶
+   */
+  private void sweep(long now) {
+    long last = lastSweep.get();
+    if (now - last < sweepInterval || !lastSweep.compareAndSet(last, now)) {
+      return;
+    }
+    Iterator<Map.Entry<String, AtomicLong>> iterator = buckets.entrySet().iterator();
+    Map.Entry<String, AtomicLong> entry;
+    while (iterator.hasNext()) {
+      entry = iterator.next();
+      if (entry.getValue().get() - now <= 0) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+}
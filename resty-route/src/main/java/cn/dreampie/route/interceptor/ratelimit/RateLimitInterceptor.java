@@ -0,0 +1,62 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.core.RouteInvocation;
+import cn.dreampie.route.interceptor.Interceptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static cn.dreampie.common.util.Checker.checkArgument;
+import static cn.dreampie.common.util.Checker.checkNotNull;
+
+/**
+ * 令牌桶限流 每个key的桶容量为capacity, 每秒补充permitsPerSecond个令牌
+ * 没有令牌时返回429和Retry-After, 放在其他拦截器之前在访问数据库前拒绝
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+  private final int capacity;
+  private final long interval;
+  private final RateLimitKey rateLimitKey;
+  private final BucketStore bucketStore;
+
+  /**
+   * 按客户端地址限流 令牌桶在进程内
+   *
+   * @param capacity         桶的容量 即允许的突发请求数
+   * @param permitsPerSecond 每秒补充的令牌数
+   */
+  public RateLimitInterceptor(int capacity, double permitsPerSecond) {
+    this(capacity, permitsPerSecond, RateLimitKeys.CLIENT_ADDRESS, new LocalBucketStore());
+  }
+
+  /**
+   * @param capacity         桶的容量 即允许的突发请求数
+   * @param permitsPerSecond 每秒补充的令牌数
+   * @param rateLimitKey     限流的key eg. RateLimitKeys.SUBJECT
+   * @param bucketStore      令牌桶的存储 eg. new RedisBucketStore()
+   */
+  public RateLimitInterceptor(int capacity, double permitsPerSecond, RateLimitKey rateLimitKey, BucketStore bucketStore) {
+    checkArgument(capacity > 0, "Rate limit capacity must be greater than 0.");
+    checkArgument(permitsPerSecond > 0, "Rate limit permits per second must be greater than 0.");
+    this.capacity = capacity;
+    this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    this.rateLimitKey = checkNotNull(rateLimitKey, "Rate limit key could not be null.");
+    this.bucketStore = checkNotNull(bucketStore, "Bucket store could not be null.");
+  }
+
+  public void intercept(RouteInvocation ri) {
+    HttpRequest request = ri.getRouteMatch().getRequest();
+    String key = rateLimitKey.get(request);
+    if (key != null) {
+      long wait = bucketStore.consume(key, capacity, interval);
+      if (wait > 0) {
+        ri.getRouteMatch().getResponse().setHeader("Retry-After", String.valueOf((wait + 999) / 1000));
+        throw new WebException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests.");
+      }
+    }
+    ri.invoke();
+  }
+}
@@ -0,0 +1,14 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import cn.dreampie.common.http.HttpRequest;
+
+/**
+ * 限流的key 同一个key共用一个令牌桶
+ */
+public interface RateLimitKey {
+  /**
+   * @param request 请求
+   * @return key 返回null时不限流
+   */
+  public String get(HttpRequest request);
+}
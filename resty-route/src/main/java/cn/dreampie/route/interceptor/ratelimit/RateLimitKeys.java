@@ -0,0 +1,87 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import cn.dreampie.common.Constant;
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.security.Subject;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 常用的限流key
+ */
+public final class RateLimitKeys {
+
+  /**
+   * 客户端地址 只有来自app.xForwardedSupports的请求才使用X-Forwarded-For
+   */
+  public static final RateLimitKey CLIENT_ADDRESS = clientAddress(Constant.xForwardedSupports);
+
+  /**
+   * 登录的用户名 未登录时使用客户端地址, 需要放在SecurityInterceptor之后
+   */
+  public static final RateLimitKey SUBJECT = new RateLimitKey() {
+    public String get(HttpRequest request) {
+      String username = Subject.getUsername();
+      return username != null ? "user:" + username : CLIENT_ADDRESS.get(request);
+    }
+  };
+
+  private RateLimitKeys() {
+  }
+
+  /**
+   * 请求头 eg. X-Api-Key 没有该请求头时使用客户端地址
+   *
+   * @param headerName 请求头的名字
+   * @return RateLimitKey
+   */
+  public static RateLimitKey header(final String headerName) {
+    return new RateLimitKey() {
+      public String get(HttpRequest request) {
+        String value = request.getHeader(headerName);
+        return value != null ? headerName + ":" + value : CLIENT_ADDRESS.get(request);
+      }
+    };
+  }
+
+  /**
+   * 客户端地址, 客户端可以任意伪造X-Forwarded-For, 取第一个地址时每次请求都会得到一个新的桶.
+   * 直连地址是受信任的代理时, 从右向左跳过受信任的代理, 取第一个不受信任的地址
+   *
+   * @param trustedProxies 受信任的代理地址 "*"表示信任所有直连的代理, 但不信任X-Forwarded-For中的地址
+   * @return RateLimitKey
+   */
+  public static RateLimitKey clientAddress(String... trustedProxies) {
+    final Set<String> proxies = new HashSet<String>();
+    for (String proxy : trustedProxies) {
+      proxies.add(proxy.trim());
+    }
+    final boolean wildcard = proxies.remove("*");
+    return new RateLimitKey() {
+      public String get(HttpRequest request) {
+        String address = request.getLocalClientAddress();
+        if (address != null && (wildcard || proxies.contains(address))) {
+          String xff = request.getHeader("X-Forwarded-For");
+          if (xff != null) {
+            String[] hops = xff.split(",");
+            String hop;
+            for (int i = hops.length - 1; i >= 0; i--) {
+              hop = hops[i].trim();
+              if (!hop.isEmpty()) {
+                address = hop;
+                if (!proxies.contains(hop)) {
+                  break;
+                }
+              }
+            }
+          }
+        }
+        if (address != null && address.startsWith("0:0:0:0:0:0:0:1")) {
+          address = "127.0.0.1";
+        }
+        return address;
+      }
+    };
+  }
+}
@@ -0,0 +1,81 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import cn.dreampie.cache.CacheProvider;
+import cn.dreampie.cache.redis.RedisProvider;
+import cn.dreampie.log.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多个实例共享的令牌桶 使用RedisProvider的连接池, 在redis中用lua脚本原子地取令牌
+ * redis不可用时使用进程内的令牌桶
+ */
+public final class RedisBucketStore implements BucketStore {
+
+  private static final Logger logger = Logger.getLogger(RedisBucketStore.class);
+
+  //GCRA 时间单位微秒 使用redis的时间避免多个实例的时钟不一致
+  private static final String SCRIPT = "if redis.replicate_commands then redis.replicate_commands() end\n"
+      + "local interval = tonumber(ARGV[1])\n"
+      + "local burst = tonumber(ARGV[2])\n"
+      + "local time = redis.call('TIME')\n"
+      + "local now = tonumber(time[1]) * 1000000 + tonumber(time[2])\n"
+      + "local tat = tonumber(redis.call('GET', KEYS[1]) or now)\n"
+      + "if tat < now then tat = now end\n"
+      + "local allowAt = tat + interval - burst\n"
+      + "if allowAt > now then return math.floor((allowAt - now) / 1000) + 1 end\n"
+      + "tat = tat + interval\n"
+      + "redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.floor((tat - now) / 1000) + 1)\n"
+      + "return 0";
+
+  private final RedisProvider redisProvider;
+  private final String prefix;
+  private final BucketStore fallback;
+  private volatile boolean failing;
+
+  public RedisBucketStore() {
+    this(CacheProvider.PROVIDER instanceof RedisProvider ? (RedisProvider) CacheProvider.PROVIDER : new RedisProvider(), "resty:ratelimit:");
+  }
+
+  /**
+   * @param redisProvider redis
+   * @param prefix        redis key的前缀
+   */
+  public RedisBucketStore(RedisProvider redisProvider, String prefix) {
+    this(redisProvider, prefix, new LocalBucketStore());
+  }
+
+  /**
+   * @param redisProvider redis
+   * @param prefix        redis key的前缀
+   * @param fallback      redis不可用时使用的存储
+   */
+  public RedisBucketStore(RedisProvider redisProvider, String prefix, BucketStore fallback) {
+    this.redisProvider = redisProvider;
+    this.prefix = prefix;
+    this.fallback = fallback;
+  }
+
+  public long consume(String key, int capacity, long interval) {
+    //redis中的key过期即删除空闲的桶
+    long micros = Math.max(1, interval / 1000);
+    List<String> args = new ArrayList<String>(2);
+    args.add(Long.toString(micros));
+    args.add(Long.toString(micros * capacity));
+    try {
+      Object result = redisProvider.eval(SCRIPT, prefix + key, args);
+      if (failing) {
+        failing = false;
+        logger.info("Redis rate limit store recovered.");
+      }
+      return ((Number) result).longValue();
+    } catch (Exception e) {
+      if (!failing) {
+        failing = true;
+        logger.warn("Redis rate limit store is unavailable, use local buckets.", e);
+      }
+      return fallback.consume(key, capacity, interval);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package cn.dreampie.route.limit;
+
+import cn.dreampie.route.core.annotation.Bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static cn.dreampie.common.util.Checker.checkArgument;
+
+/**
+ * 并发限制 信号量加有界的等待队列, 队列满或者等待超时时拒绝
+ * acquire在调用线程中等待, 异步的route先tryAcquire 失败时在executor中acquire
+ */
+public final class ConcurrencyLimiter {
+
+  private final String name;
+  private final int limit;
+  private final int queue;
+  private final long timeout;
+  private final int retryAfter;
+  private final Semaphore semaphore;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+
+  public ConcurrencyLimiter(String name, Bulkhead bulkhead) {
+    this(name, bulkhead.limit(), bulkhead.queue(), bulkhead.timeout(), bulkhead.retryAfter());
+  }
+
+  /**
+   * @param name       名字
+   * @param limit      最多同时执行的请求数
+   * @param queue      最多等待的请求数
+   * @param timeout    等待的超时时间 毫秒
+   * @param retryAfter 拒绝时Retry-After的秒数
+   */
+  public ConcurrencyLimiter(String name, int limit, int queue, long timeout, int retryAfter) {
+    checkArgument(limit > 0, "Concurrency limit must be greater than 0.");
+    this.name = name;
+    this.limit = limit;
+    this.queue = queue;
+    this.timeout = timeout;
+    this.retryAfter = retryAfter;
+    this.semaphore = new Semaphore(limit);
+  }
+
+  /**
+   * 获取许可 成功后必须调用release
+   *
+   * @return 是否获得许可
+   */
+  public boolean acquire() {
+    if (semaphore.tryAcquire()) {
+      return true;
+    }
+    if (queue > 0 && timeout > 0) {
+      if (waiting.incrementAndGet() <= queue) {
+        try {
+          if (semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          waiting.decrementAndGet();
+        }
+      } else {
+        waiting.decrementAndGet();
+      }
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * 不等待获取许可 失败时不计入拒绝
+   *
+   * @return 是否获得许可
+   */
+  public boolean tryAcquire() {
+    return semaphore.tryAcquire();
+  }
+
+  /**
+   * @return 是否允许排队等待
+   */
+  public boolean isQueued() {
+    return queue > 0 && timeout > 0;
+  }
+
+  public void release() {
+    semaphore.release();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return 正在执行的请求数
+   */
+  public int getActive() {
+    return limit - semaphore.availablePermits();
+  }
+
+  /**
+   * @return 正在等待的请求数
+   */
+  public int getWaiting() {
+    return Math.max(0, waiting.get());
+  }
+
+  /**
+   * @return 被拒绝的请求数
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  public int getRetryAfter() {
+    return retryAfter;
+  }
+}
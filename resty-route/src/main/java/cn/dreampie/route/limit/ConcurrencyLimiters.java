@@ -0,0 +1,57 @@
+package cn.dreampie.route.limit;
+
+import cn.dreampie.route.core.annotation.Bulkhead;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 命名的并发限制 @Bulkhead("name")的route共用
+ */
+public final class ConcurrencyLimiters {
+
+  private static final ConcurrentMap<String, ConcurrencyLimiter> limiterMap = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+
+  private ConcurrencyLimiters() {
+  }
+
+  /**
+   * 获取route使用的并发限制
+   *
+   * @param route    route的名字 没有分组时使用
+   * @param bulkhead 注解
+   * @return 分组的限制 先注册的配置生效
+   */
+  public static ConcurrencyLimiter get(String route, Bulkhead bulkhead) {
+    String name = bulkhead.value();
+    if (name.equals("")) {
+      return new ConcurrencyLimiter(route, bulkhead);
+    }
+    ConcurrencyLimiter limiter = limiterMap.get(name);
+    if (limiter == null) {
+      limiter = new ConcurrencyLimiter(name, bulkhead);
+      ConcurrencyLimiter old = limiterMap.putIfAbsent(name, limiter);
+      if (old != null) {
+        limiter = old;
+      }
+    }
+    return limiter;
+  }
+
+  /**
+   * 手动添加分组 优先于注解中的配置
+   *
+   * @param limiter 限制
+   */
+  public static void add(ConcurrencyLimiter limiter) {
+    limiterMap.put(limiter.getName(), limiter);
+  }
+
+  public static ConcurrencyLimiter get(String name) {
+    return limiterMap.get(name);
+  }
+
+  public static void clear() {
+    limiterMap.clear();
+  }
+}
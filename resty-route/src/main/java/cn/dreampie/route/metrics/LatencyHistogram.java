@@ -0,0 +1,115 @@
+package cn.dreampie.route.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR风格的延迟直方图 log-linear分桶
+ * 以1024纳秒(约1微秒)为单位, 每个2的幂区间分成8个子桶, 相对误差不超过12.5%, 最大约36分钟
+ * 记录只做原子加 不加锁也不创建对象
+ */
+public final class LatencyHistogram {
+
+  private static final int UNIT_SHIFT = 10;
+  private static final int SUB_BITS = 3;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int MAX_SHIFT = 28;
+  private static final int BUCKETS = SUB_COUNT + (MAX_SHIFT + 1) * SUB_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * 记录一次耗时
+   *
+   * @param nanos 纳秒
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts.incrementAndGet(index(nanos >>> UNIT_SHIFT));
+    count.incrementAndGet();
+    sum.addAndGet(nanos);
+    long current;
+    while (nanos > (current = max.get())) {
+      if (max.compareAndSet(current, nanos)) {
+        break;
+      }
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return 总耗时 纳秒
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * @return 最大耗时 纳秒
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * 分位数 返回所在桶的上界
+   *
+   * @param quantile 0-1 eg. 0.99
+   * @return 纳秒
+   */
+  public long getQuantile(double quantile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    if (rank < 1) {
+      rank = 1;
+    }
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i) << UNIT_SHIFT, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  static int index(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    if (shift > MAX_SHIFT) {
+      return BUCKETS - 1;
+    }
+    return SUB_COUNT + shift * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_COUNT) {
+      return index + 1;
+    }
+    int shift = (index - SUB_COUNT) / SUB_COUNT;
+    int sub = (index - SUB_COUNT) % SUB_COUNT;
+    return (long) (SUB_COUNT + sub + 1) << shift;
+  }
+}
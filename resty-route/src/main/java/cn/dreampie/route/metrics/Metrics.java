@@ -0,0 +1,60 @@
+package cn.dreampie.route.metrics;
+
+import cn.dreampie.common.Constant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 所有route的指标 app.metricsEnabled=true时在创建route时注册
+ */
+public final class Metrics {
+
+  private static final ConcurrentMap<String, RouteMetrics> routeMetricsMap = new ConcurrentHashMap<String, RouteMetrics>();
+
+  private Metrics() {
+  }
+
+  public static boolean isEnabled() {
+    return Constant.metricsEnabled;
+  }
+
+  /**
+   * 注册route的指标 相同的httpMethod和pathPattern共用一个
+   *
+   * @param httpMethod  httpMethod
+   * @param pathPattern pathPattern
+   * @return RouteMetrics
+   */
+  public static RouteMetrics register(String httpMethod, String pathPattern) {
+    String key = httpMethod + " " + pathPattern;
+    RouteMetrics routeMetrics = routeMetricsMap.get(key);
+    if (routeMetrics == null) {
+      routeMetrics = new RouteMetrics(httpMethod, pathPattern);
+      RouteMetrics old = routeMetricsMap.putIfAbsent(key, routeMetrics);
+      if (old != null) {
+        routeMetrics = old;
+      }
+    }
+    return routeMetrics;
+  }
+
+  /**
+   * @return 所有route的指标
+   */
+  public static List<RouteMetrics> getAll() {
+    return new ArrayList<RouteMetrics>(routeMetricsMap.values());
+  }
+
+  public static void reset() {
+    for (RouteMetrics routeMetrics : routeMetricsMap.values()) {
+      routeMetrics.reset();
+    }
+  }
+
+  public static void clear() {
+    routeMetricsMap.clear();
+  }
+}
@@ -0,0 +1,23 @@
+package cn.dreampie.route.metrics;
+
+/**
+ * route处理的阶段
+ */
+public enum Phase {
+  //查找route并创建RouteMatch
+  MATCH,
+  //参数解析 验证 绑定到方法参数
+  BIND,
+  //拦截器自身的耗时 即总耗时减去其他阶段
+  INTERCEPT,
+  //执行resource方法
+  INVOKE,
+  //输出结果
+  RENDER,
+  //从进入RouteHandler到结束
+  TOTAL;
+
+  public String getName() {
+    return name().toLowerCase();
+  }
+}
@@ -0,0 +1,147 @@
+package cn.dreampie.route.metrics;
+
+import cn.dreampie.route.limit.ConcurrencyLimiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 一个route的指标 请求数 每个状态码的响应数 各阶段的延迟直方图
+ */
+public final class RouteMetrics {
+
+  private static final int MAX_STATUS = 600;
+
+  private final String httpMethod;
+  private final String pathPattern;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+  private final LatencyHistogram[] histograms;
+  //没有@Bulkhead时为null
+  private volatile ConcurrencyLimiter limiter;
+  private final AtomicLong rejected = new AtomicLong();
+
+  public RouteMetrics(String httpMethod, String pathPattern) {
+    this.httpMethod = httpMethod;
+    this.pathPattern = pathPattern;
+    Phase[] phases = Phase.values();
+    this.histograms = new LatencyHistogram[phases.length];
+    for (int i = 0; i < phases.length; i++) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * 记录一次请求
+   *
+   * @param status    响应状态码
+   * @param match     查找route的耗时 纳秒
+   * @param bind      参数绑定的耗时 纳秒
+   * @param invoke    方法执行的耗时 纳秒
+   * @param render    输出的耗时 纳秒
+   * @param total     总耗时 纳秒
+   */
+  public void record(int status, long match, long bind, long invoke, long render, long total) {
+    requests.incrementAndGet();
+    if (status >= 0 && status < MAX_STATUS) {
+      statuses.incrementAndGet(status);
+    }
+    histograms[Phase.MATCH.ordinal()].record(match);
+    histograms[Phase.BIND.ordinal()].record(bind);
+    histograms[Phase.INTERCEPT.ordinal()].record(total - match - bind - invoke - render);
+    histograms[Phase.INVOKE.ordinal()].record(invoke);
+    histograms[Phase.RENDER.ordinal()].record(render);
+    histograms[Phase.TOTAL.ordinal()].record(total);
+  }
+
+  /**
+   * 记录一次因为并发限制被拒绝的请求
+   */
+  public void recordRejected() {
+    rejected.incrementAndGet();
+  }
+
+  /**
+   * @return 因为并发限制被拒绝的请求数
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  public ConcurrencyLimiter getLimiter() {
+    return limiter;
+  }
+
+  public void setLimiter(ConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  public String getHttpMethod() {
+    return httpMethod;
+  }
+
+  public String getPathPattern() {
+    return pathPattern;
+  }
+
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * @param status 状态码
+   * @return 该状态码的响应数
+   */
+  public long getStatusCount(int status) {
+    if (status >= 0 && status < MAX_STATUS) {
+      return statuses.get(status);
+    }
+    return 0;
+  }
+
+  /**
+   * @return 状态码大于等于400的响应数
+   */
+  public long getErrors() {
+    long errors = 0;
+    for (int i = 400; i < MAX_STATUS; i++) {
+      errors += statuses.get(i);
+    }
+    return errors;
+  }
+
+  /**
+   * @return 出现过的状态码 升序
+   */
+  public int[] getStatuses() {
+    int size = 0;
+    for (int i = 0; i < MAX_STATUS; i++) {
+      if (statuses.get(i) > 0) {
+        size++;
+      }
+    }
+    int[] result = new int[size];
+    int j = 0;
+    for (int i = 0; i < MAX_STATUS && j < size; i++) {
+      if (statuses.get(i) > 0) {
+        result[j++] = i;
+      }
+    }
+    return result;
+  }
+
+  public LatencyHistogram getHistogram(Phase phase) {
+    return histograms[phase.ordinal()];
+  }
+
+  public void reset() {
+    requests.set(0);
+    rejected.set(0);
+    for (int i = 0; i < MAX_STATUS; i++) {
+      statuses.set(i, 0);
+    }
+    for (LatencyHistogram histogram : histograms) {
+      histogram.reset();
+    }
+  }
+}
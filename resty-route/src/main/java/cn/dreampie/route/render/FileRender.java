@@ -6,20 +6,41 @@ import cn.dreampie.common.http.HttpRequest;
 import cn.dreampie.common.http.HttpResponse;
 import cn.dreampie.common.http.exception.WebException;
 import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.common.util.HttpTyper;
 import cn.dreampie.log.Logger;
 
-import java.io.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by wangrenhui on 15/1/4.
+ * 文件下载 通过FileChannel.transferTo输出, 支持多段Range(multipart/byteranges)、If-Range、ETag/Last-Modified和304
  */
 public class FileRender extends Render {
   private static final Logger logger = Logger.getLogger(FileRender.class);
 
+  //超过这个段数的Range按整个文件输出, 防止大量碎片请求
+  private static final int MAX_RANGES = 32;
+  private static final String BOUNDARY = "RESTY_BYTERANGES";
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
   public void render(HttpRequest request, HttpResponse response, Object out) {
     if (out != null) {
       File file = null;
-      BufferedInputStream bis = null;
       if (out instanceof String) {
         file = new File((String) out);
       } else if (out instanceof File) {
@@ -32,95 +53,275 @@ public class FileRender extends Render {
         throw new WebException(HttpStatus.NOT_FOUND, "File not found '" + file.getName() + "'.");
       } else {
         try {
-          long p = 0L;
-          long toLength = 0L;
-          long contentLength = 0L;
-          int rangeSwitch = 0; // 0,从头开始的全文下载；1,从某字节开始的下载（bytes=27000-）；2,从某字节开始到某字节结束的下载（bytes=27000-39000）
-          long fileLength;
-          String rangBytes = "";
-          fileLength = file.length();
-
-          // get file content
-          InputStream ins = new FileInputStream(file);
-          bis = new BufferedInputStream(ins);
-
-          // tell the client to allow accept-ranges
-          response.reset();
-          response.setHeader("Accept-Ranges", "bytes");
-
           // client requests a file block download start byte
           String range = request.getHeader("Range");
-          if (range != null && range.trim().length() > 0 && !"null".equals(range)) {
-            response.setStatus(HttpStatus.PARTIAL_CONTENT);
-            rangBytes = range.replaceAll("bytes=", "");
-            if (rangBytes.endsWith("-")) {  // bytes=270000-
-              rangeSwitch = 1;
-              p = Long.parseLong(rangBytes.substring(0, rangBytes.indexOf("-")));
-              contentLength = fileLength - p;  // 客户端请求的是270000之后的字节（包括bytes下标索引为270000的字节）
-            } else { // bytes=270000-320000
-              rangeSwitch = 2;
-              String temp1 = rangBytes.substring(0, rangBytes.indexOf("-"));
-              String temp2 = rangBytes.substring(rangBytes.indexOf("-") + 1, rangBytes.length());
-              p = Long.parseLong(temp1);
-              toLength = Long.parseLong(temp2);
-              contentLength = toLength - p + 1; // 客户端请求的是 270000-320000 之间的字节
-            }
-          } else {
-            contentLength = fileLength;
+          //客户端接受gzip时直接输出预先压缩的.gz文件
+          File content = range == null ? getGzipFile(request, file) : null;
+          boolean gzip = content != null;
+          if (!gzip) {
+            content = file;
           }
+          long fileLength = content.length();
+          //http日期只精确到秒
+          long lastModified = content.lastModified() / 1000 * 1000;
+          String etag = getETag(content);
 
-          // 如果设设置了Content-Length，则客户端会自动进行多线程下载。如果不希望支持多线程，则不要设置这个参数。
-          // Content-Length: [文件的总大小] - [客户端请求的下载的文件块的开始字节]
-          response.setHeader("Content-Length", Long.toString(contentLength));
-
-          // 断点开始
-          // 响应的格式是:
-          // Content-Range: bytes [文件块的开始字节]-[文件的总大小 - 1]/[文件的总大小]
-          if (rangeSwitch == 1) {
-            String contentRange = "bytes " + Long.toString(p) + "-" + Long.toString(fileLength - 1) + "/" + Long.toString(fileLength);
-            response.setHeader("Content-Range", contentRange);
-            bis.skip(p);
-          } else if (rangeSwitch == 2) {
-            String contentRange = range.replace("=", " ") + "/" + Long.toString(fileLength);
-            response.setHeader("Content-Range", contentRange);
-            bis.skip(p);
+          response.reset();
+          if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
           } else {
-            String contentRange = "bytes " + "0-" + (fileLength - 1) + "/" + fileLength;
-            response.setHeader("Content-Range", contentRange);
+            // tell the client to allow accept-ranges
+            response.setHeader("Accept-Ranges", "bytes");
           }
+          response.setHeader("ETag", etag);
+          response.setHeader("Last-Modified", formatDate(lastModified));
 
-          String fileName = file.getName();
-          response.setContentType(ContentType.FILE);
-          response.addHeader("Content-Disposition", "attachment;filename=" + fileName);
-
-          OutputStream outputStream = response.getOutputStream();
-          int n = 0;
-          long readLength = 0;
-          int bsize = 1024;
-          byte[] bytes = new byte[bsize];
-          if (rangeSwitch == 2) {
-            // 针对 bytes=27000-39000 的请求，从27000开始写数据
-            while (readLength <= contentLength - bsize) {
-              n = bis.read(bytes);
-              readLength += n;
-              outputStream.write(bytes, 0, n);
-            }
-            if (readLength <= contentLength) {
-              n = bis.read(bytes, 0, (int) (contentLength - readLength));
-              outputStream.write(bytes, 0, n);
-            }
+          //缓存有效
+          if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED);
+            return;
+          }
+
+          response.addHeader("Content-Disposition", "attachment;filename=" + file.getName());
+
+          List<long[]> ranges = null;
+          //If-Range不匹配时忽略Range 输出整个文件
+          if (range != null && isRangeValid(request.getHeader("If-Range"), etag, lastModified)) {
+            ranges = parseRanges(range, fileLength);
+          }
+
+          if (ranges == null) {
+            response.setContentType(ContentType.FILE);
+            response.setHeader("Content-Length", Long.toString(fileLength));
+            write(content, response, new long[][]{{0, fileLength - 1}}, fileLength, null);
+          } else if (ranges.isEmpty()) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + fileLength);
+          } else if (ranges.size() == 1) {
+            long[] r = ranges.get(0);
+            // Content-Range: bytes [文件块的开始字节]-[文件块的结束字节]/[文件的总大小]
+            response.setStatus(HttpStatus.PARTIAL_CONTENT);
+            response.setContentType(ContentType.FILE);
+            response.setHeader("Content-Range", contentRange(r, fileLength));
+            response.setHeader("Content-Length", Long.toString(r[1] - r[0] + 1));
+            write(content, response, new long[][]{r}, fileLength, null);
           } else {
-            while ((n = bis.read(bytes)) != -1) {
-              outputStream.write(bytes, 0, n);
+            response.setStatus(HttpStatus.PARTIAL_CONTENT);
+            response.setHeader("Content-Type", "multipart/byteranges; boundary=" + BOUNDARY);
+            long[][] parts = ranges.toArray(new long[ranges.size()][]);
+            byte[][] partHeaders = new byte[parts.length][];
+            long contentLength = 0;
+            for (int i = 0; i < parts.length; i++) {
+              partHeaders[i] = ("\r\n--" + BOUNDARY + "\r\nContent-Type: " + ContentType.FILE + "\r\nContent-Range: " + contentRange(parts[i], fileLength) + "\r\n\r\n").getBytes(ISO_8859_1);
+              contentLength += partHeaders[i].length + parts[i][1] - parts[i][0] + 1;
             }
+            contentLength += ("\r\n--" + BOUNDARY + "--\r\n").length();
+            response.setHeader("Content-Length", Long.toString(contentLength));
+            write(content, response, parts, fileLength, partHeaders);
           }
-          bis.close();
         } catch (IOException ie) {
           // 忽略 ClientAbortException 之类的异常
+          logger.debug("File output aborted: %s", ie.getMessage());
         } catch (Exception e) {
           throw new WebException(e.getMessage());
         }
       }
     }
   }
+
+  /**
+   * 把文件的多个区间写到response, transferTo在容器支持时直接由内核拷贝
+   *
+   * @param content     文件
+   * @param response    response
+   * @param ranges      区间 [start,end]
+   * @param fileLength  文件长度
+   * @param partHeaders multipart时每段的头 or null
+   */
+  private void write(File content, HttpResponse response, long[][] ranges, long fileLength, byte[][] partHeaders) throws IOException {
+    FileInputStream ins = new FileInputStream(content);
+    try {
+      FileChannel fileChannel = ins.getChannel();
+      OutputStream outputStream = response.getOutputStream();
+      WritableByteChannel target = outputStream instanceof WritableByteChannel ? (WritableByteChannel) outputStream : Channels.newChannel(outputStream);
+      long position;
+      long count;
+      long n;
+      for (int i = 0; i < ranges.length; i++) {
+        if (partHeaders != null) {
+          writeFully(target, partHeaders[i]);
+        }
+        position = ranges[i][0];
+        count = ranges[i][1] - position + 1;
+        while (count > 0) {
+          n = fileChannel.transferTo(position, count, target);
+          if (n <= 0) {
+            //文件在输出过程中被截断
+            if (position >= fileChannel.size()) {
+              throw new IOException("File truncated '" + content.getName() + "' at " + position + "/" + fileLength + ".");
+            }
+            continue;
+          }
+          position += n;
+          count -= n;
+        }
+      }
+      if (partHeaders != null) {
+        writeFully(target, ("\r\n--" + BOUNDARY + "--\r\n").getBytes(ISO_8859_1));
+      }
+      outputStream.flush();
+    } finally {
+      ins.close();
+    }
+  }
+
+  private void writeFully(WritableByteChannel target, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      target.write(buffer);
+    }
+  }
+
+  /**
+   * 解析Range头 bytes=0-99,200-,-500
+   *
+   * @param range      Range头
+   * @param fileLength 文件长度
+   * @return 区间列表, 格式不支持时返回null(输出整个文件), 没有可满足的区间时返回空列表(416)
+   */
+  static List<long[]> parseRanges(String range, long fileLength) {
+    range = range.trim();
+    if (!range.startsWith("bytes=")) {
+      return null;
+    }
+    String[] specs = range.substring("bytes=".length()).split(",");
+    if (specs.length > MAX_RANGES) {
+      return null;
+    }
+    List<long[]> ranges = new ArrayList<long[]>(specs.length);
+    String spec;
+    int index;
+    long start;
+    long end;
+    try {
+      for (String s : specs) {
+        spec = s.trim();
+        index = spec.indexOf('-');
+        if (index < 0) {
+          return null;
+        }
+        if (index == 0) {
+          // bytes=-500 最后500个字节
+          long suffix = Long.parseLong(spec.substring(1));
+          if (suffix < 0) {
+            return null;
+          }
+          if (suffix == 0 || fileLength == 0) {
+            continue;
+          }
+          start = Math.max(0, fileLength - suffix);
+          end = fileLength - 1;
+        } else {
+          start = Long.parseLong(spec.substring(0, index));
+          // bytes=270000- 从某字节到结束
+          end = index == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(index + 1));
+          if (start < 0 || end < start) {
+            return null;
+          }
+          if (start >= fileLength) {
+            continue;
+          }
+          end = Math.min(end, fileLength - 1);
+        }
+        ranges.add(new long[]{start, end});
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return ranges;
+  }
+
+  private String contentRange(long[] range, long fileLength) {
+    return "bytes " + range[0] + "-" + range[1] + "/" + fileLength;
+  }
+
+  /**
+   * If-None-Match优先于If-Modified-Since
+   */
+  private boolean isNotModified(HttpRequest request, String etag, long lastModified) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.equals("*") || stripWeak(tag).equals(stripWeak(etag))) {
+          return true;
+        }
+      }
+      return false;
+    }
+    long ifModifiedSince = parseDate(request.getHeader("If-Modified-Since"));
+    return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+  }
+
+  /**
+   * If-Range是强比较, 日期必须和Last-Modified相同
+   */
+  private boolean isRangeValid(String ifRange, String etag, long lastModified) {
+    if (ifRange == null) {
+      return true;
+    }
+    ifRange = ifRange.trim();
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return ifRange.equals(etag);
+    }
+    return parseDate(ifRange) == lastModified;
+  }
+
+  private String stripWeak(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+
+  /**
+   * 根据文件长度和修改时间生成的ETag
+   *
+   * @param file 文件
+   * @return etag
+   */
+  protected String getETag(File file) {
+    return "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+  }
+
+  static String formatDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+  }
+
+  static long parseDate(String date) {
+    if (date == null) {
+      return -1;
+    }
+    try {
+      return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * 同目录下不旧于原文件的.gz文件
+   *
+   * @param request 请求
+   * @param file    原文件
+   * @return gzip文件 客户端不接受gzip或者不存在时返回null
+   */
+  protected File getGzipFile(HttpRequest request, File file) {
+    if (HttpTyper.negotiateEncoding(request.getHeader("Accept-Encoding"), "gzip") == null) {
+      return null;
+    }
+    File gzipFile = new File(file.getPath() + ".gz");
+    if (gzipFile.isFile() && gzipFile.lastModified() >= file.lastModified()) {
+      return gzipFile;
+    }
+    return null;
+  }
 }
@@ -2,29 +2,109 @@ package cn.dreampie.route.render;
 
 import cn.dreampie.common.Render;
 import cn.dreampie.common.http.ContentType;
+import cn.dreampie.common.http.Encoding;
 import cn.dreampie.common.http.HttpRequest;
 import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.ResponseWriter;
+import cn.dreampie.common.http.exception.WebException;
 import cn.dreampie.common.util.json.Jsoner;
+import cn.dreampie.log.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Created by ice on 14-12-29.
- *
+ * Iterator和非Collection的Iterable逐个元素输出为json数组, 不需要一次加载所有结果
  */
 public class JsonRender extends Render {
 
+  private static final Logger logger = Logger.getLogger(JsonRender.class);
+
   public void render(HttpRequest request, HttpResponse response, Object out) {
     if (out != null) {
-      response.setContentType(ContentType.JSON);
-      if (out instanceof String) {
-        if (((String) out).startsWith("\"") || ((String) out).startsWith("{") || ((String) out).startsWith("[")) {
-          write(request, response, (String) out);
+      response.setContentType(getContentType());
+      ResponseWriter responseWriter = null;
+      try {
+        Writer writer;
+        //非UTF-8编码使用response的writer输出
+        if (Encoding.UTF_8.equals(response.getCharset())) {
+          writer = responseWriter = new ResponseWriter(response);
+        } else {
+          writer = response.getWriter();
+        }
+        if (isStream(out)) {
+          Iterator iterator = out instanceof Iterator ? (Iterator) out : ((Iterable) out).iterator();
+          writeStream(writer, iterator);
+        } else {
+          writeJson(writer, out);
+        }
+        if (responseWriter != null) {
+          responseWriter.close();
         } else {
-          write(request, response, "\"" + out + "\"");
+          writer.flush();
         }
+      } catch (IOException e) {
+        throw new WebException(e.getMessage());
+      } finally {
+        //序列化出错时丢弃缓冲的内容
+        if (responseWriter != null) {
+          responseWriter.release();
+        }
+        if (out instanceof Closeable) {
+          close((Closeable) out);
+        }
+      }
+    }
+  }
+
+  protected String getContentType() {
+    return ContentType.JSON;
+  }
+
+  /**
+   * 输出单个对象
+   */
+  protected void writeJson(Writer writer, Object out) throws IOException {
+    if (out instanceof String) {
+      if (((String) out).startsWith("\"") || ((String) out).startsWith("{") || ((String) out).startsWith("[")) {
+        writer.write((String) out);
       } else {
-        String json = Jsoner.toJSON(out);
-        write(request, response, json);
+        writer.write("\"" + out + "\"");
+      }
+    } else {
+      Jsoner.toJSON(out, writer);
+    }
+  }
+
+  /**
+   * 逐个元素输出为json数组
+   */
+  protected void writeStream(Writer writer, Iterator iterator) throws IOException {
+    writer.write('[');
+    boolean first = true;
+    while (iterator.hasNext()) {
+      if (!first) {
+        writer.write(',');
       }
+      Jsoner.toJSON(iterator.next(), writer);
+      first = false;
+    }
+    writer.write(']');
+  }
+
+  private boolean isStream(Object out) {
+    return out instanceof Iterator || (out instanceof Iterable && !(out instanceof Collection));
+  }
+
+  private void close(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      logger.warn("Could not close " + closeable + ".", e);
     }
   }
 }
@@ -0,0 +1,34 @@
+package cn.dreampie.route.render;
+
+import cn.dreampie.common.http.ContentType;
+import cn.dreampie.common.util.json.Jsoner;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * 按行输出json(NDJSON) 每个元素一行
+ */
+public class NdjsonRender extends JsonRender {
+
+  protected String getContentType() {
+    return ContentType.NDJSON;
+  }
+
+  protected void writeJson(Writer writer, Object out) throws IOException {
+    if (out instanceof Iterable) {
+      writeStream(writer, ((Iterable) out).iterator());
+    } else {
+      super.writeJson(writer, out);
+      writer.write('\n');
+    }
+  }
+
+  protected void writeStream(Writer writer, Iterator iterator) throws IOException {
+    while (iterator.hasNext()) {
+      Jsoner.toJSON(iterator.next(), writer);
+      writer.write('\n');
+    }
+  }
+}
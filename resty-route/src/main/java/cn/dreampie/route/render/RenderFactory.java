@@ -11,12 +11,14 @@ import java.util.Map;
 public class RenderFactory {
 
   public final static String JSON = "json";
+  public final static String NDJSON = "ndjson";
   public final static String TEXT = "text";
   public final static String FILE = "file";
   public final static String IMAGE = "image";
   private static String defaultExtension = "json";
   private static Map<String, Render> renderMap = new HashMap<String, Render>() {{
     put(JSON, new JsonRender());
+    put(NDJSON, new NdjsonRender());
     put(TEXT, new TextRender());
     put(FILE, new FileRender());
     put(IMAGE, new ImageRender());
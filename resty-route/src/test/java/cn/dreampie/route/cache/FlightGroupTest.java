@@ -0,0 +1,144 @@
+package cn.dreampie.route.cache;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.Route;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteInvocation;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.SingleFlight;
+import cn.dreampie.route.exception.InitException;
+import cn.dreampie.route.interceptor.security.SecurityInterceptor;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import cn.dreampie.security.SessionBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlightGroupTest {
+
+  private static final AtomicInteger invoked = new AtomicInteger();
+  private static CountDownLatch entered;
+  private static CountDownLatch release;
+
+  private Route route;
+
+  @Before
+  public void setUp() {
+    invoked.set(0);
+    entered = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(FlightResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    route = routeBuilder.getRouteTree("GET").find("/flights/hello", new HashMap<String, String>());
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    final MockResponse leaderResponse = new MockResponse();
+    Thread leader = new Thread(new Runnable() {
+      public void run() {
+        invoke(leaderResponse);
+      }
+    });
+    leader.start();
+    entered.await(5, TimeUnit.SECONDS);
+
+    final MockResponse followerResponse = new MockResponse();
+    Thread follower = new Thread(new Runnable() {
+      public void run() {
+        invoke(followerResponse);
+      }
+    });
+    follower.start();
+    //等待follower加入
+    while (follower.getState() != Thread.State.TIMED_WAITING && follower.getState() != Thread.State.TERMINATED) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    leader.join();
+    follower.join();
+
+    assertEquals(1, invoked.get());
+    assertEquals("\"hello\"", leaderResponse.getBodyString());
+    assertEquals("\"hello\"", followerResponse.getBodyString());
+    assertEquals(0, route.getFlightGroup().size());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    //一直没有结束的leader
+    FlightGroup.Flight stuck = route.getFlightGroup().lead("/flights/hello");
+    release.countDown();
+    MockResponse response = new MockResponse();
+    invoke(response);
+    stuck.land(null);
+    assertEquals(1, invoked.get());
+    assertEquals("\"hello\"", response.getBodyString());
+  }
+
+  @Test
+  public void testSecured() throws Exception {
+    InterceptorLoader interceptorLoader = new InterceptorLoader().add(new SecurityInterceptor((SessionBuilder) null));
+    try {
+      new RouteBuilder(new ResourceLoader().add(SecuredResource.class), interceptorLoader).build();
+    } catch (InitException e) {
+      //指定了区分用户的请求头时可以使用
+      RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(VaryResource.class), interceptorLoader);
+      routeBuilder.build();
+      assertEquals("Cookie", routeBuilder.getRouteTree("GET").find("/varies/hello", new HashMap<String, String>()).getFlightGroup().getHeaders()[0]);
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  private void invoke(MockResponse response) {
+    HttpServletRequest servletRequest = new MockRequest("GET", "/flights/hello").get();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    HttpResponse httpResponse = new HttpResponse(response.get(), servletRequest);
+    HashMap<String, String> pathParams = new HashMap<String, String>();
+    new RouteInvocation(route, route.match(request, httpResponse, "/flights/hello", "", pathParams)).invoke();
+  }
+
+  @API("/flights")
+  public static class FlightResource extends Resource {
+    @GET("/hello")
+    @SingleFlight(timeout = 1000)
+    public String hello() throws InterruptedException {
+      invoked.incrementAndGet();
+      entered.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return "hello";
+    }
+  }
+
+  @API("/secures")
+  public static class SecuredResource extends Resource {
+    @GET("/hello")
+    @SingleFlight
+    public String hello() {
+      return "hello";
+    }
+  }
+
+  @API("/varies")
+  public static class VaryResource extends Resource {
+    @GET("/hello")
+    @SingleFlight(headers = "Cookie")
+    public String hello() {
+      return "hello";
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package cn.dreampie.route.cache;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.Route;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteInvocation;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.Cached;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.exception.InitException;
+import cn.dreampie.route.interceptor.security.SecurityInterceptor;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import cn.dreampie.security.SessionBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class ResponseCacheTest {
+
+  private static int invoked;
+
+  private MockRequest request;
+  private MockResponse response;
+  private Route route;
+
+  @Before
+  public void setUp() {
+    invoked = 0;
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(CachedResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    route = routeBuilder.getRouteTree("GET").find("/caches/hello", new HashMap<String, String>());
+    reset();
+  }
+
+  @Test
+  public void testHit() throws Exception {
+    invoke();
+    String etag = response.getHeader("ETag");
+    assertNotNull(etag);
+    assertEquals("\"hello\"", response.getBodyString());
+    assertEquals("7", response.getHeader("Content-Length"));
+
+    reset();
+    invoke();
+    assertEquals(1, invoked);
+    assertEquals(etag, response.getHeader("ETag"));
+    assertEquals("\"hello\"", response.getBodyString());
+    assertEquals("application/json;charset=UTF-8", response.getHeader("Content-Type"));
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+    invoke();
+    String etag = response.getHeader("ETag");
+
+    reset();
+    request.header("If-None-Match", etag);
+    invoke();
+    assertEquals(1, invoked);
+    assertEquals(304, response.getStatus());
+    assertEquals(0, response.getBodySize());
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    request.param("b", "2");
+    request.param("a", "1");
+    invoke();
+    reset();
+    request.param("a", "1");
+    request.param("b", "2");
+    invoke();
+    assertEquals(1, invoked);
+    reset();
+    request.param("a", "3");
+    invoke();
+    assertEquals(2, invoked);
+  }
+
+  @Test
+  public void testSecured() throws Exception {
+    InterceptorLoader interceptorLoader = new InterceptorLoader().add(new SecurityInterceptor((SessionBuilder) null));
+    try {
+      new RouteBuilder(new ResourceLoader().add(SecuredResource.class), interceptorLoader).build();
+    } catch (InitException e) {
+      //需要登录的route不指定headers时 不同用户会得到相同的缓存
+      RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(VaryResource.class), interceptorLoader);
+      routeBuilder.build();
+      ResponseCache responseCache = routeBuilder.getRouteTree("GET").find("/varies/hello", new HashMap<String, String>()).getResponseCache();
+      String first = responseCache.key(new HttpRequest(new MockRequest("GET", "/varies/hello").header("Cookie", "session=a").get(), null));
+      String second = responseCache.key(new HttpRequest(new MockRequest("GET", "/varies/hello").header("Cookie", "session=b").get(), null));
+      assertNotEquals(first, second);
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  private void reset() {
+    request = new MockRequest("GET", "/caches/hello");
+    response = new MockResponse();
+  }
+
+  private void invoke() {
+    HttpRequest httpRequest = new HttpRequest(request.get(), null);
+    HttpResponse httpResponse = new HttpResponse(response.get(), request.get());
+    HashMap<String, String> pathParams = new HashMap<String, String>();
+    new RouteInvocation(route, route.match(httpRequest, httpResponse, "/caches/hello", "", pathParams)).invoke();
+  }
+
+  @API("/caches")
+  public static class CachedResource extends Resource {
+    @GET("/hello")
+    @Cached(expired = 60)
+    public String hello() {
+      invoked++;
+      return "hello";
+    }
+  }
+
+  @API("/secures")
+  public static class SecuredResource extends Resource {
+    @GET("/hello")
+    @Cached
+    public String hello() {
+      return "hello";
+    }
+  }
+
+  @API("/varies")
+  public static class VaryResource extends Resource {
+    @GET("/hello")
+    @Cached(headers = "Cookie")
+    public String hello() {
+      return "hello";
+    }
+  }
+}
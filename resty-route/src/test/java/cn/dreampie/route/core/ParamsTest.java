@@ -0,0 +1,39 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.entity.CaseInsensitiveMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParamsTest {
+
+  @Test
+  public void testLazyLoad() {
+    final int[] loads = {0};
+    CaseInsensitiveMap<Object> pathParams = new CaseInsensitiveMap<Object>();
+    pathParams.put("id", 1);
+    Params params = new Params(pathParams, new ParamsLoader() {
+      public Params load() {
+        loads[0]++;
+        return new Params().set("id", 2).set("name", "body").set("age", 3);
+      }
+    });
+
+    assertEquals(1, params.<Integer>get("id").intValue());
+    assertEquals(0, loads[0]);
+    assertFalse(params.isLoaded());
+
+    params.set("age", 4);
+    assertEquals("body", params.get("name"));
+    assertEquals(1, loads[0]);
+    assertTrue(params.isLoaded());
+    //set before load and path params are not overwritten
+    assertEquals(4, params.<Integer>get("age").intValue());
+    assertEquals(1, params.<Integer>get("id").intValue());
+
+    params.getNames();
+    assertEquals(1, loads[0]);
+  }
+}
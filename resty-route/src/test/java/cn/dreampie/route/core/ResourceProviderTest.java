@@ -0,0 +1,167 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.spring.SpringBuilder;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.Scope;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ResourceProviderTest {
+
+  private static final AtomicInteger created = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    created.set(0);
+  }
+
+  @Test
+  public void testSingleton() throws Exception {
+    ResourceProvider provider = ResourceProvider.of(SingletonResource.class);
+    assertTrue(provider.isShared());
+    assertSame(provider.get(), provider.get());
+    assertEquals(1, created.get());
+
+    created.set(0);
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(SingletonResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    Route route = routeBuilder.getRouteTree("GET").find("/singletons/name", new HashMap<String, String>());
+    assertEquals("\"a\"", invoke(route, "a"));
+    assertEquals("\"b\"", invoke(route, "b"));
+    //两次请求共用一个对象 当前请求从RouteMatchHolder读取 调用结束后还原
+    assertEquals(1, created.get());
+    assertNull(RouteMatchHolder.get());
+  }
+
+  @Test
+  public void testPooled() {
+    ResourceProvider provider = ResourceProvider.of(PooledResource.class);
+    assertFalse(provider.isShared());
+    Resource first = provider.get();
+    Resource second = provider.get();
+    assertNotSame(first, second);
+
+    RouteMatch current = routeMatch("first");
+    first.setRouteMatch(current);
+    assertEquals("first", first.getParam("name"));
+    provider.release(first);
+    assertSame(first, provider.get());
+    //归还时清除routeMatch
+    RouteMatch other = routeMatch("other");
+    RouteMatch old = RouteMatchHolder.set(other);
+    try {
+      assertEquals("other", first.getParam("name"));
+    } finally {
+      RouteMatchHolder.restore(old);
+    }
+
+    //poolSize为1 池满时丢弃second
+    provider.release(first);
+    provider.release(second);
+    assertSame(first, provider.get());
+    Resource third = provider.get();
+    assertNotSame(first, third);
+    assertNotSame(second, third);
+    assertEquals(3, created.get());
+  }
+
+  @Test
+  public void testThread() throws Exception {
+    final ResourceProvider provider = ResourceProvider.of(ThreadResource.class);
+    assertFalse(provider.isShared());
+    Resource resource = provider.get();
+    provider.release(resource);
+    assertSame(resource, provider.get());
+
+    final AtomicReference<Resource> other = new AtomicReference<Resource>();
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        other.set(provider.get());
+      }
+    });
+    thread.start();
+    thread.join();
+    assertNotNull(other.get());
+    assertNotSame(resource, other.get());
+  }
+
+  @Test
+  public void testSpring() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    SpringBuilder.setContext(context);
+    try {
+      SpringBuilder.register(PooledResource.class);
+      context.refresh();
+      Resource bean = context.getBean(PooledResource.class);
+      //spring的bean由spring管理scope 都按共享处理
+      for (Class<? extends Resource> resourceClass : new Class[]{PooledResource.class, ThreadResource.class, PrototypeResource.class}) {
+        assertTrue(ResourceProvider.of(resourceClass).isShared());
+      }
+      ResourceProvider provider = ResourceProvider.of(PooledResource.class);
+      assertSame(bean, provider.get());
+      provider.release(bean);
+      assertSame(bean, provider.get());
+    } finally {
+      SpringBuilder.removeContext();
+    }
+  }
+
+  private String invoke(Route route, String name) {
+    HttpServletRequest servletRequest = new MockRequest("GET", "/singletons/name").param("name", name).get();
+    MockResponse response = new MockResponse();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    new RouteInvocation(route, route.match(request, new HttpResponse(response.get(), servletRequest), "/singletons/name", "", new HashMap<String, String>())).invoke();
+    return response.getBodyString();
+  }
+
+  private RouteMatch routeMatch(String name) {
+    HttpServletRequest servletRequest = new MockRequest("GET", "/pools").get();
+    return new RouteMatch("/pools", "/pools", "", new Params().set("name", name),
+        new HttpRequest(servletRequest, null), new HttpResponse(new MockResponse().get(), servletRequest));
+  }
+
+  @API("/singletons")
+  @Scope(Scope.Type.SINGLETON)
+  public static class SingletonResource extends Resource {
+    public SingletonResource() {
+      created.incrementAndGet();
+    }
+
+    @GET("/name")
+    public String name() {
+      return getParam("name");
+    }
+  }
+
+  @API("/pools")
+  @Scope(value = Scope.Type.POOLED, poolSize = 1)
+  public static class PooledResource extends Resource {
+    public PooledResource() {
+      created.incrementAndGet();
+    }
+  }
+
+  @API("/prototypes")
+  public static class PrototypeResource extends Resource {
+  }
+
+  @API("/threads")
+  @Scope(Scope.Type.THREAD)
+  public static class ThreadResource extends Resource {
+  }
+}
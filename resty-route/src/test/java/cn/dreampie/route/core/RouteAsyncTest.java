@@ -0,0 +1,151 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.Async;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.Scope;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Test;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteAsyncTest {
+
+  private static CompletableFuture<String> future;
+
+  private final MockRequest request = new MockRequest("GET", "/asyncs");
+  private final MockResponse response = new MockResponse();
+
+  @Test
+  public void testCompletableFuture() throws Exception {
+    future = new CompletableFuture<String>();
+    RouteInvocation invocation = invocation("/asyncs/future");
+    invocation.invoke();
+    assertTrue(request.isAsyncStarted());
+    assertFalse(request.isAsyncCompleted());
+    future.complete("{\"name\":\"resty\"}");
+    assertTrue(request.isAsyncCompleted());
+    assertEquals("{\"name\":\"resty\"}", response.getBodyString());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    future = new CompletableFuture<String>();
+    RouteInvocation invocation = invocation("/asyncs/future");
+    invocation.invoke();
+    for (AsyncListener listener : request.getAsyncListeners()) {
+      listener.onTimeout(new AsyncEvent(request.getAsyncContext()));
+    }
+    assertTrue(request.isAsyncCompleted());
+    assertEquals(Collections.singletonList(503), response.getStatuses());
+    //超时后的结果被忽略
+    response.reset();
+    future.complete("{}");
+    assertEquals(0, response.getBodySize());
+  }
+
+  @Test
+  public void testExecutor() throws Exception {
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    RouteInvocation invocation = invocation("/asyncs/hello");
+    invocation.invokeAsync(new Executor() {
+      public void execute(Runnable command) {
+        tasks.add(command);
+      }
+    });
+    assertTrue(request.isAsyncStarted());
+    assertEquals(0, response.getBodySize());
+    tasks.get(0).run();
+    assertTrue(request.isAsyncCompleted());
+    assertEquals("\"hello\"", response.getBodyString());
+  }
+
+  @Test
+  public void testPooledStage() throws Exception {
+    future = new CompletableFuture<String>();
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(PooledResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    Route route = routeBuilder.getRouteTree("GET").find("/pooleds/name", new HashMap<String, String>());
+    MockResponse first = new MockResponse();
+    invocation(route, new MockRequest("GET", "/pooleds/name").param("name", "first"), first).invoke();
+    //第一个请求的resource还没有归还 第二个请求使用新的对象
+    MockResponse second = new MockResponse();
+    invocation(route, new MockRequest("GET", "/pooleds/name").param("name", "second"), second).invoke();
+    future.complete("!");
+    assertEquals("\"first!\"", first.getBodyString());
+    assertEquals("\"second!\"", second.getBodyString());
+    //结束后归还到池中
+    Resource resource = route.getResourceProvider().get();
+    assertTrue(resource instanceof PooledResource);
+    assertEquals(2, PooledResource.created.get());
+  }
+
+  private RouteInvocation invocation(String path) {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(AsyncResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    HashMap<String, String> pathParams = new HashMap<String, String>();
+    Route route = routeBuilder.getRouteTree("GET").find(path, pathParams);
+    return invocation(route, request, response);
+  }
+
+  private RouteInvocation invocation(Route route, MockRequest request, MockResponse response) {
+    String path = request.get().getRequestURI();
+    HashMap<String, String> pathParams = new HashMap<String, String>();
+    HttpRequest httpRequest = new HttpRequest(request.get(), null);
+    HttpResponse httpResponse = new HttpResponse(response.get(), request.get());
+    return new RouteInvocation(route, route.match(httpRequest, httpResponse, path, "", pathParams));
+  }
+
+  @API("/pooleds")
+  @Scope(value = Scope.Type.POOLED, poolSize = 1)
+  public static class PooledResource extends Resource {
+    private static final AtomicInteger created = new AtomicInteger();
+
+    public PooledResource() {
+      created.incrementAndGet();
+    }
+
+    @GET("/name")
+    public CompletionStage<String> name() {
+      //回调在complete的线程上执行 这时仍然能读取到本次请求的参数
+      return future.thenApply(new Function<String, String>() {
+        public String apply(String suffix) {
+          return getParam("name") + suffix;
+        }
+      });
+    }
+  }
+
+  @API("/asyncs")
+  public static class AsyncResource extends Resource {
+    @GET("/future")
+    public CompletableFuture<String> future() {
+      return future;
+    }
+
+    @GET("/hello")
+    @Async
+    public String hello() {
+      return "hello";
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RouteInvokerTest {
+
+  private static Route route;
+  private static RouteMatch routeMatch;
+
+  @BeforeClass
+  public static void setUp() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(InvokerResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    route = routeBuilder.getRouteTree("GET").find("/invokers/hello", new HashMap<String, String>());
+    HttpServletRequest servletRequest = new MockRequest("GET", "/invokers/hello").get();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    HttpResponse response = new HttpResponse(new MockResponse().get(), servletRequest);
+    Params params = new Params().set("name", "resty").set("age", 3);
+    routeMatch = new RouteMatch(route.getPathPattern(), "/invokers/hello", "", params, request, response);
+  }
+
+  @Test
+  public void testInvoke() throws Exception {
+    assertEquals("resty3/ok", route.getInvoker().invoke(new InvokerResource(), routeMatch));
+  }
+
+  @Test
+  public void testException() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(InvokerResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    Route boom = routeBuilder.getRouteTree("GET").find("/invokers/boom", new HashMap<String, String>());
+    try {
+      boom.getInvoker().invoke(new InvokerResource(), routeMatch);
+    } catch (InvocationTargetException e) {
+      assertTrue(e.getCause() instanceof WebException);
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  @API("/invokers")
+  public static class InvokerResource extends Resource {
+    @GET("/hello")
+    public String hello(String name, int age, HttpRequest request, Params params) {
+      return name + age + params.get("missing", "") + (request != null ? "/ok" : "");
+    }
+
+    @GET("/boom")
+    public void boom() {
+      throw new WebException("boom");
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.common.entity.Entity;
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.POST;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RouteJsonTest {
+
+  @Test
+  public void testReadJson() throws Exception {
+    Params params = match("{\"name\":\"resty\",\"ids\":[1,2],\"age\":\"3\",\"extra\":{\"a\":1},\"other\":true}", -1);
+    assertEquals(7, params.<Integer>get("id").intValue());
+    assertEquals("resty", params.get("name"));
+    assertEquals(Arrays.asList(1, 2), params.get("ids"));
+    assertEquals(3, params.<Integer>get("age").intValue());
+    assertEquals(1, ((Map) params.get("extra")).get("a"));
+    assertEquals(true, params.get("other"));
+  }
+
+  @Test
+  public void testEmptyJson() throws Exception {
+    Params params = match("", -1);
+    assertEquals(7, params.<Integer>get("id").intValue());
+    assertNull(params.get("name"));
+  }
+
+  @Test
+  public void testTooLarge() throws Exception {
+    try {
+      match(JsonResource.class, "/jsons/7", "{}", Integer.MAX_VALUE, 1024);
+    } catch (WebException e) {
+      assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, e.getStatus());
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  @Test
+  public void testChunkedTooLarge() throws Exception {
+    //没有Content-Length时 由LimitedInputStream在读取时限制
+    StringBuilder body = new StringBuilder("{\"name\":\"");
+    while (body.length() <= 1024) {
+      body.append("resty-resty-resty-resty-resty-resty");
+    }
+    body.append("\"}");
+    try {
+      match(JsonResource.class, "/jsons/7", body.toString(), -1, 1024);
+    } catch (WebException e) {
+      assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, e.getStatus());
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  @Test
+  public void testUnlimited() throws Exception {
+    //默认不限制json请求体的大小
+    StringBuilder name = new StringBuilder();
+    while (name.length() <= 1024 * 1024) {
+      name.append("resty-resty-resty-resty-resty-resty");
+    }
+    Params params = match("{\"name\":\"" + name + "\"}", -1);
+    assertEquals(name.toString(), params.get("name"));
+  }
+
+  @Test
+  public void testReadEntity() throws Exception {
+    Params params = match(EntityResource.class, "/entities", "{\"user\":{\"name\":\"resty\",\"age\":\"3\",\"other\":1},"
+        + "\"users\":[{\"name\":\"a\",\"age\":1},null,{\"name\":\"b\",\"age\":2}],\"named\":{\"c\":{\"age\":4}}}", -1);
+    User user = params.get("user");
+    assertEquals("resty", user.get("name"));
+    assertEquals(3, user.<Integer>get("age").intValue());
+    assertEquals(1, user.<Integer>get("other").intValue());
+
+    List<User> users = params.get("users");
+    assertEquals(3, users.size());
+    assertEquals("a", users.get(0).get("name"));
+    assertNull(users.get(1));
+    assertEquals(2, users.get(2).<Integer>get("age").intValue());
+
+    Map<String, User> named = params.get("named");
+    assertEquals(4, named.get("c").<Integer>get("age").intValue());
+  }
+
+  private Params match(String body, int contentLength) {
+    return match(JsonResource.class, "/jsons/7", body, contentLength);
+  }
+
+  private Params match(Class<? extends Resource> resourceClass, String path, String body, int contentLength) {
+    return match(resourceClass, path, body, contentLength, 0);
+  }
+
+  private Params match(Class<? extends Resource> resourceClass, String path, String body, int contentLength, int jsonMaxSize) {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(resourceClass), new InterceptorLoader());
+    routeBuilder.build();
+    Map<String, String> pathParams = new HashMap<String, String>();
+    Route route = routeBuilder.getRouteTree("POST").find(path, pathParams);
+    route.setJsonMaxSize(jsonMaxSize);
+    HttpServletRequest servletRequest = new MockRequest("POST", path).body("application/json; charset=UTF-8", body).contentLength(contentLength).get();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    HttpResponse response = new HttpResponse(new MockResponse().get(), servletRequest);
+    Params params = route.match(request, response, path, "", pathParams).getParams();
+    params.get("name");
+    return params;
+  }
+
+  public static class User extends Entity<User> {
+    public boolean hasColumn(String attr) {
+      return "name".equals(attr) || "age".equals(attr);
+    }
+
+    public Class getColumnType(String attr) {
+      return "age".equals(attr) ? Integer.class : String.class;
+    }
+  }
+
+  @API("/entities")
+  public static class EntityResource extends Resource {
+    @POST
+    public void save(User user, List<User> users, Map<String, User> named) {
+    }
+  }
+
+  @API("/jsons")
+  public static class JsonResource extends Resource {
+    @POST("/:id")
+    public void save(int id, String name, Integer age, List<Integer> ids, Map<String, Object> extra) {
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package cn.dreampie.route.core;
+
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.POST;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RouteTreeTest {
+
+  private static RouteBuilder routeBuilder;
+
+  @BeforeClass
+  public static void setUp() {
+    ResourceLoader resourceLoader = new ResourceLoader();
+    resourceLoader.add(TreeResource.class).add(VersionResource.class);
+    routeBuilder = new RouteBuilder(resourceLoader, new InterceptorLoader());
+    routeBuilder.build();
+  }
+
+  @Test
+  public void testSamePrecedenceAsScan() {
+    String[] paths = {"/users", "/users/", "/users/l", "/users/12", "/users/12/20", "/users/1/2/x",
+        "/users/transactions", "/users/12/files/a/b/c", "/users/abc/code", "/users/123/code",
+        "/api/v1.0/users/5", "/api/v1x0/users/5", "/api/v1.0/users/5/name", "/nothing", "", "/"};
+    for (String path : paths) {
+      Map<String, String> pathParams = new HashMap<String, String>();
+      Route route = routeBuilder.getRouteTree("GET").find(path, pathParams);
+      Map<String, String> scanParams = new HashMap<String, String>();
+      Route scanRoute = scan("GET", path, scanParams);
+      assertSame(path, scanRoute, route);
+      if (route != null) {
+        assertEquals(path, scanParams, pathParams);
+      }
+    }
+  }
+
+  @Test
+  public void testPathParams() {
+    Map<String, String> pathParams = new HashMap<String, String>();
+    Route route = routeBuilder.getRouteTree("GET").find("/users/12/20", pathParams);
+    assertEquals("/users/:pageNumber/:pageSize", route.getPathPattern());
+    assertEquals("12", pathParams.get("pageNumber"));
+    assertEquals("20", pathParams.get("pageSize"));
+
+    pathParams.clear();
+    route = routeBuilder.getRouteTree("GET").find("/users/12/files/a/b/c", pathParams);
+    assertEquals("a/b/c", pathParams.get("path"));
+
+    assertNull(routeBuilder.getRouteTree("GET").find("/users/12/20/30/40", pathParams));
+    assertNull(routeBuilder.getRouteTree("PUT"));
+  }
+
+  /**
+   * The former RouteHandler scan.
+   */
+  private Route scan(String httpMethod, String restPath, Map<String, String> pathParams) {
+    for (Map.Entry<String, Set<Route>> routesEntry : routeBuilder.getRoutesMap().get(httpMethod).entrySet()) {
+      if (restPath.startsWith(routesEntry.getKey())) {
+        for (Route r : routesEntry.getValue()) {
+          Matcher m = r.matcher(restPath);
+          if (m.matches()) {
+            r.fillPathParams(m, pathParams);
+            return r;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  @API("/users")
+  public static class TreeResource extends Resource {
+    @GET
+    public String list() {
+      return null;
+    }
+
+    @GET("/l")
+    public String l() {
+      return null;
+    }
+
+    @GET("/:id")
+    public String get(int id) {
+      return null;
+    }
+
+    @GET("/{id:\\d+}/code")
+    public String code(int id) {
+      return null;
+    }
+
+    @GET("/{name}/code")
+    public String nameCode(String name) {
+      return null;
+    }
+
+    @GET("/:pageNumber/:pageSize")
+    public String page(int pageNumber, int pageSize) {
+      return null;
+    }
+
+    @GET("/transactions")
+    public String transactions() {
+      return null;
+    }
+
+    @GET("/{id}/files/{path:.+}")
+    public String file(int id, String path) {
+      return null;
+    }
+
+    @POST("/:id")
+    public String save(int id) {
+      return null;
+    }
+  }
+
+  @API("/api/v1.0/users")
+  public static class VersionResource extends Resource {
+    @GET("/:id")
+    public String get(int id) {
+      return null;
+    }
+
+    @GET("/{id}/{field}")
+    public String field(int id, String field) {
+      return null;
+    }
+  }
+}
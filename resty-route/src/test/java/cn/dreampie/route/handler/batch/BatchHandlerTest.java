@@ -0,0 +1,105 @@
+package cn.dreampie.route.handler.batch;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteHandler;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.POST;
+import cn.dreampie.route.handler.Handler;
+import cn.dreampie.route.handler.HandlerFactory;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchHandlerTest {
+
+  @Test
+  public void testBatch() throws Exception {
+    JSONArray results = batch("[{\"path\":\"/batches/hello/resty?times=2\"},"
+        + "{\"method\":\"GET\",\"path\":\"/batches/sum\",\"params\":{\"a\":1,\"b\":2}},"
+        + "{\"method\":\"POST\",\"path\":\"/batches/echo\",\"body\":{\"name\":\"batch\"}},"
+        + "{\"path\":\"/batches/forbidden\"},"
+        + "{\"path\":\"/batches/missing\"}]", 5);
+    assertEquals(5, results.size());
+    JSONObject hello = results.getJSONObject(0);
+    assertEquals(200, hello.getIntValue("status"));
+    assertEquals("hello resty resty", hello.getString("body"));
+    assertTrue(hello.getJSONObject("headers").getString("content-type").startsWith("application/json"));
+    assertEquals(3, results.getJSONObject(1).getIntValue("body"));
+    assertEquals("batch", results.getJSONObject(2).getJSONObject("body").getString("name"));
+    assertEquals(400, results.getJSONObject(3).getIntValue("status"));
+    assertEquals("Forbidden.", results.getJSONObject(3).getString("body"));
+    assertEquals(503, results.getJSONObject(4).getIntValue("status"));
+  }
+
+  @Test
+  public void testTooMany() throws Exception {
+    try {
+      batch("[{\"path\":\"/batches/sum\"},{\"path\":\"/batches/sum\"},{\"path\":\"/batches/sum\"},{\"path\":\"/batches/sum\"}]", 3);
+    } catch (WebException e) {
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+      return;
+    }
+    throw new AssertionError("No exception.");
+  }
+
+  private JSONArray batch(String json, int maxRequests) throws Exception {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(BatchResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    Handler handler = HandlerFactory.getHandler(Arrays.<Handler>asList(new BatchHandler("/batch", maxRequests, 5000, Executors.newFixedThreadPool(2))),
+        new RouteHandler(routeBuilder));
+    HttpServletRequest servletRequest = new MockRequest("POST", "/batch").body("application/json", json).get();
+    MockResponse mockResponse = new MockResponse();
+    HttpRequest request = new HttpRequest(servletRequest, null);
+    HttpResponse response = new HttpResponse(mockResponse.get(), servletRequest);
+    boolean[] isHandled = {false};
+    handler.handle(request, response, isHandled);
+    assertTrue(isHandled[0]);
+    return JSON.parseArray(mockResponse.getBodyString());
+  }
+
+  @API("/batches")
+  public static class BatchResource extends Resource {
+    @GET("/hello/:name")
+    public String hello(String name, int times) {
+      StringBuilder hello = new StringBuilder("hello");
+      for (int i = 0; i < times; i++) {
+        hello.append(' ').append(name);
+      }
+      return hello.toString();
+    }
+
+    @GET("/sum")
+    public int sum(int a, int b) {
+      return a + b;
+    }
+
+    @POST("/echo")
+    public Object echo(String name) {
+      return Collections.singletonMap("name", name);
+    }
+
+    @GET("/forbidden")
+    public void forbidden() {
+      throw new WebException(HttpStatus.FORBIDDEN, "Forbidden.");
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package cn.dreampie.route.handler.batch;
+
+import cn.dreampie.route.mock.MockRequest;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BatchRequestTest {
+
+  @Test
+  public void testProtectedHeaders() {
+    HttpServletRequest batch = new MockRequest("POST", "/batch").header("X-Forwarded-For", "10.0.0.1")
+        .header("Host", "resty.cn").header("Accept-Language", "zh-CN").get();
+    Map<String, String> headers = new HashMap<String, String>();
+    headers.put("X-Forwarded-For", "1.2.3.4");
+    headers.put("x-real-ip", "1.2.3.4");
+    headers.put("Forwarded", "for=1.2.3.4");
+    headers.put("Host", "evil.cn");
+    headers.put("Accept-Language", "en");
+    BatchRequest request = new BatchRequest(batch, "GET", "/users", null, new HashMap<String, String[]>(), headers, null);
+    //代理转发的请求头只使用batch请求的
+    assertEquals("10.0.0.1", request.getHeader("X-Forwarded-For"));
+    assertEquals("10.0.0.1", Collections.list(request.getHeaders("x-forwarded-for")).get(0));
+    assertEquals("resty.cn", request.getHeader("Host"));
+    assertNull(request.getHeader("X-Real-IP"));
+    assertNull(request.getHeader("Forwarded"));
+    assertEquals("en", request.getHeader("Accept-Language"));
+  }
+
+  @Test
+  public void testDateHeader() {
+    HttpServletRequest batch = new MockRequest("POST", "/batch").get();
+    Map<String, String> headers = new HashMap<String, String>();
+    headers.put("If-Modified-Since", "Thu, 01 Jan 1970 00:00:01 GMT");
+    BatchRequest request = new BatchRequest(batch, "GET", "/files", null, new HashMap<String, String[]>(), headers, null);
+    assertEquals(1000L, request.getDateHeader("If-Modified-Since"));
+    assertEquals(-1L, request.getDateHeader("Content-Length"));
+  }
+}
@@ -0,0 +1,86 @@
+package cn.dreampie.route.handler.compress;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.util.HttpTyper;
+import cn.dreampie.route.handler.Handler;
+import cn.dreampie.route.handler.HandlerFactory;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import cn.dreampie.route.render.JsonRender;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class CompressHandlerTest {
+
+  private final MockResponse response = new MockResponse();
+
+  @Test
+  public void testGzip() throws Exception {
+    String json = handle("gzip, deflate", 2000);
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    assertNull(response.getHeader("Content-Length"));
+    assertEquals(json, read(new GZIPInputStream(new ByteArrayInputStream(response.getBody()))));
+  }
+
+  @Test
+  public void testDeflate() throws Exception {
+    String json = handle("deflate;q=0.8, gzip;q=0.5", 2000);
+    assertEquals("deflate", response.getHeader("Content-Encoding"));
+    assertEquals(json, read(new InflaterInputStream(new ByteArrayInputStream(response.getBody()))));
+  }
+
+  @Test
+  public void testSmall() throws Exception {
+    String json = handle("gzip", 10);
+    assertFalse(response.getHeaders().containsKey("Content-Encoding"));
+    assertEquals(String.valueOf(response.getBodySize()), response.getHeader("Content-Length"));
+    assertEquals(json, response.getBodyString());
+  }
+
+  @Test
+  public void testNegotiate() {
+    assertEquals("gzip", HttpTyper.negotiateEncoding("gzip, deflate", "gzip", "deflate"));
+    assertEquals("deflate", HttpTyper.negotiateEncoding("gzip;q=0, *", "gzip", "deflate"));
+    assertNull(HttpTyper.negotiateEncoding("identity", "gzip", "deflate"));
+    assertNull(HttpTyper.negotiateEncoding(null, "gzip"));
+  }
+
+  private String handle(String acceptEncoding, int size) throws Exception {
+    char[] chars = new char[size];
+    Arrays.fill(chars, 'a');
+    final String value = new String(chars);
+    Handler handler = HandlerFactory.getHandler(Collections.<Handler>singletonList(new CompressHandler(1024)), new Handler() {
+      public void handle(HttpRequest request, HttpResponse response, boolean[] isHandled) {
+        isHandled[0] = true;
+        new JsonRender().render(request, response, value);
+      }
+    });
+    HttpServletRequest servletRequest = new MockRequest("GET", "/tests").header("Accept-Encoding", acceptEncoding).get();
+    handler.handle(new HttpRequest(servletRequest, null), new HttpResponse(response.get(), servletRequest), new boolean[]{false});
+    return "\"" + value + "\"";
+  }
+
+  private String read(InputStream in) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return out.toString("UTF-8");
+  }
+}
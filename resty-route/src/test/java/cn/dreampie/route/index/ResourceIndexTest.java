@@ -0,0 +1,118 @@
+package cn.dreampie.route.index;
+
+import cn.dreampie.common.util.analysis.ParamAttribute;
+import cn.dreampie.common.util.analysis.ParamNamesScaner;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.annotation.GET;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ResourceIndexTest {
+
+  @Test
+  public void testGenerated() throws Exception {
+    ResourceIndex index = ResourceIndex.load();
+    assertTrue(index.getClassNames().contains(IndexResource.class.getName()));
+    //和解析class文件的结果一致
+    for (String className : index.getClassNames()) {
+      Class<?> clazz = Class.forName(className);
+      Map<String, ParamAttribute> indexed = index.getParamNames(className);
+      Map<String, ParamAttribute> scanned = ParamNamesScaner.getParamNames(clazz);
+      for (Map.Entry<String, ParamAttribute> entry : indexed.entrySet()) {
+        ParamAttribute attribute = scanned.get(entry.getKey());
+        assertNotNull(className + "." + entry.getKey(), attribute);
+        int size = entry.getValue().getNames().size();
+        assertEquals(attribute.getNames().subList(0, size), entry.getValue().getNames());
+        assertEquals(attribute.getLines()[0], entry.getValue().getLines()[0]);
+      }
+    }
+  }
+
+  @Test
+  public void testLoader() {
+    ResourceLoader resourceLoader = new ResourceLoader().addIncludePackages("cn.dreampie.route.index");
+    resourceLoader.build();
+    Set<Class<? extends Resource>> resources = resourceLoader.getResources();
+    assertEquals(1, resources.size());
+    assertTrue(resources.contains(IndexResource.class));
+  }
+
+  @Test
+  public void testUnindexedRoot() throws Exception {
+    //同一个包在另一个没有索引的目录里(例如-proc:none编译的模块) 需要扫描
+    File classes = new File(Files.createTempDirectory("resty-index").toFile(), "classes");
+    File source = new File(classes, "cn/dreampie/route/index/PlainResource.java");
+    assertTrue(source.getParentFile().mkdirs());
+    Writer writer = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+    try {
+      writer.write("package cn.dreampie.route.index;\n"
+          + "public class PlainResource extends cn.dreampie.route.core.Resource {\n"
+          + "}\n");
+    } finally {
+      writer.close();
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertEquals(0, compiler.run(null, null, null, "-proc:none", "-classpath", System.getProperty("java.class.path"), source.getPath()));
+
+    Thread thread = Thread.currentThread();
+    ClassLoader contextClassLoader = thread.getContextClassLoader();
+    URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, contextClassLoader);
+    thread.setContextClassLoader(classLoader);
+    try {
+      assertFalse(ResourceIndex.load().getClassNames().contains("cn.dreampie.route.index.PlainResource"));
+      ResourceLoader resourceLoader = new ResourceLoader().addIncludePackages("cn.dreampie.route.index");
+      resourceLoader.build();
+      Set<Class<? extends Resource>> resources = resourceLoader.getResources();
+      assertEquals(2, resources.size());
+      assertTrue(resources.contains(IndexResource.class));
+      assertTrue(resources.contains(classLoader.loadClass("cn.dreampie.route.index.PlainResource")));
+    } finally {
+      thread.setContextClassLoader(contextClassLoader);
+    }
+  }
+
+  @Test
+  public void testReadWrite() throws Exception {
+    ResourceIndex index = new ResourceIndex();
+    Map<String, ParamAttribute> methods = new HashMap<String, ParamAttribute>();
+    methods.put("get,(ILjava/lang/String;)Ljava/lang/String;", new ParamAttribute(Arrays.asList("id", "name"), new int[]{12}));
+    methods.put("list,()Ljava/util/List;", new ParamAttribute(Arrays.<String>asList(), new int[]{20}));
+    index.put("cn.dreampie.resource.UserResource", methods);
+    StringWriter writer = new StringWriter();
+    index.write(writer);
+
+    ResourceIndex read = new ResourceIndex();
+    read.read(new ByteArrayInputStream(writer.toString().getBytes("UTF-8")));
+    assertEquals(1, read.getClassNames("cn.dreampie").size());
+    assertEquals(0, read.getClassNames("cn.dreampie.res").size());
+    Map<String, ParamAttribute> paramNames = read.getParamNames("cn.dreampie.resource.UserResource");
+    assertEquals(Arrays.asList("id", "name"), paramNames.get("get,(ILjava/lang/String;)Ljava/lang/String;").getNames());
+    assertEquals(12, paramNames.get("get,(ILjava/lang/String;)Ljava/lang/String;").getLines()[0]);
+    assertTrue(paramNames.get("list,()Ljava/util/List;").getNames().isEmpty());
+  }
+
+  public static class IndexResource extends Resource {
+    @GET("/index/:id")
+    public String get(int id, String[] names) {
+      return id + ":" + names.length;
+    }
+  }
+}
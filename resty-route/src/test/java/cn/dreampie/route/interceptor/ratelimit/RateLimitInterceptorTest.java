@@ -0,0 +1,115 @@
+package cn.dreampie.route.interceptor.ratelimit;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.exception.WebException;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteHandler;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimitInterceptorTest {
+
+  @Test
+  public void testBurst() {
+    LocalBucketStore store = new LocalBucketStore();
+    long interval = TimeUnit.SECONDS.toNanos(10);
+    assertEquals(0, store.consume("127.0.0.1", 3, interval));
+    assertEquals(0, store.consume("127.0.0.1", 3, interval));
+    assertEquals(0, store.consume("127.0.0.1", 3, interval));
+    long wait = store.consume("127.0.0.1", 3, interval);
+    assertTrue(wait > 9000 && wait <= 10001);
+    //不同的key不同的桶
+    assertEquals(0, store.consume("127.0.0.2", 3, interval));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testRefill() throws Exception {
+    LocalBucketStore store = new LocalBucketStore();
+    long interval = TimeUnit.MILLISECONDS.toNanos(20);
+    assertEquals(0, store.consume("a", 1, interval));
+    assertTrue(store.consume("a", 1, interval) > 0);
+    Thread.sleep(30);
+    assertEquals(0, store.consume("a", 1, interval));
+  }
+
+  @Test
+  public void testSweep() throws Exception {
+    LocalBucketStore store = new LocalBucketStore(0, TimeUnit.MILLISECONDS);
+    long interval = TimeUnit.MILLISECONDS.toNanos(5);
+    store.consume("a", 2, interval);
+    Thread.sleep(10);
+    store.consume("b", 2, interval);
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testTooManyRequests() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(LimitedResource.class),
+        new InterceptorLoader().add(new RateLimitInterceptor(2, 0.1)));
+    routeBuilder.build();
+    RouteHandler routeHandler = new RouteHandler(routeBuilder);
+    //不受信任的客户端每次伪造X-Forwarded-For 仍然是同一个桶
+    assertEquals("\"limited\"", handle(routeHandler, new MockRequest("GET", "/limits").remoteAddr("10.0.0.1").header("X-Forwarded-For", "1.1.1.1")).getBodyString());
+    assertEquals("\"limited\"", handle(routeHandler, new MockRequest("GET", "/limits").remoteAddr("10.0.0.1").header("X-Forwarded-For", "2.2.2.2")).getBodyString());
+    MockResponse response = new MockResponse();
+    try {
+      handle(routeHandler, new MockRequest("GET", "/limits").remoteAddr("10.0.0.1").header("X-Forwarded-For", "3.3.3.3"), response);
+      fail();
+    } catch (WebException e) {
+      assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatus());
+      assertEquals("10", response.getHeader("Retry-After"));
+    }
+  }
+
+  @Test
+  public void testClientAddress() {
+    RateLimitKey key = RateLimitKeys.clientAddress("127.0.0.1", "10.0.0.2");
+    assertEquals("10.0.0.1", clientAddress(key, new MockRequest("GET", "/limits").remoteAddr("10.0.0.1").header("X-Forwarded-For", "1.1.1.1")));
+    //伪造的第一个地址被忽略
+    assertEquals("2.2.2.2", clientAddress(key, new MockRequest("GET", "/limits").header("X-Forwarded-For", "1.1.1.1, 2.2.2.2")));
+    assertEquals("2.2.2.2", clientAddress(key, new MockRequest("GET", "/limits").header("X-Forwarded-For", "2.2.2.2,10.0.0.2")));
+    assertEquals("127.0.0.1", clientAddress(key, new MockRequest("GET", "/limits").remoteAddr("0:0:0:0:0:0:0:1")));
+    //"*"只信任直连的代理
+    key = RateLimitKeys.clientAddress("*");
+    assertEquals("10.0.0.2", clientAddress(key, new MockRequest("GET", "/limits").remoteAddr("10.0.0.1").header("X-Forwarded-For", "2.2.2.2,10.0.0.2")));
+  }
+
+  private String clientAddress(RateLimitKey key, MockRequest request) {
+    return key.get(new HttpRequest(request.get(), null));
+  }
+
+  private MockResponse handle(RouteHandler routeHandler, MockRequest request) {
+    MockResponse response = new MockResponse();
+    handle(routeHandler, request, response);
+    return response;
+  }
+
+  private void handle(RouteHandler routeHandler, MockRequest request, MockResponse response) {
+    HttpServletRequest servletRequest = request.get();
+    routeHandler.handle(new HttpRequest(servletRequest, null), new HttpResponse(response.get(), servletRequest), new boolean[]{false});
+  }
+
+  @API("/limits")
+  public static class LimitedResource extends Resource {
+    @GET
+    public String limited() {
+      return "limited";
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package cn.dreampie.route.limit;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.config.InterceptorLoader;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.RouteBuilder;
+import cn.dreampie.route.core.RouteHandler;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.Async;
+import cn.dreampie.route.core.annotation.Bulkhead;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.handler.metrics.MetricsHandler;
+import cn.dreampie.route.metrics.RouteMetrics;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimiterTest {
+
+  @Test
+  public void testReject() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("reports", 2, 0, 0, 5);
+    assertTrue(limiter.acquire());
+    assertTrue(limiter.acquire());
+    assertEquals(2, limiter.getActive());
+    assertFalse(limiter.acquire());
+    assertEquals(1, limiter.getRejected());
+    limiter.release();
+    assertTrue(limiter.acquire());
+  }
+
+  @Test
+  public void testQueue() throws Exception {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter("reports", 1, 1, 5000, 1);
+    assertTrue(limiter.acquire());
+    final AtomicBoolean acquired = new AtomicBoolean();
+    final CountDownLatch done = new CountDownLatch(1);
+    Thread waiter = new Thread(new Runnable() {
+      public void run() {
+        acquired.set(limiter.acquire());
+        done.countDown();
+      }
+    });
+    waiter.start();
+    while (limiter.getWaiting() == 0) {
+      Thread.sleep(1);
+    }
+    //队列已满
+    assertFalse(limiter.acquire());
+    limiter.release();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertTrue(acquired.get());
+    assertEquals(1, limiter.getRejected());
+  }
+
+  @Test
+  public void testMetrics() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("reports", 3, 0, 0, 1);
+    limiter.acquire();
+    RouteMetrics routeMetrics = new RouteMetrics("GET", "/reports");
+    routeMetrics.setLimiter(limiter);
+    routeMetrics.recordRejected();
+    String text = MetricsHandler.toPrometheus(Arrays.asList(routeMetrics));
+    assertTrue(text.contains("resty_route_rejected_total{method=\"GET\",route=\"/reports\"} 1\n"));
+    assertTrue(text.contains("resty_route_concurrency{method=\"GET\",route=\"/reports\",state=\"limit\"} 3\n"));
+    assertTrue(text.contains("resty_route_concurrency{method=\"GET\",route=\"/reports\",state=\"active\"} 1\n"));
+  }
+
+  @Test
+  public void testAsyncNotSupported() {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(BulkheadResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    RouteHandler routeHandler = new RouteHandler(routeBuilder);
+    ConcurrencyLimiter limiter = routeBuilder.getRouteTree("GET").find("/bulkheads/report", new HashMap<String, String>()).getLimiter();
+    //filter没有开启async-supported时startAsync失败 许可要被释放
+    for (int i = 0; i < 2; i++) {
+      HttpServletRequest servletRequest = new MockRequest("GET", "/bulkheads/report").asyncSupported(false).get();
+      try {
+        routeHandler.handle(new HttpRequest(servletRequest, null), new HttpResponse(new MockResponse().get(), servletRequest), new boolean[]{false});
+        fail();
+      } catch (IllegalStateException e) {
+        assertEquals(0, limiter.getActive());
+      }
+    }
+    assertEquals(0, limiter.getRejected());
+  }
+
+  @Test
+  public void testAsyncQueue() throws Exception {
+    RouteBuilder routeBuilder = new RouteBuilder(new ResourceLoader().add(QueuedResource.class), new InterceptorLoader());
+    routeBuilder.build();
+    RouteHandler routeHandler = new RouteHandler(routeBuilder);
+    ConcurrencyLimiter limiter = routeBuilder.getRouteTree("GET").find("/queues/report", new HashMap<String, String>()).getLimiter();
+    QueuedResource.started = new CountDownLatch(1);
+    QueuedResource.blocker = new CountDownLatch(1);
+    MockRequest first = new MockRequest("GET", "/queues/report");
+    handle(routeHandler, first, new MockResponse());
+    assertTrue(QueuedResource.started.await(5, TimeUnit.SECONDS));
+
+    //排队在executor中等待 容器线程直接返回
+    MockRequest second = new MockRequest("GET", "/queues/report");
+    MockResponse secondResponse = new MockResponse();
+    handle(routeHandler, second, secondResponse);
+    assertTrue(second.isAsyncStarted());
+    while (limiter.getWaiting() == 0) {
+      Thread.sleep(1);
+    }
+    //队列已满 在executor中拒绝
+    MockRequest third = new MockRequest("GET", "/queues/report");
+    MockResponse thirdResponse = new MockResponse();
+    handle(routeHandler, third, thirdResponse);
+    awaitCompleted(third);
+    assertEquals(Arrays.asList(503), thirdResponse.getStatuses());
+    assertEquals("3", thirdResponse.getHeader("Retry-After"));
+    assertFalse(second.isAsyncCompleted());
+
+    QueuedResource.blocker.countDown();
+    awaitCompleted(first);
+    awaitCompleted(second);
+    assertEquals("\"report\"", secondResponse.getBodyString());
+    assertEquals(0, limiter.getActive());
+    assertEquals(1, limiter.getRejected());
+  }
+
+  private void handle(RouteHandler routeHandler, MockRequest request, MockResponse response) {
+    HttpServletRequest servletRequest = request.get();
+    routeHandler.handle(new HttpRequest(servletRequest, null), new HttpResponse(response.get(), servletRequest), new boolean[]{false});
+  }
+
+  private void awaitCompleted(MockRequest request) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!request.isAsyncCompleted()) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  @API("/queues")
+  @Bulkhead(limit = 1, queue = 1, timeout = 5000, retryAfter = 3)
+  public static class QueuedResource extends Resource {
+    private static CountDownLatch started;
+    private static CountDownLatch blocker;
+
+    @GET("/report")
+    @Async
+    public String report() throws InterruptedException {
+      started.countDown();
+      blocker.await(5, TimeUnit.SECONDS);
+      return "report";
+    }
+  }
+
+  @API("/bulkheads")
+  @Bulkhead(limit = 1)
+  public static class BulkheadResource extends Resource {
+    @GET("/report")
+    @Async
+    public String report() {
+      return "report";
+    }
+  }
+}
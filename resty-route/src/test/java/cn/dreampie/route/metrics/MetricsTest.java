@@ -0,0 +1,55 @@
+package cn.dreampie.route.metrics;
+
+import cn.dreampie.route.handler.metrics.MetricsHandler;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+  @Test
+  public void testHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000000L);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000000L, histogram.getMax());
+    //log-linear分桶 误差不超过12.5%
+    assertNear(500000000L, histogram.getQuantile(0.5));
+    assertNear(990000000L, histogram.getQuantile(0.99));
+    assertEquals(1000000000L, histogram.getQuantile(1));
+    for (long value = 0; value < 100000; value++) {
+      assertTrue(LatencyHistogram.upperBound(LatencyHistogram.index(value)) > value);
+    }
+  }
+
+  @Test
+  public void testRecord() {
+    RouteMetrics routeMetrics = new RouteMetrics("GET", "/users/{id}");
+    routeMetrics.record(200, 1000, 2000, 3000, 4000, 15000);
+    routeMetrics.record(404, 1000, 0, 0, 0, 1000);
+    assertEquals(2, routeMetrics.getRequests());
+    assertEquals(1, routeMetrics.getErrors());
+    assertEquals(2, routeMetrics.getStatuses().length);
+    assertEquals(5000, routeMetrics.getHistogram(Phase.INTERCEPT).getMax());
+
+    List<RouteMetrics> all = Arrays.asList(routeMetrics);
+    String text = MetricsHandler.toPrometheus(all);
+    assertTrue(text.contains("resty_route_requests_total{method=\"GET\",route=\"/users/{id}\"} 2\n"));
+    assertTrue(text.contains("resty_route_responses_total{method=\"GET\",route=\"/users/{id}\",status=\"404\"} 1\n"));
+    assertTrue(text.contains("resty_route_latency_seconds_count{method=\"GET\",route=\"/users/{id}\",phase=\"total\"} 2\n"));
+    Map<String, Object> json = MetricsHandler.toList(all).get(0);
+    assertEquals(1L, json.get("errors"));
+    assertEquals(2L, ((Map) ((Map) json.get("latency")).get("bind")).get("count"));
+  }
+
+  private void assertNear(long expected, long actual) {
+    assertTrue(actual + " is not near " + expected, actual >= expected && actual <= expected * 1.125);
+  }
+}
@@ -0,0 +1,244 @@
+package cn.dreampie.route.mock;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * 不依赖容器的HttpServletRequest 只实现测试和benchmark用到的方法 其他方法返回null/0/false
+ * 每次getInputStream都从头读取body
+ */
+public class MockRequest {
+
+  private final String method;
+  private final String uri;
+  private final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+  private final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+  private final Map<String, Object> attributes = new HashMap<String, Object>();
+  private final List<AsyncListener> asyncListeners = new ArrayList<AsyncListener>();
+  private String contentType;
+  private byte[] body;
+  private Integer contentLength;
+  private String remoteAddr = "127.0.0.1";
+  private boolean asyncSupported = true;
+  private boolean asyncStarted;
+  private boolean asyncCompleted;
+  private AsyncContext asyncContext;
+  private HttpServletRequest servletRequest;
+
+  public MockRequest(String method, String uri) {
+    this.method = method;
+    this.uri = uri;
+  }
+
+  public MockRequest header(String name, String value) {
+    headers.put(name, value);
+    return this;
+  }
+
+  public MockRequest param(String name, String... values) {
+    parameters.put(name, values);
+    return this;
+  }
+
+  public MockRequest body(String contentType, byte[] body) {
+    this.contentType = contentType;
+    this.body = body;
+    return this;
+  }
+
+  public MockRequest body(String contentType, String body) {
+    try {
+      return body(contentType, body.getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param contentLength 小于0表示chunked 默认为body的长度
+   * @return this
+   */
+  public MockRequest contentLength(int contentLength) {
+    this.contentLength = contentLength;
+    return this;
+  }
+
+  public MockRequest remoteAddr(String remoteAddr) {
+    this.remoteAddr = remoteAddr;
+    return this;
+  }
+
+  /**
+   * @param asyncSupported false时startAsync抛出IllegalStateException 和没有开启async-supported的filter一样
+   * @return this
+   */
+  public MockRequest asyncSupported(boolean asyncSupported) {
+    this.asyncSupported = asyncSupported;
+    return this;
+  }
+
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  public Map<String, String[]> getParameters() {
+    return parameters;
+  }
+
+  public boolean isAsyncStarted() {
+    return asyncStarted;
+  }
+
+  public boolean isAsyncCompleted() {
+    return asyncCompleted;
+  }
+
+  public AsyncContext getAsyncContext() {
+    return asyncContext;
+  }
+
+  public List<AsyncListener> getAsyncListeners() {
+    return asyncListeners;
+  }
+
+  private int contentLength() {
+    if (contentLength != null) {
+      return contentLength;
+    }
+    return body == null ? -1 : body.length;
+  }
+
+  public HttpServletRequest get() {
+    if (servletRequest == null) {
+      servletRequest = (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class[]{HttpServletRequest.class}, new InvocationHandler() {
+        public Object invoke(Object proxy, Method m, Object[] args) {
+          String name = m.getName();
+          if (name.equals("getMethod")) {
+            return method;
+          } else if (name.equals("getRequestURI")) {
+            int index = uri.indexOf('?');
+            return index < 0 ? uri : uri.substring(0, index);
+          } else if (name.equals("getQueryString")) {
+            int index = uri.indexOf('?');
+            return index < 0 ? null : uri.substring(index + 1);
+          } else if (name.equals("getContextPath") || name.equals("getServletPath")) {
+            return "";
+          } else if (name.equals("getContentType")) {
+            return contentType;
+          } else if (name.equals("getContentLength")) {
+            return contentLength();
+          } else if (name.equals("getContentLengthLong")) {
+            return (long) contentLength();
+          } else if (name.equals("getCharacterEncoding")) {
+            return "UTF-8";
+          } else if (name.equals("getRemoteAddr")) {
+            return remoteAddr;
+          } else if (name.equals("getParameterMap")) {
+            return parameters;
+          } else if (name.equals("getParameter")) {
+            String[] values = parameters.get(args[0]);
+            return values == null ? null : values[0];
+          } else if (name.equals("getParameterValues")) {
+            return parameters.get(args[0]);
+          } else if (name.equals("getParameterNames")) {
+            return Collections.enumeration(parameters.keySet());
+          } else if (name.equals("getHeader")) {
+            return headers.get(args[0]);
+          } else if (name.equals("getHeaders")) {
+            String value = headers.get(args[0]);
+            return Collections.enumeration(value == null ? Collections.<String>emptyList() : Collections.singletonList(value));
+          } else if (name.equals("getHeaderNames")) {
+            return Collections.enumeration(new ArrayList<String>(headers.keySet()));
+          } else if (name.equals("getAttribute")) {
+            return attributes.get(args[0]);
+          } else if (name.equals("setAttribute")) {
+            attributes.put((String) args[0], args[1]);
+          } else if (name.equals("removeAttribute")) {
+            attributes.remove(args[0]);
+          } else if (name.equals("getAttributeNames")) {
+            return Collections.enumeration(new ArrayList<String>(attributes.keySet()));
+          } else if (name.equals("getInputStream")) {
+            return inputStream(body == null ? new byte[0] : body);
+          } else if (name.equals("isAsyncSupported")) {
+            return asyncSupported;
+          } else if (name.equals("isAsyncStarted")) {
+            return asyncStarted;
+          } else if (name.equals("startAsync")) {
+            if (!asyncSupported) {
+              throw new IllegalStateException("A filter or servlet of the current chain does not support asynchronous operations.");
+            }
+            asyncStarted = true;
+            return asyncContext();
+          } else if (name.equals("getAsyncContext")) {
+            return asyncContext;
+          }
+          return defaultValue(m.getReturnType());
+        }
+      });
+    }
+    return servletRequest;
+  }
+
+  private AsyncContext asyncContext() {
+    if (asyncContext == null) {
+      asyncContext = (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(), new Class[]{AsyncContext.class}, new InvocationHandler() {
+        public Object invoke(Object proxy, Method m, Object[] args) {
+          String name = m.getName();
+          if (name.equals("addListener")) {
+            asyncListeners.add((AsyncListener) args[0]);
+          } else if (name.equals("complete")) {
+            asyncCompleted = true;
+          } else if (name.equals("getRequest")) {
+            return servletRequest;
+          }
+          return defaultValue(m.getReturnType());
+        }
+      });
+    }
+    return asyncContext;
+  }
+
+  private static ServletInputStream inputStream(byte[] body) {
+    final ByteArrayInputStream in = new ByteArrayInputStream(body);
+    return new ServletInputStream() {
+      public boolean isFinished() {
+        return in.available() == 0;
+      }
+
+      public boolean isReady() {
+        return true;
+      }
+
+      public void setReadListener(ReadListener readListener) {
+      }
+
+      public int read() {
+        return in.read();
+      }
+
+      public int read(byte[] b, int off, int len) {
+        return in.read(b, off, len);
+      }
+    };
+  }
+
+  static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == long.class) {
+      return 0L;
+    }
+    return null;
+  }
+}
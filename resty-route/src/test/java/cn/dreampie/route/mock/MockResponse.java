@@ -0,0 +1,147 @@
+package cn.dreampie.route.mock;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 不依赖容器的HttpServletResponse 输出保存在内存中 只实现测试和benchmark用到的方法
+ */
+public class MockResponse {
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+  private final List<Integer> statuses = new ArrayList<Integer>();
+  private int status;
+  private boolean discard;
+  private HttpServletResponse servletResponse;
+
+  /**
+   * 丢弃输出和状态记录 用于benchmark
+   *
+   * @return this
+   */
+  public MockResponse discard() {
+    this.discard = true;
+    return this;
+  }
+
+  public byte[] getBody() {
+    return body.toByteArray();
+  }
+
+  public String getBodyString() {
+    try {
+      return body.toString("UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public int getBodySize() {
+    return body.size();
+  }
+
+  public String getHeader(String name) {
+    return headers.get(name);
+  }
+
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * @return 最后设置的状态 没有设置时为0
+   */
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * @return 所有setStatus/sendError的状态
+   */
+  public List<Integer> getStatuses() {
+    return statuses;
+  }
+
+  /**
+   * 清空输出 headers和状态
+   */
+  public void reset() {
+    body.reset();
+    headers.clear();
+    statuses.clear();
+    status = 0;
+  }
+
+  public HttpServletResponse get() {
+    if (servletResponse == null) {
+      final ServletOutputStream out = new ServletOutputStream() {
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        public void write(int b) {
+          if (!discard) {
+            body.write(b);
+          }
+        }
+
+        public void write(byte[] b, int off, int len) {
+          if (!discard) {
+            body.write(b, off, len);
+          }
+        }
+      };
+      servletResponse = (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(), new Class[]{HttpServletResponse.class}, new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          String name = method.getName();
+          if (name.equals("getOutputStream")) {
+            return out;
+          } else if (name.equals("setStatus") || name.equals("sendError")) {
+            status = (Integer) args[0];
+            if (!discard) {
+              statuses.add(status);
+            }
+          } else if (name.equals("getStatus")) {
+            return status == 0 ? 200 : status;
+          } else if (name.equals("setHeader") || name.equals("addHeader")) {
+            headers.put((String) args[0], (String) args[1]);
+          } else if (name.equals("setIntHeader") || name.equals("addIntHeader") || name.equals("setDateHeader") || name.equals("addDateHeader")) {
+            headers.put((String) args[0], String.valueOf(args[1]));
+          } else if (name.equals("getHeader")) {
+            return headers.get(args[0]);
+          } else if (name.equals("containsHeader")) {
+            return headers.containsKey(args[0]);
+          } else if (name.equals("setContentLength") || name.equals("setContentLengthLong")) {
+            headers.put("Content-Length", String.valueOf(args[0]));
+          } else if (name.equals("setContentType")) {
+            headers.put("Content-Type", (String) args[0]);
+          } else if (name.equals("getContentType")) {
+            return headers.get("Content-Type");
+          } else if (name.equals("getCharacterEncoding")) {
+            return "UTF-8";
+          } else if (name.equals("reset")) {
+            reset();
+          } else if (name.equals("resetBuffer")) {
+            body.reset();
+          }
+          return MockRequest.defaultValue(method.getReturnType());
+        }
+      });
+    }
+    return servletResponse;
+  }
+}
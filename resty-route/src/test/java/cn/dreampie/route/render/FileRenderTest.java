@@ -0,0 +1,126 @@
+package cn.dreampie.route.render;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.http.result.HttpStatus;
+import cn.dreampie.route.mock.MockRequest;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileRenderTest {
+
+  private MockRequest request;
+  private MockResponse response;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("resty", ".txt");
+    FileOutputStream out = new FileOutputStream(file);
+    out.write("0123456789abcdefghij".getBytes("UTF-8"));
+    out.close();
+    reset();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testFull() throws Exception {
+    HttpResponse httpResponse = render();
+    assertEquals(HttpStatus.OK, httpResponse.getStatus());
+    assertEquals("20", response.getHeader("Content-Length"));
+    assertEquals("bytes", response.getHeader("Accept-Ranges"));
+    assertEquals("0123456789abcdefghij", response.getBodyString());
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    request.header("Range", "bytes=-5");
+    HttpResponse httpResponse = render();
+    assertEquals(HttpStatus.PARTIAL_CONTENT, httpResponse.getStatus());
+    assertEquals("bytes 15-19/20", response.getHeader("Content-Range"));
+    assertEquals("fghij", response.getBodyString());
+  }
+
+  @Test
+  public void testMultipartRanges() throws Exception {
+    request.header("Range", "bytes=0-1,10-");
+    HttpResponse httpResponse = render();
+    assertEquals(HttpStatus.PARTIAL_CONTENT, httpResponse.getStatus());
+    assertTrue(response.getHeader("Content-Type").startsWith("multipart/byteranges"));
+    String text = response.getBodyString();
+    assertEquals(String.valueOf(response.getBodySize()), response.getHeader("Content-Length"));
+    assertTrue(text.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+    assertTrue(text.contains("Content-Range: bytes 10-19/20\r\n\r\nabcdefghij\r\n"));
+  }
+
+  @Test
+  public void testUnsatisfiable() throws Exception {
+    request.header("Range", "bytes=100-");
+    HttpResponse httpResponse = render();
+    assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, httpResponse.getStatus());
+    assertEquals("bytes */20", response.getHeader("Content-Range"));
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+    render();
+    String etag = response.getHeader("ETag");
+    String lastModified = response.getHeader("Last-Modified");
+
+    reset();
+    request.header("If-None-Match", etag);
+    assertEquals(HttpStatus.NOT_MODIFIED, render().getStatus());
+    assertEquals(0, response.getBodySize());
+
+    reset();
+    request.header("If-Modified-Since", lastModified);
+    assertEquals(HttpStatus.NOT_MODIFIED, render().getStatus());
+  }
+
+  @Test
+  public void testIfRange() throws Exception {
+    request.header("Range", "bytes=0-1");
+    request.header("If-Range", "\"other\"");
+    HttpResponse httpResponse = render();
+    assertEquals(HttpStatus.OK, httpResponse.getStatus());
+    assertNull(response.getHeader("Content-Range"));
+    assertEquals(20, response.getBodySize());
+  }
+
+  @Test
+  public void testParseRanges() {
+    List<long[]> ranges = FileRender.parseRanges("bytes=5-2", 20);
+    assertNull(ranges);
+    assertNull(FileRender.parseRanges("items=0-1", 20));
+    ranges = FileRender.parseRanges("bytes=0-100", 20);
+    assertEquals(19, ranges.get(0)[1]);
+    assertTrue(FileRender.parseRanges("bytes=-0", 20).isEmpty());
+  }
+
+  private void reset() {
+    request = new MockRequest("GET", "/files");
+    response = new MockResponse();
+  }
+
+  private HttpResponse render() {
+    HttpServletRequest servletRequest = request.get();
+    HttpResponse httpResponse = new HttpResponse(response.get(), servletRequest);
+    new FileRender().render(new HttpRequest(servletRequest, null), httpResponse, file);
+    return httpResponse;
+  }
+}
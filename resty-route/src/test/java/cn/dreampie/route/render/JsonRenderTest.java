@@ -0,0 +1,41 @@
+package cn.dreampie.route.render;
+
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.route.mock.MockResponse;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonRenderTest {
+
+  private final MockResponse response = new MockResponse();
+
+  @Test
+  public void testIterator() throws Exception {
+    new JsonRender().render(null, response(), rows());
+    assertEquals("[{\"id\":1},{\"id\":2}]", response.getBodyString());
+  }
+
+  @Test
+  public void testNdjson() throws Exception {
+    new NdjsonRender().render(null, response(), rows());
+    assertEquals("{\"id\":1}\n{\"id\":2}\n", response.getBodyString());
+  }
+
+  private Iterator<Map<String, Object>> rows() {
+    Map<String, Object> one = new HashMap<String, Object>();
+    one.put("id", 1);
+    Map<String, Object> two = new HashMap<String, Object>();
+    two.put("id", 2);
+    return Arrays.asList(one, two).iterator();
+  }
+
+  private HttpResponse response() {
+    return new HttpResponse(response.get(), null);
+  }
+}
@@ -3,6 +3,7 @@ package cn.dreampie.security;
 import cn.dreampie.common.http.exception.WebException;
 import cn.dreampie.common.http.result.HttpStatus;
 import cn.dreampie.common.util.matcher.AntPathMatcher;
+import cn.dreampie.common.util.scope.ContextLocal;
 import cn.dreampie.log.Logger;
 import cn.dreampie.security.credential.Credential;
 import cn.dreampie.security.credential.Credentials;
@@ -19,7 +20,7 @@ import static cn.dreampie.common.util.Checker.checkNotNull;
 public class Subject {
   private static final Logger logger = Logger.getLogger(Subject.class);
 
-  private static final ThreadLocal<Session> sessionTL = new ThreadLocal<Session>();
+  private static final ContextLocal<Session> sessionTL = new ContextLocal<Session>();
   private static Credentials credentials;
   private static PasswordService passwordService;
   private static int rememberDay;
@@ -123,6 +124,19 @@ public class Subject {
     }
   }
 
+  /**
+   * 当前登录的用户名 不查询用户信息
+   *
+   * @return 没有session或者未登录时返回null
+   */
+  public static String getUsername() {
+    Session session = current();
+    if (session == null || session.getUsername() == null || session.getUsername().startsWith(SessionBuilder.ANONYMOUS)) {
+      return null;
+    }
+    return session.getUsername();
+  }
+
   public static Map<String, String> getValues() {
     return current().getValues();
   }
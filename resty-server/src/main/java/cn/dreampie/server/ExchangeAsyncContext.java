@@ -0,0 +1,146 @@
+package cn.dreampie.server;
+
+import cn.dreampie.log.Logger;
+
+import javax.servlet.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 异步请求的上下文 complete时结束响应, 超时时通知listener
+ */
+final class ExchangeAsyncContext implements AsyncContext {
+
+  private static final Logger logger = Logger.getLogger(ExchangeAsyncContext.class);
+  private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "resty-server-timer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  static {
+    timer.setRemoveOnCancelPolicy(true);
+  }
+
+  private final ServletRequest request;
+  private final ServletResponse response;
+  private final ExchangeResponse exchangeResponse;
+  private final List<AsyncListener> listeners = new CopyOnWriteArrayList<AsyncListener>();
+  private final AtomicBoolean completed = new AtomicBoolean(false);
+  private long timeout = 30000;
+  private ScheduledFuture<?> timeoutFuture;
+
+  ExchangeAsyncContext(ServletRequest request, ServletResponse response, ExchangeResponse exchangeResponse) {
+    this.request = request;
+    this.response = response;
+    this.exchangeResponse = exchangeResponse;
+  }
+
+  boolean isCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * 请求线程返回后开始计算超时
+   */
+  synchronized void schedule() {
+    if (timeout > 0 && !isCompleted() && timeoutFuture == null) {
+      timeoutFuture = timer.schedule(new Runnable() {
+        public void run() {
+          timeout();
+        }
+      }, timeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void timeout() {
+    for (AsyncListener listener : listeners) {
+      try {
+        listener.onTimeout(new AsyncEvent(this, request, response));
+      } catch (IOException e) {
+        logger.warn("Async listener error.", e);
+      }
+    }
+    //listener没有结束请求时直接结束
+    complete();
+  }
+
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  public boolean hasOriginalRequestAndResponse() {
+    return true;
+  }
+
+  public void dispatch() {
+    throw new UnsupportedOperationException("Embedded server does not support dispatch.");
+  }
+
+  public void dispatch(String path) {
+    dispatch();
+  }
+
+  public void dispatch(ServletContext context, String path) {
+    dispatch();
+  }
+
+  public void complete() {
+    if (!completed.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (this) {
+      if (timeoutFuture != null) {
+        timeoutFuture.cancel(false);
+      }
+    }
+    try {
+      for (AsyncListener listener : listeners) {
+        try {
+          listener.onComplete(new AsyncEvent(this, request, response));
+        } catch (IOException e) {
+          logger.warn("Async listener error.", e);
+        }
+      }
+    } finally {
+      exchangeResponse.finish();
+    }
+  }
+
+  public void start(Runnable run) {
+    ForkJoinPool.commonPool().execute(run);
+  }
+
+  public void addListener(AsyncListener listener) {
+    listeners.add(listener);
+  }
+
+  public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+    addListener(listener);
+  }
+
+  public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+    try {
+      return clazz.newInstance();
+    } catch (Exception e) {
+      throw new ServletException(e.getMessage(), e);
+    }
+  }
+
+  public synchronized void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  public synchronized long getTimeout() {
+    return timeout;
+  }
+}
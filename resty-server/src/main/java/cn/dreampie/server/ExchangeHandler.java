@@ -0,0 +1,77 @@
+package cn.dreampie.server;
+
+import cn.dreampie.common.http.HttpRequest;
+import cn.dreampie.common.http.HttpResponse;
+import cn.dreampie.common.util.scope.ScopedContext;
+import cn.dreampie.log.Logger;
+import cn.dreampie.route.handler.Handler;
+import cn.dreampie.route.holder.ExceptionHolder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 和RestyFilter一样执行一个请求 没有匹配的请求返回404
+ */
+final class ExchangeHandler implements HttpHandler {
+
+  private static final Logger logger = Logger.getLogger(ExchangeHandler.class);
+
+  private final Handler handler;
+  private final ServletContext servletContext;
+  private final String encoding;
+  private final int bufferSize;
+
+  ExchangeHandler(Handler handler, ServletContext servletContext, String encoding, int bufferSize) {
+    this.handler = handler;
+    this.servletContext = servletContext;
+    this.encoding = encoding;
+    this.bufferSize = bufferSize;
+  }
+
+  public void handle(HttpExchange exchange) throws IOException {
+    ExchangeRequest servletRequest = new ExchangeRequest(exchange, servletContext);
+    ExchangeResponse servletResponse = new ExchangeResponse(exchange, bufferSize);
+    servletRequest.setResponse(servletResponse);
+    servletRequest.setCharacterEncoding(encoding);
+    servletResponse.setCharacterEncoding(encoding);
+    HttpRequest request = new HttpRequest(servletRequest, servletContext);
+    HttpResponse response = new HttpResponse(servletResponse, servletRequest);
+
+    boolean[] isHandled = {false};
+    ScopedContext context = ScopedContext.enter();
+    try {
+      handler.handle(request, response, isHandled);
+    } catch (Exception e) {
+      try {
+        ExceptionHolder.HOLDER.hold(request, response, e, isHandled);
+      } catch (Exception holdException) {
+        logger.error("Could not hold exception.", holdException);
+        if (!servletResponse.isCommitted()) {
+          servletResponse.reset();
+          servletResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+      }
+    } finally {
+      ScopedContext.exit(context);
+    }
+    //异步请求由执行线程结束
+    ExchangeAsyncContext asyncContext = servletRequest.getExchangeAsyncContext();
+    if (asyncContext != null && !asyncContext.isCompleted()) {
+      asyncContext.schedule();
+      return;
+    }
+    if (!isHandled[0] && !servletResponse.isCommitted()) {
+      servletResponse.reset();
+      servletResponse.setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+    try {
+      response.close();
+    } finally {
+      servletResponse.finish();
+    }
+  }
+}
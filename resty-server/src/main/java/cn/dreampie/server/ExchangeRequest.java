@@ -0,0 +1,511 @@
+package cn.dreampie.server;
+
+import cn.dreampie.common.http.ContentType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsExchange;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.Principal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * HttpExchange实现的HttpServletRequest 只实现resty用到的部分, session、认证等容器功能不支持
+ */
+final class ExchangeRequest implements HttpServletRequest {
+
+  private final HttpExchange exchange;
+  private final ServletContext servletContext;
+  private final String contextPath;
+  private final Map<String, Object> attributes = new HashMap<String, Object>();
+  private String characterEncoding;
+  private Map<String, String[]> parameters;
+  private Cookie[] cookies;
+  private ServletInputStream inputStream;
+  private BufferedReader reader;
+  private ExchangeResponse response;
+  private ExchangeAsyncContext asyncContext;
+
+  ExchangeRequest(HttpExchange exchange, ServletContext servletContext) {
+    this.exchange = exchange;
+    this.servletContext = servletContext;
+    this.contextPath = servletContext.getContextPath();
+  }
+
+  void setResponse(ExchangeResponse response) {
+    this.response = response;
+  }
+
+  ExchangeAsyncContext getExchangeAsyncContext() {
+    return asyncContext;
+  }
+
+  public String getMethod() {
+    return exchange.getRequestMethod();
+  }
+
+  public String getRequestURI() {
+    return exchange.getRequestURI().getRawPath();
+  }
+
+  public StringBuffer getRequestURL() {
+    StringBuffer url = new StringBuffer();
+    url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(getRequestURI());
+    return url;
+  }
+
+  public String getContextPath() {
+    return contextPath;
+  }
+
+  public String getServletPath() {
+    return getRequestURI().substring(contextPath.length());
+  }
+
+  public String getPathInfo() {
+    return null;
+  }
+
+  public String getPathTranslated() {
+    return null;
+  }
+
+  public String getQueryString() {
+    return exchange.getRequestURI().getRawQuery();
+  }
+
+  public String getHeader(String name) {
+    return exchange.getRequestHeaders().getFirst(name);
+  }
+
+  public Enumeration<String> getHeaders(String name) {
+    List<String> values = exchange.getRequestHeaders().get(name);
+    return Collections.enumeration(values == null ? Collections.<String>emptyList() : values);
+  }
+
+  public Enumeration<String> getHeaderNames() {
+    return Collections.enumeration(exchange.getRequestHeaders().keySet());
+  }
+
+  public long getDateHeader(String name) {
+    String value = getHeader(name);
+    if (value == null) {
+      return -1;
+    }
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return format.parse(value).getTime();
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid date header '" + name + "': " + value);
+    }
+  }
+
+  public int getIntHeader(String name) {
+    String value = getHeader(name);
+    return value == null ? -1 : Integer.parseInt(value);
+  }
+
+  public Cookie[] getCookies() {
+    if (cookies == null) {
+      List<Cookie> cookieList = new ArrayList<Cookie>();
+      List<String> values = exchange.getRequestHeaders().get("Cookie");
+      if (values != null) {
+        int index;
+        String name;
+        for (String value : values) {
+          for (String pair : value.split(";")) {
+            index = pair.indexOf('=');
+            if (index > 0) {
+              name = pair.substring(0, index).trim();
+              if (name.length() > 0 && !name.startsWith("$")) {
+                cookieList.add(new Cookie(name, unquote(pair.substring(index + 1).trim())));
+              }
+            }
+          }
+        }
+      }
+      cookies = cookieList.toArray(new Cookie[cookieList.size()]);
+    }
+    return cookies.length == 0 ? null : cookies;
+  }
+
+  private static String unquote(String value) {
+    if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+
+  public String getContentType() {
+    return getHeader("Content-Type");
+  }
+
+  public int getContentLength() {
+    long length = getContentLengthLong();
+    return length > Integer.MAX_VALUE ? -1 : (int) length;
+  }
+
+  public long getContentLengthLong() {
+    String value = getHeader("Content-Length");
+    return value == null ? -1 : Long.parseLong(value.trim());
+  }
+
+  public String getCharacterEncoding() {
+    if (characterEncoding == null) {
+      String contentType = getContentType();
+      if (contentType != null) {
+        int index = contentType.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+        if (index >= 0) {
+          characterEncoding = contentType.substring(index + "charset=".length()).trim();
+        }
+      }
+    }
+    return characterEncoding;
+  }
+
+  public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+    if (reader == null && parameters == null) {
+      characterEncoding = env;
+    }
+  }
+
+  public ServletInputStream getInputStream() throws IOException {
+    if (inputStream == null) {
+      final InputStream in = exchange.getRequestBody();
+      inputStream = new ServletInputStream() {
+        private boolean finished;
+
+        public boolean isFinished() {
+          return finished;
+        }
+
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException("Embedded server does not support non-blocking input.");
+        }
+
+        public int read() throws IOException {
+          int b = in.read();
+          finished = b < 0;
+          return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+          int n = in.read(b, off, len);
+          finished = n < 0;
+          return n;
+        }
+
+        public int available() throws IOException {
+          return in.available();
+        }
+      };
+    }
+    return inputStream;
+  }
+
+  public BufferedReader getReader() throws IOException {
+    if (reader == null) {
+      String encoding = getCharacterEncoding();
+      reader = new BufferedReader(new InputStreamReader(getInputStream(), encoding == null ? "ISO-8859-1" : encoding));
+    }
+    return reader;
+  }
+
+  /**
+   * 查询参数和表单参数 表单参数在第一次读取参数时从请求体解析
+   */
+  private Map<String, String[]> parameters() {
+    if (parameters == null) {
+      Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+      String encoding = getCharacterEncoding() == null ? "UTF-8" : getCharacterEncoding();
+      try {
+        parse(values, getQueryString(), encoding);
+        String contentType = getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ENGLISH).startsWith(ContentType.FORM) && reader == null) {
+          ByteArrayOutputStream body = new ByteArrayOutputStream();
+          InputStream in = getInputStream();
+          byte[] buffer = new byte[4096];
+          int n;
+          while ((n = in.read(buffer)) != -1) {
+            body.write(buffer, 0, n);
+          }
+          parse(values, body.toString(encoding), encoding);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not read request parameters.", e);
+      }
+      Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+      for (Map.Entry<String, List<String>> value : values.entrySet()) {
+        params.put(value.getKey(), value.getValue().toArray(new String[value.getValue().size()]));
+      }
+      parameters = Collections.unmodifiableMap(params);
+    }
+    return parameters;
+  }
+
+  private static void parse(Map<String, List<String>> values, String query, String encoding) throws UnsupportedEncodingException {
+    if (query == null || query.length() == 0) {
+      return;
+    }
+    int index;
+    String name;
+    List<String> list;
+    for (String pair : query.split("&")) {
+      if (pair.length() == 0) {
+        continue;
+      }
+      index = pair.indexOf('=');
+      name = URLDecoder.decode(index >= 0 ? pair.substring(0, index) : pair, encoding);
+      list = values.get(name);
+      if (list == null) {
+        list = new ArrayList<String>(1);
+        values.put(name, list);
+      }
+      list.add(index >= 0 ? URLDecoder.decode(pair.substring(index + 1), encoding) : "");
+    }
+  }
+
+  public String getParameter(String name) {
+    String[] values = parameters().get(name);
+    return values == null || values.length == 0 ? null : values[0];
+  }
+
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters().keySet());
+  }
+
+  public String[] getParameterValues(String name) {
+    return parameters().get(name);
+  }
+
+  public Map<String, String[]> getParameterMap() {
+    return parameters();
+  }
+
+  public String getProtocol() {
+    return exchange.getProtocol();
+  }
+
+  public String getScheme() {
+    return exchange instanceof HttpsExchange ? "https" : "http";
+  }
+
+  public String getServerName() {
+    String host = getHeader("Host");
+    if (host != null) {
+      int index = host.lastIndexOf(':');
+      return index > 0 && host.indexOf(']') < index ? host.substring(0, index) : host;
+    }
+    return getLocalName();
+  }
+
+  public int getServerPort() {
+    String host = getHeader("Host");
+    if (host != null) {
+      int index = host.lastIndexOf(':');
+      if (index > 0 && host.indexOf(']') < index) {
+        return Integer.parseInt(host.substring(index + 1));
+      }
+      return isSecure() ? 443 : 80;
+    }
+    return getLocalPort();
+  }
+
+  public String getRemoteAddr() {
+    InetSocketAddress address = exchange.getRemoteAddress();
+    return address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+  }
+
+  public String getRemoteHost() {
+    return getRemoteAddr();
+  }
+
+  public int getRemotePort() {
+    return exchange.getRemoteAddress().getPort();
+  }
+
+  public String getLocalName() {
+    return exchange.getLocalAddress().getHostString();
+  }
+
+  public String getLocalAddr() {
+    InetSocketAddress address = exchange.getLocalAddress();
+    return address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+  }
+
+  public int getLocalPort() {
+    return exchange.getLocalAddress().getPort();
+  }
+
+  public boolean isSecure() {
+    return exchange instanceof HttpsExchange;
+  }
+
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(attributes.keySet());
+  }
+
+  public void setAttribute(String name, Object o) {
+    if (o == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, o);
+    }
+  }
+
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  public Locale getLocale() {
+    return getLocales().nextElement();
+  }
+
+  public Enumeration<Locale> getLocales() {
+    List<Locale> locales = new ArrayList<Locale>();
+    String acceptLanguage = getHeader("Accept-Language");
+    if (acceptLanguage != null) {
+      String tag;
+      for (String language : acceptLanguage.split(",")) {
+        tag = language.split(";")[0].trim();
+        if (tag.length() > 0 && !tag.equals("*")) {
+          locales.add(Locale.forLanguageTag(tag));
+        }
+      }
+    }
+    if (locales.isEmpty()) {
+      locales.add(Locale.getDefault());
+    }
+    return Collections.enumeration(locales);
+  }
+
+  public RequestDispatcher getRequestDispatcher(String path) {
+    return null;
+  }
+
+  public String getRealPath(String path) {
+    return servletContext.getRealPath(path);
+  }
+
+  public ServletContext getServletContext() {
+    return servletContext;
+  }
+
+  public AsyncContext startAsync() throws IllegalStateException {
+    return startAsync(this, response);
+  }
+
+  public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) throws IllegalStateException {
+    if (asyncContext == null) {
+      asyncContext = new ExchangeAsyncContext(servletRequest, servletResponse, response);
+    }
+    return asyncContext;
+  }
+
+  public boolean isAsyncStarted() {
+    return asyncContext != null && !asyncContext.isCompleted();
+  }
+
+  public boolean isAsyncSupported() {
+    return true;
+  }
+
+  public AsyncContext getAsyncContext() {
+    if (asyncContext == null) {
+      throw new IllegalStateException("Async is not started.");
+    }
+    return asyncContext;
+  }
+
+  public DispatcherType getDispatcherType() {
+    return asyncContext != null ? DispatcherType.ASYNC : DispatcherType.REQUEST;
+  }
+
+  public String getAuthType() {
+    return null;
+  }
+
+  public String getRemoteUser() {
+    return null;
+  }
+
+  public boolean isUserInRole(String role) {
+    return false;
+  }
+
+  public Principal getUserPrincipal() {
+    return exchange.getPrincipal();
+  }
+
+  public String getRequestedSessionId() {
+    return null;
+  }
+
+  public HttpSession getSession(boolean create) {
+    if (create) {
+      throw new UnsupportedOperationException("Embedded server does not support http session.");
+    }
+    return null;
+  }
+
+  public HttpSession getSession() {
+    return getSession(true);
+  }
+
+  public String changeSessionId() {
+    throw new IllegalStateException("Embedded server does not support http session.");
+  }
+
+  public boolean isRequestedSessionIdValid() {
+    return false;
+  }
+
+  public boolean isRequestedSessionIdFromCookie() {
+    return false;
+  }
+
+  public boolean isRequestedSessionIdFromURL() {
+    return false;
+  }
+
+  public boolean isRequestedSessionIdFromUrl() {
+    return false;
+  }
+
+  public boolean authenticate(HttpServletResponse response) throws IOException, ServletException {
+    throw new ServletException("Embedded server does not support container authentication.");
+  }
+
+  public void login(String username, String password) throws ServletException {
+    throw new ServletException("Embedded server does not support container authentication.");
+  }
+
+  public void logout() throws ServletException {
+  }
+
+  public Collection<Part> getParts() throws IOException, ServletException {
+    throw new ServletException("Embedded server does not support servlet multipart, use resty-upload.");
+  }
+
+  public Part getPart(String name) throws IOException, ServletException {
+    return getParts().iterator().next();
+  }
+
+  public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) throws IOException, ServletException {
+    throw new ServletException("Embedded server does not support protocol upgrade.");
+  }
+}
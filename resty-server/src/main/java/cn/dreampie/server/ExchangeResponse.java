@@ -0,0 +1,408 @@
+package cn.dreampie.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * HttpExchange实现的HttpServletResponse
+ * 内容先写入缓冲区, 结束时没有超过缓冲区的响应使用Content-Length输出, 否则使用chunked
+ */
+final class ExchangeResponse implements HttpServletResponse {
+
+  private final HttpExchange exchange;
+  private final Headers headers;
+  private final boolean head;
+  private byte[] buffer;
+  private int count;
+  private int status = SC_OK;
+  private long contentLength = -1;
+  private String contentType;
+  private String characterEncoding;
+  private Locale locale = Locale.getDefault();
+  private OutputStream body;
+  private boolean committed;
+  private boolean finished;
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+
+  ExchangeResponse(HttpExchange exchange, int bufferSize) {
+    this.exchange = exchange;
+    this.headers = exchange.getResponseHeaders();
+    this.head = exchange.getRequestMethod().equals("HEAD");
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * 输出缓冲的内容并结束响应 连接由服务器保持用于下一个请求
+   */
+  synchronized void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    try {
+      if (writer != null) {
+        writer.flush();
+      }
+      if (!committed) {
+        commit(count);
+      }
+      flushBuffer0();
+      if (body != null) {
+        body.close();
+      }
+    } catch (IOException e) {
+      //客户端已经断开
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * 发送响应头
+   *
+   * @param length 内容的长度 未知时小于0
+   */
+  private void commit(long length) throws IOException {
+    committed = true;
+    if (contentLength >= 0) {
+      length = contentLength;
+    }
+    long sendLength;
+    if (head || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || length == 0) {
+      sendLength = -1;
+    } else {
+      sendLength = length < 0 ? 0 : length;
+    }
+    exchange.sendResponseHeaders(status, sendLength);
+    if (sendLength >= 0) {
+      body = exchange.getResponseBody();
+    }
+  }
+
+  private void flushBuffer0() throws IOException {
+    if (count > 0) {
+      if (body != null) {
+        body.write(buffer, 0, count);
+      }
+      count = 0;
+    }
+  }
+
+  private void write(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("Response is finished.");
+    }
+    if (!committed && count + len <= buffer.length) {
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+      return;
+    }
+    if (!committed) {
+      commit(-1);
+    }
+    flushBuffer0();
+    if (body != null) {
+      body.write(b, off, len);
+    }
+  }
+
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (outputStream == null) {
+      outputStream = new ServletOutputStream() {
+        private final byte[] one = new byte[1];
+
+        public boolean isReady() {
+          return true;
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException("Embedded server does not support non-blocking output.");
+        }
+
+        public void write(int b) throws IOException {
+          one[0] = (byte) b;
+          ExchangeResponse.this.write(one, 0, 1);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+          ExchangeResponse.this.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+          flushBuffer();
+        }
+
+        public void close() throws IOException {
+          finish();
+        }
+      };
+    }
+    return outputStream;
+  }
+
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  public void flushBuffer() throws IOException {
+    if (!committed) {
+      commit(-1);
+    }
+    flushBuffer0();
+    if (body != null) {
+      body.flush();
+    }
+  }
+
+  public void setBufferSize(int size) {
+    if (count > 0 || committed) {
+      throw new IllegalStateException("Could not set buffer size after write.");
+    }
+    buffer = new byte[size];
+  }
+
+  public int getBufferSize() {
+    return buffer.length;
+  }
+
+  public void resetBuffer() {
+    if (committed) {
+      throw new IllegalStateException("Response is committed.");
+    }
+    count = 0;
+  }
+
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  public void reset() {
+    resetBuffer();
+    headers.clear();
+    status = SC_OK;
+    contentLength = -1;
+    contentType = null;
+  }
+
+  public String getCharacterEncoding() {
+    return characterEncoding != null ? characterEncoding : "ISO-8859-1";
+  }
+
+  public void setCharacterEncoding(String charset) {
+    if (writer == null && !committed) {
+      characterEncoding = charset;
+      if (contentType != null) {
+        setContentType(contentType);
+      }
+    }
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void setContentType(String type) {
+    if (committed) {
+      return;
+    }
+    if (type == null) {
+      contentType = null;
+      headers.remove("Content-Type");
+      return;
+    }
+    int index = type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+    if (index >= 0) {
+      if (writer == null) {
+        characterEncoding = type.substring(index + "charset=".length()).trim();
+      }
+      contentType = type;
+    } else if (characterEncoding != null && type.startsWith("text/")) {
+      contentType = type + ";charset=" + characterEncoding;
+    } else {
+      contentType = type;
+    }
+    headers.set("Content-Type", contentType);
+  }
+
+  public void setContentLength(int len) {
+    setContentLengthLong(len);
+  }
+
+  public void setContentLengthLong(long len) {
+    if (!committed) {
+      contentLength = len;
+    }
+  }
+
+  public void setLocale(Locale loc) {
+    locale = loc;
+  }
+
+  public Locale getLocale() {
+    return locale;
+  }
+
+  public void addCookie(Cookie cookie) {
+    StringBuilder value = new StringBuilder();
+    value.append(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+    if (cookie.getPath() != null) {
+      value.append("; Path=").append(cookie.getPath());
+    }
+    if (cookie.getDomain() != null) {
+      value.append("; Domain=").append(cookie.getDomain());
+    }
+    if (cookie.getMaxAge() >= 0) {
+      value.append("; Max-Age=").append(cookie.getMaxAge());
+      value.append("; Expires=").append(formatDate(System.currentTimeMillis() + cookie.getMaxAge() * 1000L));
+    }
+    if (cookie.getSecure()) {
+      value.append("; Secure");
+    }
+    if (cookie.isHttpOnly()) {
+      value.append("; HttpOnly");
+    }
+    addHeader("Set-Cookie", value.toString());
+  }
+
+  public boolean containsHeader(String name) {
+    return name.equalsIgnoreCase("Content-Length") ? contentLength >= 0 : headers.containsKey(name);
+  }
+
+  public String encodeURL(String url) {
+    return url;
+  }
+
+  public String encodeRedirectURL(String url) {
+    return url;
+  }
+
+  public String encodeUrl(String url) {
+    return url;
+  }
+
+  public String encodeRedirectUrl(String url) {
+    return url;
+  }
+
+  public void sendError(int sc, String msg) throws IOException {
+    if (committed) {
+      throw new IllegalStateException("Response is committed.");
+    }
+    status = sc;
+    resetBuffer();
+    if (msg != null) {
+      setContentType("text/plain;charset=UTF-8");
+      byte[] bytes = msg.getBytes("UTF-8");
+      write(bytes, 0, bytes.length);
+    }
+    finish();
+  }
+
+  public void sendError(int sc) throws IOException {
+    sendError(sc, null);
+  }
+
+  public void sendRedirect(String location) throws IOException {
+    if (committed) {
+      throw new IllegalStateException("Response is committed.");
+    }
+    status = SC_FOUND;
+    resetBuffer();
+    headers.set("Location", location);
+    finish();
+  }
+
+  public void setDateHeader(String name, long date) {
+    setHeader(name, formatDate(date));
+  }
+
+  public void addDateHeader(String name, long date) {
+    addHeader(name, formatDate(date));
+  }
+
+  private static String formatDate(long date) {
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format.format(new Date(date));
+  }
+
+  public void setHeader(String name, String value) {
+    if (committed) {
+      return;
+    }
+    //Content-Length和Content-Type由服务器输出
+    if (name.equalsIgnoreCase("Content-Length")) {
+      setContentLengthLong(value == null ? -1 : Long.parseLong(value.trim()));
+    } else if (name.equalsIgnoreCase("Content-Type")) {
+      setContentType(value);
+    } else if (value == null) {
+      headers.remove(name);
+    } else {
+      headers.set(name, value);
+    }
+  }
+
+  public void addHeader(String name, String value) {
+    if (committed) {
+      return;
+    }
+    if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Content-Type")) {
+      setHeader(name, value);
+    } else {
+      headers.add(name, value);
+    }
+  }
+
+  public void setIntHeader(String name, int value) {
+    setHeader(name, String.valueOf(value));
+  }
+
+  public void addIntHeader(String name, int value) {
+    addHeader(name, String.valueOf(value));
+  }
+
+  public void setStatus(int sc) {
+    if (!committed) {
+      status = sc;
+    }
+  }
+
+  public void setStatus(int sc, String sm) {
+    setStatus(sc);
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public String getHeader(String name) {
+    if (name.equalsIgnoreCase("Content-Length")) {
+      return contentLength >= 0 ? String.valueOf(contentLength) : null;
+    }
+    return headers.getFirst(name);
+  }
+
+  public Collection<String> getHeaders(String name) {
+    List<String> values = headers.get(name);
+    return values == null ? Collections.<String>emptyList() : new ArrayList<String>(values);
+  }
+
+  public Collection<String> getHeaderNames() {
+    return new ArrayList<String>(headers.keySet());
+  }
+}
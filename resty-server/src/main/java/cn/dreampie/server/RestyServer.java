@@ -0,0 +1,258 @@
+package cn.dreampie.server;
+
+import cn.dreampie.common.Constant;
+import cn.dreampie.log.Logger;
+import cn.dreampie.route.RestyIniter;
+import cn.dreampie.route.config.Config;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cn.dreampie.common.util.Checker.checkArgument;
+import static cn.dreampie.common.util.Checker.checkNotNull;
+
+/**
+ * 不需要servlet容器的嵌入式服务器 使用jdk的HttpServer(nio selector + worker线程池), 支持keep-alive和pipelining
+ * <pre>
+ * RestyServer server = new RestyServer(new AppConfig()).port(8080).start();
+ * server.stop();
+ * </pre>
+ */
+public final class RestyServer {
+
+  private static final Logger logger = Logger.getLogger(RestyServer.class);
+
+  private final Config config;
+  private String host;
+  private int port = 8080;
+  private String contextPath = "";
+  private String webRoot = ".";
+  private int threads = 200;
+  private int backlog = 0;
+  private int bufferSize = 8 * 1024;
+  private ExecutorService executor;
+  private HttpServer httpServer;
+  private RestyIniter restyIniter;
+
+  public RestyServer(Config config) {
+    this.config = checkNotNull(config, "Config could not be null.");
+  }
+
+  /**
+   * @param host 监听的地址 默认所有地址
+   * @return RestyServer
+   */
+  public RestyServer host(String host) {
+    this.host = host;
+    return this;
+  }
+
+  /**
+   * @param port 端口 0时随机选择一个端口
+   * @return RestyServer
+   */
+  public RestyServer port(int port) {
+    checkArgument(port >= 0, "Port must not be negative.");
+    this.port = port;
+    return this;
+  }
+
+  /**
+   * @param contextPath 访问路径的前缀 eg. /app
+   * @return RestyServer
+   */
+  public RestyServer contextPath(String contextPath) {
+    checkNotNull(contextPath, "Context path could not be null.");
+    this.contextPath = contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+    return this;
+  }
+
+  /**
+   * @param webRoot getRealPath使用的根目录
+   * @return RestyServer
+   */
+  public RestyServer webRoot(String webRoot) {
+    this.webRoot = checkNotNull(webRoot, "Web root could not be null.");
+    return this;
+  }
+
+  /**
+   * @param threads worker线程数
+   * @return RestyServer
+   */
+  public RestyServer threads(int threads) {
+    checkArgument(threads > 0, "Threads must be greater than 0.");
+    this.threads = threads;
+    return this;
+  }
+
+  /**
+   * @param backlog 等待accept的连接数 0使用系统默认值
+   * @return RestyServer
+   */
+  public RestyServer backlog(int backlog) {
+    this.backlog = backlog;
+    return this;
+  }
+
+  /**
+   * @param bufferSize 响应的缓冲区大小 不超过缓冲区的响应使用Content-Length输出
+   * @return RestyServer
+   */
+  public RestyServer bufferSize(int bufferSize) {
+    checkArgument(bufferSize > 0, "Buffer size must be greater than 0.");
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  /**
+   * @param executor 执行请求的executor 默认为固定线程数的线程池
+   * @return RestyServer
+   */
+  public RestyServer executor(ExecutorService executor) {
+    this.executor = checkNotNull(executor, "Executor could not be null.");
+    return this;
+  }
+
+  /**
+   * 启动服务器
+   *
+   * @return RestyServer
+   * @throws IOException 端口不可用
+   */
+  public synchronized RestyServer start() throws IOException {
+    if (httpServer != null) {
+      throw new IllegalStateException("Server is already started.");
+    }
+    long begin = System.currentTimeMillis();
+    InetSocketAddress address = host == null ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+    HttpServer server = HttpServer.create(address, backlog);
+    ServletContext servletContext = newServletContext(contextPath, webRoot);
+    restyIniter = new RestyIniter(config, servletContext);
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+          return new Thread(runnable, "resty-server-" + count.incrementAndGet());
+        }
+      });
+    }
+    server.setExecutor(executor);
+    server.createContext(contextPath.length() == 0 ? "/" : contextPath,
+        new ExchangeHandler(restyIniter.getHandler(), servletContext, Constant.encoding, bufferSize));
+    server.start();
+    httpServer = server;
+    logger.info("Resty server started on port " + getPort() + " in " + (System.currentTimeMillis() - begin) + "ms.");
+    return this;
+  }
+
+  /**
+   * 停止服务器 等待正在执行的请求最多delay秒
+   *
+   * @param delay 秒
+   */
+  public synchronized void stop(int delay) {
+    if (httpServer == null) {
+      return;
+    }
+    httpServer.stop(delay);
+    httpServer = null;
+    executor.shutdown();
+    try {
+      executor.awaitTermination(delay, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      restyIniter.stop();
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+    }
+  }
+
+  public void stop() {
+    stop(0);
+  }
+
+  /**
+   * @return 实际监听的端口
+   */
+  public int getPort() {
+    return httpServer == null ? port : httpServer.getAddress().getPort();
+  }
+
+  /**
+   * 嵌入式服务器的ServletContext 只支持路径、属性和mime类型
+   */
+  private static ServletContext newServletContext(final String contextPath, final String webRoot) {
+    final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+    return (ServletContext) Proxy.newProxyInstance(ServletContext.class.getClassLoader(), new Class[]{ServletContext.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("getContextPath")) {
+          return contextPath;
+        } else if (name.equals("getRealPath")) {
+          return new File(webRoot, (String) args[0]).getAbsolutePath();
+        } else if (name.equals("getMimeType")) {
+          return URLConnection.guessContentTypeFromName((String) args[0]);
+        } else if (name.equals("getAttribute")) {
+          return attributes.get(args[0]);
+        } else if (name.equals("getAttributeNames")) {
+          return Collections.enumeration(attributes.keySet());
+        } else if (name.equals("setAttribute")) {
+          if (args[1] == null) {
+            attributes.remove(args[0]);
+          } else {
+            attributes.put((String) args[0], args[1]);
+          }
+          return null;
+        } else if (name.equals("removeAttribute")) {
+          attributes.remove(args[0]);
+          return null;
+        } else if (name.equals("getServerInfo")) {
+          return "resty-server";
+        } else if (name.equals("getMajorVersion")) {
+          return 3;
+        } else if (name.equals("getMinorVersion")) {
+          return 1;
+        } else if (name.equals("getInitParameterNames")) {
+          return Collections.enumeration(Collections.<String>emptyList());
+        } else if (name.equals("log")) {
+          if (args.length > 1 && args[1] instanceof Throwable) {
+            logger.info((String) args[0], (Throwable) args[1]);
+          } else {
+            logger.info(String.valueOf(args[args.length - 1]));
+          }
+          return null;
+        } else if (name.equals("hashCode")) {
+          return System.identityHashCode(proxy);
+        } else if (name.equals("equals")) {
+          return proxy == args[0];
+        } else if (name.equals("toString")) {
+          return "ServletContext(" + contextPath + ")";
+        } else if (method.getReturnType() == int.class) {
+          return 0;
+        } else if (method.getReturnType() == boolean.class) {
+          return false;
+        }
+        return null;
+      }
+    });
+  }
+}
@@ -0,0 +1,118 @@
+package cn.dreampie.server;
+
+import cn.dreampie.route.config.Config;
+import cn.dreampie.route.config.ResourceLoader;
+import cn.dreampie.route.core.Resource;
+import cn.dreampie.route.core.annotation.API;
+import cn.dreampie.route.core.annotation.GET;
+import cn.dreampie.route.core.annotation.POST;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RestyServerTest {
+
+  private RestyServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new RestyServer(new Config() {
+      public void configResource(ResourceLoader resourceLoader) {
+        resourceLoader.add(ServerResource.class);
+      }
+    }).port(0).threads(4).start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    HttpURLConnection connection = open("/servers/hello/resty?times=2");
+    assertEquals(200, connection.getResponseCode());
+    assertTrue(connection.getContentType().startsWith("application/json"));
+    String body = read(connection);
+    assertEquals("\"hello resty resty\"", body);
+    assertEquals(body.length(), connection.getContentLength());
+    //keep-alive的连接上再请求一次
+    connection = open("/servers/hello/keep?times=1");
+    assertEquals("\"hello keep\"", read(connection));
+  }
+
+  @Test
+  public void testPost() throws Exception {
+    HttpURLConnection connection = open("/servers/echo");
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setRequestProperty("Content-Type", "application/json");
+    OutputStream out = connection.getOutputStream();
+    out.write("{\"name\":\"server\"}".getBytes("UTF-8"));
+    out.close();
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("{\"name\":\"server\"}", read(connection));
+  }
+
+  @Test
+  public void testForm() throws Exception {
+    HttpURLConnection connection = open("/servers/echo");
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+    OutputStream out = connection.getOutputStream();
+    out.write("name=%E4%B8%AD%E6%96%87".getBytes("UTF-8"));
+    out.close();
+    assertEquals("{\"name\":\"中文\"}", read(connection));
+  }
+
+  @Test
+  public void testNotFound() throws Exception {
+    assertEquals(404, open("/").getResponseCode());
+  }
+
+  private HttpURLConnection open(String path) throws IOException {
+    return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+  }
+
+  private static String read(HttpURLConnection connection) throws IOException {
+    InputStream in = connection.getInputStream();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      out.write(buffer, 0, n);
+    }
+    in.close();
+    return out.toString("UTF-8");
+  }
+
+  @API("/servers")
+  public static class ServerResource extends Resource {
+    @GET("/hello/:name")
+    public String hello(String name, int times) {
+      StringBuilder hello = new StringBuilder("hello");
+      for (int i = 0; i < times; i++) {
+        hello.append(' ').append(name);
+      }
+      return hello.toString();
+    }
+
+    @POST("/echo")
+    public Map<String, String> echo(String name) {
+      return Collections.singletonMap("name", name);
+    }
+  }
+}